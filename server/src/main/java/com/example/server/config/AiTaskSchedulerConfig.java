@@ -0,0 +1,22 @@
+package com.example.server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * ⭐ Scheduler แยกสำหรับงาน AI (render PDF, อ่าน Excel, บันทึกผลหลัง Gemini ตอบ)
+ * จำกัดจำนวน thread และคิว เพื่อไม่ให้งาน upload ที่ช้าไปแย่ง thread ของ Tomcat จาก API อื่น
+ */
+@Configuration
+public class AiTaskSchedulerConfig {
+
+    @Bean(name = "aiTaskScheduler", destroyMethod = "dispose")
+    public Scheduler aiTaskScheduler(
+            @Value("${ai.task.thread-cap:8}") int threadCap,
+            @Value("${ai.task.queued-task-cap:100}") int queuedTaskCap) {
+        return Schedulers.newBoundedElastic(threadCap, queuedTaskCap, "ai-task");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.server.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ⭐ ขนาดและอายุของ cache แต่ละ region (prefix: app.cache)
+ * - กำหนดรายการ region ได้ที่ app.cache.regions.<region>.* เช่น
+ *   app.cache.regions.product-search.max-entries=500
+ * - region ที่ไม่มีในรายการใช้ค่าจาก app.cache.default-region.*
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.cache")
+public class ApplicationCacheProperties {
+
+    // false = ทุก region ไม่เก็บค่า (อ่านจาก DB ทุกครั้ง) ใช้ตอนไล่ปัญหาข้อมูลไม่ตรง
+    private boolean enabled = true;
+
+    private RegionSettings defaultRegion = new RegionSettings(100, 600);
+
+    private Map<String, RegionSettings> regions = new LinkedHashMap<>(Map.of(
+            "products", new RegionSettings(200, 600),
+            "product-search", new RegionSettings(500, 300),
+            "customers", new RegionSettings(20, 900),
+            "china-stocks", new RegionSettings(20, 600),
+            "stock-lots", new RegionSettings(20, 600)
+    ));
+
+    public RegionSettings settingsFor(String region) {
+        return regions.getOrDefault(region, defaultRegion);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RegionSettings {
+        // จำนวน key สูงสุด (เกินแล้วทิ้งตัวที่ใช้ล่าสุดนานที่สุด)
+        private int maxEntries;
+        // อายุสูงสุด (วินาที) - กันกรณีมีการเขียนข้อมูลที่ไม่ผ่าน JPA
+        private long ttlSeconds;
+    }
+}
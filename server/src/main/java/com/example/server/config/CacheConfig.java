@@ -0,0 +1,13 @@
+package com.example.server.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ⭐ เปิดใช้ @Cacheable - CacheManager คือ {@link com.example.server.service.RegionCacheManager}
+ * (invalidate ตาม DomainDataChangedEvent หลัง commit)
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
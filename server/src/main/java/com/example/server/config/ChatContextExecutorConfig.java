@@ -0,0 +1,30 @@
+package com.example.server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ⭐ Thread pool สำหรับดึงข้อมูล context ของ Smart Chat แบบขนาน
+ * จำกัดจำนวน thread และความยาว queue เพื่อไม่ให้แย่ง connection pool ของ DB
+ */
+@Configuration
+public class ChatContextExecutorConfig {
+
+    @Bean(name = "chatContextExecutor", destroyMethod = "shutdown")
+    public ExecutorService chatContextExecutor(
+            @Value("${chat.context.executor.pool-size:6}") int poolSize,
+            @Value("${chat.context.executor.queue-capacity:100}") int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "chat-context-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
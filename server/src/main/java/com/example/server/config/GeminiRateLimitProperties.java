@@ -0,0 +1,80 @@
+package com.example.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ⭐ ค่าของ rate limiter กลางสำหรับ Gemini (prefix: gemini.limiter)
+ * - กำหนดรายการ feature ได้ที่ gemini.limiter.features.<feature>.* เช่น
+ *   gemini.limiter.features.pdf-parse.requests-per-minute=5
+ * - feature ที่ไม่มีในรายการใช้ค่าจาก gemini.limiter.default-feature.*
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gemini.limiter")
+public class GeminiRateLimitProperties {
+
+    private boolean enabled = true;
+
+    // จำนวน request ที่ส่งไป Gemini พร้อมกันได้สูงสุด (ทุก feature รวมกัน)
+    private int maxConcurrent = 8;
+
+    // อัตรารวมของทุก feature (ควรตั้งให้ต่ำกว่าโควต้า RPM ของ API key)
+    private double requestsPerMinute = 60;
+    private int burst = 10;
+
+    private int maxQueuePerFeature = 50;
+
+    // token ต่อวันของทุก feature รวมกัน (0 = ไม่จำกัด)
+    private long dailyTokenBudget = 3_000_000;
+
+    // ราคาต่อ 1 ล้าน token (USD) ใช้ประมาณค่าใช้จ่ายรายวัน
+    private double inputCostPerMillionTokens = 0.30;
+    private double outputCostPerMillionTokens = 2.50;
+
+    private long flushIntervalMs = 60_000;
+
+    private FeatureLimit defaultFeature = new FeatureLimit(10, 3, 1, 0, 30);
+
+    private Map<String, FeatureLimit> features = new LinkedHashMap<>(Map.of(
+            "chat", new FeatureLimit(30, 10, 8, 0, 20),
+            "chat-stream", new FeatureLimit(30, 10, 8, 0, 20),
+            "pdf-parse", new FeatureLimit(10, 3, 4, 500_000, 15),
+            "tiktok-excel-parse", new FeatureLimit(10, 3, 4, 500_000, 15),
+            "stock-forecast", new FeatureLimit(20, 5, 2, 500_000, 60),
+            "stock-forecast-bulk", new FeatureLimit(10, 2, 1, 1_000_000, 120)
+    ));
+
+    @Data
+    public static class FeatureLimit {
+
+        private double requestsPerMinute;
+        private int burst;
+
+        // น้ำหนักในคิว weighted-fair: feature ที่น้ำหนักมากได้คิวบ่อยกว่าเมื่อโควต้ารวมไม่พอ
+        private int weight;
+
+        // token ต่อวันของ feature นี้ (0 = ใช้เฉพาะงบรวม)
+        private long dailyTokenBudget;
+
+        // รอคิวได้นานสุดกี่วินาที (0 = ไม่รอ ปฏิเสธทันทีให้ผู้เรียกใช้ทางเลือกอื่น)
+        private long queueTimeoutSeconds;
+
+        public FeatureLimit() {
+            this(10, 3, 1, 0, 30);
+        }
+
+        public FeatureLimit(double requestsPerMinute, int burst, int weight,
+                            long dailyTokenBudget, long queueTimeoutSeconds) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.burst = burst;
+            this.weight = weight;
+            this.dailyTokenBudget = dailyTokenBudget;
+            this.queueTimeoutSeconds = queueTimeoutSeconds;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ⭐ คำสำคัญของ intent สำหรับ Smart Chat (key = ชื่อ QueryIntent เช่น stock, top_selling)
+ * - chat.intent.keywords.stock=สต็อก,stock,...   → แทนที่คำสำคัญเริ่มต้นของ intent นั้น
+ * - chat.intent.extra-keywords.stock=ของหมด,...   → เพิ่มต่อจากคำสำคัญเริ่มต้น
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "chat.intent")
+public class IntentDictionaryProperties {
+
+    private Map<String, List<String>> keywords = new LinkedHashMap<>();
+
+    private Map<String, List<String>> extraKeywords = new LinkedHashMap<>();
+}
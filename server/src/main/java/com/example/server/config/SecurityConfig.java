@@ -34,6 +34,7 @@ public class SecurityConfig {
         ));
         cfg.setAllowedMethods(List.of("GET","POST","PUT","DELETE","PATCH","OPTIONS"));
         cfg.addAllowedHeader("*");
+        cfg.setExposedHeaders(List.of("ETag"));
         cfg.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource src = new UrlBasedCorsConfigurationSource();
         src.registerCorsConfiguration("/**", cfg);
@@ -32,6 +32,7 @@ package com.example.server.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -48,6 +49,19 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${file.upload-dir:/var/www/images/products}")
     private String uploadDir;
 
+    /**
+     * ⭐ Timeout ของ request แบบ async (เช่น upload ที่รอ Gemini) - ค่า default ของ Tomcat 30 วินาทีสั้นเกินไป
+     * ต้องมากกว่า gemini.client.total-timeout-seconds (170) ซึ่งครอบคลุม 3 attempts x call-timeout 50 วินาทีแล้ว
+     * (export แบบ streaming ตั้ง timeout ของตัวเองใน ExportController - export.async-timeout-seconds)
+     */
+    @Value("${ai.task.async-timeout-seconds:180}")
+    private long asyncTimeoutSeconds;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeoutSeconds * 1000);
+    }
+
     /**
      * ⭐ Config เพื่อให้ Spring Boot serve รูปภาพจาก /var/www/images/
      */
@@ -0,0 +1,111 @@
+package com.example.server.controller;
+
+import com.example.server.service.RegionCacheManager;
+import com.example.server.service.StockDependencyIndex;
+import com.example.server.service.StockOptionsReadModel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ⭐ Admin: สถานะและการล้าง application cache แยกตาม region และ read model ในหน่วยความจำ
+ */
+@RestController
+@RequestMapping("/api/admin/caches")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class CacheAdminController {
+
+    private final RegionCacheManager regionCacheManager;
+    private final StockOptionsReadModel stockOptionsReadModel;
+    private final StockDependencyIndex stockDependencyIndex;
+
+    /**
+     * ✅ สถิติทุก region (size, hit/miss, eviction, invalidation, เวลาโหลดเฉลี่ย)
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getAllStats() {
+        return ResponseEntity.ok(regionCacheManager.getAllStats());
+    }
+
+    @GetMapping("/{region}")
+    public ResponseEntity<?> getStats(@PathVariable String region) {
+        Map<String, Object> stats = regionCacheManager.getStats(region);
+        if (stats == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "success", false,
+                    "message", "ไม่มี cache region: " + region
+            ));
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * ล้าง cache ทุก region
+     */
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> flushAll() {
+        regionCacheManager.flushAll();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "ล้าง cache ทุก region เรียบร้อย"
+        ));
+    }
+
+    @DeleteMapping("/{region}")
+    public ResponseEntity<Map<String, Object>> flush(@PathVariable String region) {
+        if (!regionCacheManager.flush(region)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "success", false,
+                    "message", "ไม่มี cache region: " + region
+            ));
+        }
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "ล้าง cache region " + region + " เรียบร้อย"
+        ));
+    }
+
+    /**
+     * ✅ สถานะของ read model ตัวเลือก stock (จำนวนรายการ, เวลาโหลด, จำนวนครั้งที่อัปเดตทีละส่วน)
+     */
+    @GetMapping("/stock-options")
+    public ResponseEntity<Map<String, Object>> getStockOptionsStatus() {
+        return ResponseEntity.ok(stockOptionsReadModel.getStatus());
+    }
+
+    /**
+     * โหลดตัวเลือก stock ใหม่ทั้งหมด (หลังแก้ข้อมูล stock ด้วย SQL ตรง)
+     */
+    @PostMapping("/stock-options/reload")
+    public ResponseEntity<Map<String, Object>> reloadStockOptions() {
+        stockOptionsReadModel.rebuild();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "โหลดตัวเลือก stock ใหม่เรียบร้อย",
+                "status", stockOptionsReadModel.getStatus()
+        ));
+    }
+
+    /**
+     * ✅ สถานะของ index stock → ingredient → product ที่ใช้คำนวณต้นทุนสินค้าที่ได้รับผลกระทบ
+     */
+    @GetMapping("/stock-dependencies")
+    public ResponseEntity<Map<String, Object>> getStockDependencyStatus() {
+        return ResponseEntity.ok(stockDependencyIndex.getStatus());
+    }
+
+    @PostMapping("/stock-dependencies/reload")
+    public ResponseEntity<Map<String, Object>> reloadStockDependencies() {
+        stockDependencyIndex.rebuild();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "สร้าง index stock → สินค้า ใหม่เรียบร้อย",
+                "status", stockDependencyIndex.getStatus()
+        ));
+    }
+}
@@ -2,12 +2,19 @@ package com.example.server.controller;
 
 import com.example.server.dto.ChatRequest;
 import com.example.server.dto.ChatResponse;
+import com.example.server.service.ChatAnswerCacheService;
+import com.example.server.service.ChatContextSnapshotService;
 import com.example.server.service.SmartChatService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/chat")
 @CrossOrigin(origins = "*")
@@ -15,6 +22,8 @@ import reactor.core.publisher.Mono;
 public class ChatController {
 
     private final SmartChatService smartChatService;
+    private final ChatContextSnapshotService contextSnapshotService;
+    private final ChatAnswerCacheService answerCacheService;
 
     /**
      * ⭐ Endpoint สำหรับ Smart Chat (มี context จากระบบ)
@@ -29,6 +38,52 @@ public class ChatController {
                 );
     }
 
+    /**
+     * ⭐ Smart Chat แบบ streaming (SSE) - ส่งคำตอบทีละส่วนระหว่างที่ Gemini กำลังสร้าง
+     * ใช้ GET เพื่อให้เรียกจาก EventSource ของ browser ได้โดยตรง
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamChat(@RequestParam String message) {
+        return smartChatService.streamSmartChat(message);
+    }
+
+    /**
+     * ⭐ สถิติของ context snapshot cache (hit/miss/eviction)
+     */
+    @GetMapping("/context-cache")
+    public ResponseEntity<Map<String, Object>> getContextCacheStats() {
+        return ResponseEntity.ok(contextSnapshotService.getStats());
+    }
+
+    /**
+     * ล้าง context snapshot cache ทั้งหมด
+     */
+    @DeleteMapping("/context-cache")
+    public ResponseEntity<Map<String, Object>> clearContextCache() {
+        contextSnapshotService.clear();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "ล้าง context cache เรียบร้อย"
+        ));
+    }
+
+    /**
+     * ⭐ สถิติของ answer cache (คำถามซ้ำที่ตอบได้ทันทีโดยไม่เรียก Gemini)
+     */
+    @GetMapping("/answer-cache")
+    public ResponseEntity<Map<String, Object>> getAnswerCacheStats() {
+        return ResponseEntity.ok(answerCacheService.getStats());
+    }
+
+    @DeleteMapping("/answer-cache")
+    public ResponseEntity<Map<String, Object>> clearAnswerCache() {
+        answerCacheService.clear();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "ล้าง answer cache เรียบร้อย"
+        ));
+    }
+
     /**
      * Health check endpoint
      */
@@ -1,8 +1,10 @@
 package com.example.server.controller;
 
 import com.example.server.dto.ChinaStockDTO;
+import com.example.server.dto.LotPriceUpdateResultDTO;
 import com.example.server.entity.ChinaStock;
 import com.example.server.mapper.StockMapper;
+import com.example.server.service.CatalogQueryService;
 import com.example.server.service.ChinaStockService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -25,9 +27,12 @@ public class ChinaStockController {
     @Autowired
     private StockMapper stockMapper;
 
+    @Autowired
+    private CatalogQueryService catalogQueryService;
+
     @GetMapping
     public List<ChinaStockDTO> getAllChinaStocks() {
-        return stockMapper.toChinaStockDTOList(chinaStockService.getAllChinaStocks());
+        return catalogQueryService.getAllChinaStocks();
     }
 
     @GetMapping("/{id}")
@@ -153,28 +158,26 @@ public class ChinaStockController {
     // ============================================
 
     @PatchMapping("/lot/{stockLotId}/exchange-rate")
-    public ResponseEntity<List<ChinaStockDTO>> updateExchangeRateForLot(
+    public ResponseEntity<LotPriceUpdateResultDTO> updateExchangeRateForLot(
             @PathVariable Long stockLotId,
             @RequestBody Map<String, BigDecimal> exchangeRateUpdate) {
         try {
             BigDecimal exchangeRate = exchangeRateUpdate.get("exchangeRate");
             if (exchangeRate == null) return ResponseEntity.badRequest().build();
-            List<ChinaStock> updatedStocks = chinaStockService.updateExchangeRateForLot(stockLotId, exchangeRate);
-            return ResponseEntity.ok(stockMapper.toChinaStockDTOList(updatedStocks));
+            return ResponseEntity.ok(chinaStockService.updateExchangeRateForLot(stockLotId, exchangeRate));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PostMapping("/lot/{stockLotId}/distribute-shipping")
-    public ResponseEntity<List<ChinaStockDTO>> distributeShippingCostsWithAmount(
+    public ResponseEntity<LotPriceUpdateResultDTO> distributeShippingCostsWithAmount(
             @PathVariable Long stockLotId,
             @RequestBody Map<String, BigDecimal> shippingData) {
         try {
             BigDecimal totalShipping = shippingData.get("totalShipping");
             if (totalShipping == null) return ResponseEntity.badRequest().build();
-            List<ChinaStock> updatedStocks = chinaStockService.distributeShippingCosts(stockLotId, totalShipping);
-            return ResponseEntity.ok(stockMapper.toChinaStockDTOList(updatedStocks));
+            return ResponseEntity.ok(chinaStockService.distributeShippingCosts(stockLotId, totalShipping));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -1,5 +1,6 @@
 package com.example.server.controller;
 
+import com.example.server.service.GeminiRateLimiter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -22,6 +23,17 @@ public class ControllerExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
+    @ExceptionHandler(GeminiRateLimiter.GeminiQuotaExceededException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ResponseEntity<Map<String, Object>> handleGeminiQuotaExceeded(GeminiRateLimiter.GeminiQuotaExceededException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "Too Many Requests");
+        response.put("message", ex.getMessage());
+        response.put("feature", ex.getFeature());
+        response.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(IllegalArgumentException ex) {
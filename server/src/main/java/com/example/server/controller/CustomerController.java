@@ -1,7 +1,9 @@
 package com.example.server.controller;
 
+import com.example.server.dto.CustomerDTO;
 import com.example.server.entity.Customer;
 import com.example.server.respository.CustomerRepository;
+import com.example.server.service.CatalogQueryService;
 import com.example.server.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,10 +23,12 @@ public class CustomerController {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private CatalogQueryService catalogQueryService;
+
     @GetMapping
-    public ResponseEntity<List<Customer>> getAllCustomers() {
-        List<Customer> customers = customerRepository.findAll();
-        return ResponseEntity.ok(customers);
+    public ResponseEntity<List<CustomerDTO>> getAllCustomers() {
+        return ResponseEntity.ok(catalogQueryService.getAllCustomers());
     }
 
     // ⭐ Get customers by status
@@ -0,0 +1,59 @@
+package com.example.server.controller;
+
+import com.example.server.service.DailyRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ⭐ Admin: Daily Sales/Finance Rollup - ดูสถานะและสั่ง rebuild แบบขนาน
+ */
+@RestController
+@RequestMapping("/api/admin/rollups")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class DailyRollupController {
+
+    private final DailyRollupService dailyRollupService;
+
+    /**
+     * ✅ จำนวนแถว rollup, สถิติการคำนวณใหม่ และผลการ rebuild ครั้งล่าสุด
+     */
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(dailyRollupService.getStatus());
+    }
+
+    /**
+     * ✅ สร้าง rollup ใหม่ (ไม่ระบุช่วง = ทั้งหมดตั้งแต่รายการแรกสุด)
+     * POST /api/admin/rollups/rebuild?from=2025-01-01&to=2025-12-31&parallelism=4
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer parallelism) {
+        if (dailyRollupService.isRebuilding()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "message", "กำลัง rebuild rollup อยู่แล้ว"
+            ));
+        }
+
+        DailyRollupService.RebuildResult result = (from == null && to == null)
+                ? dailyRollupService.rebuildAll(parallelism)
+                : dailyRollupService.rebuild(from != null ? from : to, to != null ? to : from, parallelism);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "สร้าง rollup ใหม่เรียบร้อย");
+        response.put("result", result);
+        return ResponseEntity.ok(response);
+    }
+}
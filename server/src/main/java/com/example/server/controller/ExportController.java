@@ -0,0 +1,82 @@
+package com.example.server.controller;
+
+import com.example.server.service.DataExportService;
+import com.example.server.service.ExportFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ⭐ Export ข้อมูลเป็นไฟล์ CSV/XLSX แบบ streaming (สำหรับฝ่ายบัญชี)
+ * GET /api/exports/{orders|transactions|stock|salary-payments}?format=xlsx&from=2025-01-01&to=2025-12-31&gzip=true
+ */
+@RestController
+@RequestMapping("/api/exports")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final DataExportService dataExportService;
+
+    /**
+     * ⭐ Timeout ของการ stream export (แยกจาก ai.task.async-timeout-seconds ที่ตั้งไว้สำหรับงาน AI)
+     * export ข้อมูลทั้งปีอาจใช้เวลานานกว่า 180 วินาที - ค่า 0 หรือติดลบ = ไม่จำกัดเวลา
+     */
+    @Value("${export.async-timeout-seconds:1800}")
+    private long exportTimeoutSeconds;
+
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+
+        DataExportService.Dataset exportDataset = DataExportService.Dataset.fromPath(dataset);
+        ExportFormat exportFormat = ExportFormat.from(format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("วันที่เริ่มต้องไม่เกินวันที่สิ้นสุด");
+        }
+
+        String fileName = exportDataset.getPath() + "-"
+                + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "." + exportFormat.getExtension()
+                + (gzip ? ".gz" : "");
+
+        // ต้องตั้งก่อน return - StreamingResponseBody จะเริ่ม async ด้วย timeout ของ request นี้
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(exportTimeoutSeconds > 0 ? exportTimeoutSeconds * 1000 : -1);
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 64 * 1024);
+                dataExportService.export(exportDataset, exportFormat, from, to, gzipStream);
+                gzipStream.finish();
+            } else {
+                dataExportService.export(exportDataset, exportFormat, from, to, outputStream);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .body(body);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.server.controller;
+
+import com.example.server.entity.GeminiUsageDaily;
+import com.example.server.service.GeminiClient;
+import com.example.server.service.GeminiRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ⭐ Admin: โควต้าและยอดใช้งาน Gemini แยกตาม feature
+ */
+@RestController
+@RequestMapping("/api/admin/gemini")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class GeminiUsageController {
+
+    private final GeminiRateLimiter geminiRateLimiter;
+    private final GeminiClient geminiClient;
+
+    /**
+     * ✅ ยอดใช้งานวันนี้ + สถานะคิว/โควต้าของแต่ละ feature
+     */
+    @GetMapping("/usage")
+    public ResponseEntity<Map<String, Object>> getUsage() {
+        Map<String, Object> usage = geminiRateLimiter.getUsage();
+        usage.put("client", geminiClient.getStatus());
+        return ResponseEntity.ok(usage);
+    }
+
+    /**
+     * ✅ ยอดใช้งานย้อนหลังรายวัน (ค่าเริ่มต้น 30 วัน)
+     */
+    @GetMapping("/usage/history")
+    public ResponseEntity<List<GeminiUsageDaily>> getUsageHistory(@RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(geminiRateLimiter.getHistory(days));
+    }
+
+    /**
+     * บันทึกยอดที่ค้างอยู่ในหน่วยความจำลงตารางทันที
+     */
+    @PostMapping("/usage/flush")
+    public ResponseEntity<Map<String, Object>> flushUsage() {
+        geminiRateLimiter.flushUsage();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "บันทึกยอดใช้งาน Gemini เรียบร้อย"
+        ));
+    }
+}
@@ -857,6 +857,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -884,6 +886,9 @@ public class OrderController {
     @Autowired
     private GeminiTiktokExcelParserService geminiTiktokExcelParserService;
 
+    @Autowired
+    private Scheduler aiTaskScheduler;
+
     @Autowired
     private StockDeductionService stockDeductionService;
 
@@ -1391,93 +1396,102 @@ public class OrderController {
     // 24Shop Upload (เหมือนเดิม)
     // ============================================
 
+    /**
+     * ⭐ Upload 24Shop PDF แบบ non-blocking
+     * ระหว่างรอ Gemini จะไม่ยึด thread ของ Tomcat - บันทึก Order บน aiTaskScheduler หลังได้ผลแล้ว
+     */
     @PostMapping("/upload/24shop-pdf")
-    public ResponseEntity<?> upload24ShopPDF(
+    public Mono<ResponseEntity<Map<String, Object>>> upload24ShopPDF(
             @RequestParam("file") MultipartFile file,
             @RequestParam("orderNumber") String orderNumber,
             @RequestParam("customerId") Long customerId,
             @RequestParam(value = "autoDeductStock", defaultValue = "false") boolean autoDeductStock) {
-        try {
-            System.out.println("========== 24Shop PDF Upload Started ==========");
-
-            // ⚠️ แจ้งเตือนถ้าผู้ใช้เปิด Auto Deduct
-            if (autoDeductStock) {
-                System.out.println("⚠️ WARNING: autoDeductStock is enabled but will be IGNORED");
-                System.out.println("   All orders require MANUAL stock deduction");
-            }
-
-            if (!file.getOriginalFilename().toLowerCase().endsWith(".pdf")) {
-                return ResponseEntity.badRequest().body(
-                        Map.of("success", false, "message", "ไฟล์ต้องเป็น PDF เท่านั้น")
-                );
-            }
-
-            Customer customer = customerRepository.findById(customerId)
-                    .orElseThrow(() -> new RuntimeException("ไม่พบข้อมูลลูกค้า ID: " + customerId));
-
-            List<OrderItem> items = geminiPDFParserService.parseOrderItemsFromPDF(file);
+        System.out.println("========== 24Shop PDF Upload Started ==========");
 
-            if (items.isEmpty()) {
-                return ResponseEntity.badRequest().body(
-                        Map.of("success", false, "message", "ไม่พบรายการสินค้าใน PDF")
-                );
-            }
+        // ⚠️ แจ้งเตือนถ้าผู้ใช้เปิด Auto Deduct
+        if (autoDeductStock) {
+            System.out.println("⚠️ WARNING: autoDeductStock is enabled but will be IGNORED");
+            System.out.println("   All orders require MANUAL stock deduction");
+        }
 
-            Order order = new Order();
-            order.setOrderNumber(orderNumber);
-            order.setSource(Order.OrderSource.SHOP_24);
-            order.setCustomer(customer);
-            order.setCustomerName(customer.getCustomerName());
-            order.setCustomerPhone(customer.getCustomerPhone());
-            order.setShippingAddress(customer.getCustomerAddress());
-            order.setOrderDate(LocalDateTime.now());
-            order.setStatus(Order.OrderStatus.PENDING);
-            order.setPaymentStatus(Order.PaymentStatus.UNPAID);
-            order.setOriginalFileName(file.getOriginalFilename());
+        if (file.getOriginalFilename() == null || !file.getOriginalFilename().toLowerCase().endsWith(".pdf")) {
+            return Mono.just(ResponseEntity.badRequest().body(
+                    Map.of("success", false, "message", "ไฟล์ต้องเป็น PDF เท่านั้น")
+            ));
+        }
 
-            Order savedOrder = orderService.createOrder(order, items);
+        Optional<Customer> customerOpt = customerRepository.findById(customerId);
+        if (customerOpt.isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body(
+                    Map.of("success", false, "message", "Upload failed: ไม่พบข้อมูลลูกค้า ID: " + customerId)
+            ));
+        }
+        Customer customer = customerOpt.get();
+
+        return geminiPDFParserService.parseWithFallbackAsync(file)
+                .publishOn(aiTaskScheduler)
+                .map(result -> {
+                    List<OrderItem> items = result.getItems();
+                    if (items.isEmpty()) {
+                        return ResponseEntity.badRequest().body(
+                                Map.<String, Object>of("success", false, "message", "ไม่พบรายการสินค้าใน PDF")
+                        );
+                    }
+
+                    Order order = new Order();
+                    order.setOrderNumber(orderNumber);
+                    order.setSource(Order.OrderSource.SHOP_24);
+                    order.setCustomer(customer);
+                    order.setCustomerName(customer.getCustomerName());
+                    order.setCustomerPhone(customer.getCustomerPhone());
+                    order.setShippingAddress(customer.getCustomerAddress());
+                    order.setOrderDate(LocalDateTime.now());
+                    order.setStatus(Order.OrderStatus.PENDING);
+                    order.setPaymentStatus(Order.PaymentStatus.UNPAID);
+                    order.setOriginalFileName(file.getOriginalFilename());
 
-            // ⭐ ไม่ตัด Stock - ไม่ว่า autoDeductStock จะเป็นอะไร
-            System.out.println("✓ Order saved: " + savedOrder.getOrderNumber());
-            System.out.println("⚠️ Stock NOT deducted - manual deduction required");
+                    Order savedOrder = orderService.createOrder(order, items);
 
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "message", "✅ อัพโหลด 24Shop สำเร็จ - กรุณาตัด Stock ด้วยตัวเอง",
-                    "orderId", savedOrder.getOrderId(),
-                    "orderNumber", savedOrder.getOrderNumber(),
-                    "itemsCount", items.size(),
-                    "parsedWith", "Gemini AI",
-                    "note", "⚠️ ต้องตัด Stock ด้วยตัวเองในหน้ารายละเอียด Order"
-            ));
+                    // ⭐ ไม่ตัด Stock - ไม่ว่า autoDeductStock จะเป็นอะไร
+                    System.out.println("✓ Order saved: " + savedOrder.getOrderNumber());
+                    System.out.println("⚠️ Stock NOT deducted - manual deduction required");
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.badRequest().body(
-                    Map.of("success", false, "message", "Upload failed: " + e.getMessage())
-            );
-        }
+                    return ResponseEntity.ok(Map.<String, Object>of(
+                            "success", true,
+                            "message", "✅ อัพโหลด 24Shop สำเร็จ - กรุณาตัด Stock ด้วยตัวเอง",
+                            "orderId", savedOrder.getOrderId(),
+                            "orderNumber", savedOrder.getOrderNumber(),
+                            "itemsCount", items.size(),
+                            "parsedWith", result.getParsedWith(),
+                            "note", "⚠️ ต้องตัด Stock ด้วยตัวเองในหน้ารายละเอียด Order"
+                    ));
+                })
+                .onErrorResume(e -> {
+                    e.printStackTrace();
+                    return Mono.just(ResponseEntity.badRequest().body(
+                            Map.of("success", false, "message", "Upload failed: " + e.getMessage())
+                    ));
+                });
     }
 
     @PostMapping("/upload/preview-24shop-pdf")
-    public ResponseEntity<?> preview24ShopPDF(@RequestParam("file") MultipartFile file) {
-        try {
-            List<Map<String, Object>> items = geminiPDFParserService.parseAndPreview(file);
-
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "message", "Preview generated successfully with Gemini AI",
-                    "itemsCount", items.size(),
-                    "items", items,
-                    "parsedWith", "Gemini AI"
-            ));
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.badRequest().body(
-                    Map.of("success", false, "message", "Preview failed: " + e.getMessage())
-            );
-        }
+    public Mono<ResponseEntity<Map<String, Object>>> preview24ShopPDF(@RequestParam("file") MultipartFile file) {
+        return geminiPDFParserService.parseWithFallbackAsync(file)
+                .map(result -> ResponseEntity.ok(Map.<String, Object>of(
+                        "success", true,
+                        "message", "Preview generated successfully with " + result.getParsedWith(),
+                        "itemsCount", result.getItems().size(),
+                        "items", geminiPDFParserService.toPreview(result.getItems()),
+                        "parsedWith", result.getParsedWith()
+                )))
+                .onErrorResume(e -> {
+                    e.printStackTrace();
+                    return Mono.just(ResponseEntity.badRequest().body(
+                            Map.of("success", false, "message", "Preview failed: " + e.getMessage())
+                    ));
+                });
     }
+
     /**
      * ⭐ NEW: Scan TikTok Excel → แสดงตารางพร้อม VAT คำนวณ
      * POST /api/orders/upload/scan-tiktok-excel
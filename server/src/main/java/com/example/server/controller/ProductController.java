@@ -4,11 +4,16 @@ import com.example.server.dto.*;
 import com.example.server.entity.*;
 import com.example.server.mapper.ProductMapper;
 import com.example.server.respository.*;
+import com.example.server.service.CatalogQueryService;
+import com.example.server.service.ProductCostRecalculationJob;
 import com.example.server.service.ProductIngredientService;
+import com.example.server.service.ProductSalesRankingService;
 import com.example.server.service.ProductService;
+import com.example.server.service.StockOptionsReadModel;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +26,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,6 +41,15 @@ public class ProductController {
     @Autowired
     private ProductMapper productMapper;
 
+    @Autowired
+    private CatalogQueryService catalogQueryService;
+
+    @Autowired
+    private StockOptionsReadModel stockOptionsReadModel;
+
+    @Autowired
+    private ProductCostRecalculationJob costRecalculationJob;
+
     @Autowired
     private ChinaStockRepository chinaStockRepository;
 
@@ -59,6 +74,9 @@ public class ProductController {
     @Autowired
     private  ProductIngredientRepository productIngredientRepository;
 
+    @Autowired
+    private ProductSalesRankingService productSalesRankingService;
+
     @Value("${file.upload-dir:/var/www/images/products}")
     private String uploadDir;
 
@@ -79,89 +97,91 @@ public class ProductController {
                 .orElse(ResponseEntity.ok(Map.of("found", false, "sku", sku)));
     }
 
+    /**
+     * ⭐ ตัวเลือก stock ทั้งหมด (ACTIVE) เรียงตามชื่อ - อ่านจาก read model ในหน่วยความจำ
+     */
     @GetMapping("/stock-options")
     public ResponseEntity<List<StockOptionDTO>> getAvailableStockItems() {
-        try {
-            List<StockOptionDTO> options = new ArrayList<>();
-
-            // China Stocks
-            List<ChinaStock> chinaStocks = chinaStockRepository.findByStatus(ChinaStock.StockStatus.ACTIVE);
-            for (ChinaStock stock : chinaStocks) {
-                StockOptionDTO option = new StockOptionDTO();
-                option.setStockItemId(stock.getStockItemId());
-                option.setName(stock.getName());
-                option.setType("CHINA");
-                option.setUnitCost(stock.getFinalPricePerPair());
-                option.setAvailableQuantity(stock.getQuantity());
-                option.setStatus(stock.getStatus().name());
-                option.setStockLotId(stock.getStockLotId());
-
-                if (stock.getStockLotId() != null) {
-                    stockLotRepository.findById(stock.getStockLotId()).ifPresent(lot ->
-                            option.setLotName(lot.getLotName())
-                    );
-                }
-                options.add(option);
-            }
-
-            // Thai Stocks
-            List<ThaiStock> thaiStocks = thaiStockRepository.findByStatus(ThaiStock.StockStatus.ACTIVE);
-            for (ThaiStock stock : thaiStocks) {
-                StockOptionDTO option = new StockOptionDTO();
-                option.setStockItemId(stock.getStockItemId());
-                option.setName(stock.getName());
-                option.setType("THAI");
-                option.setUnitCost(stock.getPricePerUnitWithShipping());
-                option.setAvailableQuantity(stock.getQuantity());
-                option.setStatus(stock.getStatus().name());
-                option.setStockLotId(stock.getStockLotId());
-
-                if (stock.getStockLotId() != null) {
-                    stockLotRepository.findById(stock.getStockLotId()).ifPresent(lot ->
-                            option.setLotName(lot.getLotName())
-                    );
-                }
-                options.add(option);
-            }
-
-            options.sort(Comparator.comparing(StockOptionDTO::getName));
-            return ResponseEntity.ok(options);
+        return ResponseEntity.ok(stockOptionsReadModel.getAll());
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    /**
+     * ⭐ ค้นหาตัวเลือก stock แบบ typeahead + แบ่งหน้า
+     * GET /api/products/stock-options/search?q=ผ้า&type=CHINA&availableOnly=true&page=0&size=20
+     */
+    @GetMapping("/stock-options/search")
+    public ResponseEntity<?> searchStockOptions(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(stockOptionsReadModel.search(q, type, availableOnly, page, Math.min(size, 200)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
         }
     }
 
     @GetMapping
     public ResponseEntity<List<ProductDTO>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(productMapper.toProductDTOList(products));
+        return ResponseEntity.ok(catalogQueryService.getAllProducts());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-                .map(product -> ResponseEntity.ok(productMapper.toProductDTO(product)))
-                .orElse(ResponseEntity.notFound().build());
+        ProductDTO product = catalogQueryService.getProductById(id);
+        return product != null ? ResponseEntity.ok(product) : ResponseEntity.notFound().build();
     }
 
     @GetMapping("/active")
     public ResponseEntity<List<ProductDTO>> getActiveProducts() {
-        List<Product> products = productService.getActiveProducts();
-        return ResponseEntity.ok(productMapper.toProductDTOList(products));
+        return ResponseEntity.ok(catalogQueryService.getActiveProducts());
     }
 
     @GetMapping("/category/{category}")
     public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable String category) {
-        List<Product> products = productService.getProductsByCategory(category);
-        return ResponseEntity.ok(productMapper.toProductDTOList(products));
+        return ResponseEntity.ok(catalogQueryService.getProductsByCategory(category));
+    }
+
+    /**
+     * ⭐ อันดับสินค้าขายดี (รวมยอดใน DB)
+     * GET /api/products/top-selling?from=2025-01-01&to=2025-12-31&source=SHOPEE&category=...&limit=10&rankBy=REVENUE
+     * ค่าเริ่มต้น: ตั้งแต่ต้นปีปัจจุบันถึงวันนี้, ทุกช่องทาง, ทุกหมวด, 10 อันดับ, เรียงตามจำนวนชิ้น
+     */
+    @GetMapping("/top-selling")
+    public ResponseEntity<Map<String, Object>> getTopSellingProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Order.OrderSource source,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "QUANTITY") ProductSalesRankingService.RankBy rankBy) {
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        LocalDate fromDate = from != null ? from : toDate.withDayOfYear(1);
+
+        List<TopSellingProductRow> ranking = productSalesRankingService.rankProducts(
+                fromDate.atStartOfDay(), toDate.atTime(23, 59, 59), source, category, limit, rankBy);
+        long totalProductsSold = productSalesRankingService.countSoldProducts(
+                fromDate.atStartOfDay(), toDate.atTime(23, 59, 59), source, category);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", fromDate);
+        response.put("to", toDate);
+        response.put("source", source);
+        response.put("category", category);
+        response.put("rankBy", rankBy);
+        response.put("totalProductsSold", totalProductsSold);
+        response.put("products", ranking);
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<ProductDTO>> searchProducts(@RequestParam String keyword) {
-        List<Product> products = productService.searchProducts(keyword);
-        return ResponseEntity.ok(productMapper.toProductDTOList(products));
+        return ResponseEntity.ok(catalogQueryService.searchProducts(keyword));
     }
 
     // ============================================
@@ -535,18 +555,39 @@ public class ProductController {
         }
     }
 
+    /**
+     * ✅ เริ่มคำนวณต้นทุนสินค้าทั้งหมดใหม่ใน background (ตอบกลับทันที)
+     * POST /api/products/recalculate-all-costs?parallelism=4
+     */
     @PostMapping("/recalculate-all-costs")
-    public ResponseEntity<?> recalculateAllCosts() {
+    public ResponseEntity<?> recalculateAllCosts(@RequestParam(required = false) Integer parallelism) {
         try {
-            productService.recalculateAllProductCosts();
-            return ResponseEntity.ok(Map.of(
-                    "message", "All product costs recalculated successfully"
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                    "success", true,
+                    "message", "เริ่มคำนวณต้นทุนสินค้าทั้งหมดแล้ว ดูความคืบหน้าที่ /api/products/recalculate-all-costs/status",
+                    "job", costRecalculationJob.start(parallelism)
             ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
 
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", e.getMessage()));
+    /**
+     * ✅ ความคืบหน้าของงานคำนวณต้นทุนล่าสุด พร้อมรายการสินค้าที่ต้นทุนเปลี่ยน (ไม่เกิน changesLimit รายการ)
+     */
+    @GetMapping("/recalculate-all-costs/status")
+    public ResponseEntity<?> getRecalculateAllCostsStatus(@RequestParam(defaultValue = "200") int changesLimit) {
+        Map<String, Object> status = costRecalculationJob.getStatus(changesLimit);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "success", false,
+                    "message", "ยังไม่เคยคำนวณต้นทุนสินค้าทั้งหมด"
+            ));
         }
+        return ResponseEntity.ok(status);
     }
 
     @GetMapping("/{id}/cost-analysis")
@@ -622,63 +663,8 @@ public class ProductController {
     @GetMapping("/stock-options/by-name/{stockName}")
     public ResponseEntity<List<StockOptionDTO>> getStockOptionsByName(
             @PathVariable String stockName) {
-        try {
-            List<StockOptionDTO> options = new ArrayList<>();
-
-            // China Stocks
-            List<ChinaStock> chinaStocks = chinaStockRepository.searchByKeyword(stockName);
-            for (ChinaStock stock : chinaStocks) {
-                if (stock.getStatus() == ChinaStock.StockStatus.ACTIVE && stock.getQuantity() > 0) {
-                    StockOptionDTO option = new StockOptionDTO();
-                    option.setStockItemId(stock.getStockItemId());
-                    option.setName(stock.getName());
-                    option.setType("CHINA");
-                    option.setUnitCost(stock.getFinalPricePerPair());
-                    option.setAvailableQuantity(stock.getQuantity());
-                    option.setStatus(stock.getStatus().name());
-                    option.setStockLotId(stock.getStockLotId());
-
-                    if (stock.getStockLotId() != null) {
-                        stockLotRepository.findById(stock.getStockLotId()).ifPresent(lot ->
-                                option.setLotName(lot.getLotName())
-                        );
-                    }
-                    options.add(option);
-                }
-            }
-
-            // Thai Stocks
-            List<ThaiStock> thaiStocks = thaiStockRepository.searchByKeyword(stockName);
-            for (ThaiStock stock : thaiStocks) {
-                if (stock.getStatus() == ThaiStock.StockStatus.ACTIVE && stock.getQuantity() > 0) {
-                    StockOptionDTO option = new StockOptionDTO();
-                    option.setStockItemId(stock.getStockItemId());
-                    option.setName(stock.getName());
-                    option.setType("THAI");
-                    option.setUnitCost(stock.getPricePerUnitWithShipping());
-                    option.setAvailableQuantity(stock.getQuantity());
-                    option.setStatus(stock.getStatus().name());
-                    option.setStockLotId(stock.getStockLotId());
-
-                    if (stock.getStockLotId() != null) {
-                        stockLotRepository.findById(stock.getStockLotId()).ifPresent(lot ->
-                                option.setLotName(lot.getLotName())
-                        );
-                    }
-                    options.add(option);
-                }
-            }
-
-            // เรียงตาม Lot Name แล้วชื่อ
-            options.sort(Comparator.comparing(StockOptionDTO::getLotName,
-                            Comparator.nullsLast(Comparator.naturalOrder()))
-                    .thenComparing(StockOptionDTO::getName));
-
-            return ResponseEntity.ok(options);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        // เฉพาะรายการที่ยังมีของ เรียงตาม Lot Name แล้วชื่อ (ค้นใน ชื่อ / shop URL เท่านั้น ไม่ค้นชื่อ Lot)
+        return ResponseEntity.ok(stockOptionsReadModel.searchGroupedByLot(stockName));
     }
 
     // ============================================
@@ -1,15 +1,24 @@
 package com.example.server.controller;
 
 import com.example.server.dto.*;
+import com.example.server.entity.ForecastDashboardSnapshot;
 import com.example.server.entity.StockBase;
 import com.example.server.entity.StockForecast;
 import com.example.server.mapper.StockForecastMapper;
 import com.example.server.respository.StockBaseRepository;
 
+import com.example.server.service.ForecastDashboardService;
+import com.example.server.service.GeminiStockForecastService;
 import com.example.server.service.StockForecastService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.*;
 
@@ -31,6 +40,12 @@ public class StockForecastController {
     @Autowired
     private StockBaseRepository stockBaseRepository;
 
+    @Autowired
+    private ForecastDashboardService forecastDashboardService;
+
+    @Autowired
+    private GeminiStockForecastService geminiStockForecastService;
+
     // ============================================
     // การคำนวณ Forecast (อัพเดท)
     // ============================================
@@ -56,6 +71,8 @@ public class StockForecastController {
                 }
             }
 
+            forecastDashboardService.rebuildSnapshot();
+
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "คำนวณ Enhanced Stock Forecast สำเร็จ",
@@ -81,6 +98,7 @@ public class StockForecastController {
             @RequestParam(defaultValue = "180") int analysisBaseDays) {
         try {
             StockForecast forecast = stockForecastService.calculateEnhancedStockForecast(stockItemId);
+            forecastDashboardService.rebuildSnapshot();
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -125,12 +143,14 @@ public class StockForecastController {
                 prediction.put("currentStock", forecast.getCurrentStock());
                 prediction.put("averageMonthlyUsage", forecast.getAverageMonthlyUsage());
 
-                // ⭐ คาดการณ์จากค่าเฉลี่ย (อาจปรับเป็น weighted average)
-                int predicted = forecast.getAverageMonthlyUsage();
+                // ⭐ ใช้ผลจาก model ที่ backtest เลือกไว้ (ถ้ายังไม่เคยคำนวณใช้ค่าเฉลี่ยแทน)
+                boolean hasModel = forecast.getPredictedNextMonthUsage() != null && forecast.getForecastModel() != null;
+                int predicted = hasModel ? forecast.getPredictedNextMonthUsage() : forecast.getAverageMonthlyUsage();
+                double confidence = hasModel && forecast.getForecastAccuracy() != null ? forecast.getForecastAccuracy() : 80.0;
                 prediction.put("predictedNextMonthUsage", predicted);
                 prediction.put("nextMonth", java.time.YearMonth.now().plusMonths(1).toString());
-                prediction.put("forecastMethod", "AVERAGE");
-                prediction.put("confidence", 80.0);
+                prediction.put("forecastMethod", hasModel ? forecast.getForecastModel() : "AVERAGE");
+                prediction.put("confidence", confidence);
 
                 prediction.put("recommendedOrderForNextMonth",
                         Math.max(0, predicted - forecast.getCurrentStock() + (forecast.getAverageDailyUsage() * 21)));
@@ -138,7 +158,7 @@ public class StockForecastController {
                 predictions.add(prediction);
 
                 totalPredictedUsage += predicted;
-                totalConfidence += 80.0;
+                totalConfidence += confidence;
                 countWithPrediction++;
             }
 
@@ -295,9 +315,16 @@ public class StockForecastController {
             @RequestParam(defaultValue = "14") int urgentDays,
             @RequestParam(defaultValue = "30") int soonDays) {
 
-        List<StockForecast> urgentItems = stockForecastService.getStockRunningOutInDays(urgentDays);
-        List<StockForecast> soonToOrderItems = stockForecastService.getStockRunningOutInDays(soonDays);
-        soonToOrderItems.removeIf(item -> urgentItems.contains(item));
+        // ⭐ query ครั้งเดียวด้วยช่วงที่กว้างกว่า แล้วแบ่งตามจำนวนวัน (ผลเรียงตาม daysUntilStockOut อยู่แล้ว)
+        List<StockForecast> urgentItems = new ArrayList<>();
+        List<StockForecast> soonToOrderItems = new ArrayList<>();
+        for (StockForecast item : stockForecastService.getStockRunningOutInDays(Math.max(urgentDays, soonDays))) {
+            if (item.getDaysUntilStockOut() <= urgentDays) {
+                urgentItems.add(item);
+            } else {
+                soonToOrderItems.add(item);
+            }
+        }
 
         StockOrderRecommendationDTO recommendations = stockForecastMapper
                 .toStockOrderRecommendationDTO(urgentItems, soonToOrderItems);
@@ -305,35 +332,29 @@ public class StockForecastController {
         return ResponseEntity.ok(recommendations);
     }
 
+    /**
+     * ⭐ Dashboard จาก snapshot ที่คำนวณไว้ตอน recalculate Forecast
+     * รองรับ If-None-Match → 304 เมื่อข้อมูลไม่เปลี่ยน
+     */
     @GetMapping("/dashboard")
-    public ResponseEntity<Map<String, Object>> getForecastDashboard() {
-        Map<String, Object> dashboard = new HashMap<>();
-
-        Map<String, Object> summary = stockForecastService.getForecastSummary();
-        dashboard.put("summary", stockForecastMapper.toStockForecastSummaryDTO(summary));
-
-        List<StockForecast> urgentItems = stockForecastService.getUrgentStockItems();
-        dashboard.put("urgentItems", stockForecastMapper.toStockForecastDTOList(urgentItems));
-
-        List<StockForecast> soonestItems = stockForecastService.getStockRunningOutInDays(60)
-                .stream()
-                .limit(10)
-                .toList();
-        dashboard.put("soonestToRunOut", stockForecastMapper.toStockForecastDTOList(soonestItems));
-
-        List<StockForecast> chinaForecasts = stockForecastService.getForecastsByStockType("CHINA");
-        List<StockForecast> thaiForecasts = stockForecastService.getForecastsByStockType("THAI");
-
-        dashboard.put("chinaStockCount", chinaForecasts.size());
-        dashboard.put("thaiStockCount", thaiForecasts.size());
-
-        double urgentCost = urgentItems.stream()
-                .mapToDouble(item -> item.getEstimatedOrderCost() != null ?
-                        item.getEstimatedOrderCost().doubleValue() : 0.0)
-                .sum();
-        dashboard.put("urgentOrderCost", urgentCost);
+    public ResponseEntity<String> getForecastDashboard(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ForecastDashboardSnapshot snapshot = forecastDashboardService.getSnapshot();
+        String etag = "\"" + snapshot.getEtag() + "\"";
+
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
 
-        return ResponseEntity.ok(dashboard);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .lastModified(snapshot.getGeneratedAt().atZone(java.time.ZoneId.systemDefault()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getPayload());
     }
 
     @GetMapping("/usage-analysis")
@@ -366,10 +387,51 @@ public class StockForecastController {
         return ResponseEntity.ok(analysis);
     }
 
+    // ============================================
+    // ⭐ AI Bulk Analysis (Gemini)
+    // ============================================
+
+    /**
+     * ⭐ วิเคราะห์ Stock หลายรายการด้วย Gemini แบบ streaming (SSE)
+     * ส่งผลทีละ chunk ทันทีที่เสร็จ - ถ้าไม่ส่ง body จะใช้ Forecast ทั้งหมดในระบบ
+     */
+    @PostMapping(value = "/ai-analysis/bulk", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<GeminiStockForecastService.BulkAnalysisChunk>> streamBulkAiAnalysis(
+            @RequestBody(required = false) List<GeminiStockForecastService.StockForecastAnalysisRequest> requests) {
+
+        List<GeminiStockForecastService.StockForecastAnalysisRequest> analysisRequests = requests;
+        if (analysisRequests == null || analysisRequests.isEmpty()) {
+            analysisRequests = stockForecastService.getAllForecasts().stream()
+                    .map(stockForecastMapper::toAnalysisRequest)
+                    .toList();
+        }
+
+        return geminiStockForecastService.streamBulkStockForecast(analysisRequests)
+                .map(chunk -> ServerSentEvent.builder(chunk)
+                        .event("chunk")
+                        .id(String.valueOf(chunk.getChunkIndex()))
+                        .build());
+    }
+
+    @GetMapping("/ai-analysis/cache")
+    public ResponseEntity<Map<String, Object>> getAiAnalysisCacheStats() {
+        return ResponseEntity.ok(geminiStockForecastService.getAnalysisCacheStats());
+    }
+
+    @DeleteMapping("/ai-analysis/cache")
+    public ResponseEntity<?> clearAiAnalysisCache() {
+        geminiStockForecastService.clearAnalysisCache();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "ล้าง cache การวิเคราะห์ AI สำเร็จ"
+        ));
+    }
+
     @DeleteMapping("/cleanup")
     public ResponseEntity<?> cleanupOldForecasts() {
         try {
             stockForecastService.cleanupOldForecasts();
+            forecastDashboardService.rebuildSnapshot();
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "ลบ Forecast เก่าสำเร็จ"
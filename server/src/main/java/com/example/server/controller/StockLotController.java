@@ -141,6 +141,7 @@ package com.example.server.controller;
 import com.example.server.dto.StockLotDTO;
 import com.example.server.entity.StockLot;
 import com.example.server.mapper.StockMapper;
+import com.example.server.service.CatalogQueryService;
 import com.example.server.service.StockLotService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -167,11 +168,13 @@ public class StockLotController {
     @Autowired
     private StockMapper stockMapper;
 
-    // Get all stock lots
+    @Autowired
+    private CatalogQueryService catalogQueryService;
+
+    // Get all stock lots (ยอดรวมต่อ Lot จาก aggregate query - items เฉพาะเมื่อ includeItems=true)
     @GetMapping
-    public List<StockLotDTO> getAllStockLots() {
-        List<StockLot> stockLots = stockLotService.getAllStockLots();
-        return stockMapper.toStockLotDTOList(stockLots);
+    public List<StockLotDTO> getAllStockLots(@RequestParam(defaultValue = "false") boolean includeItems) {
+        return catalogQueryService.getAllStockLots(includeItems);
     }
 
     // Get stock lot by ID
@@ -192,11 +195,11 @@ public class StockLotController {
 
     // Get stock lots by status
     @GetMapping("/status/{status}")
-    public List<StockLotDTO> getStockLotsByStatus(@PathVariable String status) {
+    public List<StockLotDTO> getStockLotsByStatus(@PathVariable String status,
+                                                  @RequestParam(defaultValue = "false") boolean includeItems) {
         try {
             StockLot.StockStatus stockStatus = StockLot.StockStatus.valueOf(status.toUpperCase());
-            List<StockLot> stockLots = stockLotService.getStockLotsByStatus(stockStatus);
-            return stockMapper.toStockLotDTOList(stockLots);
+            return stockLotService.getStockLotListByStatus(stockStatus, includeItems);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid status: " + status);
         }
@@ -207,9 +210,9 @@ public class StockLotController {
     public List<StockLotDTO> getStockLotsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-            @RequestParam(defaultValue = "import") String dateType) {
-        List<StockLot> stockLots = stockLotService.getStockLotsByDateRange(startDate, endDate, dateType);
-        return stockMapper.toStockLotDTOList(stockLots);
+            @RequestParam(defaultValue = "import") String dateType,
+            @RequestParam(defaultValue = "false") boolean includeItems) {
+        return stockLotService.getStockLotListByDateRange(startDate, endDate, dateType, includeItems);
     }
 
     // Create new stock lot
@@ -266,15 +269,15 @@ public class StockLotController {
         try {
             StockLot completedLot = stockLotService.completeStockLot(id);
 
-            // คำนวณยอดรวมเพื่อแสดงใน response
-            BigDecimal totalCost = stockLotService.calculateTotalCost(completedLot);
+            // คำนวณยอดรวมเพื่อแสดงใน response (aggregate query ใน service - ไม่แตะ items ที่เป็น LAZY)
+            BigDecimal totalCost = stockLotService.calculateTotalCost(id);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Stock lot completed and transaction created successfully");
             response.put("stockLot", stockMapper.toStockLotDTO(completedLot));
             response.put("totalCost", totalCost);
-            response.put("itemsCount", completedLot.getItems() != null ? completedLot.getItems().size() : 0);
+            response.put("itemsCount", stockLotService.countItems(id));
 
             return ResponseEntity.ok(response);
 
@@ -310,13 +313,12 @@ public class StockLotController {
 
     @GetMapping("/options")
     public List<Map<String, Object>> getStockLotOptions() {
-        List<StockLot> stockLots = stockLotService.getAllStockLots();
-        return stockLots.stream()
+        return catalogQueryService.getAllStockLots(false).stream()
                 .map(lot -> {
                     Map<String, Object> option = new HashMap<>();
                     option.put("value", lot.getStockLotId());
                     option.put("label", lot.getLotName());
-                    option.put("status", lot.getStatus().name());
+                    option.put("status", lot.getStatus());
                     return option;
                 })
                 .collect(Collectors.toList());
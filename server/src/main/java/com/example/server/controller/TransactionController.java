@@ -5,18 +5,17 @@ import com.example.server.entity.Order;
 import com.example.server.entity.Transaction;
 import com.example.server.respository.OrderRepository;
 import com.example.server.respository.StockLotRepository;
+import com.example.server.service.StockLotService;
 import com.example.server.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import com.example.server.entity.ChinaStock;
-import com.example.server.entity.ThaiStock;
-import com.example.server.entity.StockBase;
 import com.example.server.entity.StockLot;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +36,9 @@ public class TransactionController {
     @Autowired
     private StockLotRepository stockLotRepository;
 
+    @Autowired
+    private StockLotService stockLotService;
+
     // ============================================
     // GET Endpoints
     // ============================================
@@ -107,6 +109,17 @@ public class TransactionController {
         return ResponseEntity.ok(summary);
     }
 
+    /**
+     * ⭐ สรุปยอดในช่วงวันที่ (รวมวันแรกและวันสุดท้าย)
+     * GET /api/transactions/summary/period?from=2025-01-01&to=2025-03-31
+     */
+    @GetMapping("/summary/period")
+    public ResponseEntity<Map<String, Object>> getPeriodSummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(transactionService.getPeriodSummary(from, to));
+    }
+
     /**
      * ⭐ NEW: รายงานรายเดือน (สำหรับ Frontend)
      * GET /api/transactions/reports/monthly?year=2025&month=11
@@ -251,8 +264,8 @@ public class TransactionController {
             StockLot stockLot = stockLotRepository.findById(stockLotId)
                     .orElseThrow(() -> new RuntimeException("Stock lot not found with id: " + stockLotId));
 
-            // คำนวณต้นทุนรวม
-            BigDecimal totalCost = calculateStockLotCost(stockLot);
+            // คำนวณต้นทุนรวม (aggregate query ใน StockLotService - ไม่แตะ items ที่เป็น LAZY)
+            BigDecimal totalCost = stockLotService.calculatePurchaseCost(stockLotId);
 
             if (totalCost.compareTo(BigDecimal.ZERO) <= 0) {
                 return ResponseEntity.badRequest().body(Map.of(
@@ -275,34 +288,6 @@ public class TransactionController {
         }
     }
 
-    /**
-     * Helper method สำหรับคำนวณต้นทุนของ Stock Lot
-     */
-    private BigDecimal calculateStockLotCost(StockLot stockLot) {
-        BigDecimal total = BigDecimal.ZERO;
-
-        if (stockLot.getItems() == null || stockLot.getItems().isEmpty()) {
-            return total;
-        }
-
-        for (StockBase item : stockLot.getItems()) {
-            if (item instanceof ChinaStock) {
-                ChinaStock china = (ChinaStock) item;
-                if (china.getTotalBath() != null) {
-                    total = total.add(china.getTotalBath());
-                }
-            } else if (item instanceof ThaiStock) {
-                ThaiStock thai = (ThaiStock) item;
-                BigDecimal itemTotal = thai.calculateTotalCost();
-                if (itemTotal != null) {
-                    total = total.add(itemTotal);
-                }
-            }
-        }
-
-        return total;
-    }
-
     // ============================================
     // Helper Methods - DTO Conversion
     // ============================================
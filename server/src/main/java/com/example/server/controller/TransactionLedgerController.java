@@ -0,0 +1,72 @@
+package com.example.server.controller;
+
+import com.example.server.entity.TransactionPeriodAdjustment;
+import com.example.server.entity.TransactionPeriodClose;
+import com.example.server.service.TransactionLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ⭐ Admin: Transaction Ledger - ยอดสะสม, ปิดงวดรายเดือน และตรวจยอด
+ */
+@RestController
+@RequestMapping("/api/admin/ledger")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class TransactionLedgerController {
+
+    private final TransactionLedgerService transactionLedgerService;
+
+    /**
+     * ✅ ยอดสะสมปัจจุบัน + งวดที่ปิดแล้ว (ล่าสุดก่อน)
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getLedger() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("balances", transactionLedgerService.getBalances());
+        response.put("periodCloses", transactionLedgerService.getPeriodCloses());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * ✅ รายการปรับยอดย้อนหลังของเดือนที่ปิดแล้ว
+     * GET /api/admin/ledger/adjustments?month=2025-01
+     */
+    @GetMapping("/adjustments")
+    public ResponseEntity<List<TransactionPeriodAdjustment>> getAdjustments(@RequestParam String month) {
+        return ResponseEntity.ok(transactionLedgerService.getAdjustments(YearMonth.parse(month)));
+    }
+
+    /**
+     * ✅ ปิดงวดทุกเดือนที่ค้างจนถึงเดือนที่ระบุ (ค่าเริ่มต้น = เดือนก่อนหน้า)
+     * POST /api/admin/ledger/close?through=2025-09
+     */
+    @PostMapping("/close")
+    public ResponseEntity<Map<String, Object>> closePeriods(@RequestParam(required = false) String through) {
+        YearMonth month = through != null ? YearMonth.parse(through) : YearMonth.now().minusMonths(1);
+        List<TransactionPeriodClose> closed = transactionLedgerService.closeThrough(month);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "ปิดงวดเรียบร้อย " + closed.size() + " เดือน");
+        response.put("closed", closed);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * ✅ ตรวจยอดสะสมกับตาราง transactions และแก้ให้ตรง
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcile() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("result", transactionLedgerService.reconcile());
+        return ResponseEntity.ok(response);
+    }
+}
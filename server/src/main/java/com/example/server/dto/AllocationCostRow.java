@@ -0,0 +1,21 @@
+package com.example.server.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ ข้อมูล allocation (MULTI_LOT) ที่ใช้คำนวณต้นทุนใหม่แบบ batch (projection - ไม่โหลด entity)
+ */
+public interface AllocationCostRow {
+
+    Long getAllocationId();
+
+    Long getIngredientId();
+
+    Long getStockItemId();
+
+    BigDecimal getAllocatedQuantity();
+
+    BigDecimal getCostPerUnit();
+
+    BigDecimal getTotalCost();
+}
@@ -4,6 +4,8 @@ import lombok.Data;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,6 +14,18 @@ public class ChatResponse {
     private String conversationId;
     private boolean success;
     private String error;
+    private List<ContextSectionTiming> contextTimings;   // เวลาที่ใช้ดึงข้อมูลแต่ละหัวข้อ
+    private boolean fromCache;                           // ตอบจาก answer cache (ไม่ได้เรียก Gemini)
+    private Integer promptChars;                         // ขนาด prompt ที่ส่งให้ Gemini (ตัวอักษร)
+    private Integer promptTokensEstimated;               // token ของ prompt (ประมาณก่อนส่ง)
+    private Integer promptTokens;                        // token ของ prompt จริงจาก usageMetadata
+
+    public ChatResponse(String response, String conversationId, boolean success, String error) {
+        this.response = response;
+        this.conversationId = conversationId;
+        this.success = success;
+        this.error = error;
+    }
 
     public static ChatResponse success(String response, String conversationId) {
         return new ChatResponse(response, conversationId, true, null);
@@ -0,0 +1,44 @@
+package com.example.server.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ ข้อมูลราคาของ ChinaStock ใน Lot สำหรับคำนวณราคาใหม่ทั้ง Lot (ใช้โดย ChinaStockService)
+ * เป็นค่าดิบจากคอลัมน์ (originalQuantity เป็น null ได้) - ไม่โหลด entity จึงไม่มี dirty checking / UPDATE ราย row
+ */
+public interface ChinaStockPricingRow {
+
+    Long getStockItemId();
+
+    String getName();
+
+    Integer getQuantity();
+
+    Integer getOriginalQuantity();
+
+    BigDecimal getUnitPriceYuan();
+
+    BigDecimal getTotalValueYuan();
+
+    BigDecimal getShippingWithinChinaYuan();
+
+    BigDecimal getTotalYuan();
+
+    BigDecimal getTotalBath();
+
+    BigDecimal getPricePerUnitBath();
+
+    BigDecimal getShippingChinaToThaiBath();
+
+    BigDecimal getFinalPricePerPair();
+
+    BigDecimal getExchangeRate();
+
+    BigDecimal getVatPercentage();
+
+    Boolean getIncludeVat();
+
+    BigDecimal getUnitCostAtImport();
+
+    BigDecimal getTotalCostAtImport();
+}
@@ -0,0 +1,22 @@
+package com.example.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContextSectionTiming {
+    private String section;     // "PRODUCT", "STOCK", "FINANCIAL", etc.
+    private String status;      // "OK", "CACHED", "TIMEOUT", "ERROR"
+    private long elapsedMs;
+    private int estimatedTokens;    // token (ประมาณ) ของหัวข้อนี้ที่อยู่ใน prompt จริง
+    private String budget;          // "FULL", "TRUNCATED", "DROPPED"
+
+    public ContextSectionTiming(String section, String status, long elapsedMs) {
+        this.section = section;
+        this.status = status;
+        this.elapsedMs = elapsedMs;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.server.dto;
+
+import com.example.server.entity.Customer;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * ⭐ ข้อมูลลูกค้าสำหรับรายการที่ถูก cache (field ตรงกับ JSON ของ Customer เดิม)
+ */
+@Data
+public class CustomerDTO {
+    private Long customerId;
+    private String customerName;
+    private String customerAddress;
+    private String customerPhone;
+    private Customer.Status status;
+    private LocalDateTime createdDate;
+    private LocalDateTime updatedDate;
+}
@@ -0,0 +1,22 @@
+package com.example.server.dto;
+
+import com.example.server.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * ⭐ แถวผลรวม transaction ต่อวัน/ประเภท/หมวดหมู่ (projection จาก query GROUP BY ใน TransactionRepository)
+ */
+public interface DailyFinanceAggregateRow {
+
+    LocalDate getRollupDate();
+
+    Transaction.TransactionType getType();
+
+    Transaction.TransactionCategory getCategory();
+
+    Long getTransactionCount();
+
+    BigDecimal getAmount();
+}
@@ -0,0 +1,22 @@
+package com.example.server.dto;
+
+import com.example.server.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * ⭐ แถวผลรวม order ต่อวัน/ช่องทาง/สถานะ (projection จาก query GROUP BY ใน OrderRepository)
+ */
+public interface DailySalesAggregateRow {
+
+    LocalDate getRollupDate();
+
+    Order.OrderSource getSource();
+
+    Order.OrderStatus getStatus();
+
+    Long getOrderCount();
+
+    BigDecimal getNetAmount();
+}
@@ -43,6 +43,7 @@ import java.util.List;
 @Data
 public class GeminiResponse {
     private List<Candidate> candidates;
+    private UsageMetadata usageMetadata;
 
     @Data
     public static class Candidate {
@@ -58,4 +59,11 @@ public class GeminiResponse {
     public static class Part {
         private String text;
     }
+
+    @Data
+    public static class UsageMetadata {
+        private Integer promptTokenCount;
+        private Integer candidatesTokenCount;
+        private Integer totalTokenCount;
+    }
 }
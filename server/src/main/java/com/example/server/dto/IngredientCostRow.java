@@ -0,0 +1,26 @@
+package com.example.server.dto;
+
+import com.example.server.entity.ProductIngredient;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ ข้อมูล ingredient ที่ใช้คำนวณต้นทุนใหม่แบบ batch (projection - ไม่โหลด entity)
+ */
+public interface IngredientCostRow {
+
+    Long getIngredientId();
+
+    Long getProductId();
+
+    ProductIngredient.AllocationMode getAllocationMode();
+
+    BigDecimal getRequiredQuantity();
+
+    // stock item ของโหมด SINGLE (null ถ้าไม่มี)
+    Long getStockItemId();
+
+    BigDecimal getCostPerUnit();
+
+    BigDecimal getTotalCost();
+}
@@ -0,0 +1,25 @@
+package com.example.server.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ⭐ สรุปผลการปรับราคาทั้ง Lot (อัตราแลกเปลี่ยน / กระจายค่าส่งจีน-ไทย)
+ * - affectedProducts คือจำนวนสินค้าที่ใช้ stock ที่ราคาเปลี่ยน (ต้นทุนสินค้าคำนวณใหม่หลัง commit)
+ */
+@Data
+public class LotPriceUpdateResultDTO {
+    private Long stockLotId;
+    private String operation;
+    private int itemCount;
+    private int updatedItems;
+    private int costChangedItems;
+    private int affectedProducts;
+    private BigDecimal previousTotalCost = BigDecimal.ZERO;
+    private BigDecimal newTotalCost = BigDecimal.ZERO;
+    private long durationMs;
+    private List<StockUnitCostChangeDTO> items = new ArrayList<>();
+}
@@ -0,0 +1,20 @@
+package com.example.server.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ สินค้าที่ต้นทุนเปลี่ยนหลังคำนวณใหม่ (ค่าเดิม → ค่าใหม่)
+ */
+@Data
+public class ProductCostChangeDTO {
+    private Long productId;
+    private String productName;
+    private String sku;
+    private BigDecimal previousCost;
+    private BigDecimal newCost;
+    private BigDecimal costDifference;
+    private BigDecimal previousProfitMargin;
+    private BigDecimal newProfitMargin;
+}
@@ -0,0 +1,21 @@
+package com.example.server.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ ราคาขายและต้นทุนที่บันทึกไว้ของสินค้า (projection สำหรับคำนวณต้นทุนใหม่แบบ batch)
+ */
+public interface ProductCostRow {
+
+    Long getProductId();
+
+    String getProductName();
+
+    String getSku();
+
+    BigDecimal getSellingPrice();
+
+    BigDecimal getCalculatedCost();
+
+    BigDecimal getProfitMargin();
+}
@@ -0,0 +1,26 @@
+package com.example.server.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ ยอดรวม stock ที่คำนวณด้วย aggregate query ใน China/ThaiStockRepository
+ * - query แบบ GROUP BY Lot มี stockLotId, query ยอดรวมทั้งระบบ stockLotId เป็น null
+ * - SUM ของแถวว่างเป็น null (ผู้เรียกต้องถือเป็นศูนย์)
+ */
+public interface StockCostSummaryRow {
+
+    Long getStockLotId();
+
+    Long getItemCount();
+
+    Long getTotalQuantity();
+
+    // ยอดก่อน VAT (China: totalBath, Thai: priceTotal + shippingCost)
+    BigDecimal getTotalCostBeforeVat();
+
+    // VAT ราย item ปัดเศษ 3 ตำแหน่งก่อนรวม (เหมือน StockMapper.calculateVatAmount)
+    BigDecimal getTotalVatAmount();
+
+    // ผลรวมของ calculateTotalCost() ราย item (ใช้ totalCostAtImport ถ้ามี)
+    BigDecimal getTotalCost();
+}
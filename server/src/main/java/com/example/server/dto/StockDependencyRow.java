@@ -0,0 +1,14 @@
+package com.example.server.dto;
+
+/**
+ * ⭐ ความสัมพันธ์ stock item → ingredient → product (projection สำหรับ StockDependencyIndex)
+ * มาจากทั้ง ProductIngredient.stockItem (SINGLE) และ ProductIngredientStockAllocation (MULTI_LOT)
+ */
+public interface StockDependencyRow {
+
+    Long getStockItemId();
+
+    Long getIngredientId();
+
+    Long getProductId();
+}
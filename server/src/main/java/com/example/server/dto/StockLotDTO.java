@@ -12,8 +12,17 @@ public class StockLotDTO {
     private LocalDateTime importDate;
     private LocalDateTime arrivalDate;
     private String status;
+    // null ในรายการ Lot ที่ไม่ได้ขอ items (includeItems=false)
     private List<StockItemDTO> items;
 
+    // ⭐ สรุปของ Lot (รายการ Lot คำนวณด้วย aggregate query ไม่ต้องโหลด items)
+    private Integer itemCount;
+    private Integer chinaItemCount;
+    private Integer thaiItemCount;
+    private BigDecimal totalCostBeforeVat;
+    private BigDecimal totalVatAmount;
+    private BigDecimal totalCostWithVat;
+
     @Data
     public static class StockItemDTO {
         private Long stockItemId;
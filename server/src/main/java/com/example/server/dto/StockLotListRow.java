@@ -0,0 +1,21 @@
+package com.example.server.dto;
+
+import com.example.server.entity.StockLot;
+
+import java.time.LocalDateTime;
+
+/**
+ * ⭐ แถวรายการ Lot แบบเบา (projection จาก StockLotRepository - ไม่โหลด items)
+ */
+public interface StockLotListRow {
+
+    Long getStockLotId();
+
+    String getLotName();
+
+    LocalDateTime getImportDate();
+
+    LocalDateTime getArrivalDate();
+
+    StockLot.StockStatus getStatus();
+}
@@ -0,0 +1,11 @@
+package com.example.server.dto;
+
+/**
+ * ⭐ id + ชื่อของ Lot (projection - ไม่โหลด items ของ Lot)
+ */
+public interface StockLotNameRow {
+
+    Long getStockLotId();
+
+    String getLotName();
+}
@@ -0,0 +1,27 @@
+package com.example.server.dto;
+
+import com.example.server.entity.StockBase;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ แถวตัวเลือก stock พร้อมชื่อ Lot (projection จาก query join StockLot ใน China/ThaiStockRepository)
+ */
+public interface StockOptionRow {
+
+    Long getStockItemId();
+
+    String getName();
+
+    String getShopURL();
+
+    BigDecimal getUnitCost();
+
+    Integer getAvailableQuantity();
+
+    StockBase.StockStatus getStatus();
+
+    Long getStockLotId();
+
+    String getLotName();
+}
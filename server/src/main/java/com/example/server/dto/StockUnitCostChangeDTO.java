@@ -0,0 +1,20 @@
+package com.example.server.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ ราคาต่อหน่วยของ stock ก่อน → หลังคำนวณราคาใหม่ทั้ง Lot
+ */
+@Data
+public class StockUnitCostChangeDTO {
+    private Long stockItemId;
+    private String name;
+    private Integer quantity;
+    private BigDecimal previousUnitCost;
+    private BigDecimal newUnitCost;
+    private BigDecimal unitCostDifference;
+    private BigDecimal previousTotalCost;
+    private BigDecimal newTotalCost;
+}
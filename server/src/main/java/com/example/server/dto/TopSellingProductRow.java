@@ -0,0 +1,24 @@
+package com.example.server.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ แถวผลรวมยอดขายต่อสินค้า (projection จาก query GROUP BY ใน OrderItemRepository)
+ * productId เป็น null ได้ถ้ารายการสินค้าไม่ได้ผูกกับ Product (ใช้ SKU จาก OrderItem แทน)
+ */
+public interface TopSellingProductRow {
+
+    Long getProductId();
+
+    String getProductSku();
+
+    String getProductName();
+
+    String getCategory();
+
+    Long getTotalQuantity();
+
+    BigDecimal getTotalRevenue();
+
+    Long getOrderCount();
+}
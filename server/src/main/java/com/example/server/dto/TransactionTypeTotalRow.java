@@ -0,0 +1,17 @@
+package com.example.server.dto;
+
+import com.example.server.entity.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * ⭐ แถวผลรวมยอดเงิน/จำนวนรายการต่อประเภท transaction (projection จาก query GROUP BY)
+ */
+public interface TransactionTypeTotalRow {
+
+    Transaction.TransactionType getType();
+
+    Long getTransactionCount();
+
+    BigDecimal getAmount();
+}
@@ -230,6 +230,16 @@ public class ChinaStock extends StockBase {
         return shippingChinaToThaiBath.divide(BigDecimal.valueOf(getQuantity()), 3, RoundingMode.HALF_UP);
     }
 
+    /**
+     * ⭐ ปลด lock ราคาตอนนำเข้า แล้วคำนวณใหม่ทั้งหมด
+     * ใช้ตอนกระจายค่าส่งจีน-ไทยทั้ง Lot (distributeShippingCosts) - ยังคำนวณจาก originalQuantity
+     */
+    public void recalculateImportCost() {
+        this.unitCostAtImport = null;
+        this.totalCostAtImport = null;
+        calculateFields();
+    }
+
     public BigDecimal getTotalBath() { return this.totalBath; }
     public BigDecimal getFinalPricePerPair() { return this.finalPricePerPair; }
     public BigDecimal getAvgShippingPerPair() { return calculateAvgShippingPerPair(); }
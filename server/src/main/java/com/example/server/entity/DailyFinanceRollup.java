@@ -0,0 +1,42 @@
+package com.example.server.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * ⭐ ยอดรายรับ-รายจ่ายรายวันแยกตามประเภทและหมวดหมู่ของ transaction
+ * คำนวณใหม่เฉพาะวันที่มีการเขียน transaction (DailyRollupService) - รายงานการเงินอ่านจากตารางนี้
+ */
+@Entity
+@Data
+@Table(name = "daily_finance_rollup",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"rollupDate", "type", "category"}),
+        indexes = @Index(name = "idx_daily_finance_rollup_date", columnList = "rollupDate"))
+public class DailyFinanceRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+
+    @Column(nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Transaction.TransactionType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private Transaction.TransactionCategory category;
+
+    private long transactionCount;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    private LocalDateTime updatedAt;
+}
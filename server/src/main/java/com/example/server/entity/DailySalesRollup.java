@@ -0,0 +1,41 @@
+package com.example.server.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * ⭐ ยอดขายรายวันแยกตามช่องทาง (source) และสถานะ order
+ * คำนวณใหม่เฉพาะวันที่มีการเขียน order (DailyRollupService) - รายงานรายเดือน/รายปีอ่านจากตารางนี้
+ */
+@Entity
+@Data
+@Table(name = "daily_sales_rollup",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"rollupDate", "source", "status"}),
+        indexes = @Index(name = "idx_daily_sales_rollup_date", columnList = "rollupDate"))
+public class DailySalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+
+    @Column(nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.OrderSource source;
+
+    @Enumerated(EnumType.STRING)
+    private Order.OrderStatus status;
+
+    private long orderCount;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal netAmount = BigDecimal.ZERO;
+
+    private LocalDateTime updatedAt;
+}
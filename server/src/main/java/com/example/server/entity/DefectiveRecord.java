@@ -1,5 +1,6 @@
 package com.example.server.entity;
 
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.math.BigDecimal;
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 @Entity
 @Data
 @Table(name = "defective_record")
+@EntityListeners(DomainChangeEntityListener.class)
 public class DefectiveRecord {
 
     @Id
@@ -1,7 +1,9 @@
 // com.example.server.entity.Employee.java
 package com.example.server.entity;
 
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -11,6 +13,7 @@ import lombok.Data;
 
 @Entity
 @Data
+@EntityListeners(DomainChangeEntityListener.class)
 public class Employee {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,5 +1,6 @@
 package com.example.server.entity;
 
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.math.BigDecimal;
@@ -9,6 +10,7 @@ import java.time.YearMonth;
 @Entity
 @Data
 @Table(name = "employee_salary_payments")
+@EntityListeners(DomainChangeEntityListener.class)
 public class EmployeeSalaryPayment {
 
     @Id
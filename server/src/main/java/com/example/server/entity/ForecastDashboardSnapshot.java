@@ -0,0 +1,31 @@
+package com.example.server.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * ⭐ Dashboard ของ Stock Forecast ที่คำนวณไว้ล่วงหน้า (เก็บเป็น JSON แถวเดียว)
+ * สร้างใหม่เฉพาะตอนคำนวณ Forecast ใหม่เท่านั้น
+ */
+@Entity
+@Data
+@Table(name = "forecast_dashboard_snapshots")
+public class ForecastDashboardSnapshot {
+
+    public static final Long CURRENT_SNAPSHOT_ID = 1L;
+
+    @Id
+    private Long snapshotId; // ใช้แถวเดียวเสมอ (CURRENT_SNAPSHOT_ID)
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String payload; // JSON ของ dashboard
+
+    @Column(nullable = false, length = 64)
+    private String etag;
+
+    @Column(nullable = false)
+    private LocalDateTime generatedAt;
+}
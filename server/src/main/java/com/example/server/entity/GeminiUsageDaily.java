@@ -0,0 +1,40 @@
+package com.example.server.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * ⭐ ยอดใช้งาน Gemini รายวันแยกตาม feature (สะสมจาก GeminiRateLimiter เป็นระยะ)
+ */
+@Entity
+@Data
+@Table(name = "gemini_usage_daily",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"usageDate", "feature"}))
+public class GeminiUsageDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long usageId;
+
+    @Column(nullable = false)
+    private LocalDate usageDate;
+
+    @Column(nullable = false, length = 64)
+    private String feature;
+
+    private long requests;
+    private long rejected;
+    private long fallbacks;
+    private long promptTokens;
+    private long candidateTokens;
+    private long totalTokens;
+
+    @Column(precision = 12, scale = 6)
+    private BigDecimal estimatedCostUsd = BigDecimal.ZERO;
+
+    private LocalDateTime updatedAt;
+}
@@ -1,5 +1,7 @@
 package com.example.server.entity;
 
+import com.example.server.event.DailyRollupEntityListener;
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -15,6 +17,7 @@ import java.util.List;
 @Table(name = "orders")
 @EqualsAndHashCode(exclude = {"orderItems"})
 @ToString(exclude = {"orderItems"})
+@EntityListeners({DomainChangeEntityListener.class, DailyRollupEntityListener.class})
 public class Order {
 
     @Id
@@ -35,6 +38,10 @@ public class Order {
     private LocalDateTime orderDate;
     private LocalDateTime deliveryDate;
 
+    // ⭐ วันที่ของ order ตอนโหลดจาก DB (ไม่บันทึกลง DB) - ใช้หา rollup รายวันของวันเดิมเมื่อย้ายวันที่
+    @Transient
+    private transient LocalDateTime loadedOrderDate;
+
     // ⭐ NEW: วันที่ชำระเงินจริง
     private LocalDateTime paymentDate;
 
@@ -1,5 +1,6 @@
 package com.example.server.entity;
 
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.math.BigDecimal;
@@ -7,6 +8,7 @@ import java.math.BigDecimal;
 @Entity
 @Data
 @Table(name = "order_items")
+@EntityListeners(DomainChangeEntityListener.class)
 public class OrderItem {
 
     @Id
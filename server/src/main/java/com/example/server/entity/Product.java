@@ -100,6 +100,7 @@
 //}
 package com.example.server.entity;
 
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -114,6 +115,7 @@ import java.util.List;
 @Table(name = "products")
 @EqualsAndHashCode(exclude = {"productIngredients"})
 @ToString(exclude = {"productIngredients"})
+@EntityListeners(DomainChangeEntityListener.class)
 public class Product {
 
     @Id
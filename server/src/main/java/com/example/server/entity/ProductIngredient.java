@@ -1,6 +1,7 @@
 // ProductIngredient.java - อัปเดต Entity เดิม
 package com.example.server.entity;
 
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.math.BigDecimal;
@@ -10,6 +11,7 @@ import java.util.List;
 @Entity
 @Data
 @Table(name = "product_ingredients")
+@EntityListeners(DomainChangeEntityListener.class)
 public class ProductIngredient {
 
     @Id
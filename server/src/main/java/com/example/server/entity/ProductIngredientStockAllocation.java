@@ -1,6 +1,7 @@
 // ProductIngredientStockAllocation.java - Entity ใหม่สำหรับจัดการการจัดสรรสต็อก
 package com.example.server.entity;
 
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.math.BigDecimal;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 @Entity
 @Data
 @Table(name = "product_ingredient_stock_allocations")
+@EntityListeners(DomainChangeEntityListener.class)
 public class ProductIngredientStockAllocation {
 
     @Id
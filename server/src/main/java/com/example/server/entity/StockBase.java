@@ -1,5 +1,6 @@
 package com.example.server.entity;
 
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -14,6 +15,7 @@ import java.math.RoundingMode;
 @Inheritance(strategy = InheritanceType.JOINED)
 @EqualsAndHashCode
 @ToString
+@EntityListeners(DomainChangeEntityListener.class)
 public abstract class StockBase {
 
     @Id
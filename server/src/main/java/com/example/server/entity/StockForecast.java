@@ -78,6 +78,14 @@ public class StockForecast {
     @Column(nullable = false)
     private Integer leadTimeDays; // เวลาจัดส่งโดยประมาณ (default: 14 วัน)
 
+    // ⭐ ผลจาก forecasting engine (เลือก model ด้วย backtest)
+    private Integer predictedNextMonthUsage; // คาดการณ์ยอดใช้เดือนถัดไป
+
+    @Column(length = 50)
+    private String forecastModel; // "MOVING_AVERAGE_3", "HOLT_LINEAR", "HOLT_WINTERS", "CROSTON", ...
+
+    private Double forecastAccuracy; // ความแม่นยำย้อนหลัง 0-100% (100 - WAPE)
+
     public enum UrgencyLevel {
         LOW("ไม่เร่งด่วน - Stock เพียงพอมากกว่า 30 วัน"),
         MEDIUM("ปานกลาง - Stock เหลือ 15-30 วัน"),
@@ -1,5 +1,6 @@
 package com.example.server.entity;
 
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -13,6 +14,7 @@ import java.util.List;
 @Table(name = "stock_lot")
 @EqualsAndHashCode(exclude = {"items"})
 @ToString(exclude = {"items"})
+@EntityListeners(DomainChangeEntityListener.class)
 public class StockLot {
 
     @Id
@@ -30,7 +32,8 @@ public class StockLot {
 
     // ⭐ แก้ไข: เปลี่ยนเป็น orphanRemoval = false และลบ cascade = CascadeType.ALL
     // เพื่อให้สามารถลบ Stock Item ได้โดยไม่กระทบ StockLot
-    @OneToMany(fetch = FetchType.EAGER, orphanRemoval = false)
+    // ⭐ LAZY: รายการ Lot ใช้ projection + aggregate query - โหลด items เฉพาะหน้ารายละเอียด
+    @OneToMany(fetch = FetchType.LAZY, orphanRemoval = false)
     @JoinColumn(name = "stock_lot_id", nullable = true) // ⭐ เพิ่ม nullable = true
     private List<StockBase> items = new ArrayList<>();
 
@@ -1,5 +1,7 @@
 package com.example.server.entity;
 
+import com.example.server.event.DailyRollupEntityListener;
+import com.example.server.event.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.math.BigDecimal;
@@ -7,7 +9,9 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "transactions")
+@Table(name = "transactions",
+        indexes = @Index(name = "idx_transactions_date", columnList = "transactionDate"))
+@EntityListeners({DomainChangeEntityListener.class, DailyRollupEntityListener.class})
 public class Transaction {
 
     @Id
@@ -44,6 +48,10 @@ public class Transaction {
     @Column(nullable = false)
     private LocalDateTime transactionDate;
 
+    // ⭐ วันที่ของ transaction ตอนโหลดจาก DB (ไม่บันทึกลง DB) - ใช้หา rollup รายวันของวันเดิมเมื่อย้ายวันที่
+    @Transient
+    private transient LocalDateTime loadedTransactionDate;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private TransactionMode mode; // AUTO, MANUAL
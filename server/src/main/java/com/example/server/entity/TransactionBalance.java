@@ -0,0 +1,33 @@
+package com.example.server.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * ⭐ ยอดสะสมของ transaction ทั้งหมดแยกตามประเภท (INCOME/EXPENSE) - 1 แถวต่อประเภท
+ * TransactionLedgerService ปรับยอดใน transaction เดียวกับการเพิ่ม/แก้ไข/ลบ transaction
+ */
+@Entity
+@Data
+@Table(name = "transaction_balances",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"type"}))
+public class TransactionBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long balanceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Transaction.TransactionType type;
+
+    @Column(precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    private long transactionCount;
+
+    private LocalDateTime updatedAt;
+}
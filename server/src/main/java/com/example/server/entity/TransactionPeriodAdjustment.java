@@ -0,0 +1,55 @@
+package com.example.server.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * ⭐ รายการปรับยอดของเดือนที่ปิดงวดแล้ว (เพิ่ม/แก้ไข/ลบ transaction ย้อนหลัง)
+ * ยอดสะสม ณ วันใดๆ = snapshot ปิดงวด + adjustment ของเดือนที่ปิดแล้ว + รายการหลังปิดงวด
+ */
+@Entity
+@Immutable
+@Data
+@Table(name = "transaction_period_adjustments",
+        indexes = @Index(name = "idx_transaction_adjustment_period", columnList = "periodStart"))
+public class TransactionPeriodAdjustment {
+
+    public enum Reason {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long adjustmentId;
+
+    // วันแรกของเดือนที่ถูกปรับยอด
+    @Column(nullable = false, updatable = false)
+    private LocalDate periodStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private Transaction.TransactionType type;
+
+    @Column(precision = 15, scale = 2, nullable = false, updatable = false)
+    private BigDecimal amountDelta;
+
+    @Column(updatable = false)
+    private long countDelta;
+
+    @Column(updatable = false)
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private Reason reason;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
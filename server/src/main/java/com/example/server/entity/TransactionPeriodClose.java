@@ -0,0 +1,59 @@
+package com.example.server.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * ⭐ Snapshot ปิดงวดรายเดือน (แก้ไขไม่ได้) - ยอดของเดือน + ยอดสะสมตั้งแต่เดือนแรกถึงสิ้นเดือนนี้
+ * รายการย้อนหลังที่เขียนเข้าเดือนที่ปิดแล้วจะถูกบันทึกเป็น {@link TransactionPeriodAdjustment} แทน
+ */
+@Entity
+@Immutable
+@Data
+@Table(name = "transaction_period_closes",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"periodStart"}))
+public class TransactionPeriodClose {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long closeId;
+
+    // วันแรกของเดือนที่ปิด
+    @Column(nullable = false, updatable = false)
+    private LocalDate periodStart;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDate periodEnd;
+
+    @Column(precision = 15, scale = 2, nullable = false, updatable = false)
+    private BigDecimal monthIncome;
+
+    @Column(precision = 15, scale = 2, nullable = false, updatable = false)
+    private BigDecimal monthExpense;
+
+    @Column(updatable = false)
+    private long monthIncomeCount;
+
+    @Column(updatable = false)
+    private long monthExpenseCount;
+
+    @Column(precision = 15, scale = 2, nullable = false, updatable = false)
+    private BigDecimal cumulativeIncome;
+
+    @Column(precision = 15, scale = 2, nullable = false, updatable = false)
+    private BigDecimal cumulativeExpense;
+
+    @Column(updatable = false)
+    private long cumulativeIncomeCount;
+
+    @Column(updatable = false)
+    private long cumulativeExpenseCount;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime closedAt;
+}
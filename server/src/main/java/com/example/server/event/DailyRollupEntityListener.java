@@ -0,0 +1,71 @@
+package com.example.server.event;
+
+import com.example.server.entity.Order;
+import com.example.server.entity.Transaction;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * ⭐ JPA Entity Listener ของ Order/Transaction - publish {@link RollupDaysChangedEvent}
+ * พร้อมวันที่ที่ได้รับผลกระทบ เพื่อให้ DailyRollupService คำนวณ rollup ใหม่เฉพาะวันนั้น
+ * - จำวันที่ตอนโหลดจาก DB ไว้ (@PostLoad) เพื่อรู้วันเดิมเมื่อมีการแก้ไขวันที่ของรายการ
+ */
+public class DailyRollupEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    public void onLoaded(Object entity) {
+        if (entity instanceof Order o) {
+            o.setLoadedOrderDate(o.getOrderDate());
+        } else if (entity instanceof Transaction t) {
+            t.setLoadedTransactionDate(t.getTransactionDate());
+        }
+    }
+
+    @PostPersist
+    public void onCreated(Object entity) {
+        publish(entity);
+    }
+
+    @PostUpdate
+    public void onUpdated(Object entity) {
+        publish(entity);
+    }
+
+    @PostRemove
+    public void onDeleted(Object entity) {
+        publish(entity);
+    }
+
+    private void publish(Object entity) {
+        if (entity instanceof Order o) {
+            publish(RollupDaysChangedEvent.Rollup.SALES, o.getLoadedOrderDate(), o.getOrderDate());
+            o.setLoadedOrderDate(o.getOrderDate());
+        } else if (entity instanceof Transaction t) {
+            publish(RollupDaysChangedEvent.Rollup.FINANCE, t.getLoadedTransactionDate(), t.getTransactionDate());
+            t.setLoadedTransactionDate(t.getTransactionDate());
+        }
+    }
+
+    private void publish(RollupDaysChangedEvent.Rollup rollup, LocalDateTime before, LocalDateTime after) {
+        Set<LocalDate> days = new HashSet<>(2);
+        if (before != null) days.add(before.toLocalDate());
+        if (after != null) days.add(after.toLocalDate());
+
+        if (days.isEmpty() || eventPublisher == null) {
+            return;
+        }
+        eventPublisher.publishEvent(new RollupDaysChangedEvent(rollup, days));
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.server.event;
+
+/**
+ * ⭐ กลุ่มข้อมูลในระบบ ใช้บอกว่าการเขียนข้อมูลกระทบข้อมูลส่วนไหน (สำหรับ invalidate cache)
+ */
+public enum DataDomain {
+    PRODUCT,
+    STOCK,
+    ORDER,
+    TRANSACTION,
+    EMPLOYEE,
+    SALARY,
+    CUSTOMER
+}
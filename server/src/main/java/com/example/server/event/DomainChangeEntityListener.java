@@ -0,0 +1,76 @@
+package com.example.server.event;
+
+import com.example.server.entity.*;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Map;
+
+/**
+ * ⭐ JPA Entity Listener - publish {@link DomainDataChangedEvent} ทุกครั้งที่ entity ถูกเขียน
+ * ครอบคลุมทุกเส้นทางที่เขียนผ่าน JPA (service, controller, import) โดยไม่ต้องแก้ทุกจุด
+ * (Spring Boot สร้าง listener นี้เป็น bean ผ่าน SpringBeanContainer ของ Hibernate)
+ */
+public class DomainChangeEntityListener {
+
+    private static final Map<Class<?>, DataDomain> DOMAINS = Map.ofEntries(
+            Map.entry(Product.class, DataDomain.PRODUCT),
+            Map.entry(ProductIngredient.class, DataDomain.PRODUCT),
+            Map.entry(ProductIngredientStockAllocation.class, DataDomain.PRODUCT),
+            Map.entry(ChinaStock.class, DataDomain.STOCK),
+            Map.entry(ThaiStock.class, DataDomain.STOCK),
+            Map.entry(StockLot.class, DataDomain.STOCK),
+            Map.entry(DefectiveRecord.class, DataDomain.STOCK),
+            Map.entry(Order.class, DataDomain.ORDER),
+            Map.entry(OrderItem.class, DataDomain.ORDER),
+            Map.entry(Transaction.class, DataDomain.TRANSACTION),
+            Map.entry(Employee.class, DataDomain.EMPLOYEE),
+            Map.entry(EmployeeSalaryPayment.class, DataDomain.SALARY),
+            Map.entry(Customer.class, DataDomain.CUSTOMER)
+    );
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onCreated(Object entity) {
+        publish(entity, DomainDataChangedEvent.ChangeType.CREATED);
+    }
+
+    @PostUpdate
+    public void onUpdated(Object entity) {
+        publish(entity, DomainDataChangedEvent.ChangeType.UPDATED);
+    }
+
+    @PostRemove
+    public void onDeleted(Object entity) {
+        publish(entity, DomainDataChangedEvent.ChangeType.DELETED);
+    }
+
+    private void publish(Object entity, DomainDataChangedEvent.ChangeType changeType) {
+        DataDomain domain = DOMAINS.get(entity.getClass());
+        if (domain == null || eventPublisher == null) {
+            return;
+        }
+        eventPublisher.publishEvent(new DomainDataChangedEvent(domain, changeType, entity.getClass(), idOf(entity)));
+    }
+
+    private Object idOf(Object entity) {
+        if (entity instanceof Product p) return p.getProductId();
+        if (entity instanceof ProductIngredient i) return i.getIngredientId();
+        if (entity instanceof ProductIngredientStockAllocation a) return a.getAllocationId();
+        if (entity instanceof StockBase s) return s.getStockItemId();
+        if (entity instanceof StockLot l) return l.getStockLotId();
+        if (entity instanceof Order o) return o.getOrderId();
+        if (entity instanceof OrderItem i) return i.getOrderItemId();
+        if (entity instanceof Transaction t) return t.getTransactionId();
+        if (entity instanceof Employee e) return e.getEmpId();
+        if (entity instanceof EmployeeSalaryPayment p) return p.getPaymentId();
+        if (entity instanceof Customer c) return c.getCustomerId();
+        if (entity instanceof DefectiveRecord d) return d.getRecordId();
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.server.event;
+
+import lombok.Getter;
+
+/**
+ * ⭐ Event ที่ publish เมื่อมีการเพิ่ม/แก้ไข/ลบข้อมูลในกลุ่ม {@link DataDomain}
+ */
+@Getter
+public class DomainDataChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final DataDomain domain;
+    private final ChangeType changeType;
+    private final Class<?> entityType;
+    private final Object entityId;
+
+    public DomainDataChangedEvent(DataDomain domain, ChangeType changeType, Class<?> entityType, Object entityId) {
+        this.domain = domain;
+        this.changeType = changeType;
+        this.entityType = entityType;
+        this.entityId = entityId;
+    }
+
+    @Override
+    public String toString() {
+        return "DomainDataChangedEvent{" + domain + " " + changeType + " "
+                + (entityType != null ? entityType.getSimpleName() : "?") + "#" + entityId + "}";
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.server.event;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * ⭐ Event ที่ publish เมื่อ order/transaction ถูกเขียน พร้อมวันที่ที่ยอด rollup รายวันต้องคำนวณใหม่
+ * (ถ้าเปลี่ยนวันที่ของรายการ จะมีทั้งวันเดิมและวันใหม่)
+ */
+@Getter
+public class RollupDaysChangedEvent {
+
+    public enum Rollup {
+        SALES,
+        FINANCE
+    }
+
+    private final Rollup rollup;
+    private final Set<LocalDate> days;
+
+    public RollupDaysChangedEvent(Rollup rollup, Set<LocalDate> days) {
+        this.rollup = rollup;
+        this.days = Set.copyOf(days);
+    }
+
+    @Override
+    public String toString() {
+        return "RollupDaysChangedEvent{" + rollup + " " + days + "}";
+    }
+}
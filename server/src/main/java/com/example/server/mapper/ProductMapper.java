@@ -3,13 +3,14 @@ package com.example.server.mapper;
 import com.example.server.dto.*;
 import com.example.server.entity.*;
 import com.example.server.respository.ProductIngredientRepository;
+import com.example.server.respository.ProductIngredientStockAllocationRepository;
 import com.example.server.respository.ProductRepository;
 import com.example.server.respository.StockBaseRepository;
 import com.example.server.respository.StockLotRepository;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Component
@@ -18,18 +19,27 @@ public class ProductMapper {
     private final StockBaseRepository stockBaseRepository;
     private final ProductIngredientRepository productIngredientRepository;
     private final StockLotRepository stockLotRepository;
+    private final ProductIngredientStockAllocationRepository allocationRepository;
+
+    // จำนวน id สูงสุดต่อ IN (...) หนึ่งครั้ง
+    private static final int IN_CLAUSE_CHUNK = 1000;
 
     public ProductMapper(StockBaseRepository stockBaseRepository,
-                         ProductIngredientRepository productIngredientRepository, StockLotRepository stockLotRepository) {
+                         ProductIngredientRepository productIngredientRepository, StockLotRepository stockLotRepository,
+                         ProductIngredientStockAllocationRepository allocationRepository) {
         this.stockBaseRepository = stockBaseRepository;
         this.productIngredientRepository = productIngredientRepository;
         this.stockLotRepository = stockLotRepository;
+        this.allocationRepository = allocationRepository;
     }
 
     // Product mappings
     public ProductDTO toProductDTO(Product product) {
         if (product == null) return null;
+        return toProductDTOList(List.of(product)).get(0);
+    }
 
+    private ProductDTO toProductDTO(Product product, List<ProductIngredientDTO> ingredients) {
         ProductDTO dto = new ProductDTO();
         dto.setProductId(product.getProductId());
         dto.setProductName(product.getProductName());
@@ -47,10 +57,7 @@ public class ProductMapper {
 
         dto.setCreatedDate(product.getCreatedDate());
         dto.setUpdatedDate(product.getUpdatedDate());
-
-        List<ProductIngredient> ingredients = productIngredientRepository
-                .findByProductProductId(product.getProductId());
-        dto.setIngredients(toProductIngredientDTOList(ingredients));
+        dto.setIngredients(ingredients);
 
         return dto;
     }
@@ -71,16 +78,70 @@ public class ProductMapper {
         return product;
     }
 
+    /**
+     * ⭐ แปลงสินค้าหลายรายการเป็น DTO ด้วยจำนวน query คงที่ (ไม่ขึ้นกับจำนวนสินค้า)
+     * - ingredients + stock item / allocations + stock item / ชื่อ Lot อย่างละ 1 query (ต่อ 1,000 id)
+     * - แล้วประกอบ DTO ในหน่วยความจำ
+     */
     public List<ProductDTO> toProductDTOList(List<Product> products) {
-        return products.stream()
-                .map(this::toProductDTO)
-                .collect(Collectors.toList());
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (Product product : products) {
+            if (product.getProductId() != null) {
+                productIds.add(product.getProductId());
+            }
+        }
+
+        Map<Long, List<ProductIngredient>> ingredientsByProduct = new HashMap<>();
+        List<Long> multiLotIngredientIds = new ArrayList<>();
+        for (List<Long> chunk : chunks(productIds)) {
+            for (ProductIngredient ingredient : productIngredientRepository.findByProductIdsWithStockItem(chunk)) {
+                ingredientsByProduct
+                        .computeIfAbsent(ingredient.getProduct().getProductId(), id -> new ArrayList<>())
+                        .add(ingredient);
+                if (ingredient.getAllocationMode() == ProductIngredient.AllocationMode.MULTI_LOT) {
+                    multiLotIngredientIds.add(ingredient.getIngredientId());
+                }
+            }
+        }
+
+        Map<Long, List<ProductIngredientStockAllocation>> allocationsByIngredient = new HashMap<>();
+        List<ProductIngredientStockAllocation> allAllocations = new ArrayList<>();
+        for (List<Long> chunk : chunks(multiLotIngredientIds)) {
+            for (ProductIngredientStockAllocation allocation : allocationRepository.findByIngredientIdsWithStockItem(chunk)) {
+                allocationsByIngredient
+                        .computeIfAbsent(allocation.getProductIngredient().getIngredientId(), id -> new ArrayList<>())
+                        .add(allocation);
+                allAllocations.add(allocation);
+            }
+        }
+
+        Map<Long, String> lotNames = findLotNames(allAllocations);
+
+        List<ProductDTO> dtos = new ArrayList<>(products.size());
+        for (Product product : products) {
+            List<ProductIngredientDTO> ingredientDTOs = new ArrayList<>();
+            for (ProductIngredient ingredient : ingredientsByProduct.getOrDefault(product.getProductId(), List.of())) {
+                ingredientDTOs.add(toProductIngredientDTO(ingredient,
+                        allocationsByIngredient.getOrDefault(ingredient.getIngredientId(), List.of()), lotNames));
+            }
+            dtos.add(toProductDTO(product, ingredientDTOs));
+        }
+        return dtos;
     }
 
     // ProductIngredient mappings
     public ProductIngredientDTO toProductIngredientDTO(ProductIngredient ingredient) {
         if (ingredient == null) return null;
 
+        List<ProductIngredientStockAllocation> allocations = ingredient.getStockAllocations() != null
+                ? ingredient.getStockAllocations() : List.of();
+        return toProductIngredientDTO(ingredient, allocations, findLotNames(allocations));
+    }
+
+    private ProductIngredientDTO toProductIngredientDTO(ProductIngredient ingredient,
+                                                        List<ProductIngredientStockAllocation> allocations,
+                                                        Map<Long, String> lotNames) {
+
         ProductIngredientDTO dto = new ProductIngredientDTO();
         dto.setIngredientId(ingredient.getIngredientId());
         dto.setProductId(ingredient.getProduct() != null ? ingredient.getProduct().getProductId() : null);
@@ -114,10 +175,10 @@ public class ProductMapper {
 
         // ⭐ MULTI_LOT mode - Map allocations
         if (ingredient.getAllocationMode() == ProductIngredient.AllocationMode.MULTI_LOT &&
-                ingredient.getStockAllocations() != null && !ingredient.getStockAllocations().isEmpty()) {
+                !allocations.isEmpty()) {
 
-            List<ProductIngredientAllocationDTO> allocationDTOs = ingredient.getStockAllocations().stream()
-                    .map(this::toAllocationDTO)
+            List<ProductIngredientAllocationDTO> allocationDTOs = allocations.stream()
+                    .map(allocation -> toAllocationDTO(allocation, lotNames))
                     .collect(Collectors.toList());
 
             dto.setStockAllocations(allocationDTOs);
@@ -127,7 +188,8 @@ public class ProductMapper {
     }
 
     // ⭐ เพิ่ม method ใหม่
-    private ProductIngredientAllocationDTO toAllocationDTO(ProductIngredientStockAllocation allocation) {
+    private ProductIngredientAllocationDTO toAllocationDTO(ProductIngredientStockAllocation allocation,
+                                                           Map<Long, String> lotNames) {
         ProductIngredientAllocationDTO dto = new ProductIngredientAllocationDTO();
         dto.setAllocationId(allocation.getAllocationId());
         dto.setStockItemId(allocation.getStockItem().getStockItemId());
@@ -139,17 +201,44 @@ public class ProductMapper {
         dto.setTotalCost(allocation.getTotalCost());
         dto.setAvailableQuantity(allocation.getStockItem().getQuantity());
 
-        // ดึงข้อมูล Lot
-        if (allocation.getStockItem().getStockLotId() != null) {
-            stockLotRepository.findById(allocation.getStockItem().getStockLotId())
-                    .ifPresent(lot -> {
-                        dto.setLotName(lot.getLotName());
-                        dto.setStockLotId(lot.getStockLotId());
-                    });
+        // ข้อมูล Lot (โหลดไว้ล่วงหน้าแล้วใน findLotNames)
+        Long stockLotId = allocation.getStockItem().getStockLotId();
+        if (stockLotId != null && lotNames.containsKey(stockLotId)) {
+            dto.setLotName(lotNames.get(stockLotId));
+            dto.setStockLotId(stockLotId);
         }
 
         return dto;
     }
+
+    /**
+     * ชื่อ Lot ของ stock ทุกตัวใน allocations (query เดียวต่อ 1,000 lot ไม่โหลด items ของ Lot)
+     */
+    private Map<Long, String> findLotNames(List<ProductIngredientStockAllocation> allocations) {
+        Set<Long> lotIds = new HashSet<>();
+        for (ProductIngredientStockAllocation allocation : allocations) {
+            if (allocation.getStockItem() != null && allocation.getStockItem().getStockLotId() != null) {
+                lotIds.add(allocation.getStockItem().getStockLotId());
+            }
+        }
+
+        Map<Long, String> lotNames = new HashMap<>();
+        for (List<Long> chunk : chunks(lotIds)) {
+            for (StockLotNameRow row : stockLotRepository.findLotNamesByIds(chunk)) {
+                lotNames.put(row.getStockLotId(), row.getLotName());
+            }
+        }
+        return lotNames;
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += IN_CLAUSE_CHUNK) {
+            chunks.add(all.subList(i, Math.min(i + IN_CLAUSE_CHUNK, all.size())));
+        }
+        return chunks;
+    }
     public ProductIngredient toProductIngredient(ProductIngredientRequestDTO request) {
         if (request == null) return null;
 
@@ -4,6 +4,7 @@ import com.example.server.dto.StockForecastDTO;
 import com.example.server.dto.StockForecastSummaryDTO;
 import com.example.server.dto.StockOrderRecommendationDTO;
 import com.example.server.entity.StockForecast;
+import com.example.server.service.GeminiStockForecastService;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -54,6 +55,11 @@ public class StockForecastMapper {
         dto.setSafetyStockDays(forecast.getSafetyStockDays());
         dto.setLeadTimeDays(forecast.getLeadTimeDays());
 
+        // ผลการคาดการณ์เดือนถัดไป
+        dto.setPredictedNextMonthUsage(forecast.getPredictedNextMonthUsage());
+        dto.setForecastMethod(forecast.getForecastModel());
+        dto.setForecastConfidence(forecast.getForecastAccuracy());
+
         return dto;
     }
 
@@ -168,6 +174,25 @@ public class StockForecastMapper {
         return groupDTO;
     }
 
+    /**
+     * ✅ แปลง StockForecast เป็น request สำหรับให้ Gemini วิเคราะห์
+     */
+    public GeminiStockForecastService.StockForecastAnalysisRequest toAnalysisRequest(StockForecast forecast) {
+        GeminiStockForecastService.StockForecastAnalysisRequest request =
+                new GeminiStockForecastService.StockForecastAnalysisRequest();
+        request.setStockItemName(forecast.getStockItemName());
+        request.setStockType(forecast.getStockType());
+        request.setCurrentStock(forecast.getCurrentStock());
+        request.setCurrentStockValue(forecast.getCurrentStockValue());
+        request.setAverageDailyUsage(forecast.getAverageDailyUsage());
+        request.setAverageWeeklyUsage(forecast.getAverageWeeklyUsage());
+        request.setAverageMonthlyUsage(forecast.getAverageMonthlyUsage());
+        request.setSafetyStockDays(forecast.getSafetyStockDays());
+        request.setLeadTimeDays(forecast.getLeadTimeDays());
+        request.setAnalysisBaseDays(forecast.getAnalysisBasedOnDays());
+        return request;
+    }
+
     /**
      * Helper methods สำหรับดึงข้อมูลจาก Map
      */
@@ -25,11 +25,79 @@ public class StockMapper {
             dto.setItems(stockLot.getItems().stream()
                     .map(this::toStockItemDTO)
                     .collect(Collectors.toList()));
+            applyItemSummary(dto, dto.getItems());
         }
 
         return dto;
     }
 
+    /**
+     * ⭐ รายการ Lot แบบเบา: ข้อมูล Lot จาก projection + ยอดรวมจาก aggregate query
+     * items เป็น null ถ้าไม่ได้ส่งมา (ไม่ได้ขอ includeItems)
+     */
+    public StockLotDTO toStockLotListDTO(StockLotListRow row, StockCostSummaryRow chinaCost,
+                                         StockCostSummaryRow thaiCost, List<StockBase> items) {
+        if (row == null) return null;
+
+        StockLotDTO dto = new StockLotDTO();
+        dto.setStockLotId(row.getStockLotId());
+        dto.setLotName(row.getLotName());
+        dto.setImportDate(row.getImportDate());
+        dto.setArrivalDate(row.getArrivalDate());
+        dto.setStatus(row.getStatus() != null ? row.getStatus().name() : null);
+
+        int chinaCount = chinaCost != null && chinaCost.getItemCount() != null ? chinaCost.getItemCount().intValue() : 0;
+        int thaiCount = thaiCost != null && thaiCost.getItemCount() != null ? thaiCost.getItemCount().intValue() : 0;
+        dto.setChinaItemCount(chinaCount);
+        dto.setThaiItemCount(thaiCount);
+        dto.setItemCount(chinaCount + thaiCount);
+
+        BigDecimal beforeVat = amountOrZero(chinaCost != null ? chinaCost.getTotalCostBeforeVat() : null)
+                .add(amountOrZero(thaiCost != null ? thaiCost.getTotalCostBeforeVat() : null));
+        BigDecimal vat = amountOrZero(chinaCost != null ? chinaCost.getTotalVatAmount() : null)
+                .add(amountOrZero(thaiCost != null ? thaiCost.getTotalVatAmount() : null));
+        dto.setTotalCostBeforeVat(beforeVat);
+        dto.setTotalVatAmount(vat);
+        dto.setTotalCostWithVat(beforeVat.add(vat));
+
+        if (items != null) {
+            dto.setItems(items.stream()
+                    .map(this::toStockItemDTO)
+                    .collect(Collectors.toList()));
+        }
+
+        return dto;
+    }
+
+    // สรุปจาก items ที่โหลดมาแล้ว - สูตรเดียวกับ aggregate query ใน China/ThaiStockRepository
+    private void applyItemSummary(StockLotDTO dto, List<StockLotDTO.StockItemDTO> items) {
+        int chinaCount = 0;
+        int thaiCount = 0;
+        BigDecimal beforeVat = BigDecimal.ZERO;
+        BigDecimal vat = BigDecimal.ZERO;
+
+        for (StockLotDTO.StockItemDTO item : items) {
+            if ("CHINA".equals(item.getItemType())) {
+                chinaCount++;
+            } else if ("THAI".equals(item.getItemType())) {
+                thaiCount++;
+            }
+            beforeVat = beforeVat.add(amountOrZero(item.getTotalValueBeforeVat()));
+            vat = vat.add(amountOrZero(item.getVatAmount()));
+        }
+
+        dto.setItemCount(items.size());
+        dto.setChinaItemCount(chinaCount);
+        dto.setThaiItemCount(thaiCount);
+        dto.setTotalCostBeforeVat(beforeVat);
+        dto.setTotalVatAmount(vat);
+        dto.setTotalCostWithVat(beforeVat.add(vat));
+    }
+
+    private BigDecimal amountOrZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
     private StockLotDTO.StockItemDTO toStockItemDTO(StockBase stockBase) {
         if (stockBase == null) return null;
 
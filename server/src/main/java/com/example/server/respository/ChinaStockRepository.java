@@ -1,10 +1,15 @@
 package com.example.server.respository;
 
+import com.example.server.dto.ChinaStockPricingRow;
+import com.example.server.dto.StockCostSummaryRow;
+import com.example.server.dto.StockOptionRow;
 import com.example.server.entity.ChinaStock;
+import com.example.server.entity.StockBase;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 public interface ChinaStockRepository extends JpaRepository<ChinaStock, Long> {
@@ -13,6 +18,8 @@ public interface ChinaStockRepository extends JpaRepository<ChinaStock, Long> {
 
     List<ChinaStock> findByStockLotId(Long stockLotId);
 
+    long countByStatus(StockBase.StockStatus status);
+
     @Query("SELECT c FROM ChinaStock c WHERE c.unitPriceYuan BETWEEN :minPrice AND :maxPrice")
     List<ChinaStock> findByUnitPriceYuanBetween(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
 
@@ -24,4 +31,50 @@ public interface ChinaStockRepository extends JpaRepository<ChinaStock, Long> {
 
     @Query("SELECT c FROM ChinaStock c WHERE c.name LIKE %:keyword% OR c.shopURL LIKE %:keyword%")
     List<ChinaStock> searchByKeyword(@Param("keyword") String keyword);
-}
\ No newline at end of file
+
+    String STOCK_OPTION_SELECT = "SELECT c.stockItemId AS stockItemId, c.name AS name, c.shopURL AS shopURL, " +
+            "c.finalPricePerPair AS unitCost, c.quantity AS availableQuantity, c.status AS status, " +
+            "c.stockLotId AS stockLotId, l.lotName AS lotName " +
+            "FROM ChinaStock c LEFT JOIN StockLot l ON l.stockLotId = c.stockLotId ";
+
+    // ⭐ ตัวเลือก stock พร้อมชื่อ Lot ใน query เดียว (ใช้โดย StockOptionsReadModel)
+    @Query(STOCK_OPTION_SELECT + "WHERE c.status = :status")
+    List<StockOptionRow> findStockOptionRowsByStatus(@Param("status") StockBase.StockStatus status);
+
+    @Query(STOCK_OPTION_SELECT + "WHERE c.stockItemId IN :ids")
+    List<StockOptionRow> findStockOptionRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(STOCK_OPTION_SELECT + "WHERE c.stockLotId IN :lotIds")
+    List<StockOptionRow> findStockOptionRowsByLotIds(@Param("lotIds") Collection<Long> lotIds);
+
+    // ⭐ ค่าราคาทั้ง Lot ใน query เดียว สำหรับปรับราคาแบบ batch (ChinaStockService.updateExchangeRateForLot ฯลฯ)
+    @Query("SELECT c.stockItemId AS stockItemId, c.name AS name, c.quantity AS quantity, " +
+            "c.originalQuantity AS originalQuantity, c.unitPriceYuan AS unitPriceYuan, " +
+            "c.totalValueYuan AS totalValueYuan, c.shippingWithinChinaYuan AS shippingWithinChinaYuan, " +
+            "c.totalYuan AS totalYuan, c.totalBath AS totalBath, c.pricePerUnitBath AS pricePerUnitBath, " +
+            "c.shippingChinaToThaiBath AS shippingChinaToThaiBath, c.finalPricePerPair AS finalPricePerPair, " +
+            "c.exchangeRate AS exchangeRate, c.vatPercentage AS vatPercentage, c.includeVat AS includeVat, " +
+            "c.unitCostAtImport AS unitCostAtImport, c.totalCostAtImport AS totalCostAtImport " +
+            "FROM ChinaStock c WHERE c.stockLotId = :stockLotId ORDER BY c.stockItemId")
+    List<ChinaStockPricingRow> findPricingRowsByStockLotId(@Param("stockLotId") Long stockLotId);
+
+    // VAT ราย item ปัด 3 ตำแหน่ง (null = ไม่มี VAT - SUM ข้ามค่า null)
+    String VAT_AMOUNT = "CASE WHEN c.includeVat = true AND c.vatPercentage > 0 " +
+            "THEN ROUND(c.totalBath * c.vatPercentage / 100, 3) END";
+
+    // ⭐ ยอดรวมฝั่ง SQL - สูตรเดียวกับ ChinaStock.calculateTotalCost() และ StockLotService.getStockLotSummary()
+    String COST_SUMMARY_COLUMNS = "COUNT(c) AS itemCount, SUM(COALESCE(c.quantity, 0)) AS totalQuantity, " +
+            "SUM(c.totalBath) AS totalCostBeforeVat, SUM(" + VAT_AMOUNT + ") AS totalVatAmount, " +
+            "SUM(CASE WHEN c.totalCostAtImport > 0 THEN c.totalCostAtImport " +
+            "WHEN c.totalBath IS NOT NULL THEN c.totalBath + COALESCE(" + VAT_AMOUNT + ", 0) END) AS totalCost ";
+
+    @Query("SELECT c.stockLotId AS stockLotId, " + COST_SUMMARY_COLUMNS +
+            "FROM ChinaStock c WHERE c.stockLotId IN :lotIds GROUP BY c.stockLotId")
+    List<StockCostSummaryRow> summarizeCostsByLotIds(@Param("lotIds") Collection<Long> lotIds);
+
+    @Query("SELECT " + COST_SUMMARY_COLUMNS + "FROM ChinaStock c WHERE c.stockLotId IS NOT NULL")
+    StockCostSummaryRow summarizeCostsInLots();
+
+    @Query("SELECT " + COST_SUMMARY_COLUMNS + "FROM ChinaStock c")
+    StockCostSummaryRow summarizeCosts();
+}
@@ -0,0 +1,21 @@
+package com.example.server.respository;
+
+import com.example.server.entity.DailyFinanceRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyFinanceRollupRepository extends JpaRepository<DailyFinanceRollup, Long> {
+
+    List<DailyFinanceRollup> findByRollupDateBetweenOrderByRollupDateAsc(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM DailyFinanceRollup r WHERE r.rollupDate BETWEEN :from AND :to")
+    int deleteByRollupDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
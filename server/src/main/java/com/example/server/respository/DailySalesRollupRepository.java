@@ -0,0 +1,21 @@
+package com.example.server.respository;
+
+import com.example.server.entity.DailySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    List<DailySalesRollup> findByRollupDateBetweenOrderByRollupDateAsc(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesRollup r WHERE r.rollupDate BETWEEN :from AND :to")
+    int deleteByRollupDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,9 @@
+package com.example.server.respository;
+
+import com.example.server.entity.ForecastDashboardSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ForecastDashboardSnapshotRepository extends JpaRepository<ForecastDashboardSnapshot, Long> {
+}
@@ -0,0 +1,19 @@
+package com.example.server.respository;
+
+import com.example.server.entity.GeminiUsageDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GeminiUsageDailyRepository extends JpaRepository<GeminiUsageDaily, Long> {
+
+    List<GeminiUsageDaily> findByUsageDate(LocalDate usageDate);
+
+    Optional<GeminiUsageDaily> findByUsageDateAndFeature(LocalDate usageDate, String feature);
+
+    List<GeminiUsageDaily> findByUsageDateBetweenOrderByUsageDateDescFeatureAsc(LocalDate from, LocalDate to);
+}
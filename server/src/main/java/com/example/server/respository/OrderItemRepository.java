@@ -1,13 +1,16 @@
 package com.example.server.respository;
 
+import com.example.server.dto.TopSellingProductRow;
 import com.example.server.entity.Order;
 import com.example.server.entity.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,4 +38,62 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByProductSku(@Param("sku") String sku);
 
     void deleteByOrderOrderId(Long orderId);
+
+    // ============================================
+    // ⭐ Top Selling - รวมยอดใน DB (GROUP BY) แทนการโหลด OrderItem ทีละ Order
+    // source / category เป็น null ได้ (ไม่กรอง), จำนวนแถวกำหนดด้วย Pageable (LIMIT)
+    // ============================================
+
+    String TOP_SELLING_SELECT = """
+            SELECT p.productId AS productId,
+                   COALESCE(p.sku, oi.productSku) AS productSku,
+                   MAX(COALESCE(p.productName, oi.productName)) AS productName,
+                   p.category AS category,
+                   SUM(oi.quantity) AS totalQuantity,
+                   COALESCE(SUM(oi.totalPrice), 0) AS totalRevenue,
+                   COUNT(DISTINCT o.orderId) AS orderCount
+            FROM OrderItem oi
+            JOIN oi.order o
+            LEFT JOIN oi.product p
+            WHERE o.orderDate BETWEEN :from AND :to
+              AND o.status NOT IN :excludedStatuses
+              AND (:source IS NULL OR o.source = :source)
+              AND (:category IS NULL OR p.category = :category)
+            GROUP BY p.productId, COALESCE(p.sku, oi.productSku), p.category
+            """;
+
+    @Query(TOP_SELLING_SELECT + " ORDER BY SUM(oi.quantity) DESC, SUM(oi.totalPrice) DESC")
+    List<TopSellingProductRow> findTopSellingByQuantity(@Param("from") LocalDateTime from,
+                                                        @Param("to") LocalDateTime to,
+                                                        @Param("excludedStatuses") Collection<Order.OrderStatus> excludedStatuses,
+                                                        @Param("source") Order.OrderSource source,
+                                                        @Param("category") String category,
+                                                        Pageable pageable);
+
+    @Query(TOP_SELLING_SELECT + " ORDER BY SUM(oi.totalPrice) DESC, SUM(oi.quantity) DESC")
+    List<TopSellingProductRow> findTopSellingByRevenue(@Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to,
+                                                       @Param("excludedStatuses") Collection<Order.OrderStatus> excludedStatuses,
+                                                       @Param("source") Order.OrderSource source,
+                                                       @Param("category") String category,
+                                                       Pageable pageable);
+
+    /**
+     * จำนวนสินค้า (ไม่ซ้ำ) ที่ขายได้ตามเงื่อนไขเดียวกับ Top Selling
+     */
+    @Query("""
+            SELECT COUNT(DISTINCT COALESCE(p.sku, oi.productSku))
+            FROM OrderItem oi
+            JOIN oi.order o
+            LEFT JOIN oi.product p
+            WHERE o.orderDate BETWEEN :from AND :to
+              AND o.status NOT IN :excludedStatuses
+              AND (:source IS NULL OR o.source = :source)
+              AND (:category IS NULL OR p.category = :category)
+            """)
+    long countSoldProducts(@Param("from") LocalDateTime from,
+                           @Param("to") LocalDateTime to,
+                           @Param("excludedStatuses") Collection<Order.OrderStatus> excludedStatuses,
+                           @Param("source") Order.OrderSource source,
+                           @Param("category") String category);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.server.respository;
 
+import com.example.server.dto.DailySalesAggregateRow;
 import com.example.server.entity.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -92,4 +93,24 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     @Query("SELECT o FROM Order o ORDER BY o.orderDate DESC")
     List<Order> findAllOrderByOrderDateDesc();
-}
\ No newline at end of file
+
+    // ============================================
+    // ⭐ Daily Rollup (DailyRollupService)
+    // ============================================
+
+    /**
+     * ✅ รวม order ต่อวัน/ช่องทาง/สถานะ ในช่วง [start, end) ด้วย GROUP BY ใน DB
+     */
+    @Query("SELECT CAST(o.orderDate AS LocalDate) AS rollupDate, o.source AS source, o.status AS status, " +
+            "COUNT(o) AS orderCount, COALESCE(SUM(o.netAmount), 0) AS netAmount " +
+            "FROM Order o WHERE o.orderDate >= :start AND o.orderDate < :end " +
+            "GROUP BY CAST(o.orderDate AS LocalDate), o.source, o.status")
+    List<DailySalesAggregateRow> aggregateDailySales(@Param("start") LocalDateTime start,
+                                                     @Param("end") LocalDateTime end);
+
+    @Query("SELECT MIN(o.orderDate) FROM Order o")
+    LocalDateTime findEarliestOrderDate();
+
+    @Query("SELECT MAX(o.orderDate) FROM Order o")
+    LocalDateTime findLatestOrderDate();
+}
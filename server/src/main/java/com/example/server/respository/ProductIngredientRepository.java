@@ -1,5 +1,7 @@
 package com.example.server.respository;
 
+import com.example.server.dto.IngredientCostRow;
+import com.example.server.dto.StockDependencyRow;
 import com.example.server.entity.Product;
 import com.example.server.entity.ProductIngredient;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -7,6 +9,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -27,4 +30,26 @@ public interface ProductIngredientRepository extends JpaRepository<ProductIngred
     @Modifying
     @Query("DELETE FROM ProductIngredient pi WHERE pi.product.productId = :productId")
     void deleteByProductId(@Param("productId") Long productId);
-}
\ No newline at end of file
+
+    // ⭐ ingredients ของหลายสินค้าพร้อม stock item ใน query เดียว (ใช้โดย ProductMapper.toProductDTOList)
+    @Query("SELECT pi FROM ProductIngredient pi LEFT JOIN FETCH pi.stockItem " +
+            "WHERE pi.product.productId IN :productIds ORDER BY pi.ingredientId")
+    List<ProductIngredient> findByProductIdsWithStockItem(@Param("productIds") Collection<Long> productIds);
+
+    // ⭐ ความสัมพันธ์ stock → ingredient → product ของโหมด SINGLE (ใช้โดย StockDependencyIndex)
+    @Query("SELECT s.stockItemId AS stockItemId, pi.ingredientId AS ingredientId, pi.product.productId AS productId " +
+            "FROM ProductIngredient pi JOIN pi.stockItem s")
+    List<StockDependencyRow> findStockDependencyRows();
+
+    // ⭐ ข้อมูลคำนวณต้นทุนของหลายสินค้าใน query เดียว (ใช้โดย ProductCostPropagationService)
+    String COST_ROW_SELECT = "SELECT pi.ingredientId AS ingredientId, pi.product.productId AS productId, " +
+            "pi.allocationMode AS allocationMode, pi.requiredQuantity AS requiredQuantity, s.stockItemId AS stockItemId, " +
+            "pi.costPerUnit AS costPerUnit, pi.totalCost AS totalCost " +
+            "FROM ProductIngredient pi LEFT JOIN pi.stockItem s ";
+
+    @Query(COST_ROW_SELECT + "WHERE pi.product.productId IN :productIds ORDER BY pi.ingredientId")
+    List<IngredientCostRow> findCostRowsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Query(COST_ROW_SELECT + "ORDER BY pi.ingredientId")
+    List<IngredientCostRow> findAllCostRows();
+}
@@ -1,11 +1,14 @@
 // ProductIngredientStockAllocationRepository.java
 package com.example.server.respository;
 
+import com.example.server.dto.AllocationCostRow;
+import com.example.server.dto.StockDependencyRow;
 import com.example.server.entity.ProductIngredientStockAllocation;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,4 +23,28 @@ public interface ProductIngredientStockAllocationRepository extends JpaRepositor
 
     @Query("SELECT DISTINCT a.productIngredient.product FROM ProductIngredientStockAllocation a WHERE a.stockItem.stockItemId = :stockItemId")
     List<com.example.server.entity.Product> findProductsUsingStockItemInAllocations(@Param("stockItemId") Long stockItemId);
-}
\ No newline at end of file
+
+    // ⭐ allocations ของหลาย ingredient พร้อม stock item ใน query เดียว (เรียงตาม priority เหมือน @OrderBy)
+    @Query("SELECT a FROM ProductIngredientStockAllocation a JOIN FETCH a.stockItem " +
+            "WHERE a.productIngredient.ingredientId IN :ingredientIds " +
+            "ORDER BY a.allocationPriority ASC, a.allocationId ASC")
+    List<ProductIngredientStockAllocation> findByIngredientIdsWithStockItem(
+            @Param("ingredientIds") Collection<Long> ingredientIds);
+
+    // ⭐ ความสัมพันธ์ stock → ingredient → product ของโหมด MULTI_LOT (ใช้โดย StockDependencyIndex)
+    @Query("SELECT a.stockItem.stockItemId AS stockItemId, pi.ingredientId AS ingredientId, pi.product.productId AS productId " +
+            "FROM ProductIngredientStockAllocation a JOIN a.productIngredient pi")
+    List<StockDependencyRow> findStockDependencyRows();
+
+    // ⭐ allocations ของหลายสินค้าใน query เดียว (ใช้โดย ProductCostPropagationService)
+    String COST_ROW_SELECT = "SELECT a.allocationId AS allocationId, pi.ingredientId AS ingredientId, " +
+            "a.stockItem.stockItemId AS stockItemId, a.allocatedQuantity AS allocatedQuantity, " +
+            "a.costPerUnit AS costPerUnit, a.totalCost AS totalCost " +
+            "FROM ProductIngredientStockAllocation a JOIN a.productIngredient pi ";
+
+    @Query(COST_ROW_SELECT + "WHERE pi.product.productId IN :productIds ORDER BY a.allocationPriority ASC, a.allocationId ASC")
+    List<AllocationCostRow> findCostRowsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Query(COST_ROW_SELECT + "ORDER BY a.allocationPriority ASC, a.allocationId ASC")
+    List<AllocationCostRow> findAllCostRows();
+}
@@ -1,11 +1,13 @@
 package com.example.server.respository;
 
+import com.example.server.dto.ProductCostRow;
 import com.example.server.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,4 +33,16 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT DISTINCT p.category FROM Product p WHERE p.category IS NOT NULL ORDER BY p.category")
     List<String> findAllCategories();
+
+    // ⭐ ราคาขาย/ต้นทุนปัจจุบันของหลายสินค้า (ใช้โดย ProductCostPropagationService)
+    String COST_ROW_SELECT = "SELECT p.productId AS productId, p.productName AS productName, p.sku AS sku, " +
+            "p.sellingPrice AS sellingPrice, p.calculatedCost AS calculatedCost, p.profitMargin AS profitMargin " +
+            "FROM Product p ";
+
+    @Query(COST_ROW_SELECT + "WHERE p.productId IN :productIds")
+    List<ProductCostRow> findCostRowsByIds(@Param("productIds") Collection<Long> productIds);
+
+    // ⭐ ทั้งแคตตาล็อก (ใช้โดยงานคำนวณต้นทุนใหม่ทั้งหมด)
+    @Query(COST_ROW_SELECT + "ORDER BY p.productId")
+    List<ProductCostRow> findAllCostRows();
 }
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.Lock;
 
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +17,13 @@ public interface StockBaseRepository extends JpaRepository<StockBase, Long> {
     List<StockBase> findByStatus(StockBase.StockStatus status);
     List<StockBase> findByStockLotId(Long stockLotId);
 
+    // ⭐ items ของหลาย Lot ใน query เดียว (รายการ Lot แบบ includeItems)
+    List<StockBase> findByStockLotIdInOrderByStockItemId(Collection<Long> stockLotIds);
+
+    long countByStatus(StockBase.StockStatus status);
+
+    long countByStatusAndStockLotIdIsNotNull(StockBase.StockStatus status);
+
     @Query("SELECT s FROM StockBase s WHERE s.name LIKE %:name%")
     List<StockBase> findByNameContaining(@Param("name") String name);
 
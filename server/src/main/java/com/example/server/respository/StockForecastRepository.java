@@ -62,6 +62,11 @@ public interface StockForecastRepository extends JpaRepository<StockForecast, Lo
      */
     List<StockForecast> findByStockTypeOrderByUrgencyLevelDescDaysUntilStockOutAsc(String stockType);
 
+    /**
+     * นับจำนวน Forecast ตาม Stock Type
+     */
+    long countByStockType(String stockType);
+
     /**
      * นับจำนวน Stock ในแต่ละระดับความเร่งด่วน
      */
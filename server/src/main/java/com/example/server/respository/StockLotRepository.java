@@ -1,10 +1,13 @@
 package com.example.server.respository;
 
+import com.example.server.dto.StockLotListRow;
+import com.example.server.dto.StockLotNameRow;
 import com.example.server.entity.StockLot;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +21,30 @@ public interface StockLotRepository extends JpaRepository<StockLot, Long> {
 
     List<StockLot> findByArrivalDateBetween(LocalDateTime startDate, LocalDateTime endDate);
 
+    long countByStatus(StockLot.StockStatus status);
+
     @Query("SELECT s FROM StockLot s WHERE s.lotName LIKE %:keyword% OR s.status = :status")
     List<StockLot> findByLotNameContainingOrStatus(@Param("keyword") String keyword, @Param("status") StockLot.StockStatus status);
-}
\ No newline at end of file
+
+    // ⭐ ชื่อ Lot ตาม id (ไม่โหลด entity)
+    @Query("SELECT l.stockLotId AS stockLotId, l.lotName AS lotName FROM StockLot l WHERE l.stockLotId IN :ids")
+    List<StockLotNameRow> findLotNamesByIds(@Param("ids") Collection<Long> ids);
+
+    String LIST_ROW_SELECT = "SELECT l.stockLotId AS stockLotId, l.lotName AS lotName, l.importDate AS importDate, " +
+            "l.arrivalDate AS arrivalDate, l.status AS status FROM StockLot l ";
+
+    // ⭐ รายการ Lot แบบเบา (ไม่โหลด items)
+    @Query(LIST_ROW_SELECT + "ORDER BY l.stockLotId")
+    List<StockLotListRow> findListRows();
+
+    @Query(LIST_ROW_SELECT + "WHERE l.status = :status ORDER BY l.stockLotId")
+    List<StockLotListRow> findListRowsByStatus(@Param("status") StockLot.StockStatus status);
+
+    @Query(LIST_ROW_SELECT + "WHERE l.importDate BETWEEN :startDate AND :endDate ORDER BY l.stockLotId")
+    List<StockLotListRow> findListRowsByImportDateBetween(@Param("startDate") LocalDateTime startDate,
+                                                          @Param("endDate") LocalDateTime endDate);
+
+    @Query(LIST_ROW_SELECT + "WHERE l.arrivalDate BETWEEN :startDate AND :endDate ORDER BY l.stockLotId")
+    List<StockLotListRow> findListRowsByArrivalDateBetween(@Param("startDate") LocalDateTime startDate,
+                                                           @Param("endDate") LocalDateTime endDate);
+}
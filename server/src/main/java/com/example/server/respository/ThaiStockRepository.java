@@ -1,10 +1,14 @@
 package com.example.server.respository;
 
+import com.example.server.dto.StockCostSummaryRow;
+import com.example.server.dto.StockOptionRow;
 import com.example.server.entity.ThaiStock;
+import com.example.server.entity.StockBase;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 public interface ThaiStockRepository extends JpaRepository<ThaiStock, Long> {
@@ -13,6 +17,8 @@ public interface ThaiStockRepository extends JpaRepository<ThaiStock, Long> {
 
     List<ThaiStock> findByStockLotId(Long stockLotId);
 
+    long countByStatus(StockBase.StockStatus status);
+
     @Query("SELECT t FROM ThaiStock t WHERE t.priceTotal BETWEEN :minPrice AND :maxPrice")
     List<ThaiStock> findByPriceTotalBetween(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
 
@@ -24,4 +30,43 @@ public interface ThaiStockRepository extends JpaRepository<ThaiStock, Long> {
 
     @Query("SELECT t FROM ThaiStock t WHERE t.name LIKE %:keyword% OR t.shopURL LIKE %:keyword%")
     List<ThaiStock> searchByKeyword(@Param("keyword") String keyword);
-}
\ No newline at end of file
+
+    String STOCK_OPTION_SELECT = "SELECT t.stockItemId AS stockItemId, t.name AS name, t.shopURL AS shopURL, " +
+            "t.pricePerUnitWithShipping AS unitCost, t.quantity AS availableQuantity, t.status AS status, " +
+            "t.stockLotId AS stockLotId, l.lotName AS lotName " +
+            "FROM ThaiStock t LEFT JOIN StockLot l ON l.stockLotId = t.stockLotId ";
+
+    // ⭐ ตัวเลือก stock พร้อมชื่อ Lot ใน query เดียว (ใช้โดย StockOptionsReadModel)
+    @Query(STOCK_OPTION_SELECT + "WHERE t.status = :status")
+    List<StockOptionRow> findStockOptionRowsByStatus(@Param("status") StockBase.StockStatus status);
+
+    @Query(STOCK_OPTION_SELECT + "WHERE t.stockItemId IN :ids")
+    List<StockOptionRow> findStockOptionRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(STOCK_OPTION_SELECT + "WHERE t.stockLotId IN :lotIds")
+    List<StockOptionRow> findStockOptionRowsByLotIds(@Param("lotIds") Collection<Long> lotIds);
+
+    // ยอดก่อน VAT = priceTotal + shippingCost (ค่า null ถือเป็นศูนย์ เหมือน StockMapper)
+    String BASE_AMOUNT = "(COALESCE(t.priceTotal, 0) + COALESCE(t.shippingCost, 0))";
+
+    // VAT ราย item ปัด 3 ตำแหน่ง (null = ไม่มี VAT - SUM ข้ามค่า null)
+    String VAT_AMOUNT = "CASE WHEN t.includeVat = true AND t.vatPercentage > 0 " +
+            "THEN ROUND(" + BASE_AMOUNT + " * t.vatPercentage / 100, 3) END";
+
+    // ⭐ ยอดรวมฝั่ง SQL - สูตรเดียวกับ ThaiStock.calculateTotalCost() และ StockLotService.getStockLotSummary()
+    String COST_SUMMARY_COLUMNS = "COUNT(t) AS itemCount, SUM(COALESCE(t.quantity, 0)) AS totalQuantity, " +
+            "SUM(" + BASE_AMOUNT + ") AS totalCostBeforeVat, SUM(" + VAT_AMOUNT + ") AS totalVatAmount, " +
+            "SUM(CASE WHEN t.totalCostAtImport > 0 THEN t.totalCostAtImport " +
+            "WHEN t.priceTotal IS NOT NULL AND t.shippingCost IS NOT NULL " +
+            "THEN t.priceTotal + t.shippingCost + COALESCE(" + VAT_AMOUNT + ", 0) END) AS totalCost ";
+
+    @Query("SELECT t.stockLotId AS stockLotId, " + COST_SUMMARY_COLUMNS +
+            "FROM ThaiStock t WHERE t.stockLotId IN :lotIds GROUP BY t.stockLotId")
+    List<StockCostSummaryRow> summarizeCostsByLotIds(@Param("lotIds") Collection<Long> lotIds);
+
+    @Query("SELECT " + COST_SUMMARY_COLUMNS + "FROM ThaiStock t WHERE t.stockLotId IS NOT NULL")
+    StockCostSummaryRow summarizeCostsInLots();
+
+    @Query("SELECT " + COST_SUMMARY_COLUMNS + "FROM ThaiStock t")
+    StockCostSummaryRow summarizeCosts();
+}
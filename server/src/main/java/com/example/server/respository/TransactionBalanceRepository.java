@@ -0,0 +1,36 @@
+package com.example.server.respository;
+
+import com.example.server.entity.Transaction;
+import com.example.server.entity.TransactionBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransactionBalanceRepository extends JpaRepository<TransactionBalance, Long> {
+
+    /**
+     * ✅ ปรับยอดแบบ atomic ใน DB (ไม่มี lost update เมื่อเขียนพร้อมกัน)
+     */
+    @Modifying
+    @Query("UPDATE TransactionBalance b SET b.totalAmount = b.totalAmount + :amount, " +
+            "b.transactionCount = b.transactionCount + :count, b.updatedAt = :now WHERE b.type = :type")
+    int applyDelta(@Param("type") Transaction.TransactionType type,
+                   @Param("amount") BigDecimal amount,
+                   @Param("count") long count,
+                   @Param("now") LocalDateTime now);
+
+    // ✅ ใช้ PESSIMISTIC_WRITE ตอนปิดงวด/ตรวจยอด - กันการเขียน transaction แทรกระหว่างคำนวณ
+    // lock ตามชื่อประเภท (type เก็บเป็น STRING) - ลำดับเดียวกับ TransactionLedgerService.apply()
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM TransactionBalance b ORDER BY b.type")
+    List<TransactionBalance> lockAll();
+}
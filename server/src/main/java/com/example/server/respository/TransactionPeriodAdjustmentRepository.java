@@ -0,0 +1,23 @@
+package com.example.server.respository;
+
+import com.example.server.dto.TransactionTypeTotalRow;
+import com.example.server.entity.TransactionPeriodAdjustment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface TransactionPeriodAdjustmentRepository extends JpaRepository<TransactionPeriodAdjustment, Long> {
+
+    // ✅ ผลรวม adjustment ของทุกเดือนจนถึงเดือนที่ระบุ (แยกตามประเภท)
+    @Query("SELECT a.type AS type, COALESCE(SUM(a.countDelta), 0) AS transactionCount, " +
+            "COALESCE(SUM(a.amountDelta), 0) AS amount " +
+            "FROM TransactionPeriodAdjustment a WHERE a.periodStart <= :periodStart GROUP BY a.type")
+    List<TransactionTypeTotalRow> sumByTypeThrough(@Param("periodStart") LocalDate periodStart);
+
+    List<TransactionPeriodAdjustment> findByPeriodStartOrderByCreatedAtAsc(LocalDate periodStart);
+}
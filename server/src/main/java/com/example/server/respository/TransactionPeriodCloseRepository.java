@@ -0,0 +1,27 @@
+package com.example.server.respository;
+
+import com.example.server.entity.TransactionPeriodClose;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TransactionPeriodCloseRepository extends JpaRepository<TransactionPeriodClose, Long> {
+
+    Optional<TransactionPeriodClose> findFirstByOrderByPeriodStartDesc();
+
+    /**
+     * ✅ เดือนที่ปิดล่าสุดแบบ locking read - อ่านค่าที่ commit ล่าสุดเสมอ (ไม่ใช่ snapshot เก่าของ transaction)
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    Optional<TransactionPeriodClose> findTopByOrderByPeriodStartDesc();
+
+    Optional<TransactionPeriodClose> findFirstByPeriodStartLessThanEqualOrderByPeriodStartDesc(LocalDate periodStart);
+
+    List<TransactionPeriodClose> findAllByOrderByPeriodStartDesc();
+}
@@ -1,5 +1,7 @@
 package com.example.server.respository;
 
+import com.example.server.dto.DailyFinanceAggregateRow;
+import com.example.server.dto.TransactionTypeTotalRow;
 import com.example.server.entity.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -74,4 +76,35 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     // Count by category
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.category = :category")
     Long countByCategory(@Param("category") Transaction.TransactionCategory category);
-}
\ No newline at end of file
+
+    // ⭐ รวม transaction ต่อวัน/ประเภท/หมวดหมู่ ในช่วง [start, end) สำหรับ Daily Rollup
+    @Query("SELECT CAST(t.transactionDate AS LocalDate) AS rollupDate, t.type AS type, t.category AS category, " +
+            "COUNT(t) AS transactionCount, COALESCE(SUM(t.amount), 0) AS amount " +
+            "FROM Transaction t WHERE t.transactionDate >= :start AND t.transactionDate < :end " +
+            "GROUP BY CAST(t.transactionDate AS LocalDate), t.type, t.category")
+    List<DailyFinanceAggregateRow> aggregateDailyFinance(@Param("start") LocalDateTime start,
+                                                         @Param("end") LocalDateTime end);
+
+    @Query("SELECT MIN(t.transactionDate) FROM Transaction t")
+    LocalDateTime findEarliestTransactionDate();
+
+    @Query("SELECT MAX(t.transactionDate) FROM Transaction t")
+    LocalDateTime findLatestTransactionDate();
+
+    // ============================================
+    // ⭐ Ledger (TransactionLedgerService)
+    // ============================================
+
+    @Query("SELECT t.type AS type, COUNT(t) AS transactionCount, COALESCE(SUM(t.amount), 0) AS amount " +
+            "FROM Transaction t GROUP BY t.type")
+    List<TransactionTypeTotalRow> summarizeByType();
+
+    @Query("SELECT t.type AS type, COUNT(t) AS transactionCount, COALESCE(SUM(t.amount), 0) AS amount " +
+            "FROM Transaction t WHERE t.transactionDate >= :start AND t.transactionDate < :end GROUP BY t.type")
+    List<TransactionTypeTotalRow> summarizeByTypeBetween(@Param("start") LocalDateTime start,
+                                                         @Param("end") LocalDateTime end);
+
+    @Query("SELECT t.type AS type, COUNT(t) AS transactionCount, COALESCE(SUM(t.amount), 0) AS amount " +
+            "FROM Transaction t WHERE t.transactionDate < :end GROUP BY t.type")
+    List<TransactionTypeTotalRow> summarizeByTypeBefore(@Param("end") LocalDateTime end);
+}
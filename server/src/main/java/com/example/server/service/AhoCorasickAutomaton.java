@@ -0,0 +1,147 @@
+package com.example.server.service;
+
+import java.util.*;
+
+/**
+ * ⭐ Aho-Corasick automaton - หาทุก pattern ในข้อความด้วยการอ่านทีละตัวอักษรครั้งเดียว
+ * สร้างครั้งเดียวแล้วใช้ซ้ำได้ (immutable, thread-safe) - ใช้ผ่าน {@link #start()} ต่อข้อความ
+ */
+class AhoCorasickAutomaton {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    // transition ของแต่ละ node เก็บเป็น char ที่เรียงแล้ว + node ปลายทาง (ค้นด้วย binary search)
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    // pattern ที่จบที่ node นี้ (รวม pattern จาก failure chain แล้ว)
+    private final int[][] outputs;
+    private final int[] patternLengths;
+
+    AhoCorasickAutomaton(List<String> patterns) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+
+        patternLengths = new int[patterns.size()];
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("pattern ต้องไม่ว่าง");
+            }
+            patternLengths[id] = pattern.length();
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                Integer next = trie.get(node).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                    trie.get(node).put(c, next);
+                }
+                node = next;
+            }
+            nodeOutputs.get(node).add(id);
+        }
+
+        int size = trie.size();
+        edgeChars = new char[size][];
+        edgeTargets = new int[size][];
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> edges = trie.get(node);
+            edgeChars[node] = new char[edges.size()];
+            edgeTargets[node] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[node][i] = edge.getKey();
+                edgeTargets[node][i] = edge.getValue();
+                i++;
+            }
+        }
+
+        // BFS สร้าง failure link และรวม output ตาม failure chain
+        failure = new int[size];
+        outputs = new int[size][];
+        outputs[0] = toArray(nodeOutputs.get(0));
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            failure[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            List<Integer> merged = new ArrayList<>(nodeOutputs.get(node));
+            for (int out : outputs[failure[node]]) {
+                merged.add(out);
+            }
+            outputs[node] = toArray(merged);
+
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+                int fallback = failure[node];
+                while (fallback != 0 && transition(fallback, c) < 0) {
+                    fallback = failure[fallback];
+                }
+                int target = transition(fallback, c);
+                failure[child] = target >= 0 && target != child ? target : 0;
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * เริ่มอ่านข้อความใหม่
+     */
+    Cursor start() {
+        return new Cursor();
+    }
+
+    int patternLength(int patternId) {
+        return patternLengths[patternId];
+    }
+
+    private int transition(int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        if (values.isEmpty()) {
+            return NO_OUTPUT;
+        }
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * สถานะการอ่านของข้อความหนึ่ง - ป้อนทีละตัวอักษรด้วย next() แล้วได้ pattern ที่จบที่ตำแหน่งนั้น
+     */
+    class Cursor {
+        private int state;
+
+        /**
+         * @return id ของ pattern ที่จบที่ตัวอักษรนี้ (ห้ามแก้ไข array ที่คืนไป)
+         */
+        int[] next(char c) {
+            int target;
+            while ((target = transition(state, c)) < 0 && state != 0) {
+                state = failure[state];
+            }
+            state = Math.max(target, 0);
+            return outputs[state];
+        }
+
+        /**
+         * ตัดการต่อเนื่องของ pattern (เช่น ตัวอักษรที่ถูกข้าม)
+         */
+        void reset() {
+            state = 0;
+        }
+    }
+}
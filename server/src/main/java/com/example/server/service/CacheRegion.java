@@ -0,0 +1,54 @@
+package com.example.server.service;
+
+import com.example.server.entity.*;
+
+import java.util.Set;
+
+/**
+ * ⭐ Region ของ application cache และ entity ที่ค่าใน region ขึ้นอยู่
+ * - เมื่อ entity ชนิดใดถูกเขียน (หลัง commit) จะล้างเฉพาะ region ที่ขึ้นอยู่กับ entity นั้น
+ * - ชื่อ region ใช้ใน @Cacheable ผ่านค่าคงที่ใน {@link Names}
+ */
+public enum CacheRegion {
+
+    // ProductDTO มีรายการส่วนผสม + ชื่อ/ราคาของ stock ที่ใช้
+    PRODUCTS(Names.PRODUCTS, Set.of(Product.class, ProductIngredient.class, ProductIngredientStockAllocation.class,
+            ChinaStock.class, ThaiStock.class, StockLot.class)),
+    PRODUCT_SEARCH(Names.PRODUCT_SEARCH, Set.of(Product.class, ProductIngredient.class,
+            ProductIngredientStockAllocation.class, ChinaStock.class, ThaiStock.class, StockLot.class)),
+    CUSTOMERS(Names.CUSTOMERS, Set.of(Customer.class)),
+    CHINA_STOCKS(Names.CHINA_STOCKS, Set.of(ChinaStock.class, DefectiveRecord.class)),
+    // StockLotDTO มีรายการ stock ในล็อต
+    STOCK_LOTS(Names.STOCK_LOTS, Set.of(StockLot.class, ChinaStock.class, ThaiStock.class, DefectiveRecord.class));
+
+    public static final class Names {
+        public static final String PRODUCTS = "products";
+        public static final String PRODUCT_SEARCH = "product-search";
+        public static final String CUSTOMERS = "customers";
+        public static final String CHINA_STOCKS = "china-stocks";
+        public static final String STOCK_LOTS = "stock-lots";
+
+        private Names() {
+        }
+    }
+
+    private final String regionName;
+    private final Set<Class<?>> dependsOn;
+
+    CacheRegion(String regionName, Set<Class<?>> dependsOn) {
+        this.regionName = regionName;
+        this.dependsOn = dependsOn;
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    public Set<Class<?>> getDependsOn() {
+        return dependsOn;
+    }
+
+    public boolean dependsOn(Class<?> entityType) {
+        return entityType != null && dependsOn.contains(entityType);
+    }
+}
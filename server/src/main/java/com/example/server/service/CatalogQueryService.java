@@ -0,0 +1,117 @@
+package com.example.server.service;
+
+import com.example.server.dto.ChinaStockDTO;
+import com.example.server.dto.CustomerDTO;
+import com.example.server.dto.ProductDTO;
+import com.example.server.dto.StockLotDTO;
+import com.example.server.entity.Customer;
+import com.example.server.mapper.ProductMapper;
+import com.example.server.mapper.StockMapper;
+import com.example.server.respository.CustomerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * ⭐ หน้ารายการสินค้า / ลูกค้า / stock ที่ถูกเรียกบ่อย - ผลลัพธ์เป็น DTO อยู่ใน {@link RegionCacheManager}
+ * - cache เฉพาะ DTO (ไม่ cache entity ที่ผูกกับ persistence context)
+ * - รายการที่คืนเป็น list แก้ไขไม่ได้ เพราะถูกใช้ร่วมกันหลาย request
+ * - ล้างอัตโนมัติเมื่อ entity ที่เกี่ยวข้องถูกเขียน (ดู {@link CacheRegion})
+ */
+@Service
+@Transactional(readOnly = true)
+public class CatalogQueryService {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ChinaStockService chinaStockService;
+
+    @Autowired
+    private StockLotService stockLotService;
+
+    @Autowired
+    private StockMapper stockMapper;
+
+    // ============================================
+    // Products
+    // ============================================
+
+    @Cacheable(cacheNames = CacheRegion.Names.PRODUCTS, key = "'all'", sync = true)
+    public List<ProductDTO> getAllProducts() {
+        return List.copyOf(productMapper.toProductDTOList(productService.getAllProducts()));
+    }
+
+    @Cacheable(cacheNames = CacheRegion.Names.PRODUCTS, key = "'active'", sync = true)
+    public List<ProductDTO> getActiveProducts() {
+        return List.copyOf(productMapper.toProductDTOList(productService.getActiveProducts()));
+    }
+
+    @Cacheable(cacheNames = CacheRegion.Names.PRODUCTS, key = "'category:' + #category", sync = true)
+    public List<ProductDTO> getProductsByCategory(String category) {
+        return List.copyOf(productMapper.toProductDTOList(productService.getProductsByCategory(category)));
+    }
+
+    /**
+     * @return null ถ้าไม่พบสินค้า (ผลว่างถูก cache ด้วย)
+     */
+    @Cacheable(cacheNames = CacheRegion.Names.PRODUCTS, key = "'id:' + #productId", sync = true)
+    public ProductDTO getProductById(Long productId) {
+        return productService.getProductById(productId)
+                .map(productMapper::toProductDTO)
+                .orElse(null);
+    }
+
+    @Cacheable(cacheNames = CacheRegion.Names.PRODUCT_SEARCH, key = "#keyword", sync = true)
+    public List<ProductDTO> searchProducts(String keyword) {
+        return List.copyOf(productMapper.toProductDTOList(productService.searchProducts(keyword)));
+    }
+
+    // ============================================
+    // Customers
+    // ============================================
+
+    @Cacheable(cacheNames = CacheRegion.Names.CUSTOMERS, key = "'all'", sync = true)
+    public List<CustomerDTO> getAllCustomers() {
+        return customerRepository.findAll().stream()
+                .map(this::toCustomerDTO)
+                .toList();
+    }
+
+    private CustomerDTO toCustomerDTO(Customer customer) {
+        CustomerDTO dto = new CustomerDTO();
+        dto.setCustomerId(customer.getCustomerId());
+        dto.setCustomerName(customer.getCustomerName());
+        dto.setCustomerAddress(customer.getCustomerAddress());
+        dto.setCustomerPhone(customer.getCustomerPhone());
+        dto.setStatus(customer.getStatus());
+        dto.setCreatedDate(customer.getCreatedDate());
+        dto.setUpdatedDate(customer.getUpdatedDate());
+        return dto;
+    }
+
+    // ============================================
+    // Stock
+    // ============================================
+
+    @Cacheable(cacheNames = CacheRegion.Names.CHINA_STOCKS, key = "'all'", sync = true)
+    public List<ChinaStockDTO> getAllChinaStocks() {
+        return List.copyOf(stockMapper.toChinaStockDTOList(chinaStockService.getAllChinaStocks()));
+    }
+
+    // รายการ Lot แบบเบา (ยอดรวมจาก aggregate query) - includeItems แยก key กัน
+    @Cacheable(cacheNames = CacheRegion.Names.STOCK_LOTS, key = "#includeItems ? 'all-with-items' : 'all'", sync = true)
+    public List<StockLotDTO> getAllStockLots(boolean includeItems) {
+        return List.copyOf(stockLotService.getStockLotList(includeItems));
+    }
+}
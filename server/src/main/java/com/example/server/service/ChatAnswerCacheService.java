@@ -0,0 +1,67 @@
+package com.example.server.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * ⭐ Cache คำตอบของ Smart Chat
+ * - key = คำถามที่ normalize แล้ว + ปี/เดือนที่ตรวจจับได้ + version ของข้อมูลทุกหัวข้อที่ใช้ตอบ
+ * - เมื่อข้อมูลใน domain ที่เกี่ยวข้องเปลี่ยน version จะเปลี่ยน ทำให้ key เดิมไม่ถูกใช้อีก (หมดอายุตาม LRU/TTL)
+ */
+@Service
+public class ChatAnswerCacheService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("[\\s\\u200B]+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s?!.。]+$");
+
+    private final ExpiringLruCache<String, String> answers;
+
+    public ChatAnswerCacheService(
+            @Value("${chat.answer.cache.max-entries:500}") int maxEntries,
+            @Value("${chat.answer.cache.ttl-minutes:30}") long ttlMinutes) {
+        this.answers = new ExpiringLruCache<>(maxEntries, Duration.ofMinutes(ttlMinutes));
+    }
+
+    /**
+     * normalize คำถาม: ตัวพิมพ์เล็ก, รวมช่องว่าง (รวม zero-width space ที่พบบ่อยในภาษาไทย), ตัดเครื่องหมายท้ายประโยค
+     * (ไม่ตัดไม้ยมก ๆ เพราะเปลี่ยนความหมายของคำถาม)
+     */
+    public static String normalizeQuestion(String question) {
+        if (question == null) {
+            return "";
+        }
+        String normalized = WHITESPACE.matcher(question.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+    }
+
+    public String get(String key) {
+        return answers.get(key);
+    }
+
+    public void put(String key, String answer) {
+        if (answer != null && !answer.isBlank()) {
+            answers.put(key, answer);
+        }
+    }
+
+    public void clear() {
+        answers.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", answers.size());
+        stats.put("maxEntries", answers.getMaxEntries());
+        stats.put("ttlMinutes", answers.getTtl().toMinutes());
+        stats.put("hits", answers.getHits());
+        stats.put("misses", answers.getMisses());
+        stats.put("evictions", answers.getEvictions());
+        return stats;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.server.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * ⭐ ประกอบ context ของ Smart Chat ให้อยู่ใน token budget
+ * - เรียงหัวข้อตามความเกี่ยวข้องกับคำถาม (มากไปน้อย)
+ * - ใส่ทั้งหัวข้อจนกว่าจะเต็ม budget หัวข้อที่ล้นจะถูกตัดทีละบรรทัด (เก็บหัวตารางไว้) หรือตัดทิ้ง
+ */
+@Component
+public class ChatContextEncoder {
+
+    public static final String FULL = "FULL";
+    public static final String TRUNCATED = "TRUNCATED";
+    public static final String DROPPED = "DROPPED";
+
+    // หัวข้อที่เหลือ budget น้อยกว่านี้ไม่คุ้มที่จะใส่บางส่วน
+    private static final int MIN_PARTIAL_TOKENS = 40;
+
+    @Value("${chat.context.token-budget:3000}")
+    private int tokenBudget;
+
+    public int getTokenBudget() {
+        return tokenBudget;
+    }
+
+    /**
+     * @param header   บรรทัดแรกของ context (นับรวมใน budget)
+     * @param sections หัวข้อทั้งหมด (ลำดับเดิมใช้ตัดสินเมื่อ relevance เท่ากัน)
+     */
+    public EncodedContext encode(String header, List<Section> sections) {
+        List<Section> ranked = new ArrayList<>(sections);
+        ranked.sort(Comparator.comparingInt(Section::getRelevance).reversed());
+
+        StringBuilder context = new StringBuilder(header);
+        int usedTokens = TokenEstimator.estimate(header);
+
+        for (Section section : ranked) {
+            int remaining = tokenBudget - usedTokens;
+            int sectionTokens = TokenEstimator.estimate(section.getContent());
+
+            if (sectionTokens <= remaining) {
+                context.append(section.getContent());
+                usedTokens += sectionTokens;
+                section.setEstimatedTokens(sectionTokens);
+                section.setBudgetAction(FULL);
+            } else if (remaining >= MIN_PARTIAL_TOKENS) {
+                String partial = truncateLines(section.getContent(), remaining);
+                int partialTokens = TokenEstimator.estimate(partial);
+                context.append(partial);
+                usedTokens += partialTokens;
+                section.setEstimatedTokens(partialTokens);
+                section.setBudgetAction(TRUNCATED);
+            } else {
+                section.setEstimatedTokens(0);
+                section.setBudgetAction(DROPPED);
+            }
+        }
+
+        return new EncodedContext(context.toString(), usedTokens);
+    }
+
+    /**
+     * ตัดทีละบรรทัดจากท้าย ให้เหลือไม่เกิน maxTokens (รวมบรรทัด "…" ที่บอกว่าถูกตัด)
+     */
+    private String truncateLines(String content, int maxTokens) {
+        String marker = "…(ตัดเพื่อจำกัดขนาด)\n";
+        int budget = maxTokens - TokenEstimator.estimate(marker);
+        StringBuilder partial = new StringBuilder();
+        int used = 0;
+        for (String line : content.split("\n")) {
+            int lineTokens = TokenEstimator.estimate(line) + 1;
+            if (used + lineTokens > budget) {
+                break;
+            }
+            partial.append(line).append('\n');
+            used += lineTokens;
+        }
+        return partial.append(marker).toString();
+    }
+
+    /**
+     * ข้อมูลหนึ่งหัวข้อ + ผลการจัด budget
+     */
+    public static class Section {
+        private final String name;
+        private final int relevance;
+        private final String content;
+        private int estimatedTokens;
+        private String budgetAction;
+
+        public Section(String name, int relevance, String content) {
+            this.name = name;
+            this.relevance = relevance;
+            this.content = content;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRelevance() {
+            return relevance;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public int getEstimatedTokens() {
+            return estimatedTokens;
+        }
+
+        void setEstimatedTokens(int estimatedTokens) {
+            this.estimatedTokens = estimatedTokens;
+        }
+
+        public String getBudgetAction() {
+            return budgetAction;
+        }
+
+        void setBudgetAction(String budgetAction) {
+            this.budgetAction = budgetAction;
+        }
+    }
+
+    public static class EncodedContext {
+        private final String text;
+        private final int estimatedTokens;
+
+        public EncodedContext(String text, int estimatedTokens) {
+            this.text = text;
+            this.estimatedTokens = estimatedTokens;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getEstimatedTokens() {
+            return estimatedTokens;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.server.service;
+
+import com.example.server.event.DataDomain;
+import com.example.server.event.DomainDataChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * ⭐ Cache ของ context แต่ละหัวข้อสำหรับ Smart Chat
+ * - แต่ละหัวข้อ (section) คำนวณครั้งเดียวแล้วเก็บเป็น snapshot ที่แก้ไขไม่ได้ (immutable)
+ * - หมดอายุตาม TTL และถูก invalidate ทันทีเมื่อมีการเขียนข้อมูลใน domain ที่เกี่ยวข้อง
+ */
+@Service
+public class ChatContextSnapshotService {
+
+    /**
+     * หัวข้อของ context และ domain ที่แต่ละหัวข้อขึ้นอยู่
+     */
+    public enum ContextSection {
+        PRODUCT(DataDomain.PRODUCT),
+        TOP_SELLING(DataDomain.ORDER, DataDomain.PRODUCT),
+        STOCK(DataDomain.STOCK),
+        ORDER(DataDomain.ORDER),
+        YEARLY_SALES(DataDomain.ORDER),
+        MONTHLY_SALES(DataDomain.ORDER),
+        FINANCIAL(DataDomain.TRANSACTION),
+        EMPLOYEE(DataDomain.EMPLOYEE),
+        SALARY(DataDomain.SALARY, DataDomain.EMPLOYEE);
+
+        private final Set<DataDomain> dependsOn;
+
+        ContextSection(DataDomain first, DataDomain... rest) {
+            this.dependsOn = Collections.unmodifiableSet(EnumSet.of(first, rest));
+        }
+
+        public Set<DataDomain> getDependsOn() {
+            return dependsOn;
+        }
+    }
+
+    private final ExpiringLruCache<String, ContextSnapshot> snapshots;
+    private final Map<DataDomain, AtomicLong> domainVersions = new EnumMap<>(DataDomain.class);
+
+    public ChatContextSnapshotService(
+            @Value("${chat.context.cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${chat.context.cache.max-entries:200}") int maxEntries) {
+        this.snapshots = new ExpiringLruCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+        for (DataDomain domain : DataDomain.values()) {
+            domainVersions.put(domain, new AtomicLong());
+        }
+    }
+
+    /**
+     * ✅ ดึง snapshot ของหัวข้อ (ถ้าไม่มีหรือหมดอายุจะคำนวณใหม่ด้วย renderer)
+     *
+     * @param section  หัวข้อของ context
+     * @param params   พารามิเตอร์ของหัวข้อ เช่น ปี/เดือน (ใช้เป็นส่วนหนึ่งของ key)
+     * @param renderer สร้างข้อความ context ของหัวข้อนี้
+     */
+    public ContextSnapshot getOrCompute(ContextSection section, String params, Supplier<String> renderer) {
+        String key = section.name() + ":" + (params != null ? params : "");
+
+        ContextSnapshot cached = snapshots.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long versionBefore = versionOf(section);
+        ContextSnapshot snapshot = new ContextSnapshot(section, key, renderer.get(), LocalDateTime.now(), versionBefore);
+
+        // ถ้ามีการเขียนข้อมูลระหว่างคำนวณ ไม่เก็บลง cache (ป้องกัน snapshot ค้างข้อมูลเก่า)
+        // ตรวจ version และ put ภายใต้ lock เดียวกับ onDomainDataChanged - invalidate จะเกิดก่อน (ไม่ put) หรือหลัง put (ถูกลบ) เท่านั้น
+        synchronized (snapshots) {
+            if (versionOf(section) == versionBefore) {
+                snapshots.put(key, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * ⭐ invalidate เฉพาะหัวข้อที่ขึ้นอยู่กับ domain ที่มีการเปลี่ยนแปลง (หลัง commit)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDomainDataChanged(DomainDataChangedEvent event) {
+        Set<String> affectedPrefixes = new HashSet<>();
+        for (ContextSection section : ContextSection.values()) {
+            if (section.getDependsOn().contains(event.getDomain())) {
+                affectedPrefixes.add(section.name() + ":");
+            }
+        }
+
+        synchronized (snapshots) {
+            domainVersions.get(event.getDomain()).incrementAndGet();
+            snapshots.invalidateIf(key -> affectedPrefixes.stream().anyMatch(key::startsWith));
+        }
+    }
+
+    /**
+     * version รวมของ domain ที่หัวข้อนี้ขึ้นอยู่ (เพิ่มขึ้นทุกครั้งที่มีการเขียนข้อมูล)
+     */
+    public long versionOf(ContextSection section) {
+        long version = 0;
+        for (DataDomain domain : section.getDependsOn()) {
+            version += domainVersions.get(domain).get();
+        }
+        return version;
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", snapshots.size());
+        stats.put("maxEntries", snapshots.getMaxEntries());
+        stats.put("ttlSeconds", snapshots.getTtl().toSeconds());
+        stats.put("hits", snapshots.getHits());
+        stats.put("misses", snapshots.getMisses());
+        stats.put("evictions", snapshots.getEvictions());
+        return stats;
+    }
+
+    /**
+     * ✅ Snapshot ของ context หนึ่งหัวข้อ (immutable)
+     */
+    public static final class ContextSnapshot {
+        private final ContextSection section;
+        private final String key;
+        private final String content;
+        private final LocalDateTime computedAt;
+        private final long version;
+
+        public ContextSnapshot(ContextSection section, String key, String content,
+                               LocalDateTime computedAt, long version) {
+            this.section = section;
+            this.key = key;
+            this.content = content;
+            this.computedAt = computedAt;
+            this.version = version;
+        }
+
+        public ContextSection getSection() {
+            return section;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public LocalDateTime getComputedAt() {
+            return computedAt;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package com.example.server.service;
 
+import com.example.server.dto.ChinaStockPricingRow;
+import com.example.server.dto.LotPriceUpdateResultDTO;
+import com.example.server.dto.StockUnitCostChangeDTO;
 import com.example.server.entity.ChinaStock;
+import com.example.server.event.DataDomain;
+import com.example.server.event.DomainDataChangedEvent;
 import com.example.server.respository.ChinaStockRepository;
 import com.example.server.respository.StockForecastRepository;
 import com.example.server.respository.StockLotRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 @Service
 public class ChinaStockService {
 
+    private static final String UPDATE_LOT_PRICING_SQL = "UPDATE china_stock SET exchange_rate = ?, " +
+            "shipping_china_to_thai_bath = ?, total_value_yuan = ?, total_yuan = ?, total_bath = ?, " +
+            "price_per_unit_bath = ?, final_price_per_pair = ?, original_quantity = ?, " +
+            "unit_cost_at_import = ?, total_cost_at_import = ? WHERE stock_item_id = ?";
+
     @Autowired
     private ChinaStockRepository chinaStockRepository;
 
@@ -27,6 +41,24 @@ public class ChinaStockService {
     @Autowired
     private StockForecastRepository stockForecastRepository;
 
+    @Autowired
+    private ForecastDashboardService forecastDashboardService;
+
+    @Autowired
+    private ProductCostPropagationService costPropagationService;
+
+    @Autowired
+    private ProductCostCalculationService costCalculationService;
+
+    @Autowired
+    private StockDependencyIndex stockDependencyIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<ChinaStock> getAllChinaStocks() {
         return chinaStockRepository.findAll();
     }
@@ -56,7 +88,9 @@ public class ChinaStockService {
                 .orElseThrow(() -> new RuntimeException("China stock not found with id: " + id));
         updateChinaStockFields(chinaStock, chinaStockDetails);
         validateChinaStock(chinaStock);
-        return chinaStockRepository.save(chinaStock);
+        ChinaStock saved = chinaStockRepository.save(chinaStock);
+        costPropagationService.stockPricesChanged(List.of(saved.getStockItemId()));
+        return saved;
     }
 
     public ChinaStock updateChinaStockStatus(Long id, ChinaStock.StockStatus status) {
@@ -137,6 +171,7 @@ public class ChinaStockService {
             int deletedForecasts = stockForecastRepository.deleteByStockItemStockItemId(id);
             if (deletedForecasts > 0) {
                 System.out.println("🗑️ Deleted " + deletedForecasts + " forecast(s) for China Stock ID: " + id);
+                forecastDashboardService.invalidateSnapshot();
             }
             stockForecastRepository.flush();
             chinaStockRepository.delete(stock);
@@ -159,54 +194,154 @@ public class ChinaStockService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    public List<ChinaStock> updateExchangeRateForLot(Long stockLotId, BigDecimal exchangeRate) {
-        List<ChinaStock> stocks = getChinaStocksByLot(stockLotId);
-        stocks.forEach(stock -> {
+    /**
+     * ⭐ เปลี่ยนอัตราแลกเปลี่ยนทั้ง Lot แล้วคำนวณยอดเงินบาทใหม่
+     * - unitCostAtImport / totalCostAtImport ที่ lock ไว้แล้วไม่เปลี่ยน (เหมือน calculateFields() เดิม)
+     */
+    @Transactional
+    public LotPriceUpdateResultDTO updateExchangeRateForLot(Long stockLotId, BigDecimal exchangeRate) {
+        if (exchangeRate == null || exchangeRate.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Exchange rate must be greater than 0");
+        }
+        return repriceLot(stockLotId, "EXCHANGE_RATE", stock -> {
             stock.setExchangeRate(exchangeRate);
             stock.calculateFields();
+            return true;
         });
-        return chinaStockRepository.saveAll(stocks);
     }
 
     // ✅ โค้ดที่ถูกต้อง — ใช้ originalQuantity
-    public List<ChinaStock> distributeShippingCosts(Long stockLotId, BigDecimal totalShipping) {
-        List<ChinaStock> stocks = getChinaStocksByLot(stockLotId);
-        if (totalShipping != null && totalShipping.compareTo(BigDecimal.ZERO) > 0) {
-
-            // ⭐ ใช้ originalQuantity เพื่อคำนวณสัดส่วน shipping ที่ถูกต้อง
-            int totalQuantity = stocks.stream()
-                    .mapToInt(s -> s.getOriginalQuantity() != null && s.getOriginalQuantity() > 0
-                            ? s.getOriginalQuantity()
-                            : (s.getQuantity() != null ? s.getQuantity() : 0))
-                    .sum();
-
-            if (totalQuantity > 0) {
-                stocks.forEach(stock -> {
-                    // ⭐ ใช้ originalQuantity ในการคำนวณสัดส่วน
-                    int qty = (stock.getOriginalQuantity() != null && stock.getOriginalQuantity() > 0)
-                            ? stock.getOriginalQuantity()
-                            : (stock.getQuantity() != null ? stock.getQuantity() : 0);
-
-                    if (qty > 0) {
-                        BigDecimal stockShippingPortion = totalShipping
-                                .multiply(BigDecimal.valueOf(qty))
-                                .divide(BigDecimal.valueOf(totalQuantity), 3, RoundingMode.HALF_UP);
-                        stock.setShippingChinaToThaiBath(stockShippingPortion);
-
-                        // ⭐ reset unitCostAtImport และ totalCostAtImport
-                        // เพื่อให้ calculateFields() คำนวณใหม่จาก totalBath ที่อัพเดทแล้ว
-                        stock.setUnitCostAtImport(null);
-                        stock.setTotalCostAtImport(null);
-
-                        stock.calculateFields();
-                    }
-                });
-                return chinaStockRepository.saveAll(stocks);
+    @Transactional
+    public LotPriceUpdateResultDTO distributeShippingCosts(Long stockLotId, BigDecimal totalShipping) {
+        List<ChinaStock> stocks = loadLotPricing(stockLotId);
+
+        // ⭐ ใช้ originalQuantity เพื่อคำนวณสัดส่วน shipping ที่ถูกต้อง
+        int totalQuantity = stocks.stream().mapToInt(ChinaStockService::importQuantity).sum();
+        boolean distribute = totalShipping != null && totalShipping.compareTo(BigDecimal.ZERO) > 0 && totalQuantity > 0;
+
+        return repriceLot(stockLotId, "DISTRIBUTE_SHIPPING", stocks, stock -> {
+            int qty = importQuantity(stock);
+            if (!distribute || qty <= 0) {
+                return false;
+            }
+            BigDecimal stockShippingPortion = totalShipping
+                    .multiply(BigDecimal.valueOf(qty))
+                    .divide(BigDecimal.valueOf(totalQuantity), 3, RoundingMode.HALF_UP);
+            stock.setShippingChinaToThaiBath(stockShippingPortion);
+
+            // ⭐ reset unitCostAtImport และ totalCostAtImport แล้วคำนวณใหม่จาก totalBath ที่อัพเดทแล้ว
+            stock.recalculateImportCost();
+            return true;
+        });
+    }
+
+    private LotPriceUpdateResultDTO repriceLot(Long stockLotId, String operation, Predicate<ChinaStock> priceChange) {
+        return repriceLot(stockLotId, operation, loadLotPricing(stockLotId), priceChange);
+    }
+
+    /**
+     * ⭐ ปรับราคาทั้ง Lot: คำนวณใน pass เดียวด้วยสูตรของ ChinaStock.calculateFields() บน object ที่ไม่ถูก manage
+     * แล้วเขียนด้วย JDBC batch update ครั้งเดียว (ไม่มี @PreUpdate / UPDATE ราย row)
+     * - publish DomainDataChangedEvent เอง เพื่อให้ cache และ StockOptionsReadModel โหลดใหม่หลัง commit
+     * - คำนวณต้นทุนสินค้าใหม่ครั้งเดียวหลัง commit เฉพาะ stock ที่ราคาต่อหน่วยเปลี่ยน
+     *
+     * @param priceChange เปลี่ยนราคาของ stock หนึ่งตัว คืน false ถ้าไม่ต้องเขียน stock นั้น
+     */
+    private LotPriceUpdateResultDTO repriceLot(Long stockLotId, String operation, List<ChinaStock> stocks,
+                                               Predicate<ChinaStock> priceChange) {
+        long start = System.currentTimeMillis();
+        LotPriceUpdateResultDTO result = new LotPriceUpdateResultDTO();
+        result.setStockLotId(stockLotId);
+        result.setOperation(operation);
+        result.setItemCount(stocks.size());
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Long> costChangedIds = new ArrayList<>();
+        for (ChinaStock stock : stocks) {
+            BigDecimal previousUnitCost = costCalculationService.getStockUnitCost(stock);
+            BigDecimal previousTotalCost = stock.calculateTotalCost();
+            result.setPreviousTotalCost(result.getPreviousTotalCost().add(previousTotalCost));
+
+            boolean repriced = priceChange.test(stock);
+            BigDecimal newTotalCost = stock.calculateTotalCost();
+            result.setNewTotalCost(result.getNewTotalCost().add(newTotalCost));
+            if (!repriced) {
+                continue;
+            }
+
+            BigDecimal newUnitCost = costCalculationService.getStockUnitCost(stock);
+            updates.add(new Object[]{
+                    stock.getExchangeRate(), stock.getShippingChinaToThaiBath(), stock.getTotalValueYuan(),
+                    stock.getTotalYuan(), stock.getTotalBath(), stock.getPricePerUnitBath(),
+                    stock.getFinalPricePerPair(), stock.getOriginalQuantity(), stock.getUnitCostAtImport(),
+                    stock.getTotalCostAtImport(), stock.getStockItemId()});
+            if (newUnitCost.compareTo(previousUnitCost) != 0) {
+                costChangedIds.add(stock.getStockItemId());
+            }
+
+            StockUnitCostChangeDTO item = new StockUnitCostChangeDTO();
+            item.setStockItemId(stock.getStockItemId());
+            item.setName(stock.getName());
+            item.setQuantity(importQuantity(stock));
+            item.setPreviousUnitCost(previousUnitCost);
+            item.setNewUnitCost(newUnitCost);
+            item.setUnitCostDifference(newUnitCost.subtract(previousUnitCost));
+            item.setPreviousTotalCost(previousTotalCost);
+            item.setNewTotalCost(newTotalCost);
+            result.getItems().add(item);
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_LOT_PRICING_SQL, updates);
+            for (Object[] update : updates) {
+                eventPublisher.publishEvent(new DomainDataChangedEvent(DataDomain.STOCK,
+                        DomainDataChangedEvent.ChangeType.UPDATED, ChinaStock.class, update[update.length - 1]));
             }
         }
+        costPropagationService.stockPricesChanged(costChangedIds);
+
+        result.setUpdatedItems(updates.size());
+        result.setCostChangedItems(costChangedIds.size());
+        result.setAffectedProducts(costChangedIds.isEmpty() ? 0 : stockDependencyIndex.findProductIds(costChangedIds).size());
+        result.setDurationMs(System.currentTimeMillis() - start);
+
+        System.out.println("💱 Lot " + stockLotId + " " + operation + ": " + updates.size() + "/" + stocks.size()
+                + " items repriced, " + costChangedIds.size() + " unit costs changed, "
+                + result.getAffectedProducts() + " products to recalculate in " + result.getDurationMs() + " ms");
+        return result;
+    }
+
+    // โหลดค่าราคาทั้ง Lot ด้วย projection เป็น ChinaStock ที่ไม่ถูก manage (แก้ค่าได้โดยไม่เกิด UPDATE อัตโนมัติ)
+    private List<ChinaStock> loadLotPricing(Long stockLotId) {
+        List<ChinaStock> stocks = new ArrayList<>();
+        for (ChinaStockPricingRow row : chinaStockRepository.findPricingRowsByStockLotId(stockLotId)) {
+            ChinaStock stock = new ChinaStock();
+            stock.setStockItemId(row.getStockItemId());
+            stock.setName(row.getName());
+            stock.setStockLotId(stockLotId);
+            stock.setQuantity(row.getQuantity());
+            stock.setOriginalQuantity(row.getOriginalQuantity());
+            stock.setUnitPriceYuan(row.getUnitPriceYuan());
+            stock.setTotalValueYuan(row.getTotalValueYuan());
+            stock.setShippingWithinChinaYuan(row.getShippingWithinChinaYuan());
+            stock.setTotalYuan(row.getTotalYuan());
+            stock.setTotalBath(row.getTotalBath());
+            stock.setPricePerUnitBath(row.getPricePerUnitBath());
+            stock.setShippingChinaToThaiBath(row.getShippingChinaToThaiBath());
+            stock.setFinalPricePerPair(row.getFinalPricePerPair());
+            stock.setExchangeRate(row.getExchangeRate());
+            stock.setVatPercentage(row.getVatPercentage());
+            stock.setIncludeVat(row.getIncludeVat());
+            stock.setUnitCostAtImport(row.getUnitCostAtImport());
+            stock.setTotalCostAtImport(row.getTotalCostAtImport());
+            stocks.add(stock);
+        }
         return stocks;
     }
 
+    private static int importQuantity(ChinaStock stock) {
+        return stock.getOriginalQuantity() > 0 ? stock.getOriginalQuantity() : stock.getCurrentQuantity();
+    }
 
     private void validateChinaStock(ChinaStock chinaStock) {
         if (chinaStock.getName() == null || chinaStock.getName().trim().isEmpty()) {
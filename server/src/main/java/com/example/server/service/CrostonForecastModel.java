@@ -0,0 +1,50 @@
+package com.example.server.service;
+
+/**
+ * ✅ Croston - สำหรับ Stock ที่ใช้เป็นช่วงๆ (intermittent demand) มีหลายเดือนที่เป็น 0
+ * คาดการณ์ = ขนาดความต้องการเฉลี่ย / ระยะห่างเฉลี่ยระหว่างเดือนที่มีการใช้
+ */
+public class CrostonForecastModel implements ForecastModel {
+
+    private final double alpha;
+
+    public CrostonForecastModel(double alpha) {
+        this.alpha = alpha;
+    }
+
+    @Override
+    public String getName() {
+        return "CROSTON";
+    }
+
+    @Override
+    public int getMinHistory() {
+        return 1;
+    }
+
+    @Override
+    public double forecast(double[] series, int length) {
+        double demandSize = 0.0;
+        double interval = 0.0;
+        int periodsSinceDemand = 1;
+        boolean initialized = false;
+
+        for (int t = 0; t < length; t++) {
+            if (series[t] > 0) {
+                if (!initialized) {
+                    demandSize = series[t];
+                    interval = periodsSinceDemand;
+                    initialized = true;
+                } else {
+                    demandSize += alpha * (series[t] - demandSize);
+                    interval += alpha * (periodsSinceDemand - interval);
+                }
+                periodsSinceDemand = 1;
+            } else {
+                periodsSinceDemand++;
+            }
+        }
+
+        return initialized ? demandSize / interval : 0.0;
+    }
+}
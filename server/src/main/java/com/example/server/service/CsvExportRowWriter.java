@@ -0,0 +1,100 @@
+package com.example.server.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * ✅ CSV (RFC 4180) แบบ streaming - ใส่ UTF-8 BOM เพื่อให้ Excel เปิดภาษาไทยได้ถูกต้อง
+ * - ข้อความที่ขึ้นต้นด้วย = + - @ จะเติม ' นำหน้า (กัน formula injection เมื่อเปิดใน Excel)
+ */
+public class CsvExportRowWriter implements ExportRowWriter {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final Writer writer;
+    private long rows;
+
+    public CsvExportRowWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) throws IOException {
+        writeRow(headers.toArray());
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(values[i]);
+        }
+        writer.write("\r\n");
+
+        // ส่งข้อมูลออกเป็นช่วงๆ ให้ client เริ่มรับไฟล์ได้ทันที
+        if (++rows % FLUSH_EVERY_ROWS == 0) {
+            writer.flush();
+        }
+    }
+
+    private void writeField(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        String text;
+        if (value instanceof BigDecimal number) {
+            text = number.toPlainString();
+        } else if (value instanceof LocalDateTime dateTime) {
+            text = dateTime.format(DATE_TIME);
+        } else if (value instanceof LocalDate date) {
+            text = date.toString();
+        } else if (value instanceof Enum<?> e) {
+            text = e.name();
+        } else if (value instanceof Number || value instanceof Boolean) {
+            text = value.toString();
+        } else {
+            text = value.toString();
+            if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+        }
+
+        boolean needsQuotes = false;
+        for (int i = 0; i < text.length() && !needsQuotes; i++) {
+            char c = text.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            writer.write(text);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
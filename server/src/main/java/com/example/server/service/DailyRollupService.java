@@ -0,0 +1,402 @@
+package com.example.server.service;
+
+import com.example.server.dto.DailyFinanceAggregateRow;
+import com.example.server.dto.DailySalesAggregateRow;
+import com.example.server.entity.DailyFinanceRollup;
+import com.example.server.entity.DailySalesRollup;
+import com.example.server.event.RollupDaysChangedEvent;
+import com.example.server.respository.DailyFinanceRollupRepository;
+import com.example.server.respository.DailySalesRollupRepository;
+import com.example.server.respository.OrderRepository;
+import com.example.server.respository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ⭐ Daily Rollup - ยอดขายรายวัน (วัน/ช่องทาง/สถานะ) และยอดการเงินรายวัน (วัน/ประเภท/หมวดหมู่)
+ * - Incremental: เมื่อ order/transaction ถูกเขียน จะคำนวณใหม่เฉพาะวันที่ได้รับผลกระทบหลัง commit
+ *   (รวมทุกวันใน transaction เดียวกันแล้วคำนวณวันละครั้ง ด้วย GROUP BY ของวันนั้นใน DB)
+ * - Rebuild: คำนวณใหม่ทั้งช่วงแบบขนาน แบ่งงานเป็นรายเดือน (ใช้ครั้งแรก หรือหลังแก้ข้อมูลด้วย SQL ตรง)
+ * - รายงานรายเดือน/รายปีอ่านจากตาราง rollup (ปีหนึ่งไม่เกิน 365 วัน x จำนวนกลุ่ม)
+ */
+@Service
+public class DailyRollupService {
+
+    private static final int LOCK_STRIPES = 1024;
+    private static final int MAX_PARALLELISM = 8;
+    private static final Object PENDING_DAYS_KEY = new Object();
+
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private DailySalesRollupRepository salesRollupRepository;
+    @Autowired private DailyFinanceRollupRepository financeRollupRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Value("${rollup.rebuild.parallelism:4}")
+    private int defaultParallelism;
+
+    @Value("${rollup.rebuild-on-startup-if-empty:true}")
+    private boolean rebuildOnStartupIfEmpty;
+
+    // lock ต่อวัน (แบบ stripe) - กันการคำนวณวันเดียวกันซ้อนกันจน insert ชน unique constraint
+    private final ReentrantLock[] dayLocks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong refreshedDays = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+
+    private TransactionTemplate requiresNewTemplate;
+    private volatile RebuildResult lastRebuild;
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            dayLocks[i] = new ReentrantLock();
+        }
+        requiresNewTemplate = new TransactionTemplate(transactionManager);
+        requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // ============================================
+    // INCREMENTAL MAINTENANCE
+    // ============================================
+
+    /**
+     * ✅ รับวันที่ที่ได้รับผลกระทบจาก DailyRollupEntityListener
+     * ถ้าอยู่ใน transaction จะสะสมไว้แล้วคำนวณครั้งเดียวหลัง commit (rollback = ไม่ต้องทำอะไร)
+     */
+    @EventListener
+    public void onRollupDaysChanged(RollupDaysChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshDays(event.getRollup(), event.getDays());
+            return;
+        }
+
+        PendingDays pending = (PendingDays) TransactionSynchronizationManager.getResource(PENDING_DAYS_KEY);
+        if (pending == null) {
+            PendingDays newPending = new PendingDays();
+            TransactionSynchronizationManager.bindResource(PENDING_DAYS_KEY, newPending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // ทำก่อน @TransactionalEventListener อื่น (เช่น invalidate cache) เพื่อไม่ให้ cache อ่าน rollup เก่า
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    refreshDays(RollupDaysChangedEvent.Rollup.SALES, newPending.salesDays);
+                    refreshDays(RollupDaysChangedEvent.Rollup.FINANCE, newPending.financeDays);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_DAYS_KEY);
+                }
+            });
+            pending = newPending;
+        }
+        pending.add(event);
+    }
+
+    /**
+     * คำนวณ rollup ใหม่ทีละวัน (แต่ละวันเป็น transaction ของตัวเอง)
+     * ถ้าล้มเหลวจะ log ไว้ - ข้อมูลหลัก commit ไปแล้ว แก้ได้ด้วย rebuild
+     */
+    public void refreshDays(RollupDaysChangedEvent.Rollup rollup, Collection<LocalDate> days) {
+        for (LocalDate day : new TreeSet<>(days)) {
+            ReentrantLock lock = lockFor(day);
+            lock.lock();
+            try {
+                requiresNewTemplate.executeWithoutResult(status -> {
+                    if (rollup == RollupDaysChangedEvent.Rollup.SALES) {
+                        recomputeSales(day, day);
+                    } else {
+                        recomputeFinance(day, day);
+                    }
+                });
+                refreshedDays.incrementAndGet();
+            } catch (Exception e) {
+                failedRefreshes.incrementAndGet();
+                System.err.println("❌ Daily rollup refresh failed (" + rollup + " " + day + "): " + e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // ============================================
+    // REBUILD
+    // ============================================
+
+    /**
+     * ✅ สร้าง rollup ใหม่ทั้งหมด ตั้งแต่วันที่ของ order/transaction แรกสุดถึงล่าสุด
+     */
+    public RebuildResult rebuildAll(Integer parallelism) {
+        LocalDate from = minDate(orderRepository.findEarliestOrderDate(), transactionRepository.findEarliestTransactionDate());
+        LocalDate to = maxDate(orderRepository.findLatestOrderDate(), transactionRepository.findLatestTransactionDate());
+        if (from == null || to == null) {
+            LocalDate today = LocalDate.now();
+            return rebuild(today, today, parallelism);
+        }
+        return rebuild(from, to, parallelism);
+    }
+
+    /**
+     * ✅ สร้าง rollup ใหม่ในช่วงวันที่ แบ่งเป็นรายเดือนแล้วรันขนานกัน (แต่ละเดือนเป็น transaction ของตัวเอง)
+     *
+     * @throws IllegalStateException ถ้ามีการ rebuild อื่นกำลังทำงานอยู่
+     */
+    public RebuildResult rebuild(LocalDate from, LocalDate to, Integer parallelism) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("ช่วงวันที่ไม่ถูกต้อง: " + from + " - " + to);
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("กำลัง rebuild rollup อยู่แล้ว");
+        }
+
+        int threads = Math.max(1, Math.min(MAX_PARALLELISM, parallelism != null ? parallelism : defaultParallelism));
+        long startNanos = System.nanoTime();
+        ExecutorService executor = newRebuildExecutor(threads);
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (YearMonth month = YearMonth.from(from); !month.atDay(1).isAfter(to); month = month.plusMonths(1)) {
+                LocalDate chunkFrom = month.atDay(1).isBefore(from) ? from : month.atDay(1);
+                LocalDate chunkTo = month.atEndOfMonth().isAfter(to) ? to : month.atEndOfMonth();
+                futures.add(executor.submit(() -> rebuildChunk(chunkFrom, chunkTo)));
+            }
+
+            int salesRows = 0;
+            int financeRows = 0;
+            for (Future<int[]> future : futures) {
+                int[] rows = future.get();
+                salesRows += rows[0];
+                financeRows += rows[1];
+            }
+
+            RebuildResult result = new RebuildResult();
+            result.setFrom(from);
+            result.setTo(to);
+            result.setChunks(futures.size());
+            result.setParallelism(threads);
+            result.setSalesRows(salesRows);
+            result.setFinanceRows(financeRows);
+            result.setElapsedMs((System.nanoTime() - startNanos) / 1_000_000);
+            result.setCompletedAt(LocalDateTime.now());
+            lastRebuild = result;
+
+            System.out.println("✅ Daily rollup rebuilt " + from + " - " + to + " (" + futures.size()
+                    + " months, " + threads + " threads): " + salesRows + " sales rows, "
+                    + financeRows + " finance rows in " + result.getElapsedMs() + " ms");
+            return result;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("การ rebuild rollup ถูกยกเลิก", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("rebuild rollup ล้มเหลว: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+            rebuilding.set(false);
+        }
+    }
+
+    private int[] rebuildChunk(LocalDate from, LocalDate to) {
+        List<ReentrantLock> locks = locksFor(from, to);
+        locks.forEach(ReentrantLock::lock);
+        try {
+            return requiresNewTemplate.execute(status ->
+                    new int[]{recomputeSales(from, to), recomputeFinance(from, to)});
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    /**
+     * ⭐ ครั้งแรกที่เปิดใช้ rollup (ตารางว่างแต่มีข้อมูลเดิม) - สร้าง rollup ย้อนหลังใน background
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!rebuildOnStartupIfEmpty
+                || salesRollupRepository.count() > 0 || financeRollupRepository.count() > 0
+                || (orderRepository.count() == 0 && transactionRepository.count() == 0)) {
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                rebuildAll(null);
+            } catch (Exception e) {
+                System.err.println("❌ Initial daily rollup rebuild failed: " + e.getMessage());
+            }
+        }, "rollup-bootstrap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // ============================================
+    // RECOMPUTE (ต้องเรียกภายใน transaction)
+    // ============================================
+
+    private int recomputeSales(LocalDate from, LocalDate to) {
+        salesRollupRepository.deleteByRollupDateBetween(from, to);
+
+        List<DailySalesAggregateRow> rows = orderRepository.aggregateDailySales(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        LocalDateTime now = LocalDateTime.now();
+        List<DailySalesRollup> rollups = new ArrayList<>(rows.size());
+        for (DailySalesAggregateRow row : rows) {
+            DailySalesRollup rollup = new DailySalesRollup();
+            rollup.setRollupDate(row.getRollupDate());
+            rollup.setSource(row.getSource());
+            rollup.setStatus(row.getStatus());
+            rollup.setOrderCount(row.getOrderCount() != null ? row.getOrderCount() : 0L);
+            rollup.setNetAmount(row.getNetAmount() != null ? row.getNetAmount() : BigDecimal.ZERO);
+            rollup.setUpdatedAt(now);
+            rollups.add(rollup);
+        }
+        salesRollupRepository.saveAll(rollups);
+        return rollups.size();
+    }
+
+    private int recomputeFinance(LocalDate from, LocalDate to) {
+        financeRollupRepository.deleteByRollupDateBetween(from, to);
+
+        List<DailyFinanceAggregateRow> rows = transactionRepository.aggregateDailyFinance(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        LocalDateTime now = LocalDateTime.now();
+        List<DailyFinanceRollup> rollups = new ArrayList<>(rows.size());
+        for (DailyFinanceAggregateRow row : rows) {
+            DailyFinanceRollup rollup = new DailyFinanceRollup();
+            rollup.setRollupDate(row.getRollupDate());
+            rollup.setType(row.getType());
+            rollup.setCategory(row.getCategory());
+            rollup.setTransactionCount(row.getTransactionCount() != null ? row.getTransactionCount() : 0L);
+            rollup.setAmount(row.getAmount() != null ? row.getAmount() : BigDecimal.ZERO);
+            rollup.setUpdatedAt(now);
+            rollups.add(rollup);
+        }
+        financeRollupRepository.saveAll(rollups);
+        return rollups.size();
+    }
+
+    // ============================================
+    // READ
+    // ============================================
+
+    public List<DailySalesRollup> getSalesRollups(LocalDate from, LocalDate to) {
+        return salesRollupRepository.findByRollupDateBetweenOrderByRollupDateAsc(from, to);
+    }
+
+    public List<DailyFinanceRollup> getFinanceRollups(LocalDate from, LocalDate to) {
+        return financeRollupRepository.findByRollupDateBetweenOrderByRollupDateAsc(from, to);
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("salesRows", salesRollupRepository.count());
+        status.put("financeRows", financeRollupRepository.count());
+        status.put("refreshedDays", refreshedDays.get());
+        status.put("failedRefreshes", failedRefreshes.get());
+        status.put("rebuilding", rebuilding.get());
+        status.put("lastRebuild", lastRebuild);
+        return status;
+    }
+
+    // ============================================
+    // HELPERS
+    // ============================================
+
+    private ReentrantLock lockFor(LocalDate day) {
+        return dayLocks[(int) Math.floorMod(day.toEpochDay(), (long) LOCK_STRIPES)];
+    }
+
+    /**
+     * lock ของทุกวันในช่วง เรียงตาม index เสมอ (กัน deadlock ระหว่าง chunk ที่ rebuild พร้อมกัน)
+     */
+    private List<ReentrantLock> locksFor(LocalDate from, LocalDate to) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            stripes.add((int) Math.floorMod(day.toEpochDay(), (long) LOCK_STRIPES));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(stripes.size());
+        for (int stripe : stripes) {
+            locks.add(dayLocks[stripe]);
+        }
+        return locks;
+    }
+
+    private ExecutorService newRebuildExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "rollup-rebuild-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static LocalDate minDate(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b != null ? b.toLocalDate() : null;
+        if (b == null) return a.toLocalDate();
+        return (a.isBefore(b) ? a : b).toLocalDate();
+    }
+
+    private static LocalDate maxDate(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b != null ? b.toLocalDate() : null;
+        if (b == null) return a.toLocalDate();
+        return (a.isAfter(b) ? a : b).toLocalDate();
+    }
+
+    /**
+     * วันที่ที่รอคำนวณใหม่ของ transaction ปัจจุบัน (ผูกกับ thread ผ่าน TransactionSynchronizationManager)
+     */
+    private static final class PendingDays {
+        private final Set<LocalDate> salesDays = new HashSet<>();
+        private final Set<LocalDate> financeDays = new HashSet<>();
+
+        void add(RollupDaysChangedEvent event) {
+            if (event.getRollup() == RollupDaysChangedEvent.Rollup.SALES) {
+                salesDays.addAll(event.getDays());
+            } else {
+                financeDays.addAll(event.getDays());
+            }
+        }
+    }
+
+    @Data
+    public static class RebuildResult {
+        private LocalDate from;
+        private LocalDate to;
+        private int chunks;
+        private int parallelism;
+        private int salesRows;
+        private int financeRows;
+        private long elapsedMs;
+        private LocalDateTime completedAt;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.server.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * ⭐ Export ข้อมูลสำหรับฝ่ายบัญชี (CSV/XLSX) แบบ streaming
+ * - อ่านทีละแถวด้วย cursor แบบ forward-only ใน read-only transaction (select เป็นค่า scalar
+ *   จึงไม่มี entity ค้างใน persistence context) แล้วเขียนต่อลง OutputStream ทันที
+ * - หน่วยความจำคงที่ไม่ว่าข้อมูลจะมีกี่แถว
+ */
+@Service
+public class DataExportService {
+
+    /**
+     * ชุดข้อมูลที่ export ได้ - แต่ละชุดอาจมีหลาย query ที่ให้คอลัมน์เหมือนกัน (เช่น Stock จีน + ไทย)
+     */
+    public enum Dataset {
+        ORDERS("orders", "Orders", "o.orderDate",
+                List.of("Order Number", "Order Date", "Source", "Status", "Payment Status", "Payment Date",
+                        "Customer Name", "Customer Phone", "Tracking Number",
+                        "Order Total", "Shipping Fee", "Discount", "VAT", "Net Amount",
+                        "Item SKU", "Item Name", "Quantity", "Unit Price", "Item Discount", "Item Total",
+                        "Item Cost", "Item Profit"),
+                List.of("SELECT o.orderNumber, o.orderDate, o.source, o.status, o.paymentStatus, o.paymentDate, " +
+                        "o.customerName, o.customerPhone, o.trackingNumber, " +
+                        "o.totalAmount, o.shippingFee, o.discount, o.vatAmount, o.netAmount, " +
+                        "oi.productSku, oi.productName, oi.quantity, oi.unitPrice, oi.discount, oi.totalPrice, " +
+                        "oi.totalCost, oi.profit " +
+                        "FROM Order o LEFT JOIN o.orderItems oi {where} " +
+                        "ORDER BY o.orderDate, o.orderId, oi.orderItemId")),
+
+        TRANSACTIONS("transactions", "Transactions", "t.transactionDate",
+                List.of("Transaction Number", "Date", "Type", "Category", "Amount", "Description", "Mode",
+                        "Order ID", "Stock Lot ID", "Employee ID", "Salary Payment ID", "Created By", "Notes"),
+                List.of("SELECT t.transactionNumber, t.transactionDate, t.type, t.category, t.amount, t.description, " +
+                        "t.mode, t.orderId, t.stockLotId, t.employeeId, t.salaryPaymentId, t.createdBy, t.notes " +
+                        "FROM Transaction t {where} ORDER BY t.transactionDate, t.transactionId")),
+
+        STOCK("stock", "Stock", null,
+                List.of("Stock Item ID", "Origin", "Name", "Lot", "Status", "Quantity", "Original Quantity",
+                        "Defective Quantity", "Unit Cost", "Unit Cost At Import", "Total Cost At Import",
+                        "Include VAT", "VAT %", "Lot Date", "Shop URL"),
+                List.of("SELECT c.stockItemId, 'CHINA', c.name, l.lotName, c.status, c.quantity, c.originalQuantity, " +
+                                "c.defectiveQuantity, c.finalPricePerPair, c.unitCostAtImport, c.totalCostAtImport, " +
+                                "c.includeVat, c.vatPercentage, c.lotDate, c.shopURL " +
+                                "FROM ChinaStock c LEFT JOIN StockLot l ON l.stockLotId = c.stockLotId " +
+                                "ORDER BY c.stockItemId",
+                        "SELECT s.stockItemId, 'THAI', s.name, l.lotName, s.status, s.quantity, s.originalQuantity, " +
+                                "s.defectiveQuantity, s.pricePerUnitWithShipping, s.unitCostAtImport, s.totalCostAtImport, " +
+                                "s.includeVat, s.vatPercentage, s.lotDate, s.shopURL " +
+                                "FROM ThaiStock s LEFT JOIN StockLot l ON l.stockLotId = s.stockLotId " +
+                                "ORDER BY s.stockItemId")),
+
+        SALARY_PAYMENTS("salary-payments", "Salary Payments", "p.paymentDate",
+                List.of("Payment ID", "Payment Month", "Payment Date", "Employee ID", "Employee Name", "Type",
+                        "Status", "Amount", "Work Days", "Transaction ID", "Notes"),
+                List.of("SELECT p.paymentId, p.paymentMonth, p.paymentDate, e.empId, e.empName, p.type, " +
+                        "p.status, p.amount, p.workDays, p.transactionId, p.notes " +
+                        "FROM EmployeeSalaryPayment p JOIN p.employee e {where} " +
+                        "ORDER BY p.paymentDate, p.paymentId"));
+
+        private final String path;
+        private final String sheetName;
+        private final String dateField;
+        private final List<String> headers;
+        private final List<String> queries;
+
+        Dataset(String path, String sheetName, String dateField, List<String> headers, List<String> queries) {
+            this.path = path;
+            this.sheetName = sheetName;
+            this.dateField = dateField;
+            this.headers = headers;
+            this.queries = queries;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getSheetName() {
+            return sheetName;
+        }
+
+        public boolean supportsDateRange() {
+            return dateField != null;
+        }
+
+        public static Dataset fromPath(String path) {
+            for (Dataset dataset : values()) {
+                if (dataset.path.equalsIgnoreCase(path)) {
+                    return dataset;
+                }
+            }
+            throw new IllegalArgumentException("ไม่มีชุดข้อมูล export: " + path);
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // MySQL Connector/J จะ stream ทีละแถวเมื่อ fetch size = Integer.MIN_VALUE
+    // (ถ้าเปิด useCursorFetch=true ใน JDBC URL ให้ตั้งเป็นค่าบวก เช่น 1000)
+    @Value("${export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    @Value("${export.xlsx.row-window:100}")
+    private int xlsxRowWindow;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    /**
+     * ✅ เขียนชุดข้อมูลลง OutputStream (ไม่ปิด stream ปลายทาง)
+     *
+     * @param from วันที่เริ่ม (รวม) - null = ไม่จำกัด
+     * @param to   วันที่สิ้นสุด (รวม) - null = ไม่จำกัด
+     * @return จำนวนแถวข้อมูลที่เขียน (ไม่รวม header)
+     */
+    public long export(Dataset dataset, ExportFormat format, LocalDate from, LocalDate to, OutputStream out)
+            throws IOException {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("วันที่เริ่มต้องไม่เกินวันที่สิ้นสุด");
+        }
+
+        try (ExportRowWriter writer = format == ExportFormat.XLSX
+                ? new XlsxExportRowWriter(out, dataset.getSheetName(), xlsxRowWindow)
+                : new CsvExportRowWriter(out)) {
+
+            writer.writeHeader(dataset.headers);
+            Long rows = readOnlyTemplate.execute(status -> {
+                long count = 0;
+                for (String jpql : dataset.queries) {
+                    count += streamRows(dataset, jpql, from, to, writer);
+                }
+                return count;
+            });
+            writer.finish();
+
+            System.out.println("✅ Exported " + rows + " " + dataset.getPath() + " rows as " + format);
+            return rows != null ? rows : 0;
+
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long streamRows(Dataset dataset, String jpql, LocalDate from, LocalDate to, ExportRowWriter writer) {
+        String where = "";
+        if (dataset.dateField != null && (from != null || to != null)) {
+            where = "WHERE " + (from != null ? dataset.dateField + " >= :from" : "")
+                    + (from != null && to != null ? " AND " : "")
+                    + (to != null ? dataset.dateField + " < :to" : "");
+        }
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.replace("{where}", where), Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (where.contains(":from")) {
+            query.setParameter("from", from.atStartOfDay());
+        }
+        if (where.contains(":to")) {
+            query.setParameter("to", to.plusDays(1).atStartOfDay());
+        }
+
+        long[] count = {0};
+        try (Stream<Object[]> rows = query.getResultStream()) {
+            rows.forEach(values -> {
+                try {
+                    writer.writeRow(values);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.server.service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * ⭐ เขียนข้อมูลแบบตารางทีละแถวลง OutputStream (ไม่เก็บแถวทั้งหมดไว้ในหน่วยความจำ)
+ */
+public interface ExportRowWriter extends AutoCloseable {
+
+    void writeHeader(List<String> headers) throws IOException;
+
+    void writeRow(Object[] values) throws IOException;
+
+    /**
+     * เขียนส่วนท้ายของไฟล์ให้ครบ (ไม่ปิด OutputStream ปลายทาง)
+     */
+    void finish() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,202 @@
+package com.example.server.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * ⭐ เงิน/จำนวนแบบ fixed-point บน long หน่วย micro (1 บาท = 1,000,000) สำหรับ loop คำนวณจำนวนมาก
+ * - ค่าทุกตัวในระบบมีทศนิยมไม่เกิน 4 ตำแหน่ง (ราคา 2-3, จำนวน 4) จึงแปลงเข้ามาได้ตรงทุกหลัก
+ * - การปัดเศษเป็น HALF_UP ที่ scale ที่ระบุ เหมือน BigDecimal.setScale / divide เดิมทุกประการ
+ * - ผลคูณ/หารคำนวณแบบ exact ก่อนปัดครั้งเดียว - ถ้า long ล้นจะคำนวณด้วย BigDecimal แทน (ผลเท่าเดิม)
+ * ใช้ภายใน kernel เท่านั้น แปลงกลับเป็น BigDecimal ตอนเขียนลง entity / DTO ด้วย {@link #toBigDecimal(long, int)}
+ */
+public final class FixedPointMoney {
+
+    public static final int SCALE = 6;
+    public static final long ONE = 1_000_000L;
+
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1L;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10L;
+        }
+    }
+
+    private FixedPointMoney() {
+    }
+
+    // ============================================
+    // BOUNDARY (BigDecimal ↔ long)
+    // ============================================
+
+    /**
+     * แปลง BigDecimal เป็น micro-units (null = 0, ทศนิยมเกิน 6 ตำแหน่งปัด HALF_UP)
+     *
+     * @throws ArithmeticException ถ้าเกินช่วงของ long (ประมาณ ±9.2 ล้านล้านบาท)
+     */
+    public static long of(BigDecimal value) {
+        if (value == null) {
+            return 0L;
+        }
+        int scale = value.scale();
+        if (scale >= 0 && scale <= SCALE && value.precision() <= 18) {
+            // กรณีปกติ: unscaled อยู่ใน long - อ่านตรง ๆ ไม่ต้องสร้าง BigInteger
+            return Math.multiplyExact(value.scaleByPowerOfTen(scale).longValue(), POW10[SCALE - scale]);
+        }
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * แปลงจำนวนเต็ม (เช่นจำนวนชิ้น) เป็น micro-units
+     */
+    public static long ofUnits(long units) {
+        return Math.multiplyExact(units, ONE);
+    }
+
+    /**
+     * แปลงกลับเป็น BigDecimal ที่ scale ที่กำหนด (ปัด HALF_UP)
+     */
+    public static BigDecimal toBigDecimal(long micros, int scale) {
+        checkScale(scale);
+        return BigDecimal.valueOf(divideRoundHalfUp(micros, POW10[SCALE - scale]), scale);
+    }
+
+    // ============================================
+    // ARITHMETIC
+    // ============================================
+
+    /**
+     * ปัด HALF_UP ให้เหลือทศนิยม scale ตำแหน่ง (ผลยังเป็น micro-units) = BigDecimal.setScale(scale, HALF_UP)
+     */
+    public static long round(long micros, int scale) {
+        checkScale(scale);
+        long unit = POW10[SCALE - scale];
+        return Math.multiplyExact(divideRoundHalfUp(micros, unit), unit);
+    }
+
+    /**
+     * a × b ปัด HALF_UP ที่ scale = a.multiply(b).setScale(scale, HALF_UP)
+     */
+    public static long multiply(long a, long b, int scale) {
+        return multiplyDivide(a, b, 0, scale);
+    }
+
+    /**
+     * amount × ratePercent / 100 ปัด HALF_UP ที่ scale = amount.multiply(rate).divide(100, scale, HALF_UP)
+     */
+    public static long percentOf(long amount, long ratePercent, int scale) {
+        return multiplyDivide(amount, ratePercent, 2, scale);
+    }
+
+    /**
+     * a × จำนวนเต็ม (exact)
+     */
+    public static long multiplyByUnits(long micros, long units) {
+        return Math.multiplyExact(micros, units);
+    }
+
+    /**
+     * a / b ปัด HALF_UP ที่ scale = a.divide(b, scale, HALF_UP)
+     *
+     * @throws ArithmeticException ถ้า b = 0
+     */
+    public static long divide(long a, long b, int scale) {
+        checkScale(scale);
+        if (b == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        try {
+            long quotient = divideRoundHalfUp(Math.multiplyExact(a, POW10[scale]), b);
+            return Math.multiplyExact(quotient, POW10[SCALE - scale]);
+        } catch (ArithmeticException overflow) {
+            return of(BigDecimal.valueOf(a, SCALE).divide(BigDecimal.valueOf(b, SCALE), scale, RoundingMode.HALF_UP));
+        }
+    }
+
+    // (a × b) / 10^extraPower ปัดที่ scale - ผลคูณ exact มีทศนิยม 12 ตำแหน่ง
+    private static long multiplyDivide(long a, long b, int extraPower, int scale) {
+        checkScale(scale);
+        try {
+            long quotient = divideRoundHalfUp(Math.multiplyExact(a, b), POW10[2 * SCALE - scale + extraPower]);
+            return Math.multiplyExact(quotient, POW10[SCALE - scale]);
+        } catch (ArithmeticException overflow) {
+            BigDecimal exact = BigDecimal.valueOf(a, SCALE).multiply(BigDecimal.valueOf(b, SCALE))
+                    .movePointLeft(extraPower);
+            return of(exact.setScale(scale, RoundingMode.HALF_UP));
+        }
+    }
+
+    /**
+     * n / d ปัด HALF_UP (ครึ่งหนึ่งปัดออกจากศูนย์) - ไม่ล้นแม้ |d| ใกล้ Long.MAX_VALUE
+     */
+    static long divideRoundHalfUp(long n, long d) {
+        long quotient = n / d;
+        long remainder = Math.abs(n % d);
+        if (remainder >= Math.abs(d) - remainder) {
+            quotient += (n < 0) == (d < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    private static void checkScale(int scale) {
+        if (scale < 0 || scale > SCALE) {
+            throw new IllegalArgumentException("scale ต้องอยู่ระหว่าง 0-" + SCALE + ": " + scale);
+        }
+    }
+
+    // ============================================
+    // EXACT SUM OF PRODUCTS
+    // ============================================
+
+    /**
+     * ⭐ ผลรวมแบบ exact ของ (a × b) และเงิน แล้วปัดครั้งเดียวตอนท้าย
+     * = BigDecimal ที่ add ผลคูณที่ยังไม่ปัดเข้าด้วยกันแล้ว setScale ตอนจบ
+     * เก็บเป็น long ทศนิยม 12 ตำแหน่ง (ได้ถึงประมาณ 9.2 ล้านบาท) ถ้าล้นจะสลับไปใช้ BigDecimal เอง
+     */
+    public static final class ExactSum {
+        private long wide;
+        private BigDecimal overflow;
+
+        public ExactSum addProduct(long a, long b) {
+            if (overflow == null) {
+                try {
+                    wide = Math.addExact(wide, Math.multiplyExact(a, b));
+                    return this;
+                } catch (ArithmeticException e) {
+                    overflow = toWideBigDecimal();
+                }
+            }
+            overflow = overflow.add(BigDecimal.valueOf(a, SCALE).multiply(BigDecimal.valueOf(b, SCALE)));
+            return this;
+        }
+
+        public ExactSum add(long micros) {
+            return addProduct(micros, ONE);
+        }
+
+        /**
+         * ผลรวมปัด HALF_UP ที่ scale (micro-units)
+         */
+        public long round(int scale) {
+            checkScale(scale);
+            if (overflow == null) {
+                return Math.multiplyExact(divideRoundHalfUp(wide, POW10[2 * SCALE - scale]), POW10[SCALE - scale]);
+            }
+            return of(overflow.setScale(scale, RoundingMode.HALF_UP));
+        }
+
+        /**
+         * ผลรวมเป็น BigDecimal ปัด HALF_UP ที่ scale (ไม่ผ่าน long - ใช้ได้แม้ยอดรวมเกินช่วงของ micro-units)
+         */
+        public BigDecimal toBigDecimal(int scale) {
+            checkScale(scale);
+            return (overflow != null ? overflow : toWideBigDecimal()).setScale(scale, RoundingMode.HALF_UP);
+        }
+
+        private BigDecimal toWideBigDecimal() {
+            return BigDecimal.valueOf(wide, 2 * SCALE);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.server.service;
+
+import lombok.Data;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * ⭐ Backtesting harness - replay ข้อมูลย้อนหลังทีละเดือนเพื่อเลือก model ที่แม่นที่สุดต่อ Stock Item
+ * - ทุก model คาดการณ์เดือน t จากข้อมูล [0..t) แล้วเทียบกับยอดใช้จริง
+ * - ทุก model ถูกวัดบนช่วงเดือนเดียวกัน เพื่อให้เทียบ MAE กันได้อย่างยุติธรรม
+ * - เลือก model ที่ MAE ต่ำสุด (ถ้าเท่ากันใช้ model ที่อยู่ก่อนใน list ซึ่งเรียบง่ายกว่า)
+ */
+@Component
+public class ForecastBacktester {
+
+    private static final int MIN_TRAINING_MONTHS = 3;
+    private static final int SEASON_LENGTH = 12;
+
+    private final List<ForecastModel> models;
+
+    public ForecastBacktester() {
+        this(List.of(
+                new MovingAverageForecastModel(3),
+                new MovingAverageForecastModel(6),
+                new HoltLinearForecastModel(0.4, 0.2),
+                new HoltWintersForecastModel(0.3, 0.1, 0.3, SEASON_LENGTH),
+                new CrostonForecastModel(0.1)
+        ));
+    }
+
+    public ForecastBacktester(List<ForecastModel> models) {
+        if (models.isEmpty()) {
+            throw new IllegalArgumentException("ต้องมี forecast model อย่างน้อย 1 ตัว");
+        }
+        this.models = List.copyOf(models);
+    }
+
+    public List<ForecastModel> getModels() {
+        return models;
+    }
+
+    /**
+     * ✅ เลือก model ที่ดีที่สุดสำหรับ series นี้ และคาดการณ์เดือนถัดไป
+     */
+    public BacktestResult selectBestModel(double[] series) {
+        int n = series.length;
+
+        // ช่วงที่ใช้วัดผล: เริ่มหลังจาก model ที่ต้องการประวัติยาวที่สุด (ที่ยังใช้ได้กับ series นี้)
+        int start = MIN_TRAINING_MONTHS;
+        for (ForecastModel model : models) {
+            if (model.getMinHistory() < n) {
+                start = Math.max(start, model.getMinHistory());
+            }
+        }
+
+        ForecastModel bestModel = null;
+        double bestMae = Double.MAX_VALUE;
+        double bestAbsError = 0.0;
+        double bestActual = 0.0;
+        int bestPoints = 0;
+
+        for (ForecastModel model : models) {
+            if (start >= n || model.getMinHistory() > start) {
+                continue;
+            }
+
+            double absError = 0.0;
+            double actual = 0.0;
+            for (int t = start; t < n; t++) {
+                double predicted = Math.max(0.0, model.forecast(series, t));
+                absError += Math.abs(predicted - series[t]);
+                actual += Math.abs(series[t]);
+            }
+
+            int points = n - start;
+            double mae = absError / points;
+            if (mae < bestMae) {
+                bestModel = model;
+                bestMae = mae;
+                bestAbsError = absError;
+                bestActual = actual;
+                bestPoints = points;
+            }
+        }
+
+        if (bestModel == null) {
+            // ข้อมูลไม่พอสำหรับ backtest - ใช้ model แรกโดยไม่มีค่าความแม่นยำ
+            ForecastModel fallback = models.get(0);
+            double predicted = n >= fallback.getMinHistory() ? Math.max(0.0, fallback.forecast(series, n)) : 0.0;
+            return new BacktestResult(fallback.getName(), predicted, 0.0, 0.0, 0);
+        }
+
+        double predicted = Math.max(0.0, bestModel.forecast(series, n));
+        return new BacktestResult(bestModel.getName(), predicted, bestMae,
+                calculateAccuracy(bestAbsError, bestActual), bestPoints);
+    }
+
+    /**
+     * ความแม่นยำ (%) = 100 - WAPE, จำกัดอยู่ในช่วง 0-100
+     */
+    private double calculateAccuracy(double absError, double actual) {
+        if (actual == 0.0) {
+            return absError == 0.0 ? 100.0 : 0.0;
+        }
+        double accuracy = 100.0 * (1.0 - absError / actual);
+        return Math.max(0.0, Math.min(100.0, accuracy));
+    }
+
+    @Data
+    public static class BacktestResult {
+        private final String modelName;
+        private final double predictedNextPeriod;
+        private final double meanAbsoluteError;
+        private final double accuracy;
+        private final int evaluatedPeriods;
+    }
+}
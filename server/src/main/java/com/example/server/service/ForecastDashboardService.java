@@ -0,0 +1,157 @@
+package com.example.server.service;
+
+import com.example.server.entity.ForecastDashboardSnapshot;
+import com.example.server.entity.StockForecast;
+import com.example.server.mapper.StockForecastMapper;
+import com.example.server.respository.ForecastDashboardSnapshotRepository;
+import com.example.server.respository.StockForecastRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ⭐ Materialized Dashboard ของ Stock Forecast
+ * - สร้าง dashboard ครั้งเดียวหลังคำนวณ Forecast ใหม่ แล้วเก็บเป็น JSON แถวเดียว + สำเนาใน memory
+ * - endpoint /dashboard แค่ส่ง JSON ที่เตรียมไว้พร้อม ETag (ไม่ query ทุกครั้งที่ refresh)
+ */
+@Service
+@Transactional
+public class ForecastDashboardService {
+
+    private static final int SOONEST_DAYS = 60;
+    private static final int SOONEST_LIMIT = 10;
+
+    @Autowired
+    private StockForecastService stockForecastService;
+
+    @Autowired
+    private StockForecastRepository stockForecastRepository;
+
+    @Autowired
+    private ForecastDashboardSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private StockForecastMapper stockForecastMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile ForecastDashboardSnapshot currentSnapshot;
+
+    /**
+     * ✅ ดึง snapshot ปัจจุบัน (memory → database → สร้างใหม่ถ้ายังไม่เคยมี)
+     */
+    public ForecastDashboardSnapshot getSnapshot() {
+        ForecastDashboardSnapshot snapshot = currentSnapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            if (currentSnapshot == null) {
+                currentSnapshot = snapshotRepository.findById(ForecastDashboardSnapshot.CURRENT_SNAPSHOT_ID)
+                        .orElseGet(this::rebuildSnapshot);
+            }
+            return currentSnapshot;
+        }
+    }
+
+    /**
+     * ✅ สร้าง snapshot ใหม่ - เรียกหลังคำนวณ Forecast ใหม่เท่านั้น
+     */
+    public synchronized ForecastDashboardSnapshot rebuildSnapshot() {
+        Map<String, Object> dashboard = buildDashboard();
+        LocalDateTime generatedAt = LocalDateTime.now();
+
+        String etag;
+        String payload;
+        try {
+            // ⭐ ETag จากข้อมูลเท่านั้น (ไม่รวม generatedAt) - rebuild แล้วข้อมูลเหมือนเดิมจะได้ ETag เดิม
+            etag = sha256(objectMapper.writeValueAsString(dashboard));
+            dashboard.put("generatedAt", generatedAt);
+            payload = objectMapper.writeValueAsString(dashboard);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("ไม่สามารถสร้าง Forecast Dashboard snapshot: " + e.getMessage(), e);
+        }
+
+        ForecastDashboardSnapshot snapshot = new ForecastDashboardSnapshot();
+        snapshot.setSnapshotId(ForecastDashboardSnapshot.CURRENT_SNAPSHOT_ID);
+        snapshot.setPayload(payload);
+        snapshot.setEtag(etag);
+        snapshot.setGeneratedAt(generatedAt);
+
+        ForecastDashboardSnapshot saved = snapshotRepository.save(snapshot);
+        currentSnapshot = saved;
+
+        System.out.printf("📊 สร้าง Forecast Dashboard snapshot ใหม่ (%d bytes)\n", payload.length());
+        return saved;
+    }
+
+    /**
+     * ✅ ล้าง snapshot เมื่อ forecast ถูกลบนอกรอบคำนวณ (เช่นลบ Stock) - สร้างใหม่ตอนอ่านครั้งถัดไป
+     * ลบแถวใน transaction ของผู้เรียก และล้างสำเนาใน memory หลัง commit (rollback = snapshot เดิมยังใช้ได้)
+     */
+    public void invalidateSnapshot() {
+        snapshotRepository.deleteById(ForecastDashboardSnapshot.CURRENT_SNAPSHOT_ID);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            currentSnapshot = null;
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                currentSnapshot = null;
+            }
+        });
+    }
+
+    private Map<String, Object> buildDashboard() {
+        Map<String, Object> dashboard = new HashMap<>();
+
+        Map<String, Object> summary = stockForecastService.getForecastSummary();
+        dashboard.put("summary", stockForecastMapper.toStockForecastSummaryDTO(summary));
+
+        List<StockForecast> urgentItems = stockForecastService.getUrgentStockItems();
+        dashboard.put("urgentItems", stockForecastMapper.toStockForecastDTOList(urgentItems));
+
+        List<StockForecast> soonestItems = stockForecastRepository.findStockRunningOutInDays(SOONEST_DAYS)
+                .stream()
+                .limit(SOONEST_LIMIT)
+                .toList();
+        dashboard.put("soonestToRunOut", stockForecastMapper.toStockForecastDTOList(soonestItems));
+
+        dashboard.put("chinaStockCount", stockForecastRepository.countByStockType("CHINA"));
+        dashboard.put("thaiStockCount", stockForecastRepository.countByStockType("THAI"));
+
+        double urgentCost = urgentItems.stream()
+                .mapToDouble(item -> item.getEstimatedOrderCost() != null ?
+                        item.getEstimatedOrderCost().doubleValue() : 0.0)
+                .sum();
+        dashboard.put("urgentOrderCost", urgentCost);
+
+        return dashboard;
+    }
+
+    private String sha256(String payload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
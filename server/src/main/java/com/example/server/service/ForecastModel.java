@@ -0,0 +1,24 @@
+package com.example.server.service;
+
+/**
+ * ⭐ Forecasting model สำหรับคาดการณ์ยอดใช้ Stock รายเดือน
+ * ทำงานบน primitive double[] เพื่อให้ประเมินได้เร็วแม้มีหลายพัน SKU
+ */
+public interface ForecastModel {
+
+    /**
+     * ชื่อ model ที่บันทึกลง StockForecast.forecastModel
+     */
+    String getName();
+
+    /**
+     * จำนวนเดือนขั้นต่ำที่ต้องมีก่อนจะคาดการณ์ได้
+     */
+    int getMinHistory();
+
+    /**
+     * คาดการณ์ค่าของเดือนถัดไป โดยใช้เฉพาะ series[0..length) เท่านั้น
+     * (ไม่ copy array เพื่อให้ backtest replay ได้โดยไม่สร้าง object ใหม่)
+     */
+    double forecast(double[] series, int length);
+}
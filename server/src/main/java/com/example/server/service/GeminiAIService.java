@@ -5,13 +5,10 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.rendering.PDFRenderer;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import javax.imageio.ImageIO;
@@ -23,34 +20,24 @@ import java.util.Base64;
 @Service
 public class GeminiAIService {
 
-    @Value("${gemini.api.key}")
-    private String apiKey;
-
-    @Value("${gemini.api.url}")
-    private String apiUrl;
-
-    private final WebClient webClient;
+    private final GeminiClient geminiClient;
+    private final Scheduler aiTaskScheduler;
     private final Gson gson;
 
-    public GeminiAIService() {
-        this.webClient = WebClient.builder()
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    public GeminiAIService(GeminiClient geminiClient, Scheduler aiTaskScheduler) {
+        this.geminiClient = geminiClient;
+        this.aiTaskScheduler = aiTaskScheduler;
         this.gson = new Gson();
     }
 
     /**
-     * แปลง PDF เป็น Base64 images และส่งให้ Gemini วิเคราะห์
+     * ⭐ แปลง PDF เป็น Base64 image แล้วส่งให้ Gemini วิเคราะห์
+     * render PDF บน aiTaskScheduler แล้วรอ Gemini แบบ reactive (ไม่ยึด thread ของ Tomcat)
      */
-    public String analyzePDFWithGemini(MultipartFile pdfFile) throws IOException {
-        // 1. แปลง PDF เป็น images (Base64)
-        String base64Image = convertPDFToBase64Image(pdfFile);
-
-        // 2. สร้าง prompt สำหรับ Gemini
-        String prompt = createPromptForOrderExtraction();
-
-        // 3. เรียก Gemini API
-        return callGeminiAPI(prompt, base64Image);
+    public Mono<String> analyzePDFWithGeminiAsync(MultipartFile pdfFile) {
+        return Mono.fromCallable(() -> convertPDFToBase64Image(pdfFile))
+                .subscribeOn(aiTaskScheduler)
+                .flatMap(base64Image -> callGeminiAPIAsync(createPromptForOrderExtraction(), base64Image));
     }
 
     /**
@@ -111,10 +98,10 @@ public class GeminiAIService {
     }
 
     /**
-     * ⭐ เรียก Gemini API (รองรับทั้ง Text-Only และ Text+Image)
+     * ⭐ เรียก Gemini API แบบ non-blocking
      */
-    private String callGeminiAPI(String prompt, String base64Image) {
-        try {
+    private Mono<String> callGeminiAPIAsync(String prompt, String base64Image) {
+        return Mono.defer(() -> {
             // สร้าง request body ตาม Gemini API format
             JsonObject requestBody = new JsonObject();
             JsonArray contents = new JsonArray();
@@ -154,24 +141,12 @@ public class GeminiAIService {
             System.out.println("Prompt length: " + prompt.length() + " characters");
 
             // เรียก API
-            String response = webClient.post()
-                    .uri(apiUrl + "?key=" + apiKey)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(requestBody.toString())
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            System.out.println("📥 Received response from Gemini API");
-
-            // Parse response
-            return extractTextFromGeminiResponse(response);
-
-        } catch (Exception e) {
-            System.err.println("❌ Error calling Gemini API: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
-        }
+            String feature = base64Image != null && !base64Image.trim().isEmpty() ? "pdf-parse" : "tiktok-excel-parse";
+            return geminiClient.generateContent(feature, requestBody.toString())
+                    .doOnNext(response -> System.out.println("📥 Received response from Gemini API"))
+                    // Parse response
+                    .map(this::extractTextFromGeminiResponse);
+        });
     }
 
     /**
@@ -351,12 +326,13 @@ public class GeminiAIService {
 //        """;
 //    }
     /**
-     * ⭐ NEW: Analyze TikTok Excel แบบละเอียด (สำหรับ VAT Report)
+     * ⭐ Analyze TikTok Excel แบบละเอียด (สำหรับ VAT Report)
+     * อ่าน Excel บน aiTaskScheduler แล้วรอ Gemini แบบ reactive (ไม่ยึด thread ของ Tomcat)
      */
-    public String analyzeTiktokExcelDetailedWithGemini(MultipartFile file) throws IOException {
-        String excelContent = convertExcelToTextDetailed(file);
-        String prompt = createPromptForTiktokDetailedExtraction(excelContent);
-        return callGeminiAPI(prompt, null);
+    public Mono<String> analyzeTiktokExcelDetailedWithGeminiAsync(MultipartFile file) {
+        return Mono.fromCallable(() -> createPromptForTiktokDetailedExtraction(convertExcelToTextDetailed(file)))
+                .subscribeOn(aiTaskScheduler)
+                .flatMap(prompt -> callGeminiAPIAsync(prompt, null));
     }
 
     private String convertExcelToTextDetailed(MultipartFile file) throws IOException {
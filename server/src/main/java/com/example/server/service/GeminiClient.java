@@ -0,0 +1,321 @@
+package com.example.server.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ⭐ HTTP client กลางสำหรับเรียก Gemini API (ใช้ร่วมกันทุก service)
+ * - Connection pool ของ Reactor Netty จำกัดจำนวน connection และคิวที่รอ
+ * - Timeout ต่อ call + retry แบบ exponential backoff + jitter เมื่อเจอ 429/5xx/timeout
+ * - งบเวลารวม (รอสิทธิ์ + ทุก retry) ต่ำกว่า async timeout ของ request (ai.task.async-timeout-seconds)
+ * - Circuit breaker ตัดการเรียกชั่วคราวเมื่อ Gemini ล่มต่อเนื่อง
+ * - ทุก call ต้องได้สิทธิ์จาก GeminiRateLimiter ก่อน (โควต้าต่อ feature + งบ token รายวัน)
+ * - บันทึก metrics: latency, error, retry และจำนวน token ต่อ feature
+ */
+@Component
+public class GeminiClient {
+
+    private static final String METRIC_PREFIX = "gemini.client";
+
+    @Value("${gemini.api.key}")
+    private String apiKey;
+
+    @Value("${gemini.api.url}")
+    private String apiUrl;
+
+    // ถ้าไม่กำหนด จะใช้ apiUrl โดยเปลี่ยน :generateContent เป็น :streamGenerateContent
+    @Value("${gemini.api.stream-url:}")
+    private String streamApiUrl;
+
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+    private final SimpleCircuitBreaker circuitBreaker;
+    private final GeminiRateLimiter rateLimiter;
+    private final Duration callTimeout;
+    private final Duration totalTimeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final Gson gson = new Gson();
+
+    public GeminiClient(
+            WebClient.Builder webClientBuilder,
+            ObjectProvider<MeterRegistry> meterRegistryProvider,
+            GeminiRateLimiter rateLimiter,
+            @Value("${gemini.client.max-connections:20}") int maxConnections,
+            @Value("${gemini.client.pending-acquire-max:100}") int pendingAcquireMax,
+            @Value("${gemini.client.pending-acquire-timeout-seconds:30}") long pendingAcquireTimeoutSeconds,
+            @Value("${gemini.client.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${gemini.client.call-timeout-seconds:50}") long callTimeoutSeconds,
+            @Value("${gemini.client.total-timeout-seconds:170}") long totalTimeoutSeconds,
+            @Value("${gemini.client.max-retries:2}") int maxRetries,
+            @Value("${gemini.client.retry-backoff-ms:500}") long retryBackoffMs,
+            @Value("${gemini.client.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${gemini.client.circuit-breaker.open-seconds:30}") long openSeconds,
+            @Value("${gemini.client.max-in-memory-size-mb:16}") int maxInMemorySizeMb) {
+
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("gemini")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofSeconds(pendingAcquireTimeoutSeconds))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .evictInBackground(Duration.ofSeconds(60))
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofSeconds(callTimeoutSeconds));
+
+        this.webClient = webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemorySizeMb * 1024 * 1024))
+                .build();
+
+        this.meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        this.circuitBreaker = new SimpleCircuitBreaker(failureThreshold, Duration.ofSeconds(openSeconds));
+        this.rateLimiter = rateLimiter;
+        this.callTimeout = Duration.ofSeconds(callTimeoutSeconds);
+        this.totalTimeout = Duration.ofSeconds(totalTimeoutSeconds);
+        if (callTimeoutSeconds * (maxRetries + 1) > totalTimeoutSeconds) {
+            System.err.println("⚠️ Gemini: call-timeout x (max-retries + 1) = " + callTimeoutSeconds * (maxRetries + 1)
+                    + "s เกิน total-timeout " + totalTimeoutSeconds + "s - retry ครั้งท้ายอาจถูกตัด");
+        }
+        this.maxRetries = maxRetries;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+
+        Gauge.builder(METRIC_PREFIX + ".circuit.open", circuitBreaker,
+                        breaker -> breaker.getState() == SimpleCircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 เมื่อ circuit breaker ของ Gemini ไม่อยู่ในสถานะ CLOSED")
+                .register(meterRegistry);
+    }
+
+    /**
+     * ✅ เรียก generateContent แล้วคืน JSON response ทั้งก้อน
+     *
+     * @param feature     ชื่อ feature ที่เรียก (ใช้เป็น tag ของ metrics) เช่น "chat", "pdf-parse"
+     * @param requestBody JSON body ตามรูปแบบของ Gemini API
+     */
+    public Mono<String> generateContent(String feature, String requestBody) {
+        Mono<String> attempt = webClient.post()
+                .uri(apiUrl + "?key=" + apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(callTimeout);
+
+        Mono<String> call = Mono.defer(() -> {
+                    if (!circuitBreaker.tryAcquire()) {
+                        counter(feature, "rejected").increment();
+                        return Mono.<String>error(new GeminiUnavailableException(
+                                "Gemini API ไม่พร้อมใช้งานชั่วคราว (circuit breaker เปิดอยู่)"));
+                    }
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    return attempt
+                            .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                                    .jitter(0.5)
+                                    .filter(GeminiClient::isRetryable)
+                                    .doBeforeRetry(signal -> {
+                                        counter(feature, "retry").increment();
+                                        System.out.println("🔁 Retry Gemini (" + feature + ") #" + (signal.totalRetries() + 1)
+                                                + ": " + signal.failure().getMessage());
+                                    })
+                                    .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                            .doOnSuccess(response -> {
+                                circuitBreaker.recordSuccess();
+                                sample.stop(timer(feature, "success"));
+                                recordTokenUsage(feature, response);
+                            })
+                            .doOnError(error -> {
+                                onFailure(error);
+                                sample.stop(timer(feature, outcomeOf(error)));
+                            })
+                            .doOnCancel(circuitBreaker::release);
+                });
+
+        return rateLimiter.acquire(feature)
+                .doOnError(error -> counter(feature, "throttled").increment())
+                .flatMap(permit -> call.doFinally(signal -> permit.release()))
+                .timeout(totalTimeout);
+    }
+
+    /**
+     * ✅ เรียก streamGenerateContent (SSE) แล้วคืน JSON ของแต่ละ chunk
+     * ไม่ retry เพราะ chunk ที่ส่งออกไปแล้วเรียกคืนไม่ได้ - cancel จาก subscriber จะปิด connection ไปยัง Gemini
+     */
+    public Flux<String> streamGenerateContent(String feature, String requestBody) {
+        Flux<String> call = Flux.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                counter(feature, "rejected").increment();
+                return Flux.<String>error(new GeminiUnavailableException(
+                        "Gemini API ไม่พร้อมใช้งานชั่วคราว (circuit breaker เปิดอยู่)"));
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicReference<String> lastChunk = new AtomicReference<>();
+
+            return webClient.post()
+                    .uri(resolveStreamUrl() + "?alt=sse&key=" + apiKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                    .mapNotNull(ServerSentEvent::data)
+                    .doOnNext(lastChunk::set)
+                    .doOnComplete(() -> {
+                        circuitBreaker.recordSuccess();
+                        sample.stop(timer(feature, "success"));
+                        // usageMetadata ของ stream อยู่ใน chunk สุดท้าย
+                        recordTokenUsage(feature, lastChunk.get());
+                    })
+                    .doOnError(error -> {
+                        onFailure(error);
+                        sample.stop(timer(feature, outcomeOf(error)));
+                    })
+                    .doOnCancel(() -> {
+                        circuitBreaker.release();
+                        sample.stop(timer(feature, "cancelled"));
+                    });
+        });
+
+        return rateLimiter.acquire(feature)
+                .doOnError(error -> counter(feature, "throttled").increment())
+                .flatMapMany(permit -> call.doFinally(signal -> permit.release()));
+    }
+
+    /**
+     * ✅ สถานะของ client สำหรับ monitoring
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("circuitState", circuitBreaker.getState().name());
+        status.put("consecutiveFailures", circuitBreaker.getConsecutiveFailures());
+        status.put("callTimeoutSeconds", callTimeout.toSeconds());
+        status.put("totalTimeoutSeconds", totalTimeout.toSeconds());
+        status.put("maxRetries", maxRetries);
+        return status;
+    }
+
+    private String resolveStreamUrl() {
+        if (streamApiUrl != null && !streamApiUrl.isBlank()) {
+            return streamApiUrl;
+        }
+        return apiUrl.replace(":generateContent", ":streamGenerateContent");
+    }
+
+    private void onFailure(Throwable error) {
+        // 4xx อื่นๆ (เช่น request ผิดรูปแบบ) ไม่ได้แปลว่า Gemini ล่ม - ไม่นับเข้า circuit breaker
+        if (isRetryable(error)) {
+            circuitBreaker.recordFailure();
+        } else {
+            circuitBreaker.recordSuccess();
+        }
+    }
+
+    /**
+     * retry เฉพาะ 429 (rate limit), 5xx, timeout และปัญหาการเชื่อมต่อ
+     */
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return error instanceof TimeoutException || error instanceof WebClientRequestException;
+    }
+
+    private static String outcomeOf(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            return "http_" + responseException.getStatusCode().value();
+        }
+        if (error instanceof TimeoutException) {
+            return "timeout";
+        }
+        return "error";
+    }
+
+    /**
+     * บันทึกจำนวน token จาก usageMetadata ของ response (ถ้ามี)
+     */
+    private void recordTokenUsage(String feature, String response) {
+        if (response == null) {
+            return;
+        }
+        try {
+            JsonObject json = gson.fromJson(response, JsonObject.class);
+            JsonObject usage = json != null ? json.getAsJsonObject("usageMetadata") : null;
+            if (usage == null) {
+                return;
+            }
+            long prompt = recordTokens(feature, "prompt", usage, "promptTokenCount");
+            long candidates = recordTokens(feature, "candidates", usage, "candidatesTokenCount");
+            long total = recordTokens(feature, "total", usage, "totalTokenCount");
+            rateLimiter.recordUsage(feature, prompt, candidates, total);
+        } catch (Exception e) {
+            System.err.println("⚠️ Cannot read Gemini token usage: " + e.getMessage());
+        }
+    }
+
+    private long recordTokens(String feature, String type, JsonObject usage, String field) {
+        if (!usage.has(field)) {
+            return 0;
+        }
+        long tokens = usage.get(field).getAsLong();
+        Counter.builder(METRIC_PREFIX + ".tokens")
+                .tag("feature", feature)
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment(tokens);
+        return tokens;
+    }
+
+    private Timer timer(String feature, String outcome) {
+        return Timer.builder(METRIC_PREFIX + ".requests")
+                .tag("feature", feature)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Counter counter(String feature, String event) {
+        return Counter.builder(METRIC_PREFIX + ".events")
+                .tag("feature", feature)
+                .tag("event", event)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gemini ไม่พร้อมใช้งาน (circuit breaker เปิดอยู่)
+     */
+    public static class GeminiUnavailableException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public GeminiUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
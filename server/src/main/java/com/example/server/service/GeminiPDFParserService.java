@@ -7,6 +7,8 @@ import com.google.gson.JsonObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -19,6 +21,15 @@ public class GeminiPDFParserService {
     @Autowired
     private GeminiAIService geminiAIService;
 
+    @Autowired
+    private PDFParserService pdfParserService;
+
+    @Autowired
+    private GeminiRateLimiter geminiRateLimiter;
+
+    @Autowired
+    private Scheduler aiTaskScheduler;
+
     private final Gson gson;
 
     public GeminiPDFParserService() {
@@ -26,33 +37,58 @@ public class GeminiPDFParserService {
     }
 
     /**
-     * Parse รายการสินค้าจาก PDF โดยใช้ Gemini AI
+     * ⭐ Parse แบบ non-blocking - ไม่ยึด thread ของ request ระหว่างรอ Gemini
      */
-    public List<OrderItem> parseOrderItemsFromPDF(MultipartFile file) throws IOException {
-        try {
-            System.out.println("========== Starting Gemini PDF Parse ==========");
-            System.out.println("File: " + file.getOriginalFilename());
-            System.out.println("Size: " + file.getSize() + " bytes");
-
-            // 1. เรียก Gemini AI เพื่อวิเคราะห์ PDF
-            String geminiResponse = geminiAIService.analyzePDFWithGemini(file);
+    public Mono<List<OrderItem>> parseOrderItemsFromPDFAsync(MultipartFile file) {
+        System.out.println("========== Starting Gemini PDF Parse (async) ==========");
+        System.out.println("File: " + file.getOriginalFilename());
+        System.out.println("Size: " + file.getSize() + " bytes");
+
+        return geminiAIService.analyzePDFWithGeminiAsync(file)
+                .map(geminiResponse -> {
+                    List<OrderItem> items = parseItemsFromJSON(geminiResponse);
+                    System.out.println("Total items parsed: " + items.size());
+                    return items;
+                })
+                .onErrorMap(e -> !(e instanceof GeminiClient.GeminiUnavailableException), e -> {
+                    System.err.println("❌ Error in Gemini PDF parsing: " + e.getMessage());
+                    return new IOException("Failed to parse PDF with Gemini: " + e.getMessage(), e);
+                });
+    }
 
-            System.out.println("📄 Gemini Response:");
-            System.out.println(geminiResponse);
+    /**
+     * ⭐ Parse ด้วย Gemini ถ้าโควต้าพอ - ถ้าเกินโควต้าหรือ Gemini ไม่พร้อม ใช้ PDFParserService (regex) แทน
+     */
+    public Mono<ParseResult> parseWithFallbackAsync(MultipartFile file) {
+        return parseOrderItemsFromPDFAsync(file)
+                .map(items -> new ParseResult(items, "Gemini AI"))
+                .onErrorResume(GeminiClient.GeminiUnavailableException.class, e -> {
+                    System.out.println("⚠️ " + e.getMessage() + " → ใช้ PDF parser แบบ pattern แทน");
+                    geminiRateLimiter.recordFallback("pdf-parse");
+                    return Mono.fromCallable(() -> new ParseResult(
+                                    pdfParserService.parseOrderItemsFromPDF(file), "PDF Text Pattern (fallback)"))
+                            .subscribeOn(aiTaskScheduler);
+                });
+    }
 
-            // 2. Parse JSON response
-            List<OrderItem> items = parseItemsFromJSON(geminiResponse);
+    /**
+     * ผลการ parse พร้อมวิธีที่ใช้
+     */
+    public static class ParseResult {
+        private final List<OrderItem> items;
+        private final String parsedWith;
 
-            System.out.println("========== Parse Summary ==========");
-            System.out.println("Total items parsed: " + items.size());
-            System.out.println("===================================");
+        public ParseResult(List<OrderItem> items, String parsedWith) {
+            this.items = items;
+            this.parsedWith = parsedWith;
+        }
 
+        public List<OrderItem> getItems() {
             return items;
+        }
 
-        } catch (Exception e) {
-            System.err.println("❌ Error in Gemini PDF parsing: " + e.getMessage());
-            e.printStackTrace();
-            throw new IOException("Failed to parse PDF with Gemini: " + e.getMessage(), e);
+        public String getParsedWith() {
+            return parsedWith;
         }
     }
 
@@ -163,10 +199,13 @@ public class GeminiPDFParserService {
     }
 
     /**
-     * สำหรับ preview - แปลง items เป็น simple map
+     * ⭐ Preview แบบ non-blocking - แปลง items เป็น simple map
      */
-    public List<java.util.Map<String, Object>> parseAndPreview(MultipartFile file) throws IOException {
-        List<OrderItem> items = parseOrderItemsFromPDF(file);
+    public Mono<List<java.util.Map<String, Object>>> parseAndPreviewAsync(MultipartFile file) {
+        return parseOrderItemsFromPDFAsync(file).map(this::toPreview);
+    }
+
+    public List<java.util.Map<String, Object>> toPreview(List<OrderItem> items) {
         List<java.util.Map<String, Object>> preview = new ArrayList<>();
 
         for (OrderItem item : items) {
@@ -0,0 +1,585 @@
+package com.example.server.service;
+
+import com.example.server.config.GeminiRateLimitProperties;
+import com.example.server.config.GeminiRateLimitProperties.FeatureLimit;
+import com.example.server.entity.GeminiUsageDaily;
+import com.example.server.respository.GeminiUsageDailyRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ⭐ Rate limiter กลางของ Gemini - ทุก feature (chat, PDF, TikTok, forecast) ใช้โควต้าเดียวกัน
+ * - Token bucket ต่อ feature + bucket รวม และจำกัดจำนวน request ที่ส่งพร้อมกัน
+ * - เมื่อโควต้ารวมไม่พอ request ที่รอจะได้คิวแบบ weighted-fair (start-time fair queuing ตาม weight ของ feature)
+ *   feature ที่ยิง request จำนวนมาก (เช่น upload PDF ทีละหลายไฟล์) จึงไม่แย่งคิวของ chat ทั้งหมด
+ * - นับ token/ค่าใช้จ่ายรายวันต่อ feature และบันทึกลงตาราง gemini_usage_daily เป็นระยะ
+ * - งบ token รายวันหมด หรือรอคิวนานเกินกำหนด → GeminiQuotaExceededException
+ *   (ผู้เรียกเลือกเองว่าจะใช้ parser แบบ deterministic แทน หรือแจ้ง error ที่ชัดเจน)
+ */
+@Component
+public class GeminiRateLimiter {
+
+    private final GeminiRateLimitProperties properties;
+    private final GeminiUsageDailyRepository usageRepository;
+
+    private final Map<String, FeatureState> features = new LinkedHashMap<>();
+    // ยอดของวันก่อนหน้าที่ยังไม่ได้บันทึก (เกิดเมื่อข้ามวัน)
+    private final List<PendingFlush> carryOver = new ArrayList<>();
+    private final TokenBucket globalBucket;
+    private final Object flushLock = new Object();
+
+    private LocalDate currentDate = LocalDate.now();
+    private double virtualTime;
+    private int inFlight;
+    private Disposable scheduledDispatch;
+    private long scheduledDispatchAt;
+
+    public GeminiRateLimiter(GeminiRateLimitProperties properties, GeminiUsageDailyRepository usageRepository) {
+        this.properties = properties;
+        this.usageRepository = usageRepository;
+        this.globalBucket = new TokenBucket(properties.getBurst(), properties.getRequestsPerMinute());
+    }
+
+    /**
+     * โหลดยอดใช้งานของวันนี้ที่บันทึกไว้ (เพื่อให้งบรายวันยังถูกต้องหลัง restart)
+     */
+    @PostConstruct
+    public void loadTodayUsage() {
+        try {
+            List<GeminiUsageDaily> rows = usageRepository.findByUsageDate(currentDate);
+            synchronized (this) {
+                for (GeminiUsageDaily row : rows) {
+                    stateFor(row.getFeature()).persisted.add(row);
+                }
+            }
+            System.out.println("✅ Gemini usage loaded: " + rows.size() + " feature(s) for " + currentDate);
+        } catch (Exception e) {
+            System.err.println("⚠️ Cannot load Gemini usage: " + e.getMessage());
+        }
+    }
+
+    /**
+     * ✅ ขอสิทธิ์เรียก Gemini 1 ครั้ง - ต้องเรียก {@link Permit#release()} เมื่อ call จบ (สำเร็จ/ล้มเหลว/ยกเลิก)
+     */
+    public Mono<Permit> acquire(String feature) {
+        if (!properties.isEnabled()) {
+            return Mono.just(new Permit(null));
+        }
+
+        return Mono.<Permit>create(sink -> {
+            Waiter waiter;
+            List<Waiter> granted;
+            String rejection = null;
+
+            synchronized (this) {
+                rollDateIfNeeded();
+                FeatureState state = stateFor(feature);
+
+                rejection = checkDailyBudget(state);
+                if (rejection == null && state.queue.size() >= properties.getMaxQueuePerFeature()) {
+                    rejection = "คิวของ " + feature + " เต็ม (" + properties.getMaxQueuePerFeature() + " request)";
+                }
+                if (rejection != null) {
+                    state.today.rejected++;
+                    waiter = null;
+                    granted = List.of();
+                } else {
+                    // start-time fair queuing: tag = max(virtual time, tag ล่าสุดของ feature) + 1/weight
+                    double previousFinishTag = state.lastFinishTag;
+                    double start = Math.max(virtualTime, previousFinishTag);
+                    state.lastFinishTag = start + 1.0 / Math.max(1, state.limit.getWeight());
+                    waiter = new Waiter(state, sink, start);
+                    state.queue.add(waiter);
+                    granted = dispatch();
+
+                    if (waiter.state == WaiterState.WAITING && state.limit.getQueueTimeoutSeconds() <= 0) {
+                        // feature นี้ไม่รอคิว - ให้ผู้เรียกใช้ทางเลือกอื่นทันที
+                        state.queue.remove(waiter);
+                        state.lastFinishTag = previousFinishTag;
+                        waiter.state = WaiterState.EXPIRED;
+                        state.today.rejected++;
+                        rejection = "เกินอัตราที่กำหนดของ " + feature + " ("
+                                + state.limit.getRequestsPerMinute() + " ครั้ง/นาที)";
+                    }
+                }
+            }
+
+            complete(granted);
+            if (rejection != null) {
+                sink.error(new GeminiQuotaExceededException(feature, rejection));
+                return;
+            }
+
+            long timeoutSeconds = waiter.featureState.limit.getQueueTimeoutSeconds();
+            if (waiter.state == WaiterState.WAITING) {
+                Disposable timeout = Schedulers.parallel().schedule(() -> expire(waiter), timeoutSeconds, TimeUnit.SECONDS);
+                sink.onDispose(timeout);
+                sink.onCancel(() -> cancel(waiter));
+            }
+        })
+                // ⭐ ได้สิทธิ์แล้วแต่ subscriber ยกเลิกไปก่อน (client ปิดการเชื่อมต่อ / timeout) → Permit ถูกทิ้ง ต้องคืนสิทธิ์เอง
+                .doOnDiscard(Permit.class, Permit::release);
+    }
+
+    /**
+     * บันทึก token ที่ใช้จริงจาก usageMetadata ของ response
+     */
+    public synchronized void recordUsage(String feature, long promptTokens, long candidateTokens, long totalTokens) {
+        rollDateIfNeeded();
+        Counters today = stateFor(feature).today;
+        today.promptTokens += promptTokens;
+        today.candidateTokens += candidateTokens;
+        today.totalTokens += totalTokens > 0 ? totalTokens : promptTokens + candidateTokens;
+    }
+
+    /**
+     * บันทึกว่าผู้เรียกใช้ทางเลือกอื่นแทน Gemini (เช่น parser แบบ deterministic)
+     */
+    public synchronized void recordFallback(String feature) {
+        rollDateIfNeeded();
+        stateFor(feature).today.fallbacks++;
+    }
+
+    /**
+     * ⭐ บันทึกยอดใช้งานที่ยังไม่ได้ลงตารางเป็นระยะ
+     */
+    @Scheduled(fixedDelayString = "${gemini.limiter.flush-interval-ms:60000}")
+    public void flushUsage() {
+        // flush ทีละรอบ (scheduler กับ @PreDestroy) - ป้องกัน read-modify-write ของแถวเดียวกันทับกัน
+        synchronized (flushLock) {
+            flushPending();
+        }
+    }
+
+    private void flushPending() {
+        List<PendingFlush> pending = new ArrayList<>();
+        synchronized (this) {
+            rollDateIfNeeded();
+            pending.addAll(carryOver);
+            carryOver.clear();
+            for (FeatureState state : features.values()) {
+                if (!state.today.isEmpty()) {
+                    // สลับ counters ออกและนับเป็น persisted ในจังหวะเดียว - ยอดที่เพิ่มหลังจากนี้ลง today ชุดใหม่
+                    // และงบรายวันยังเห็นยอดที่กำลังบันทึกอยู่
+                    pending.add(new PendingFlush(state, currentDate, state.today));
+                    state.persisted.add(state.today);
+                    state.today = new Counters();
+                }
+            }
+        }
+
+        for (PendingFlush flush : pending) {
+            try {
+                GeminiUsageDaily row = usageRepository
+                        .findByUsageDateAndFeature(flush.date, flush.state.feature)
+                        .orElseGet(() -> {
+                            GeminiUsageDaily created = new GeminiUsageDaily();
+                            created.setUsageDate(flush.date);
+                            created.setFeature(flush.state.feature);
+                            return created;
+                        });
+                flush.counters.addTo(row, costOf(flush.counters));
+                row.setUpdatedAt(LocalDateTime.now());
+                GeminiUsageDaily saved = usageRepository.save(row);
+
+                synchronized (this) {
+                    if (flush.date.equals(currentDate)) {
+                        flush.state.persisted.setFrom(saved);
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️ Cannot save Gemini usage (" + flush.state.feature + "): " + e.getMessage());
+                synchronized (this) {
+                    // เก็บไว้บันทึกรอบถัดไป
+                    if (flush.date.equals(currentDate)) {
+                        flush.state.persisted.subtract(flush.counters);
+                        flush.state.today.add(flush.counters);
+                    } else {
+                        carryOver.add(flush);
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushUsage();
+    }
+
+    /**
+     * ✅ สถานะ + ยอดใช้งานวันนี้ของแต่ละ feature (สำหรับหน้า admin)
+     */
+    public synchronized Map<String, Object> getUsage() {
+        rollDateIfNeeded();
+        long now = System.nanoTime();
+
+        List<Map<String, Object>> featureUsage = new ArrayList<>();
+        Counters total = new Counters();
+        for (FeatureState state : features.values()) {
+            Counters usage = state.usageToday();
+            total.add(usage);
+
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("feature", state.feature);
+            item.put("weight", state.limit.getWeight());
+            item.put("requestsPerMinute", state.limit.getRequestsPerMinute());
+            item.put("availableRequests", round(state.bucket.getAvailableTokens(now)));
+            item.put("queued", state.queue.size());
+            item.put("requests", usage.requests);
+            item.put("rejected", usage.rejected);
+            item.put("fallbacks", usage.fallbacks);
+            item.put("promptTokens", usage.promptTokens);
+            item.put("candidateTokens", usage.candidateTokens);
+            item.put("totalTokens", usage.totalTokens);
+            item.put("dailyTokenBudget", state.limit.getDailyTokenBudget());
+            item.put("estimatedCostUsd", costOf(usage));
+            featureUsage.add(item);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("date", currentDate.toString());
+        result.put("enabled", properties.isEnabled());
+        result.put("inFlight", inFlight);
+        result.put("maxConcurrent", properties.getMaxConcurrent());
+        result.put("requestsPerMinute", properties.getRequestsPerMinute());
+        result.put("availableRequests", round(globalBucket.getAvailableTokens(now)));
+        result.put("totalTokens", total.totalTokens);
+        result.put("dailyTokenBudget", properties.getDailyTokenBudget());
+        result.put("estimatedCostUsd", costOf(total));
+        result.put("features", featureUsage);
+        return result;
+    }
+
+    /**
+     * ✅ ยอดใช้งานย้อนหลังที่บันทึกแล้ว (ไม่รวมส่วนที่ยังไม่ได้ flush)
+     */
+    public List<GeminiUsageDaily> getHistory(int days) {
+        LocalDate to = LocalDate.now();
+        return usageRepository.findByUsageDateBetweenOrderByUsageDateDescFeatureAsc(to.minusDays(Math.max(0, days - 1)), to);
+    }
+
+    // ============================================
+    // Internal
+    // ============================================
+
+    /**
+     * ให้สิทธิ์กับ request ที่รอ ตามลำดับ tag ที่น้อยที่สุดในบรรดา feature ที่ยังมี token (ต้องถือ lock)
+     * คืนรายการที่ได้สิทธิ์ - ต้องเรียก complete() หลังปล่อย lock
+     */
+    private List<Waiter> dispatch() {
+        List<Waiter> granted = new ArrayList<>();
+        long now = System.nanoTime();
+
+        while (inFlight < properties.getMaxConcurrent() && globalBucket.hasToken(now)) {
+            FeatureState next = null;
+            for (FeatureState state : features.values()) {
+                Waiter head = state.queue.peek();
+                if (head != null && state.bucket.hasToken(now)
+                        && (next == null || head.startTag < next.queue.peek().startTag)) {
+                    next = state;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+
+            Waiter waiter = next.queue.poll();
+            next.bucket.consume(now);
+            globalBucket.consume(now);
+            virtualTime = Math.max(virtualTime, waiter.startTag);
+            inFlight++;
+            next.today.requests++;
+            waiter.state = WaiterState.GRANTED;
+            granted.add(waiter);
+        }
+
+        scheduleNextDispatch(now);
+        return granted;
+    }
+
+    /**
+     * ถ้ายังมี request รอแต่ token หมด ตั้งเวลา dispatch ใหม่ตอนที่ token ตัวถัดไปจะพร้อม
+     */
+    private void scheduleNextDispatch(long now) {
+        if (inFlight >= properties.getMaxConcurrent()) {
+            return; // release() จะ dispatch ต่อเอง
+        }
+        long wait = Long.MAX_VALUE;
+        for (FeatureState state : features.values()) {
+            if (!state.queue.isEmpty()) {
+                wait = Math.min(wait, Math.max(state.bucket.nanosUntilToken(now), globalBucket.nanosUntilToken(now)));
+            }
+        }
+        if (wait == Long.MAX_VALUE) {
+            return;
+        }
+
+        long at = now + Math.max(wait, 1_000_000);
+        if (scheduledDispatch != null && !scheduledDispatch.isDisposed() && scheduledDispatchAt <= at) {
+            return;
+        }
+        if (scheduledDispatch != null) {
+            scheduledDispatch.dispose();
+        }
+        scheduledDispatchAt = at;
+        scheduledDispatch = Schedulers.parallel().schedule(() -> {
+            List<Waiter> granted;
+            synchronized (this) {
+                scheduledDispatch = null;
+                granted = dispatch();
+            }
+            complete(granted);
+        }, at - now, TimeUnit.NANOSECONDS);
+    }
+
+    private void complete(List<Waiter> granted) {
+        for (Waiter waiter : granted) {
+            waiter.sink.success(new Permit(waiter.featureState));
+        }
+    }
+
+    private void release() {
+        List<Waiter> granted;
+        synchronized (this) {
+            inFlight--;
+            granted = dispatch();
+        }
+        complete(granted);
+    }
+
+    private void expire(Waiter waiter) {
+        long timeoutSeconds;
+        synchronized (this) {
+            if (waiter.state != WaiterState.WAITING) {
+                return;
+            }
+            waiter.featureState.queue.remove(waiter);
+            waiter.state = WaiterState.EXPIRED;
+            waiter.featureState.today.rejected++;
+            timeoutSeconds = waiter.featureState.limit.getQueueTimeoutSeconds();
+        }
+        waiter.sink.error(new GeminiQuotaExceededException(waiter.featureState.feature,
+                "รอคิว Gemini นานเกิน " + timeoutSeconds + " วินาที"));
+    }
+
+    private synchronized void cancel(Waiter waiter) {
+        if (waiter.state == WaiterState.WAITING) {
+            waiter.featureState.queue.remove(waiter);
+            waiter.state = WaiterState.EXPIRED;
+        }
+    }
+
+    /**
+     * @return เหตุผลที่ปฏิเสธ หรือ null ถ้ายังอยู่ในงบรายวัน (ต้องถือ lock)
+     */
+    private String checkDailyBudget(FeatureState state) {
+        long featureBudget = state.limit.getDailyTokenBudget();
+        if (featureBudget > 0 && state.usageToday().totalTokens >= featureBudget) {
+            return "ใช้ token ของ " + state.feature + " ครบงบวันนี้แล้ว (" + featureBudget + " tokens)";
+        }
+        long globalBudget = properties.getDailyTokenBudget();
+        if (globalBudget > 0) {
+            long used = 0;
+            for (FeatureState other : features.values()) {
+                used += other.usageToday().totalTokens;
+            }
+            if (used >= globalBudget) {
+                return "ใช้ token ของ Gemini ครบงบรวมวันนี้แล้ว (" + globalBudget + " tokens)";
+            }
+        }
+        return null;
+    }
+
+    private void rollDateIfNeeded() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(currentDate)) {
+            // ยอดของวันก่อนที่ยังไม่ได้บันทึก ต้องลงตารางด้วยวันที่เดิม
+            for (FeatureState state : features.values()) {
+                if (!state.today.isEmpty()) {
+                    carryOver.add(new PendingFlush(state, currentDate, state.today));
+                }
+                state.today = new Counters();
+                state.persisted = new Counters();
+            }
+            currentDate = today;
+        }
+    }
+
+    private FeatureState stateFor(String feature) {
+        return features.computeIfAbsent(feature, name -> {
+            FeatureLimit limit = properties.getFeatures().getOrDefault(name, properties.getDefaultFeature());
+            return new FeatureState(name, limit);
+        });
+    }
+
+    private BigDecimal costOf(Counters counters) {
+        double cost = counters.promptTokens * properties.getInputCostPerMillionTokens() / 1_000_000.0
+                + counters.candidateTokens * properties.getOutputCostPerMillionTokens() / 1_000_000.0;
+        return BigDecimal.valueOf(cost).setScale(6, RoundingMode.HALF_UP);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private enum WaiterState {
+        WAITING, GRANTED, EXPIRED
+    }
+
+    private static class Waiter {
+        final FeatureState featureState;
+        final MonoSink<Permit> sink;
+        final double startTag;
+        WaiterState state = WaiterState.WAITING;
+
+        Waiter(FeatureState featureState, MonoSink<Permit> sink, double startTag) {
+            this.featureState = featureState;
+            this.sink = sink;
+            this.startTag = startTag;
+        }
+    }
+
+    private static class FeatureState {
+        final String feature;
+        final FeatureLimit limit;
+        final TokenBucket bucket;
+        final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        double lastFinishTag;
+
+        // ยอดที่บันทึกลงตารางแล้ว + ยอดที่ยังไม่ได้ flush
+        Counters persisted = new Counters();
+        Counters today = new Counters();
+
+        FeatureState(String feature, FeatureLimit limit) {
+            this.feature = feature;
+            this.limit = limit;
+            this.bucket = new TokenBucket(Math.max(1, limit.getBurst()), limit.getRequestsPerMinute());
+        }
+
+        Counters usageToday() {
+            Counters total = new Counters();
+            total.add(persisted);
+            total.add(today);
+            return total;
+        }
+    }
+
+    private static class Counters {
+        long requests;
+        long rejected;
+        long fallbacks;
+        long promptTokens;
+        long candidateTokens;
+        long totalTokens;
+
+        boolean isEmpty() {
+            return requests == 0 && rejected == 0 && fallbacks == 0 && totalTokens == 0;
+        }
+
+        void add(Counters other) {
+            requests += other.requests;
+            rejected += other.rejected;
+            fallbacks += other.fallbacks;
+            promptTokens += other.promptTokens;
+            candidateTokens += other.candidateTokens;
+            totalTokens += other.totalTokens;
+        }
+
+        void subtract(Counters other) {
+            requests -= other.requests;
+            rejected -= other.rejected;
+            fallbacks -= other.fallbacks;
+            promptTokens -= other.promptTokens;
+            candidateTokens -= other.candidateTokens;
+            totalTokens -= other.totalTokens;
+        }
+
+        void add(GeminiUsageDaily row) {
+            requests += row.getRequests();
+            rejected += row.getRejected();
+            fallbacks += row.getFallbacks();
+            promptTokens += row.getPromptTokens();
+            candidateTokens += row.getCandidateTokens();
+            totalTokens += row.getTotalTokens();
+        }
+
+        void setFrom(GeminiUsageDaily row) {
+            requests = rejected = fallbacks = promptTokens = candidateTokens = totalTokens = 0;
+            add(row);
+        }
+
+        void addTo(GeminiUsageDaily row, BigDecimal cost) {
+            row.setRequests(row.getRequests() + requests);
+            row.setRejected(row.getRejected() + rejected);
+            row.setFallbacks(row.getFallbacks() + fallbacks);
+            row.setPromptTokens(row.getPromptTokens() + promptTokens);
+            row.setCandidateTokens(row.getCandidateTokens() + candidateTokens);
+            row.setTotalTokens(row.getTotalTokens() + totalTokens);
+            BigDecimal current = row.getEstimatedCostUsd() != null ? row.getEstimatedCostUsd() : BigDecimal.ZERO;
+            row.setEstimatedCostUsd(current.add(cost));
+        }
+    }
+
+    private static class PendingFlush {
+        final FeatureState state;
+        final LocalDate date;
+        final Counters counters;
+
+        PendingFlush(FeatureState state, LocalDate date, Counters counters) {
+            this.state = state;
+            this.date = date;
+            this.counters = counters;
+        }
+    }
+
+    /**
+     * ✅ สิทธิ์เรียก Gemini 1 ครั้ง (release ซ้ำได้ - มีผลครั้งเดียว)
+     */
+    public class Permit {
+        private final FeatureState featureState;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(FeatureState featureState) {
+            this.featureState = featureState;
+        }
+
+        public void release() {
+            if (featureState != null && released.compareAndSet(false, true)) {
+                GeminiRateLimiter.this.release();
+            }
+        }
+    }
+
+    /**
+     * เกินโควต้า/งบรายวันของ Gemini - ผู้เรียกควรใช้ทางเลือกอื่นหรือแจ้งผู้ใช้ให้ลองใหม่ภายหลัง
+     */
+    public static class GeminiQuotaExceededException extends GeminiClient.GeminiUnavailableException {
+        private static final long serialVersionUID = 1L;
+
+        private final String feature;
+
+        public GeminiQuotaExceededException(String feature, String reason) {
+            super("Gemini ไม่พร้อมให้บริการ " + feature + " ชั่วคราว: " + reason);
+            this.feature = feature;
+        }
+
+        public String getFeature() {
+            return feature;
+        }
+    }
+}
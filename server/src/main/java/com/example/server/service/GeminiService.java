@@ -2,12 +2,9 @@ package com.example.server.service;
 
 import com.example.server.dto.*;
 import com.google.gson.Gson;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -16,17 +13,36 @@ import java.util.UUID;
 @Service
 public class GeminiService {
 
-    @Value("${gemini.api.key}")
-    private String apiKey;
-
-    @Value("${gemini.api.url}")
-    private String apiUrl;
-
-    private final WebClient webClient;
+    /**
+     * ⭐ System Prompt - คงที่ สร้างครั้งเดียวตอนโหลด class
+     */
+    private static final String SYSTEM_PROMPT = String.join("\n",
+            "คุณคือ **Chubby AI Assistant** ผู้ช่วยระบบจัดการสต็อกอัจฉริยะสำหรับธุรกิจ Chubby Charlie",
+            "",
+            "**บทบาทและความสามารถของคุณ:**",
+            "- 📊 วิเคราะห์ข้อมูลสินค้า สต็อก และยอดขายอย่างละเอียด",
+            "- 💡 ให้คำแนะนำเชิงธุรกิจที่เป็นประโยชน์",
+            "- ⚠️ เตือนปัญหาที่ต้องแก้ไขอย่างชัดเจน",
+            "- 📈 สรุปข้อมูลแบบกระชับและเข้าใจง่าย",
+            "- 🎯 ตอบคำถามอย่างตรงประเด็นและเป็นมิตร",
+            "",
+            "**รูปแบบการตอบ:**",
+            "1. ใช้ภาษาไทยที่เข้าใจง่าย เป็นกันเอง แต่เป็นมืออาชีพ",
+            "2. ใช้ emoji ที่เหมาะสมเพื่อให้อ่านง่าย เช่น 📊 💰 ⚠️ ✅",
+            "3. แบ่งหัวข้อด้วย **หัวข้อหลัก** และใช้ bullet points",
+            "4. ตัวเลขให้แสดงหน่วยเงินที่ชัดเจน (เช่น 1,234.56 บาท)",
+            "5. หากมีปัญหา ให้เตือนชัดเจนและแนะนำวิธีแก้",
+            "6. ถ้าข้อมูลไม่เพียงพอ บอกตรงๆว่าต้องการข้อมูลอะไรเพิ่ม",
+            "7. ข้อมูลจากระบบอยู่ในรูปตาราง คั่นคอลัมน์ด้วย | (แถวแรกคือชื่อคอลัมน์)",
+            "", "");
+
+    private static final String PROMPT_CLOSING = "โปรดวิเคราะห์ข้อมูลและตอบคำถามอย่างละเอียด ชัดเจน และเป็นประโยชน์";
+
+    private final GeminiClient geminiClient;
     private final Gson gson = new Gson();
 
-    public GeminiService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    public GeminiService(GeminiClient geminiClient) {
+        this.geminiClient = geminiClient;
     }
 
     public Mono<ChatResponse> chat(ChatRequest request) {
@@ -34,22 +50,36 @@ public class GeminiService {
             String prompt = buildEnhancedPrompt(request);
             GeminiRequest geminiRequest = createGeminiRequest(prompt);
 
-            System.out.println("Gemini URL: " + apiUrl + "?key=" + apiKey);
-            System.out.println("Gemini Request JSON: " + gson.toJson(geminiRequest));
-
-            return webClient.post()
-                    .uri(apiUrl + "?key=" + apiKey)
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .bodyValue(geminiRequest)
-                    .retrieve()
-                    .bodyToMono(GeminiResponse.class)
-                    .map(this::extractResponse)
-                    .map(result -> ChatResponse.success(result, UUID.randomUUID().toString()))
+            String requestJson = gson.toJson(geminiRequest);
+            int estimatedTokens = TokenEstimator.estimate(prompt);
+            System.out.println("Gemini prompt: " + prompt.length() + " chars, ~" + estimatedTokens + " tokens");
+
+            return geminiClient.generateContent("chat", requestJson)
+                    .map(json -> gson.fromJson(json, GeminiResponse.class))
+                    .map(geminiResponse -> {
+                        String text = extractResponse(geminiResponse);
+                        if (text == null || text.isBlank()) {
+                            // ไม่มี candidate - ส่งเป็น error เพื่อไม่ให้ข้อความขออภัยถูก cache เป็นคำตอบ
+                            return ChatResponse.error("ขออภัย ไม่สามารถสร้างคำตอบได้ในขณะนี้ 😔");
+                        }
+                        ChatResponse response = ChatResponse.success(text, UUID.randomUUID().toString());
+                        response.setPromptChars(prompt.length());
+                        response.setPromptTokensEstimated(estimatedTokens);
+                        if (geminiResponse.getUsageMetadata() != null) {
+                            response.setPromptTokens(geminiResponse.getUsageMetadata().getPromptTokenCount());
+                        }
+                        return response;
+                    })
                     .onErrorResume(WebClientResponseException.class, ex -> {
                         String msg = ex.getStatusCode() + " - " + ex.getResponseBodyAsString();
                         System.err.println("Gemini API Error: " + msg);
                         return Mono.just(ChatResponse.error("Gemini API Error: " + msg));
                     })
+                    .onErrorResume(GeminiClient.GeminiUnavailableException.class, ex -> {
+                        // เกินโควต้า / circuit breaker เปิด - แจ้งให้ลองใหม่ภายหลัง
+                        System.err.println("⚠️ " + ex.getMessage());
+                        return Mono.just(ChatResponse.error(ex.getMessage() + " กรุณาลองใหม่อีกครั้งภายหลัง"));
+                    })
                     .onErrorResume(Exception.class, ex -> {
                         ex.printStackTrace();
                         return Mono.just(ChatResponse.error("Unexpected error: " + ex.getMessage()));
@@ -62,43 +92,66 @@ public class GeminiService {
     }
 
     /**
-     * ⭐ สร้าง Prompt ที่ดีขึ้น พร้อมคำแนะนำในการตอบ
+     * ⭐ Chat แบบ streaming - ส่งข้อความทีละส่วนทันทีที่ Gemini สร้างเสร็จ
+     * ใช้ streamGenerateContent ผ่าน GeminiClient ถ้า subscriber ยกเลิก (client ปิดการเชื่อมต่อ) request ไป Gemini จะถูกยกเลิกด้วย
+     */
+    public Flux<String> streamChat(ChatRequest request) {
+        String prompt = buildEnhancedPrompt(request);
+        GeminiRequest geminiRequest = createGeminiRequest(prompt);
+
+        return geminiClient.streamGenerateContent("chat-stream", gson.toJson(geminiRequest))
+                .map(data -> gson.fromJson(data, GeminiResponse.class))
+                .mapNotNull(this::extractStreamText)
+                .filter(text -> !text.isEmpty())
+                .onErrorMap(WebClientResponseException.class, ex ->
+                        new RuntimeException("Gemini API Error: " + ex.getStatusCode() + " - " + ex.getResponseBodyAsString(), ex));
+    }
+
+    /**
+     * ดึงข้อความจาก chunk ของ stream (chunk สุดท้ายอาจไม่มีข้อความ)
+     */
+    private String extractStreamText(GeminiResponse response) {
+        if (response == null || response.getCandidates() == null || response.getCandidates().isEmpty()) {
+            return null;
+        }
+        GeminiResponse.Content content = response.getCandidates().get(0).getContent();
+        if (content == null || content.getParts() == null) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        for (GeminiResponse.Part part : content.getParts()) {
+            if (part.getText() != null) {
+                text.append(part.getText());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * ⭐ สร้าง Prompt = system prompt (สร้างครั้งเดียว) + ข้อมูลจากระบบ + คำถาม
      */
-    private String buildEnhancedPrompt(ChatRequest request) {
-        StringBuilder sb = new StringBuilder();
-
-        // System Prompt
-        sb.append("คุณคือ **Chubby AI Assistant** ผู้ช่วยระบบจัดการสต็อกอัจฉริยะสำหรับธุรกิจ Chubby Charlie\n\n");
-
-        sb.append("**บทบาทและความสามารถของคุณ:**\n");
-        sb.append("- 📊 วิเคราะห์ข้อมูลสินค้า สต็อก และยอดขายอย่างละเอียด\n");
-        sb.append("- 💡 ให้คำแนะนำเชิงธุรกิจที่เป็นประโยชน์\n");
-        sb.append("- ⚠️ เตือนปัญหาที่ต้องแก้ไขอย่างชัดเจน\n");
-        sb.append("- 📈 สรุปข้อมูลแบบกระชับและเข้าใจง่าย\n");
-        sb.append("- 🎯 ตอบคำถามอย่างตรงประเด็นและเป็นมิตร\n\n");
-
-        sb.append("**รูปแบบการตอบ:**\n");
-        sb.append("1. ใช้ภาษาไทยที่เข้าใจง่าย เป็นกันเอง แต่เป็นมืออาชีพ\n");
-        sb.append("2. ใช้ emoji ที่เหมาะสมเพื่อให้อ่านง่าย เช่น 📊 💰 ⚠️ ✅\n");
-        sb.append("3. แบ่งหัวข้อด้วย **หัวข้อหลัก** และใช้ bullet points\n");
-        sb.append("4. ตัวเลขให้แสดงหน่วยเงินที่ชัดเจน (เช่น 1,234.56 บาท)\n");
-        sb.append("5. หากมีปัญหา ให้เตือนชัดเจนและแนะนำวิธีแก้\n");
-        sb.append("6. ถ้าข้อมูลไม่เพียงพอ บอกตรงๆว่าต้องการข้อมูลอะไรเพิ่ม\n\n");
+    public String buildEnhancedPrompt(ChatRequest request) {
+        String context = request.getContext();
+        String message = request.getMessage() != null ? request.getMessage() : "";
+        int capacity = SYSTEM_PROMPT.length() + message.length() + PROMPT_CLOSING.length()
+                + (context != null ? context.length() : 0) + 64;
+
+        StringBuilder sb = new StringBuilder(capacity);
+        sb.append(SYSTEM_PROMPT);
 
         // Context Data
-        if (request.getContext() != null && !request.getContext().isEmpty()) {
+        if (context != null && !context.isEmpty()) {
             sb.append("**ข้อมูลจากระบบ:**\n");
-            sb.append(request.getContext());
+            sb.append(context);
             sb.append("\n\n");
         }
 
         // User Question
         sb.append("**คำถามจากผู้ใช้:**\n");
-        sb.append(request.getMessage());
+        sb.append(message);
         sb.append("\n\n");
 
-        sb.append("โปรดวิเคราะห์ข้อมูลและตอบคำถามอย่างละเอียด ชัดเจน และเป็นประโยชน์");
-
+        sb.append(PROMPT_CLOSING);
         return sb.toString();
     }
 
@@ -117,6 +170,6 @@ public class GeminiService {
                 return candidate.getContent().getParts().get(0).getText();
             }
         }
-        return "ขออภัย ไม่สามารถสร้างคำตอบได้ในขณะนี้ 😔";
+        return null;
     }
 }
\ No newline at end of file
@@ -4,134 +4,42 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class GeminiStockForecastService {
 
-    @Value("${gemini.api.key}")
-    private String apiKey;
+    // ⭐ Bulk analysis: แบ่ง chunk ตาม category แล้วเรียกพร้อมกันไม่เกิน maxConcurrency
+    @Value("${gemini.forecast.bulk.chunk-size:25}")
+    private int bulkChunkSize;
 
-    @Value("${gemini.api.url}")
-    private String apiUrl;
+    @Value("${gemini.forecast.bulk.max-concurrency:3}")
+    private int bulkMaxConcurrency;
 
-    private final WebClient webClient;
+    private final GeminiClient geminiClient;
     private final Gson gson;
 
-    public GeminiStockForecastService() {
-        this.webClient = WebClient.builder()
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
-        this.gson = new Gson();
-    }
-
-    /**
-     * ⭐ ใช้ Gemini AI วิเคราะห์ Stock Pattern และคาดการณ์
-     */
-    public String analyzeStockForecast(StockForecastAnalysisRequest request) {
-        try {
-            String prompt = buildStockAnalysisPrompt(request);
-
-            JsonObject requestBody = new JsonObject();
-            JsonArray contents = new JsonArray();
-            JsonObject content = new JsonObject();
-            JsonArray parts = new JsonArray();
-
-            JsonObject textPart = new JsonObject();
-            textPart.addProperty("text", prompt);
-            parts.add(textPart);
-
-            content.add("parts", parts);
-            contents.add(content);
-            requestBody.add("contents", contents);
-
-            // ตั้งค่า generation config
-            JsonObject generationConfig = new JsonObject();
-            generationConfig.addProperty("temperature", 0.2); // ต่ำเพื่อความแม่นยำ
-            generationConfig.addProperty("maxOutputTokens", 2048);
-            requestBody.add("generationConfig", generationConfig);
-
-            System.out.println("📤 Sending stock analysis request to Gemini AI...");
-
-            String response = webClient.post()
-                    .uri(apiUrl + "?key=" + apiKey)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(requestBody.toString())
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            return extractTextFromGeminiResponse(response);
-
-        } catch (Exception e) {
-            System.err.println("❌ Error calling Gemini API: " + e.getMessage());
-            throw new RuntimeException("Failed to analyze stock forecast: " + e.getMessage(), e);
-        }
-    }
-
-    /**
-     * ⭐ สร้าง Prompt ที่ชัดเจนสำหรับการวิเคราะห์ Stock
-     */
-    private String buildStockAnalysisPrompt(StockForecastAnalysisRequest request) {
-        StringBuilder prompt = new StringBuilder();
+    // cache ผลวิเคราะห์ต่อ chunk (key = hash ของ input ที่ normalize แล้ว)
+    private final ExpiringLruCache<String, String> analysisCache;
+    // chunk ที่กำลังเรียก Gemini อยู่ - request ซ้ำระหว่างรอจะใช้ผลเดียวกัน
+    private final Map<String, Mono<String>> inFlightAnalyses = new ConcurrentHashMap<>();
 
-        prompt.append("คุณเป็นผู้เชี่ยวชาญด้านการจัดการสต็อกและ Supply Chain Management\n\n");
-
-        prompt.append("=== ข้อมูล Stock Item ===\n");
-        prompt.append("ชื่อสินค้า: ").append(request.getStockItemName()).append("\n");
-        prompt.append("ประเภท: ").append(request.getStockType()).append("\n");
-        prompt.append("Stock ปัจจุบัน: ").append(request.getCurrentStock()).append(" ชิ้น\n");
-        prompt.append("มูลค่า Stock: ฿").append(request.getCurrentStockValue()).append("\n\n");
-
-        prompt.append("=== ข้อมูลการใช้งานย้อนหลัง ").append(request.getAnalysisBaseDays()).append(" วัน ===\n");
-        prompt.append("การใช้งานเฉลี่ยต่อวัน: ").append(request.getAverageDailyUsage()).append(" ชิ้น\n");
-        prompt.append("การใช้งานเฉลี่ยต่อสัปดาห์: ").append(request.getAverageWeeklyUsage()).append(" ชิ้น\n");
-        prompt.append("การใช้งานเฉลี่ยต่อเดือน: ").append(request.getAverageMonthlyUsage()).append(" ชิ้น\n");
-
-        if (request.getUsageHistory() != null && !request.getUsageHistory().isEmpty()) {
-            prompt.append("\n=== รูปแบบการใช้งานรายวัน (7 วันล่าสุด) ===\n");
-            request.getUsageHistory().stream()
-                    .limit(7)
-                    .forEach(usage -> prompt.append("- ")
-                            .append(usage.getDate())
-                            .append(": ")
-                            .append(usage.getQuantity())
-                            .append(" ชิ้น\n"));
-        }
-
-        prompt.append("\n=== การตั้งค่า ===\n");
-        prompt.append("Safety Stock: ").append(request.getSafetyStockDays()).append(" วัน\n");
-        prompt.append("Lead Time: ").append(request.getLeadTimeDays()).append(" วัน\n\n");
-
-        prompt.append("กรุณาวิเคราะห์และให้คำแนะนำในรูปแบบ JSON ดังนี้:\n");
-        prompt.append("{\n");
-        prompt.append("  \"analysis\": \"การวิเคราะห์รูปแบบการใช้งานและแนวโน้ม\",\n");
-        prompt.append("  \"trend\": \"INCREASING | STABLE | DECREASING\",\n");
-        prompt.append("  \"trendConfidence\": 0-100,\n");
-        prompt.append("  \"seasonalPattern\": \"มีรูปแบบตามฤดูกาลหรือไม่\",\n");
-        prompt.append("  \"predictedDailyUsage\": จำนวนที่คาดการณ์ต่อวัน,\n");
-        prompt.append("  \"recommendedOrderQuantity\": จำนวนที่แนะนำให้สั่ง,\n");
-        prompt.append("  \"urgencyLevel\": \"LOW | MEDIUM | HIGH | CRITICAL\",\n");
-        prompt.append("  \"urgencyReason\": \"เหตุผลของระดับความเร่งด่วน\",\n");
-        prompt.append("  \"optimalReorderPoint\": จุดที่ควรสั่งซื้อใหม่,\n");
-        prompt.append("  \"riskFactors\": [\"ปัจจัยเสี่ยง 1\", \"ปัจจัยเสี่ยง 2\"],\n");
-        prompt.append("  \"recommendations\": [\"คำแนะนำ 1\", \"คำแนะนำ 2\"],\n");
-        prompt.append("  \"costImpact\": \"ผลกระทบต่อต้นทุน\",\n");
-        prompt.append("  \"actionItems\": [\n");
-        prompt.append("    {\"priority\": \"HIGH|MEDIUM|LOW\", \"action\": \"สิ่งที่ควรทำ\", \"timeline\": \"กรอบเวลา\"}\n");
-        prompt.append("  ]\n");
-        prompt.append("}\n\n");
-
-        prompt.append("⚠️ สำคัญ: ตอบเป็น JSON เท่านั้น ไม่ต้องมีคำอธิบายเพิ่มเติมหรือ markdown");
-
-        return prompt.toString();
+    public GeminiStockForecastService(
+            GeminiClient geminiClient,
+            @Value("${gemini.forecast.cache.max-entries:200}") int cacheMaxEntries,
+            @Value("${gemini.forecast.cache.ttl-minutes:360}") long cacheTtlMinutes) {
+        this.geminiClient = geminiClient;
+        this.gson = new Gson();
+        this.analysisCache = new ExpiringLruCache<>(cacheMaxEntries, Duration.ofMinutes(cacheTtlMinutes));
     }
 
     /**
@@ -169,9 +77,101 @@ public class GeminiStockForecastService {
     }
 
     /**
-     * ⭐ วิเคราะห์หลาย Stock Items พร้อมกัน
+     * ⭐ วิเคราะห์หลาย Stock Items แบบ streaming
+     * - แบ่งเป็น chunk ตาม stockType (category) และขนาดไม่เกิน bulkChunkSize
+     * - chunk ที่ข้อมูลไม่เปลี่ยนใช้ผลจาก cache ทันที
+     * - ที่เหลือเรียก Gemini พร้อมกันไม่เกิน bulkMaxConcurrency และส่งผลออกทันทีที่เสร็จ
+     */
+    public Flux<BulkAnalysisChunk> streamBulkStockForecast(List<StockForecastAnalysisRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return Flux.empty();
+        }
+
+        List<List<StockForecastAnalysisRequest>> chunks = splitIntoCategoryChunks(requests);
+        int totalChunks = chunks.size();
+
+        System.out.printf("📤 Bulk stock analysis: %d items → %d chunks (concurrency %d)\n",
+                requests.size(), totalChunks, bulkMaxConcurrency);
+
+        return Flux.range(0, totalChunks)
+                .flatMap(index -> analyzeChunk(chunks.get(index), index, totalChunks),
+                        Math.max(1, bulkMaxConcurrency));
+    }
+
+    private Mono<BulkAnalysisChunk> analyzeChunk(List<StockForecastAnalysisRequest> chunk,
+                                                 int chunkIndex, int totalChunks) {
+        String category = normalizeCategory(chunk.get(0).getStockType());
+        String cacheKey = hashNormalizedInputs(chunk);
+
+        String cached = analysisCache.get(cacheKey);
+        if (cached != null) {
+            return Mono.just(BulkAnalysisChunk.success(category, chunkIndex, totalChunks, chunk.size(), cached, true));
+        }
+
+        Mono<String> analysis = inFlightAnalyses.computeIfAbsent(cacheKey, key ->
+                callGemini(buildBulkPrompt(chunk), 4096)
+                        .doOnNext(text -> analysisCache.put(key, text))
+                        .doFinally(signal -> inFlightAnalyses.remove(key))
+                        .cache());
+
+        return analysis
+                .map(text -> BulkAnalysisChunk.success(category, chunkIndex, totalChunks, chunk.size(), text, false))
+                .onErrorResume(e -> {
+                    System.err.println("❌ Bulk analysis chunk " + chunkIndex + " failed: " + e.getMessage());
+                    return Mono.just(BulkAnalysisChunk.error(category, chunkIndex, totalChunks, chunk.size(), e.getMessage()));
+                });
+    }
+
+    /**
+     * แบ่ง request ตาม stockType แล้วตัดเป็น chunk ย่อย (เรียงตามชื่อเพื่อให้ hash คงที่)
      */
-    public String analyzeBulkStockForecast(List<StockForecastAnalysisRequest> requests) {
+    private List<List<StockForecastAnalysisRequest>> splitIntoCategoryChunks(List<StockForecastAnalysisRequest> requests) {
+        Map<String, List<StockForecastAnalysisRequest>> byCategory = new TreeMap<>();
+        for (StockForecastAnalysisRequest request : requests) {
+            String category = normalizeCategory(request.getStockType());
+            byCategory.computeIfAbsent(category, k -> new ArrayList<>()).add(request);
+        }
+
+        int chunkSize = Math.max(1, bulkChunkSize);
+        List<List<StockForecastAnalysisRequest>> chunks = new ArrayList<>();
+        for (List<StockForecastAnalysisRequest> items : byCategory.values()) {
+            items.sort(Comparator.comparing(r -> normalizeName(r.getStockItemName())));
+            for (int i = 0; i < items.size(); i += chunkSize) {
+                chunks.add(new ArrayList<>(items.subList(i, Math.min(i + chunkSize, items.size()))));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * สร้าง cache key จากข้อมูลที่มีผลต่อ prompt เท่านั้น (normalize ชื่อ/ประเภท, ไม่สนลำดับเดิม)
+     */
+    private String hashNormalizedInputs(List<StockForecastAnalysisRequest> chunk) {
+        StringBuilder normalized = new StringBuilder();
+        for (StockForecastAnalysisRequest req : chunk) {
+            normalized.append(normalizeName(req.getStockItemName())).append('|')
+                    .append(normalizeCategory(req.getStockType())).append('|')
+                    .append(req.getCurrentStock()).append('|')
+                    .append(req.getAverageDailyUsage()).append('\n');
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String normalizeCategory(String stockType) {
+        return stockType == null || stockType.isBlank() ? "UNKNOWN" : stockType.trim().toUpperCase();
+    }
+
+    private String normalizeName(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    private String buildBulkPrompt(List<StockForecastAnalysisRequest> requests) {
         StringBuilder prompt = new StringBuilder();
 
         prompt.append("คุณเป็นผู้เชี่ยวชาญด้านการจัดการสต็อกและ Supply Chain Management\n\n");
@@ -180,13 +180,14 @@ public class GeminiStockForecastService {
 
         for (int i = 0; i < requests.size(); i++) {
             StockForecastAnalysisRequest req = requests.get(i);
+            int currentStock = req.getCurrentStock() != null ? req.getCurrentStock() : 0;
+            int dailyUsage = req.getAverageDailyUsage() != null ? req.getAverageDailyUsage() : 0;
+
             prompt.append("=== Stock Item #").append(i + 1).append(" ===\n");
             prompt.append("ชื่อ: ").append(req.getStockItemName()).append("\n");
-            prompt.append("Stock ปัจจุบัน: ").append(req.getCurrentStock()).append(" ชิ้น\n");
-            prompt.append("ใช้เฉลี่ยต่อวัน: ").append(req.getAverageDailyUsage()).append(" ชิ้น\n");
-            prompt.append("คาดว่าจะหมดใน: ").append(
-                    req.getCurrentStock() / Math.max(1, req.getAverageDailyUsage())
-            ).append(" วัน\n\n");
+            prompt.append("Stock ปัจจุบัน: ").append(currentStock).append(" ชิ้น\n");
+            prompt.append("ใช้เฉลี่ยต่อวัน: ").append(dailyUsage).append(" ชิ้น\n");
+            prompt.append("คาดว่าจะหมดใน: ").append(currentStock / Math.max(1, dailyUsage)).append(" วัน\n\n");
         }
 
         prompt.append("กรุณาให้คำแนะนำในรูปแบบ JSON:\n");
@@ -201,10 +202,78 @@ public class GeminiStockForecastService {
         prompt.append("}\n\n");
         prompt.append("⚠️ สำคัญ: ตอบเป็น JSON เท่านั้น");
 
-        // เรียก Gemini API (คล้ายกับ method analyzeStockForecast)
-        // ... implementation ...
+        return prompt.toString();
+    }
+
+    /**
+     * เรียก Gemini แบบ non-blocking แล้วแยก text ออกจาก response
+     */
+    private Mono<String> callGemini(String prompt, int maxOutputTokens) {
+        JsonObject requestBody = new JsonObject();
+        JsonArray contents = new JsonArray();
+        JsonObject content = new JsonObject();
+        JsonArray parts = new JsonArray();
+
+        JsonObject textPart = new JsonObject();
+        textPart.addProperty("text", prompt);
+        parts.add(textPart);
+
+        content.add("parts", parts);
+        contents.add(content);
+        requestBody.add("contents", contents);
+
+        JsonObject generationConfig = new JsonObject();
+        generationConfig.addProperty("temperature", 0.2);
+        generationConfig.addProperty("maxOutputTokens", maxOutputTokens);
+        requestBody.add("generationConfig", generationConfig);
+
+        return geminiClient.generateContent("stock-forecast-bulk", requestBody.toString())
+                .map(this::extractTextFromGeminiResponse);
+    }
+
+    /**
+     * ✅ ข้อมูล cache สำหรับ monitoring
+     */
+    public Map<String, Object> getAnalysisCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", analysisCache.size());
+        stats.put("maxEntries", analysisCache.getMaxEntries());
+        stats.put("ttlMinutes", analysisCache.getTtl().toMinutes());
+        stats.put("hits", analysisCache.getHits());
+        stats.put("misses", analysisCache.getMisses());
+        stats.put("evictions", analysisCache.getEvictions());
+        stats.put("inFlight", inFlightAnalyses.size());
+        return stats;
+    }
+
+    public void clearAnalysisCache() {
+        analysisCache.clear();
+    }
+
+    /**
+     * ⭐ ผลวิเคราะห์ของแต่ละ chunk (ส่งออกทีละ chunk ผ่าน SSE)
+     */
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    public static class BulkAnalysisChunk {
+        private String category;
+        private int chunkIndex;
+        private int totalChunks;
+        private int itemCount;
+        private boolean success;
+        private boolean fromCache;
+        private String analysis; // JSON string จาก Gemini
+        private String error;
+
+        public static BulkAnalysisChunk success(String category, int chunkIndex, int totalChunks,
+                                                int itemCount, String analysis, boolean fromCache) {
+            return new BulkAnalysisChunk(category, chunkIndex, totalChunks, itemCount, true, fromCache, analysis, null);
+        }
 
-        return ""; // placeholder
+        public static BulkAnalysisChunk error(String category, int chunkIndex, int totalChunks,
+                                              int itemCount, String error) {
+            return new BulkAnalysisChunk(category, chunkIndex, totalChunks, itemCount, false, false, null, error);
+        }
     }
 
     /**
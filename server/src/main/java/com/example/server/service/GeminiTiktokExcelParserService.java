@@ -12,8 +12,9 @@ import com.google.gson.JsonParser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -31,19 +32,17 @@ public class GeminiTiktokExcelParserService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private Scheduler aiTaskScheduler;
+
     /**
-     * ⭐ Parse TikTok Excel - รองรับหลาย Orders
+     * ⭐ Parse TikTok Excel - รองรับหลาย Orders (non-blocking)
+     * แปลงผลเป็น Order บน aiTaskScheduler เพราะมีการ query Customer/Product
      */
-    public List<Order> parseTiktokOrdersWithGemini(MultipartFile file, Long customerId, String customerName)
-            throws IOException {
-
-        // 1. ส่งไปให้ Gemini AI วิเคราะห์
-        String geminiResponse = geminiAIService.analyzeTiktokExcelDetailedWithGemini(file);
-
-        // 2. Parse JSON response from Gemini
-        List<Order> orders = parseOrdersFromGeminiJSON(geminiResponse, customerId, customerName);
-
-        return orders;
+    public Mono<List<Order>> parseTiktokOrdersWithGemini(MultipartFile file, Long customerId, String customerName) {
+        return geminiAIService.analyzeTiktokExcelDetailedWithGeminiAsync(file)
+                .publishOn(aiTaskScheduler)
+                .map(geminiResponse -> parseOrdersFromGeminiJSON(geminiResponse, customerId, customerName));
     }
 
     /**
@@ -221,9 +220,13 @@ public class GeminiTiktokExcelParserService {
     /**
      * ⭐ Preview TikTok Excel - หลาย Orders
      */
-    public Map<String, Object> parseAndPreviewWithGemini(MultipartFile file) throws IOException {
-        String geminiResponse = geminiAIService.analyzeTiktokExcelDetailedWithGemini(file);
+    public Mono<Map<String, Object>> parseAndPreviewWithGemini(MultipartFile file) {
+        return geminiAIService.analyzeTiktokExcelDetailedWithGeminiAsync(file)
+                .publishOn(aiTaskScheduler)
+                .map(this::toPreview);
+    }
 
+    private Map<String, Object> toPreview(String geminiResponse) {
         Map<String, Object> preview = new HashMap<>();
 
         try {
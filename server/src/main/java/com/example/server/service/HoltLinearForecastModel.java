@@ -0,0 +1,39 @@
+package com.example.server.service;
+
+/**
+ * ✅ Holt Linear (double exponential smoothing) - รองรับแนวโน้มเพิ่มขึ้น/ลดลง
+ */
+public class HoltLinearForecastModel implements ForecastModel {
+
+    private final double alpha;
+    private final double beta;
+
+    public HoltLinearForecastModel(double alpha, double beta) {
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    @Override
+    public String getName() {
+        return "HOLT_LINEAR";
+    }
+
+    @Override
+    public int getMinHistory() {
+        return 2;
+    }
+
+    @Override
+    public double forecast(double[] series, int length) {
+        double level = series[0];
+        double trend = series[1] - series[0];
+
+        for (int t = 1; t < length; t++) {
+            double previousLevel = level;
+            level = alpha * series[t] + (1 - alpha) * (level + trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * trend;
+        }
+
+        return level + trend;
+    }
+}
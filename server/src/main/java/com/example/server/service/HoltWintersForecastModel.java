@@ -0,0 +1,65 @@
+package com.example.server.service;
+
+/**
+ * ✅ Holt-Winters (additive seasonal) - สำหรับสินค้าที่มีฤดูกาล
+ * ต้องมีข้อมูลอย่างน้อย 2 รอบฤดูกาล (เช่น 24 เดือนสำหรับ season = 12)
+ */
+public class HoltWintersForecastModel implements ForecastModel {
+
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final int seasonLength;
+
+    public HoltWintersForecastModel(double alpha, double beta, double gamma, int seasonLength) {
+        if (seasonLength < 2) {
+            throw new IllegalArgumentException("seasonLength ต้องมากกว่า 1");
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.seasonLength = seasonLength;
+    }
+
+    @Override
+    public String getName() {
+        return "HOLT_WINTERS";
+    }
+
+    @Override
+    public int getMinHistory() {
+        return seasonLength * 2;
+    }
+
+    @Override
+    public double forecast(double[] series, int length) {
+        int m = seasonLength;
+
+        // ค่าเริ่มต้น: level จากรอบแรก, trend จากความต่างของ 2 รอบแรก
+        double firstSeasonAvg = 0.0;
+        double secondSeasonAvg = 0.0;
+        for (int i = 0; i < m; i++) {
+            firstSeasonAvg += series[i];
+            secondSeasonAvg += series[m + i];
+        }
+        firstSeasonAvg /= m;
+        secondSeasonAvg /= m;
+
+        double level = firstSeasonAvg;
+        double trend = (secondSeasonAvg - firstSeasonAvg) / m;
+        double[] seasonal = new double[m];
+        for (int i = 0; i < m; i++) {
+            seasonal[i] = series[i] - firstSeasonAvg;
+        }
+
+        for (int t = m; t < length; t++) {
+            int s = t % m;
+            double previousLevel = level;
+            level = alpha * (series[t] - seasonal[s]) + (1 - alpha) * (level + trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * trend;
+            seasonal[s] = gamma * (series[t] - level) + (1 - gamma) * seasonal[s];
+        }
+
+        return level + trend + seasonal[length % m];
+    }
+}
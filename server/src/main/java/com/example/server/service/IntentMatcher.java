@@ -0,0 +1,414 @@
+package com.example.server.service;
+
+import com.example.server.config.IntentDictionaryProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * ⭐ ตรวจจับ intent + ปี/เดือน ของคำถาม Smart Chat ในการอ่านข้อความรอบเดียว
+ * - คำสำคัญทุก intent ถูก compile เป็น Aho-Corasick automaton ตัวเดียวตอน startup
+ * - normalize ภาษาไทยไปพร้อมกัน: ตัด zero-width space, รวมช่องว่าง, เลขไทย → เลขอารบิก, "ํ"+"า" → "ำ"
+ * - เก็บตำแหน่งตัวเลขและคำบอกเวลา (เดือน/ปี/ถึง) ระหว่างอ่าน แล้วแปลงเป็นปี/เดือนโดยไม่ต้องอ่านข้อความซ้ำ
+ */
+@Component
+public class IntentMatcher {
+
+    private enum MarkerType {
+        MONTH, YEAR, RANGE, SLASH
+    }
+
+    private static final Map<String, MarkerType> MARKERS = Map.of(
+            "เดือน", MarkerType.MONTH,
+            "ปี", MarkerType.YEAR,
+            "พ.ศ.", MarkerType.YEAR,
+            "พ.ศ", MarkerType.YEAR,
+            "year", MarkerType.YEAR,
+            "ถึง", MarkerType.RANGE,
+            "ถึงเดือน", MarkerType.RANGE,
+            "ตั้งแต่เดือน", MarkerType.RANGE,
+            "/", MarkerType.SLASH
+    );
+
+    private final AhoCorasickAutomaton automaton;
+    // ข้อมูลของแต่ละ pattern id
+    private final QueryIntent[][] patternIntents;
+    private final MarkerType[] patternMarkers;
+    private final Map<QueryIntent, List<String>> dictionary;
+
+    public IntentMatcher(IntentDictionaryProperties properties) {
+        this.dictionary = buildDictionary(properties);
+
+        Map<String, List<QueryIntent>> intentsByKeyword = new LinkedHashMap<>();
+        dictionary.forEach((intent, keywords) -> {
+            for (String keyword : keywords) {
+                String normalized = normalize(keyword);
+                if (!normalized.isEmpty()) {
+                    List<QueryIntent> intents = intentsByKeyword.computeIfAbsent(normalized, k -> new ArrayList<>());
+                    if (!intents.contains(intent)) {
+                        intents.add(intent);
+                    }
+                }
+            }
+        });
+
+        List<String> patterns = new ArrayList<>(intentsByKeyword.keySet());
+        for (String marker : MARKERS.keySet()) {
+            if (!intentsByKeyword.containsKey(marker)) {
+                patterns.add(marker);
+            }
+        }
+
+        patternIntents = new QueryIntent[patterns.size()][];
+        patternMarkers = new MarkerType[patterns.size()];
+        for (int id = 0; id < patterns.size(); id++) {
+            List<QueryIntent> intents = intentsByKeyword.getOrDefault(patterns.get(id), List.of());
+            patternIntents[id] = intents.toArray(new QueryIntent[0]);
+            patternMarkers[id] = MARKERS.get(patterns.get(id));
+        }
+
+        automaton = new AhoCorasickAutomaton(patterns);
+        System.out.println("✅ Intent matcher compiled: " + intentsByKeyword.size() + " keywords, "
+                + dictionary.size() + " intents");
+    }
+
+    /**
+     * คำสำคัญที่ใช้งานจริงของแต่ละ intent (หลังรวมค่าจาก configuration)
+     */
+    public Map<QueryIntent, List<String>> getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * ✅ วิเคราะห์คำถามในรอบเดียว
+     */
+    public IntentMatch match(String query) {
+        String text = query != null ? query : "";
+        StringBuilder normalized = new StringBuilder(text.length());
+        AhoCorasickAutomaton.Cursor cursor = automaton.start();
+        BitSet matchedPatterns = new BitSet(patternIntents.length);
+        List<Marker> markers = new ArrayList<>();
+        Map<Integer, NumberToken> numbersByStart = new HashMap<>();
+        int numberStart = -1;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalizeChar(text.charAt(i));
+            if (c == 0) {
+                continue;
+            }
+            if (c == ' ') {
+                if (normalized.length() == 0 || normalized.charAt(normalized.length() - 1) == ' ') {
+                    continue;
+                }
+            } else if (c == '\u0E4D' && i + 1 < text.length() && text.charAt(i + 1) == '\u0E32') {
+                // นิคหิต + สระอา ที่พิมพ์แยกกัน → สระอำ
+                c = '\u0E33';
+                i++;
+            }
+
+            int position = normalized.length();
+            normalized.append(c);
+
+            // ตัวเลขต่อเนื่อง
+            if (c >= '0' && c <= '9') {
+                if (numberStart < 0) {
+                    numberStart = position;
+                }
+            } else if (numberStart >= 0) {
+                numbersByStart.put(numberStart, new NumberToken(normalized, numberStart, position));
+                numberStart = -1;
+            }
+
+            for (int patternId : cursor.next(c)) {
+                matchedPatterns.set(patternId);
+                if (patternMarkers[patternId] != null) {
+                    int length = automaton.patternLength(patternId);
+                    markers.add(new Marker(patternMarkers[patternId], position + 1 - length, position + 1));
+                }
+            }
+        }
+        if (numberStart >= 0) {
+            numbersByStart.put(numberStart, new NumberToken(normalized, numberStart, normalized.length()));
+        }
+
+        int[] scores = new int[QueryIntent.values().length];
+        for (int id = matchedPatterns.nextSetBit(0); id >= 0; id = matchedPatterns.nextSetBit(id + 1)) {
+            for (QueryIntent intent : patternIntents[id]) {
+                scores[intent.ordinal()]++;
+            }
+        }
+
+        markers.sort(Comparator.comparingInt((Marker m) -> m.start).thenComparingInt(m -> -m.end));
+        TimeTokens tokens = new TimeTokens(normalized, markers, numbersByStart);
+
+        return new IntentMatch(normalized.toString().trim(), scores,
+                tokens.yearMonth(), tokens.yearMonthRange(), tokens.targetYear());
+    }
+
+    /**
+     * normalize ข้อความทั้งก้อน (ใช้กับคำสำคัญตอน compile)
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalizeChar(text.charAt(i));
+            if (c == 0) {
+                continue;
+            }
+            if (c == ' ' && (normalized.length() == 0 || normalized.charAt(normalized.length() - 1) == ' ')) {
+                continue;
+            }
+            if (c == '\u0E4D' && i + 1 < text.length() && text.charAt(i + 1) == '\u0E32') {
+                c = '\u0E33';
+                i++;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString().trim();
+    }
+
+    /**
+     * @return ตัวอักษรที่ normalize แล้ว, ' ' สำหรับช่องว่างทุกชนิด, 0 ถ้าต้องข้าม
+     */
+    private static char normalizeChar(char c) {
+        if (c == '\u200B' || c == '\u200C' || c == '\u200D' || c == '\uFEFF' || c == '\u00AD') {
+            return 0;
+        }
+        if (Character.isWhitespace(c) || c == '\u00A0') {
+            return ' ';
+        }
+        if (c >= '\u0E50' && c <= '\u0E59') {
+            return (char) ('0' + (c - '\u0E50'));
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static Map<QueryIntent, List<String>> buildDictionary(IntentDictionaryProperties properties) {
+        Map<QueryIntent, List<String>> dictionary = new EnumMap<>(QueryIntent.class);
+        for (QueryIntent intent : QueryIntent.values()) {
+            dictionary.put(intent, new ArrayList<>(intent.getDefaultKeywords()));
+        }
+        properties.getKeywords().forEach((name, keywords) ->
+                dictionary.put(resolveIntent(name), new ArrayList<>(keywords)));
+        properties.getExtraKeywords().forEach((name, keywords) ->
+                dictionary.get(resolveIntent(name)).addAll(keywords));
+        dictionary.replaceAll((intent, keywords) -> List.copyOf(keywords));
+        return Collections.unmodifiableMap(dictionary);
+    }
+
+    private static QueryIntent resolveIntent(String name) {
+        try {
+            return QueryIntent.valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("ไม่รู้จัก intent ใน chat.intent: " + name
+                    + " (ที่รองรับ: " + Arrays.toString(QueryIntent.values()) + ")", e);
+        }
+    }
+
+    private static class Marker {
+        final MarkerType type;
+        final int start;
+        final int end;
+
+        Marker(MarkerType type, int start, int end) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static class NumberToken {
+        final int end;
+        final int digits;
+        final int value;
+
+        NumberToken(CharSequence text, int start, int end) {
+            this.end = end;
+            this.digits = end - start;
+            this.value = digits <= 9 ? Integer.parseInt(text.subSequence(start, end).toString()) : -1;
+        }
+    }
+
+    /**
+     * แปลงตำแหน่งของคำบอกเวลา + ตัวเลขที่เก็บไว้ระหว่างอ่าน เป็นปี/เดือน
+     * (รูปแบบเดียวกับ regex เดิม: MM/YYYY, เดือน M ปี YYYY, เดือน M ถึง N, ปี/พ.ศ. YYYY)
+     */
+    private static class TimeTokens {
+        private final CharSequence text;
+        private final List<Marker> markers;
+        private final Map<Integer, NumberToken> numbersByStart;
+
+        TimeTokens(CharSequence text, List<Marker> markers, Map<Integer, NumberToken> numbersByStart) {
+            this.text = text;
+            this.markers = markers;
+            this.numbersByStart = numbersByStart;
+        }
+
+        YearMonth yearMonth() {
+            // Pattern 1: MM/YYYY
+            for (Marker slash : markers) {
+                if (slash.type != MarkerType.SLASH) {
+                    continue;
+                }
+                NumberToken month = numberEndingAt(slash.start);
+                NumberToken year = numbersByStart.get(slash.end);
+                YearMonth result = toYearMonth(month, year);
+                if (result != null) {
+                    return result;
+                }
+            }
+
+            // Pattern 2: เดือน XX (ปี) YYYY
+            for (Marker monthMarker : markers) {
+                if (monthMarker.type != MarkerType.MONTH) {
+                    continue;
+                }
+                NumberToken month = numberAt(monthMarker.end, 2);
+                if (month == null) {
+                    continue;
+                }
+                int position = skipSpace(month.end);
+                Marker yearMarker = markerAt(position, MarkerType.YEAR);
+                if (yearMarker != null) {
+                    position = yearMarker.end;
+                }
+                YearMonth result = toYearMonth(month, numbersByStart.get(skipSpace(position)));
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        }
+
+        int[] yearMonthRange() {
+            for (Marker monthMarker : markers) {
+                if (monthMarker.type != MarkerType.MONTH) {
+                    continue;
+                }
+                NumberToken startMonth = numberAt(monthMarker.end, 2);
+                if (startMonth == null) {
+                    continue;
+                }
+                int position = skipSpace(startMonth.end);
+                Marker connector = markerAt(position, MarkerType.RANGE);
+                if (connector != null) {
+                    position = connector.end;
+                }
+                NumberToken endMonth = numberAt(position, 2);
+                if (endMonth != null) {
+                    return new int[]{startMonth.value, endMonth.value};
+                }
+            }
+            return null;
+        }
+
+        Integer targetYear() {
+            for (Marker yearMarker : markers) {
+                if (yearMarker.type != MarkerType.YEAR) {
+                    continue;
+                }
+                NumberToken year = numbersByStart.get(skipSpace(yearMarker.end));
+                if (year != null && year.digits == 4) {
+                    return year.value > 2500 ? year.value - 543 : year.value;
+                }
+            }
+            return null;
+        }
+
+        private YearMonth toYearMonth(NumberToken month, NumberToken year) {
+            if (month == null || year == null || month.digits > 2 || year.digits != 4
+                    || month.value < 1 || month.value > 12) {
+                return null;
+            }
+            return YearMonth.of(year.value > 2500 ? year.value - 543 : year.value, month.value);
+        }
+
+        /**
+         * ตัวเลขที่เริ่มที่ position (ข้ามช่องว่างได้ 1 ตัว) และยาวไม่เกิน maxDigits
+         */
+        private NumberToken numberAt(int position, int maxDigits) {
+            NumberToken number = numbersByStart.get(skipSpace(position));
+            return number != null && number.digits <= maxDigits ? number : null;
+        }
+
+        private NumberToken numberEndingAt(int end) {
+            for (int digits = 1; digits <= 2; digits++) {
+                NumberToken number = numbersByStart.get(end - digits);
+                if (number != null && number.end == end) {
+                    return number;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * marker ที่ยาวที่สุดของประเภทนี้ที่เริ่มที่ position
+         */
+        private Marker markerAt(int position, MarkerType type) {
+            for (Marker marker : markers) {
+                if (marker.start == position && marker.type == type) {
+                    return marker; // เรียงตาม start แล้ว end มากก่อน
+                }
+                if (marker.start > position) {
+                    break;
+                }
+            }
+            return null;
+        }
+
+        private int skipSpace(int position) {
+            return position < text.length() && text.charAt(position) == ' ' ? position + 1 : position;
+        }
+    }
+
+    /**
+     * ✅ ผลการวิเคราะห์คำถาม
+     */
+    public static class IntentMatch {
+        private final String normalizedQuery;
+        private final int[] scores;
+        private final YearMonth yearMonth;
+        private final int[] yearMonthRange;
+        private final Integer targetYear;
+
+        IntentMatch(String normalizedQuery, int[] scores, YearMonth yearMonth,
+                    int[] yearMonthRange, Integer targetYear) {
+            this.normalizedQuery = normalizedQuery;
+            this.scores = scores;
+            this.yearMonth = yearMonth;
+            this.yearMonthRange = yearMonthRange;
+            this.targetYear = targetYear;
+        }
+
+        public String getNormalizedQuery() {
+            return normalizedQuery;
+        }
+
+        /**
+         * จำนวนคำสำคัญของ intent ที่พบในคำถาม
+         */
+        public int score(QueryIntent intent) {
+            return scores[intent.ordinal()];
+        }
+
+        public boolean has(QueryIntent intent) {
+            return scores[intent.ordinal()] > 0;
+        }
+
+        public YearMonth getYearMonth() {
+            return yearMonth;
+        }
+
+        public int[] getYearMonthRange() {
+            return yearMonthRange;
+        }
+
+        /**
+         * ปีที่ระบุในคำถาม (ค.ศ.) หรือ null ถ้าไม่ได้ระบุ
+         */
+        public Integer getTargetYear() {
+            return targetYear;
+        }
+    }
+}
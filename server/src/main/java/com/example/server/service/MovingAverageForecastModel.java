@@ -0,0 +1,36 @@
+package com.example.server.service;
+
+/**
+ * ✅ Moving Average - ค่าเฉลี่ยของ N เดือนล่าสุด
+ */
+public class MovingAverageForecastModel implements ForecastModel {
+
+    private final int window;
+
+    public MovingAverageForecastModel(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window ต้องมากกว่า 0");
+        }
+        this.window = window;
+    }
+
+    @Override
+    public String getName() {
+        return "MOVING_AVERAGE_" + window;
+    }
+
+    @Override
+    public int getMinHistory() {
+        return 1;
+    }
+
+    @Override
+    public double forecast(double[] series, int length) {
+        int start = Math.max(0, length - window);
+        double sum = 0.0;
+        for (int i = start; i < length; i++) {
+            sum += series[i];
+        }
+        return length > start ? sum / (length - start) : 0.0;
+    }
+}
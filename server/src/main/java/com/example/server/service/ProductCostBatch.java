@@ -0,0 +1,192 @@
+package com.example.server.service;
+
+import com.example.server.dto.AllocationCostRow;
+import com.example.server.dto.IngredientCostRow;
+import com.example.server.dto.ProductCostChangeDTO;
+import com.example.server.dto.ProductCostRow;
+import com.example.server.entity.ProductIngredient;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * ⭐ ผลการคำนวณต้นทุนของสินค้ากลุ่มหนึ่งในหน่วยความจำ (สูตรเดียวกับ ProductCostCalculationService)
+ * คำนวณด้วย {@link FixedPointMoney} (long) แปลงเป็น BigDecimal เฉพาะแถวที่ต้องเขียน
+ * - SINGLE: ราคาต่อหน่วยของ stock x จำนวนที่ใช้
+ * - MULTI_LOT: รวมต้นทุนของแต่ละ allocation (ไม่มี allocation = ใช้ต้นทุนที่บันทึกไว้)
+ * - เก็บเฉพาะแถวที่ค่าเปลี่ยน เป็นพารามิเตอร์สำหรับ JDBC batch update
+ *   (ท้ายพารามิเตอร์มีค่าเดิมที่อ่านมา - UPDATE จะเขียนเฉพาะแถวที่ยังไม่ถูกเปลี่ยนหลังอ่าน)
+ * ไม่แตะ DB และไม่มี state ร่วม - คำนวณหลายกลุ่มพร้อมกันใน thread ต่างกันได้
+ */
+public final class ProductCostBatch {
+
+    // scale ของคอลัมน์ต้นทุนใน products / product_ingredients / allocations
+    private static final int COST_SCALE = 2;
+
+    private final List<Object[]> allocationUpdates = new ArrayList<>();
+    private final List<Object[]> ingredientUpdates = new ArrayList<>();
+    private final List<Object[]> productUpdates = new ArrayList<>();
+    private final Set<Long> changedProductIds = new LinkedHashSet<>();
+    private final List<ProductCostChangeDTO> costChanges = new ArrayList<>();
+    private int productCount;
+
+    private ProductCostBatch() {
+    }
+
+    /**
+     * @param ingredients             ingredients ของสินค้าในกลุ่ม
+     * @param allocationsByIngredient allocations แยกตาม ingredientId (มีของสินค้านอกกลุ่มได้)
+     * @param products                ราคาขาย/ต้นทุนเดิมของสินค้าในกลุ่ม
+     * @param unitCosts               ราคาต่อหน่วยของ stock แยกตาม stockItemId ({@link FixedPointMoney} micro-units)
+     */
+    public static ProductCostBatch calculate(List<IngredientCostRow> ingredients,
+                                             Map<Long, List<AllocationCostRow>> allocationsByIngredient,
+                                             List<ProductCostRow> products,
+                                             Map<Long, Long> unitCosts,
+                                             Timestamp updatedAt) {
+        ProductCostBatch batch = new ProductCostBatch();
+        Map<Long, FixedPointMoney.ExactSum> productTotals = new HashMap<>();
+
+        for (IngredientCostRow ingredient : ingredients) {
+            batch.calculateIngredient(ingredient, allocationsByIngredient, unitCosts,
+                    productTotals.computeIfAbsent(ingredient.getProductId(), id -> new FixedPointMoney.ExactSum()));
+        }
+
+        for (ProductCostRow product : products) {
+            FixedPointMoney.ExactSum total = productTotals.get(product.getProductId());
+            long calculatedCost = total != null ? total.round(COST_SCALE) : 0L;
+            Long profitMargin = product.getSellingPrice() != null
+                    ? FixedPointMoney.round(FixedPointMoney.of(product.getSellingPrice()) - calculatedCost, COST_SCALE)
+                    : null;
+
+            boolean costChanged = changed(product.getCalculatedCost(), calculatedCost);
+            if (costChanged || (profitMargin != null && changed(product.getProfitMargin(), profitMargin))) {
+                batch.productUpdates.add(new Object[]{
+                        money(calculatedCost),
+                        profitMargin != null ? money(profitMargin) : product.getProfitMargin(),
+                        updatedAt,
+                        product.getProductId(),
+                        product.getCalculatedCost(),
+                        product.getProfitMargin()});
+                batch.changedProductIds.add(product.getProductId());
+            }
+            if (costChanged) {
+                batch.costChanges.add(toCostChange(product, calculatedCost, profitMargin));
+            }
+        }
+        batch.productCount = products.size();
+        return batch;
+    }
+
+    // บวกต้นทุนของ ingredient (ยังไม่ปัด) เข้า productTotal และเก็บแถวที่ต้องอัปเดต
+    private void calculateIngredient(IngredientCostRow ingredient,
+                                     Map<Long, List<AllocationCostRow>> allocationsByIngredient,
+                                     Map<Long, Long> unitCosts,
+                                     FixedPointMoney.ExactSum productTotal) {
+        long requiredQuantity = FixedPointMoney.of(ingredient.getRequiredQuantity());
+        long newUnitCost;
+        long newTotal;
+
+        if (ingredient.getAllocationMode() == ProductIngredient.AllocationMode.MULTI_LOT) {
+            List<AllocationCostRow> rows = allocationsByIngredient.getOrDefault(ingredient.getIngredientId(), List.of());
+            if (rows.isEmpty()) {
+                // ไม่มี allocation - ใช้ต้นทุนที่บันทึกไว้ (เหมือน calculateProductTotalCost)
+                long stored = FixedPointMoney.of(ingredient.getTotalCost());
+                productTotal.add(Math.max(stored, 0L));
+                return;
+            }
+
+            long ingredientTotal = 0L;
+            for (AllocationCostRow allocation : rows) {
+                long unitCost = unitCosts.getOrDefault(allocation.getStockItemId(), 0L);
+                long allocationUnit = FixedPointMoney.round(unitCost, COST_SCALE);
+                long allocationTotal = FixedPointMoney.multiply(unitCost,
+                        FixedPointMoney.of(allocation.getAllocatedQuantity()), COST_SCALE);
+
+                if (changed(allocation.getCostPerUnit(), allocationUnit)
+                        || changed(allocation.getTotalCost(), allocationTotal)) {
+                    allocationUpdates.add(new Object[]{money(allocationUnit), money(allocationTotal),
+                            allocation.getAllocationId(), allocation.getCostPerUnit(), allocation.getTotalCost()});
+                    changedProductIds.add(ingredient.getProductId());
+                }
+                ingredientTotal = Math.addExact(ingredientTotal, allocationTotal);
+            }
+            productTotal.add(ingredientTotal);
+
+            // ราคาต่อหน่วยเฉลี่ย (4 ตำแหน่ง) แล้วปัดตามคอลัมน์
+            newUnitCost = requiredQuantity > 0
+                    ? FixedPointMoney.round(FixedPointMoney.divide(ingredientTotal, requiredQuantity, 4), COST_SCALE)
+                    : FixedPointMoney.round(FixedPointMoney.of(ingredient.getCostPerUnit()), COST_SCALE);
+            newTotal = ingredientTotal;
+        } else if (ingredient.getStockItemId() != null) {
+            long unitCost = unitCosts.getOrDefault(ingredient.getStockItemId(), 0L);
+            productTotal.addProduct(unitCost, requiredQuantity);
+
+            newUnitCost = FixedPointMoney.round(unitCost, COST_SCALE);
+            newTotal = FixedPointMoney.multiply(unitCost, requiredQuantity, COST_SCALE);
+        } else {
+            return;
+        }
+
+        if (changed(ingredient.getCostPerUnit(), newUnitCost) || changed(ingredient.getTotalCost(), newTotal)) {
+            ingredientUpdates.add(new Object[]{money(newUnitCost), money(newTotal), ingredient.getIngredientId(),
+                    ingredient.getCostPerUnit(), ingredient.getTotalCost()});
+            changedProductIds.add(ingredient.getProductId());
+        }
+    }
+
+    private static ProductCostChangeDTO toCostChange(ProductCostRow product, long newCost, Long newMargin) {
+        BigDecimal previousCost = product.getCalculatedCost();
+        ProductCostChangeDTO change = new ProductCostChangeDTO();
+        change.setProductId(product.getProductId());
+        change.setProductName(product.getProductName());
+        change.setSku(product.getSku());
+        change.setPreviousCost(previousCost);
+        change.setNewCost(money(newCost));
+        change.setCostDifference(money(newCost - FixedPointMoney.of(previousCost)));
+        change.setPreviousProfitMargin(product.getProfitMargin());
+        change.setNewProfitMargin(newMargin != null ? money(newMargin) : product.getProfitMargin());
+        return change;
+    }
+
+    public List<Object[]> getAllocationUpdates() {
+        return allocationUpdates;
+    }
+
+    public List<Object[]> getIngredientUpdates() {
+        return ingredientUpdates;
+    }
+
+    public List<Object[]> getProductUpdates() {
+        return productUpdates;
+    }
+
+    /**
+     * productId ของพารามิเตอร์หนึ่งแถวจาก {@link #getProductUpdates()}
+     */
+    public static Long productIdOf(Object[] productUpdate) {
+        return (Long) productUpdate[3];
+    }
+
+    public Set<Long> getChangedProductIds() {
+        return changedProductIds;
+    }
+
+    public List<ProductCostChangeDTO> getCostChanges() {
+        return costChanges;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    // แปลงกลับเป็น BigDecimal ตาม scale ของคอลัมน์ (เฉพาะแถวที่ต้องเขียน)
+    private static BigDecimal money(long micros) {
+        return FixedPointMoney.toBigDecimal(micros, COST_SCALE);
+    }
+
+    private static boolean changed(BigDecimal stored, long calculated) {
+        return stored == null || FixedPointMoney.of(stored) != calculated;
+    }
+}
@@ -188,7 +188,10 @@ public class ProductCostCalculationService {
         return totalCost;
     }
 
-    private BigDecimal getStockUnitCost(StockBase stock) {
+    /**
+     * ✅ ราคาต่อหน่วยของ stock ที่ใช้คิดต้นทุนสินค้า (China: finalPricePerPair, Thai: pricePerUnitWithShipping)
+     */
+    public BigDecimal getStockUnitCost(StockBase stock) {
         if (stock instanceof ChinaStock) {
             ChinaStock chinaStock = (ChinaStock) stock;
             BigDecimal cost = chinaStock.getFinalPricePerPair();
@@ -207,25 +210,6 @@ public class ProductCostCalculationService {
         return BigDecimal.ZERO;
     }
 
-    /**
-     * ✅ เพิ่ม: คำนวณต้นทุนสำหรับหลาย Products พร้อมกัน
-     */
-    @Transactional
-    public void recalculateAllProductCosts(List<Product> products) {
-        if (products == null || products.isEmpty()) {
-            return;
-        }
-
-        for (Product product : products) {
-            try {
-                calculateProductTotalCost(product);
-            } catch (Exception e) {
-                System.err.println("Error calculating cost for product " +
-                        product.getProductId() + ": " + e.getMessage());
-            }
-        }
-    }
-
     /**
      * ✅ เพิ่ม: ตรวจสอบว่า Product มี Ingredients หรือไม่
      */
@@ -0,0 +1,230 @@
+package com.example.server.service;
+
+import com.example.server.dto.AllocationCostRow;
+import com.example.server.dto.IngredientCostRow;
+import com.example.server.dto.ProductCostRow;
+import com.example.server.entity.Product;
+import com.example.server.entity.StockBase;
+import com.example.server.event.DataDomain;
+import com.example.server.event.DomainDataChangedEvent;
+import com.example.server.respository.ProductIngredientRepository;
+import com.example.server.respository.ProductIngredientStockAllocationRepository;
+import com.example.server.respository.ProductRepository;
+import com.example.server.respository.StockBaseRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * ⭐ คำนวณต้นทุนสินค้าใหม่แบบ batch เมื่อราคา stock เปลี่ยน
+ * - หาเฉพาะสินค้าที่ได้รับผลกระทบจาก {@link StockDependencyIndex} (ทั้ง SINGLE และ MULTI_LOT)
+ * - โหลดข้อมูลด้วย projection ครั้งละ chunk แล้วคำนวณในหน่วยความจำด้วย {@link ProductCostBatch}
+ * - เขียนเฉพาะแถวที่ค่าเปลี่ยน ด้วย JDBC batch update ใน transaction เดียว
+ * - การเขียนผ่าน JDBC ไม่ผ่าน entity listener จึง publish DomainDataChangedEvent ของ Product เอง (ล้าง cache สินค้า)
+ */
+@Service
+public class ProductCostPropagationService {
+
+    private static final Object PENDING_STOCK_IDS_KEY = new Object();
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    // เขียนเฉพาะเมื่อค่าใน DB ยังเท่ากับค่าที่อ่านมาตอนคำนวณ (<=> = เท่ากันแบบรวม NULL)
+    // ถ้ามีการคำนวณจากราคา stock ที่ใหม่กว่าเขียนไปก่อนแล้ว แถวนั้นจะถูกข้าม ไม่ถูกทับด้วยค่าที่คำนวณจากข้อมูลเก่า
+    private static final String UPDATE_ALLOCATION_SQL =
+            "UPDATE product_ingredient_stock_allocations SET cost_per_unit = ?, total_cost = ? " +
+            "WHERE allocation_id = ? AND cost_per_unit <=> ? AND total_cost <=> ?";
+    private static final String UPDATE_INGREDIENT_SQL =
+            "UPDATE product_ingredients SET cost_per_unit = ?, total_cost = ? " +
+            "WHERE ingredient_id = ? AND cost_per_unit <=> ? AND total_cost <=> ?";
+    private static final String UPDATE_PRODUCT_SQL =
+            "UPDATE products SET calculated_cost = ?, profit_margin = ?, updated_date = ? " +
+            "WHERE product_id = ? AND calculated_cost <=> ? AND profit_margin <=> ?";
+
+    @Autowired private StockDependencyIndex dependencyIndex;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private ProductIngredientRepository productIngredientRepository;
+    @Autowired private ProductIngredientStockAllocationRepository allocationRepository;
+    @Autowired private StockBaseRepository stockBaseRepository;
+    @Autowired private ProductCostCalculationService costCalculationService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate writeTemplate;
+
+    @PostConstruct
+    public void init() {
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * ✅ แจ้งว่าราคา stock เปลี่ยน
+     * - อยู่ใน transaction: รวม id ไว้แล้วคำนวณครั้งเดียวหลัง commit (ถ้า rollback จะไม่คำนวณ)
+     * - ไม่อยู่ใน transaction: คำนวณทันที
+     * ถ้าคำนวณล้มเหลวจะ log ไว้ - ราคา stock ถูก commit ไปแล้ว คำนวณซ้ำได้ด้วย recalculate-all
+     */
+    public void stockPricesChanged(Collection<Long> stockItemIds) {
+        if (stockItemIds == null || stockItemIds.isEmpty()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recalculateSafely(stockItemIds);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(PENDING_STOCK_IDS_KEY);
+        if (pending == null) {
+            Set<Long> newPending = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(PENDING_STOCK_IDS_KEY, newPending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recalculateSafely(newPending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_STOCK_IDS_KEY);
+                }
+            });
+            pending = newPending;
+        }
+        pending.addAll(stockItemIds);
+    }
+
+    private void recalculateSafely(Collection<Long> stockItemIds) {
+        try {
+            writeTemplate.execute(status -> recalculate(stockItemIds));
+        } catch (Exception e) {
+            System.err.println("❌ Product cost propagation failed for stock items " + stockItemIds + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * ✅ คำนวณต้นทุนใหม่เฉพาะสินค้าที่ใช้ stock เหล่านี้ ใน transaction เดียว
+     *
+     * @return จำนวนสินค้าที่ต้นทุนถูกอัปเดต
+     */
+    @Transactional
+    public int recalculateForStockItems(Collection<Long> stockItemIds) {
+        return recalculate(stockItemIds);
+    }
+
+    private int recalculate(Collection<Long> stockItemIds) {
+        long start = System.currentTimeMillis();
+        List<Long> productIds = new ArrayList<>(dependencyIndex.findProductIds(stockItemIds));
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+
+        int updatedProducts = 0;
+        for (List<Long> chunk : chunks(productIds)) {
+            updatedProducts += recalculateProducts(chunk);
+        }
+
+        System.out.println("💰 Product cost propagation: " + stockItemIds.size() + " stock items → "
+                + productIds.size() + " affected products, " + updatedProducts + " updated in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return updatedProducts;
+    }
+
+    private int recalculateProducts(List<Long> productIds) {
+        List<IngredientCostRow> ingredients = productIngredientRepository.findCostRowsByProductIds(productIds);
+        List<AllocationCostRow> allocations = allocationRepository.findCostRowsByProductIds(productIds);
+        List<ProductCostRow> products = productRepository.findCostRowsByIds(productIds);
+
+        Map<Long, List<AllocationCostRow>> allocationsByIngredient = groupByIngredient(allocations);
+        Map<Long, Long> unitCosts = loadUnitCosts(referencedStockItemIds(ingredients, allocations));
+
+        ProductCostBatch batch = ProductCostBatch.calculate(ingredients, allocationsByIngredient, products,
+                unitCosts, Timestamp.valueOf(LocalDateTime.now()));
+        apply(batch);
+        return batch.getChangedProductIds().size();
+    }
+
+    /**
+     * ✅ เขียนผลการคำนวณด้วย JDBC batch update (ต้องเรียกภายใน transaction)
+     * แล้ว publish event ของสินค้าที่เปลี่ยน - หลัง commit RegionCacheManager จะล้าง cache สินค้า
+     *
+     * @return productId ที่ไม่ถูกเขียน เพราะต้นทุนใน DB เปลี่ยนไปหลังอ่าน (ค่าที่ใหม่กว่ายังอยู่)
+     */
+    public Set<Long> apply(ProductCostBatch batch) {
+        if (!batch.getAllocationUpdates().isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ALLOCATION_SQL, batch.getAllocationUpdates());
+        }
+        if (!batch.getIngredientUpdates().isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_INGREDIENT_SQL, batch.getIngredientUpdates());
+        }
+        Set<Long> skippedProductIds = new HashSet<>();
+        if (!batch.getProductUpdates().isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_PRODUCT_SQL, batch.getProductUpdates());
+            for (int i = 0; i < counts.length; i++) {
+                // 0 = ไม่มีแถวตรงเงื่อนไข (SUCCESS_NO_INFO ถือว่าเขียนแล้ว)
+                if (counts[i] == 0) {
+                    skippedProductIds.add(ProductCostBatch.productIdOf(batch.getProductUpdates().get(i)));
+                }
+            }
+        }
+
+        for (Long productId : batch.getChangedProductIds()) {
+            eventPublisher.publishEvent(new DomainDataChangedEvent(DataDomain.PRODUCT,
+                    DomainDataChangedEvent.ChangeType.UPDATED, Product.class, productId));
+        }
+        return skippedProductIds;
+    }
+
+    public static Map<Long, List<AllocationCostRow>> groupByIngredient(List<AllocationCostRow> allocations) {
+        Map<Long, List<AllocationCostRow>> allocationsByIngredient = new HashMap<>();
+        for (AllocationCostRow allocation : allocations) {
+            allocationsByIngredient.computeIfAbsent(allocation.getIngredientId(), id -> new ArrayList<>()).add(allocation);
+        }
+        return allocationsByIngredient;
+    }
+
+    private static Set<Long> referencedStockItemIds(List<IngredientCostRow> ingredients, List<AllocationCostRow> allocations) {
+        Set<Long> stockItemIds = new HashSet<>();
+        for (AllocationCostRow allocation : allocations) {
+            stockItemIds.add(allocation.getStockItemId());
+        }
+        for (IngredientCostRow ingredient : ingredients) {
+            if (ingredient.getStockItemId() != null) {
+                stockItemIds.add(ingredient.getStockItemId());
+            }
+        }
+        return stockItemIds;
+    }
+
+    // ราคาต่อหน่วยเป็น FixedPointMoney micro-units (แปลงครั้งเดียวต่อ stock)
+    private Map<Long, Long> loadUnitCosts(Collection<Long> stockItemIds) {
+        Map<Long, Long> unitCosts = new HashMap<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(stockItemIds))) {
+            for (StockBase stock : stockBaseRepository.findAllById(chunk)) {
+                unitCosts.put(stock.getStockItemId(), FixedPointMoney.of(costCalculationService.getStockUnitCost(stock)));
+            }
+        }
+        return unitCosts;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += IN_CLAUSE_CHUNK) {
+            chunks.add(ids.subList(i, Math.min(i + IN_CLAUSE_CHUNK, ids.size())));
+        }
+        return chunks;
+    }
+}
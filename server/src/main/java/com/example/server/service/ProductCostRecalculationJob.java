@@ -0,0 +1,319 @@
+package com.example.server.service;
+
+import com.example.server.dto.AllocationCostRow;
+import com.example.server.dto.IngredientCostRow;
+import com.example.server.dto.ProductCostChangeDTO;
+import com.example.server.dto.ProductCostRow;
+import com.example.server.entity.StockBase;
+import com.example.server.respository.ProductIngredientRepository;
+import com.example.server.respository.ProductIngredientStockAllocationRepository;
+import com.example.server.respository.ProductRepository;
+import com.example.server.respository.StockBaseRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ⭐ งาน background: คำนวณต้นทุนสินค้าใหม่ทั้งแคตตาล็อก
+ * 1. โหลดสินค้า / ingredients / allocations / ราคา stock ทั้งหมดด้วย projection ครั้งเดียว
+ * 2. แบ่งสินค้าเป็นกลุ่ม แล้วคำนวณขนานกันในหน่วยความจำ ({@link ProductCostBatch})
+ * 3. เขียนกลับทีละกลุ่มที่คำนวณเสร็จ ด้วย JDBC batch update (กลุ่มละ transaction)
+ *    แบบมีเงื่อนไขค่าเดิม - สินค้าที่ต้นทุนถูกเปลี่ยนระหว่างงาน (ราคา stock เปลี่ยน) จะไม่ถูกทับด้วยค่าจาก snapshot
+ * รันได้ครั้งละงานเดียว - ดูความคืบหน้าและรายการสินค้าที่ต้นทุนเปลี่ยนได้จาก {@link #getStatus(int)}
+ */
+@Service
+public class ProductCostRecalculationJob {
+
+    private static final int MAX_PARALLELISM = 8;
+
+    @Autowired private ProductRepository productRepository;
+    @Autowired private ProductIngredientRepository productIngredientRepository;
+    @Autowired private ProductIngredientStockAllocationRepository allocationRepository;
+    @Autowired private StockBaseRepository stockBaseRepository;
+    @Autowired private ProductCostCalculationService costCalculationService;
+    @Autowired private ProductCostPropagationService costPropagationService;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Value("${product.cost-recalculation.parallelism:4}")
+    private int defaultParallelism;
+
+    @Value("${product.cost-recalculation.chunk-size:500}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private TransactionTemplate readOnlyTemplate;
+    private TransactionTemplate writeTemplate;
+    private volatile JobProgress lastJob;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnlyTemplate.setReadOnly(true);
+
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * ✅ เริ่มงานใน background แล้วคืนสถานะเริ่มต้นทันที
+     *
+     * @throws IllegalStateException ถ้ามีงานอื่นกำลังทำงานอยู่
+     */
+    public Map<String, Object> start(Integer parallelism) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("กำลังคำนวณต้นทุนสินค้าทั้งหมดอยู่แล้ว");
+        }
+
+        int threads = Math.max(1, Math.min(MAX_PARALLELISM, parallelism != null ? parallelism : defaultParallelism));
+        JobProgress job = new JobProgress(UUID.randomUUID().toString(), threads, Math.max(1, chunkSize));
+        lastJob = job;
+
+        Thread thread = new Thread(() -> {
+            try {
+                run(job);
+            } catch (Exception e) {
+                job.fail(e);
+                System.err.println("❌ Product cost recalculation " + job.jobId + " failed: " + e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        }, "product-cost-recalc");
+        thread.setDaemon(true);
+        thread.start();
+
+        return job.toMap(0);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * ✅ สถานะงานล่าสุด (กำลังทำงานหรือเสร็จแล้ว) พร้อมรายการสินค้าที่ต้นทุนเปลี่ยนไม่เกิน changesLimit รายการ
+     *
+     * @return null ถ้ายังไม่เคยรันงาน
+     */
+    public Map<String, Object> getStatus(int changesLimit) {
+        JobProgress job = lastJob;
+        return job != null ? job.toMap(Math.max(0, changesLimit)) : null;
+    }
+
+    // ============================================
+    // JOB
+    // ============================================
+
+    private void run(JobProgress job) throws InterruptedException {
+        long startNanos = System.nanoTime();
+
+        // 1. โหลดทั้งหมดใน transaction เดียว (snapshot ที่สอดคล้องกัน)
+        job.state = JobState.LOADING;
+        CatalogCostData data = readOnlyTemplate.execute(status -> loadCatalog());
+        job.totalProducts = data.products.size();
+
+        // 2. คำนวณขนาน - แต่ละกลุ่มอ่าน map ร่วมกันอย่างเดียว
+        job.state = JobState.CALCULATING;
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        ExecutorService executor = newCalculationExecutor(job.parallelism);
+        try {
+            CompletionService<ProductCostBatch> completion = new ExecutorCompletionService<>(executor);
+            int chunks = 0;
+            for (int i = 0; i < data.products.size(); i += job.chunkSize) {
+                List<ProductCostRow> chunk = data.products.subList(i, Math.min(i + job.chunkSize, data.products.size()));
+                completion.submit(() -> calculateChunk(chunk, data, updatedAt));
+                chunks++;
+            }
+            job.totalChunks = chunks;
+
+            // 3. เขียนกลับทีละกลุ่มที่คำนวณเสร็จ
+            for (int i = 0; i < chunks; i++) {
+                ProductCostBatch batch;
+                try {
+                    batch = completion.take().get();
+                } catch (ExecutionException e) {
+                    job.chunkFailed(e.getCause());
+                    continue;
+                }
+                job.calculatedProducts.addAndGet(batch.getProductCount());
+                job.state = JobState.WRITING;
+
+                try {
+                    Set<Long> skipped = writeTemplate.execute(status -> costPropagationService.apply(batch));
+                    job.chunkWritten(batch, skipped);
+                } catch (Exception e) {
+                    job.chunkFailed(e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        job.complete((System.nanoTime() - startNanos) / 1_000_000);
+        System.out.println("✅ Product cost recalculation " + job.jobId + ": " + job.totalProducts + " products, "
+                + job.changes.size() + " cost changes, " + job.failedChunks.get() + " failed chunks ("
+                + job.parallelism + " threads) in " + job.elapsedMs + " ms");
+    }
+
+    private CatalogCostData loadCatalog() {
+        List<ProductCostRow> products = productRepository.findAllCostRows();
+        List<IngredientCostRow> ingredients = productIngredientRepository.findAllCostRows();
+        List<AllocationCostRow> allocations = allocationRepository.findAllCostRows();
+
+        Map<Long, List<IngredientCostRow>> ingredientsByProduct = new HashMap<>();
+        for (IngredientCostRow ingredient : ingredients) {
+            ingredientsByProduct.computeIfAbsent(ingredient.getProductId(), id -> new ArrayList<>()).add(ingredient);
+        }
+
+        Map<Long, Long> unitCosts = new HashMap<>();
+        for (StockBase stock : stockBaseRepository.findAll()) {
+            unitCosts.put(stock.getStockItemId(), FixedPointMoney.of(costCalculationService.getStockUnitCost(stock)));
+        }
+
+        return new CatalogCostData(products, ingredientsByProduct,
+                ProductCostPropagationService.groupByIngredient(allocations), unitCosts);
+    }
+
+    private static ProductCostBatch calculateChunk(List<ProductCostRow> products, CatalogCostData data,
+                                                   Timestamp updatedAt) {
+        List<IngredientCostRow> ingredients = new ArrayList<>();
+        for (ProductCostRow product : products) {
+            ingredients.addAll(data.ingredientsByProduct.getOrDefault(product.getProductId(), List.of()));
+        }
+        return ProductCostBatch.calculate(ingredients, data.allocationsByIngredient, products,
+                data.unitCosts, updatedAt);
+    }
+
+    private ExecutorService newCalculationExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "product-cost-calc-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ============================================
+    // INTERNAL STATE
+    // ============================================
+
+    public enum JobState {
+        LOADING, CALCULATING, WRITING, COMPLETED, FAILED
+    }
+
+    /**
+     * ข้อมูลทั้งแคตตาล็อกที่โหลดไว้ (อ่านอย่างเดียวหลังสร้างเสร็จ - ใช้ร่วมกันได้ทุก thread)
+     */
+    private static final class CatalogCostData {
+        private final List<ProductCostRow> products;
+        private final Map<Long, List<IngredientCostRow>> ingredientsByProduct;
+        private final Map<Long, List<AllocationCostRow>> allocationsByIngredient;
+        private final Map<Long, Long> unitCosts;
+
+        CatalogCostData(List<ProductCostRow> products, Map<Long, List<IngredientCostRow>> ingredientsByProduct,
+                        Map<Long, List<AllocationCostRow>> allocationsByIngredient, Map<Long, Long> unitCosts) {
+            this.products = products;
+            this.ingredientsByProduct = ingredientsByProduct;
+            this.allocationsByIngredient = allocationsByIngredient;
+            this.unitCosts = unitCosts;
+        }
+    }
+
+    /**
+     * ความคืบหน้าของงานหนึ่งครั้ง (เขียนโดย thread ของงาน อ่านโดย request ที่ขอสถานะ)
+     */
+    private static final class JobProgress {
+        private final String jobId;
+        private final int parallelism;
+        private final int chunkSize;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger calculatedProducts = new AtomicInteger();
+        private final AtomicInteger writtenProducts = new AtomicInteger();
+        private final AtomicInteger updatedProducts = new AtomicInteger();
+        private final AtomicInteger skippedProducts = new AtomicInteger();
+        private final AtomicInteger failedChunks = new AtomicInteger();
+        private final List<ProductCostChangeDTO> changes = new CopyOnWriteArrayList<>();
+        private final List<String> errors = new CopyOnWriteArrayList<>();
+
+        private volatile JobState state = JobState.LOADING;
+        private volatile int totalProducts;
+        private volatile int totalChunks;
+        private volatile LocalDateTime finishedAt;
+        private volatile long elapsedMs;
+
+        JobProgress(String jobId, int parallelism, int chunkSize) {
+            this.jobId = jobId;
+            this.parallelism = parallelism;
+            this.chunkSize = chunkSize;
+        }
+
+        void chunkWritten(ProductCostBatch batch, Set<Long> skipped) {
+            writtenProducts.addAndGet(batch.getProductCount());
+            updatedProducts.addAndGet(batch.getChangedProductIds().size() - skipped.size());
+            skippedProducts.addAndGet(skipped.size());
+            for (ProductCostChangeDTO change : batch.getCostChanges()) {
+                if (!skipped.contains(change.getProductId())) {
+                    changes.add(change);
+                }
+            }
+        }
+
+        void chunkFailed(Throwable error) {
+            failedChunks.incrementAndGet();
+            errors.add(error.getMessage());
+            System.err.println("❌ Product cost recalculation chunk failed: " + error.getMessage());
+        }
+
+        void complete(long elapsedMs) {
+            this.elapsedMs = elapsedMs;
+            this.finishedAt = LocalDateTime.now();
+            this.state = JobState.COMPLETED;
+        }
+
+        void fail(Exception error) {
+            errors.add(error.getMessage());
+            this.finishedAt = LocalDateTime.now();
+            this.state = JobState.FAILED;
+        }
+
+        Map<String, Object> toMap(int changesLimit) {
+            int total = totalProducts;
+            int written = writtenProducts.get();
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("jobId", jobId);
+            status.put("state", state);
+            status.put("parallelism", parallelism);
+            status.put("chunkSize", chunkSize);
+            status.put("totalProducts", total);
+            status.put("totalChunks", totalChunks);
+            status.put("calculatedProducts", calculatedProducts.get());
+            status.put("writtenProducts", written);
+            status.put("updatedProducts", updatedProducts.get());
+            status.put("skippedConcurrentlyChanged", skippedProducts.get());
+            status.put("costChangedProducts", changes.size());
+            status.put("failedChunks", failedChunks.get());
+            status.put("progressPercent", state == JobState.COMPLETED ? 100
+                    : total > 0 ? written * 100 / total : 0);
+            status.put("startedAt", startedAt);
+            status.put("finishedAt", finishedAt);
+            status.put("elapsedMs", elapsedMs);
+            status.put("errors", List.copyOf(errors));
+            status.put("changes", changes.stream()
+                    .sorted(Comparator.comparing(ProductCostChangeDTO::getProductId))
+                    .limit(changesLimit)
+                    .toList());
+            return status;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.server.service;
+
+import com.example.server.dto.TopSellingProductRow;
+import com.example.server.entity.Order;
+import com.example.server.respository.OrderItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ⭐ จัดอันดับสินค้าขายดี - รวมยอดด้วย SQL query เดียว (ไม่โหลด Order/OrderItem มาวนใน Java)
+ * ไม่นับ Order ที่ยกเลิก/คืนสินค้า, กรองตามช่วงวันที่ / ช่องทางขาย / หมวดหมู่สินค้าได้
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductSalesRankingService {
+
+    public static final int MAX_LIMIT = 500;
+
+    private static final Set<Order.OrderStatus> EXCLUDED_STATUSES =
+            EnumSet.of(Order.OrderStatus.CANCELLED, Order.OrderStatus.RETURNED);
+
+    public enum RankBy {
+        QUANTITY, REVENUE
+    }
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    /**
+     * ✅ สินค้าขายดีตามเงื่อนไข
+     *
+     * @param source   ช่องทางขาย (null = ทุกช่องทาง)
+     * @param category หมวดหมู่สินค้า (null/ว่าง = ทุกหมวด)
+     * @param limit    จำนวนอันดับ (1 - MAX_LIMIT)
+     */
+    public List<TopSellingProductRow> rankProducts(LocalDateTime from, LocalDateTime to,
+                                                   Order.OrderSource source, String category,
+                                                   int limit, RankBy rankBy) {
+        validateRange(from, to);
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        String categoryFilter = normalizeCategory(category);
+
+        if (rankBy == RankBy.REVENUE) {
+            return orderItemRepository.findTopSellingByRevenue(from, to, EXCLUDED_STATUSES, source, categoryFilter, page);
+        }
+        return orderItemRepository.findTopSellingByQuantity(from, to, EXCLUDED_STATUSES, source, categoryFilter, page);
+    }
+
+    /**
+     * จำนวนสินค้า (ไม่ซ้ำ) ที่ขายได้ตามเงื่อนไขเดียวกัน
+     */
+    public long countSoldProducts(LocalDateTime from, LocalDateTime to,
+                                  Order.OrderSource source, String category) {
+        validateRange(from, to);
+        return orderItemRepository.countSoldProducts(from, to, EXCLUDED_STATUSES, source, normalizeCategory(category));
+    }
+
+    private void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("ช่วงวันที่ไม่ถูกต้อง: from ต้องไม่อยู่หลัง to");
+        }
+    }
+
+    private String normalizeCategory(String category) {
+        return category == null || category.isBlank() ? null : category.trim();
+    }
+}
@@ -35,6 +35,12 @@ public class ProductService {
     @Autowired
     private ProductMapper productMapper;
 
+    @Autowired
+    private StockDependencyIndex stockDependencyIndex;
+
+    @Autowired
+    private ProductCostPropagationService costPropagationService;
+
     // CRUD Operations
     @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
@@ -335,50 +341,17 @@ public class ProductService {
         }
     }
 
-    // คำนวณต้นทุนทั้งหมดใหม่ (เมื่อ Stock ราคาเปลี่ยน)
-    @Transactional
-    public void recalculateAllProductCosts() {
-        List<Product> allProducts = productRepository.findAll();
-
-        int successCount = 0;
-        int errorCount = 0;
-
-        for (Product product : allProducts) {
-            try {
-                recalculateProductCost(product.getProductId());
-                successCount++;
-            } catch (Exception e) {
-                errorCount++;
-                System.err.println("Error recalculating cost for product " +
-                        product.getProductId() + " (" + product.getProductName() + "): " +
-                        e.getMessage());
-            }
-        }
-
-        System.out.println("Recalculation completed: " + successCount + " successful, " +
-                errorCount + " errors");
-    }
-
-    // หา Products ที่ได้รับผลกระทบเมื่อ Stock Item เปลี่ยน
+    // หา Products ที่ได้รับผลกระทบเมื่อ Stock Item เปลี่ยน (ทั้ง SINGLE และ MULTI_LOT)
     public List<Product> getProductsAffectedByStock(Long stockItemId) {
-        return productIngredientRepository.findProductsUsingStockItem(stockItemId);
+        return productRepository.findAllById(stockDependencyIndex.findProductIds(List.of(stockItemId)));
     }
 
-    // คำนวณต้นทุนใหม่สำหรับ Products ที่ใช้ Stock Item นั้น
+    // คำนวณต้นทุนใหม่สำหรับ Products ที่ใช้ Stock Item นั้น (batch - เขียนเฉพาะแถวที่ค่าเปลี่ยน)
     public void recalculateProductsCostByStock(Long stockItemId) {
-        List<Product> affectedProducts = getProductsAffectedByStock(stockItemId);
+        int updated = costPropagationService.recalculateForStockItems(List.of(stockItemId));
 
-        System.out.println("Recalculating costs for " + affectedProducts.size() +
+        System.out.println("Recalculated costs for " + updated +
                 " products affected by Stock Item ID: " + stockItemId);
-
-        for (Product product : affectedProducts) {
-            try {
-                recalculateProductCost(product.getProductId());
-            } catch (Exception e) {
-                System.err.println("Error recalculating cost for product " +
-                        product.getProductId() + ": " + e.getMessage());
-            }
-        }
     }
 
     // ✅ ลบ Product (Hard Delete) - ลำดับการลบที่ถูกต้อง
@@ -0,0 +1,32 @@
+package com.example.server.service;
+
+import java.util.List;
+
+/**
+ * ⭐ Intent ของคำถามใน Smart Chat พร้อมคำสำคัญเริ่มต้น
+ * (เพิ่ม/แทนที่คำสำคัญได้ผ่าน chat.intent.* ใน application.properties)
+ */
+public enum QueryIntent {
+    PRODUCT("สินค้า", "product", "ผลิตภัณฑ์", "ของ", "มี", "กี่", "ชนิด"),
+    TOP_SELLING("ขายดี", "แรงกิ้ง", "อันดับ", "top", "ขายได้", "นิยม", "ยอดนิยม",
+            "จัดอันดับ", "ranking", "best seller", "bestseller", "ขายเยอะ"),
+    STOCK("สต็อก", "stock", "คงเหลือ", "inventory", "วัตถุดิบ", "ใกล้หมด"),
+    STOCK_FORECAST("ใกล้หมด", "เร่งด่วน", "ควรสั่ง", "ต้องซื้อ", "forecast", "พยากรณ์", "คาดการณ์"),
+    ORDER("คำสั่งซื้อ", "order", "ยอดขาย", "sales", "รายได้", "revenue"),
+    FINANCIAL("รายรับ", "รายจ่าย", "กำไร", "income", "expense", "profit", "การเงิน",
+            "financial", "สรุป", "transaction"),
+    EMPLOYEE("พนักงาน", "employee", "คน", "ทำงาน", "staff"),
+    SALARY("เงินเดือน", "salary", "ค่าแรง", "จ่ายเงิน"),
+    YEARLY("ทั้งปี", "ตั้งแต่", "ถึง", "รวมปี", "ย้อนหลัง", "ตลอดปี",
+            "รายปี", "yearly", "annual", "ประจำปี", "สรุปปี", "เดือน 1", "เดือน 12");
+
+    private final List<String> defaultKeywords;
+
+    QueryIntent(String... defaultKeywords) {
+        this.defaultKeywords = List.of(defaultKeywords);
+    }
+
+    public List<String> getDefaultKeywords() {
+        return defaultKeywords;
+    }
+}
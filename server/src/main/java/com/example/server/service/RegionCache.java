@@ -0,0 +1,182 @@
+package com.example.server.service;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ⭐ Spring {@link org.springframework.cache.Cache} หนึ่ง region บน {@link ExpiringLruCache}
+ * - get(key, loader) (@Cacheable(sync = true)) โหลดค่าครั้งเดียวต่อ key แม้มีหลาย request พร้อมกัน
+ * - ถ้ามีการ invalidate ระหว่างโหลด จะไม่เก็บผลลัพธ์ลง cache (ผลอาจอ่านก่อนข้อมูลใหม่ commit)
+ * - ไม่เก็บผลที่โหลดภายใน transaction ที่เขียนข้อมูลได้ (อาจเห็นข้อมูลที่ยังไม่ commit / ถูก rollback)
+ */
+public class RegionCache extends AbstractValueAdaptingCache {
+
+    private static final int LOAD_LOCK_STRIPES = 64;
+
+    private final CacheRegion region;
+    private final ExpiringLruCache<Object, Object> store;
+    private final boolean enabled;
+    private final Object[] loadLocks = new Object[LOAD_LOCK_STRIPES];
+
+    // เพิ่มขึ้นทุกครั้งที่ region ถูกล้าง ใช้ตรวจว่าผลที่โหลดมายังใช้ได้อยู่หรือไม่
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    private final AtomicLong discardedLoads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public RegionCache(CacheRegion region, int maxEntries, Duration ttl, boolean enabled) {
+        super(true);
+        this.region = region;
+        this.store = new ExpiringLruCache<>(maxEntries, ttl);
+        this.enabled = enabled;
+        for (int i = 0; i < LOAD_LOCK_STRIPES; i++) {
+            loadLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return region.getRegionName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return enabled ? store.get(key) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (!enabled || inWritableTransaction()) {
+            return load(key, valueLoader);
+        }
+
+        Object cached = store.get(key);
+        if (cached != null) {
+            return (T) fromStoreValue(cached);
+        }
+
+        synchronized (loadLocks[Math.floorMod(key.hashCode(), LOAD_LOCK_STRIPES)]) {
+            cached = store.peek(key);
+            if (cached != null) {
+                return (T) fromStoreValue(cached);
+            }
+
+            long generationBefore = generation.get();
+            T value = load(key, valueLoader);
+            if (generation.get() == generationBefore) {
+                store.put(key, toStoreValue(value));
+            } else {
+                discardedLoads.incrementAndGet();
+            }
+            return value;
+        }
+    }
+
+    private boolean inWritableTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private <T> T load(Object key, Callable<T> valueLoader) {
+        long start = System.nanoTime();
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loads.incrementAndGet();
+            loadNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (enabled && !inWritableTransaction()) {
+            store.put(key, toStoreValue(value));
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        generation.incrementAndGet();
+        store.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        store.clear();
+    }
+
+    /**
+     * ล้างทั้ง region เพราะข้อมูลที่ region ขึ้นอยู่มีการเปลี่ยนแปลง (นับเป็น invalidation)
+     */
+    public void onDependencyChanged() {
+        invalidations.incrementAndGet();
+        clear();
+    }
+
+    public CacheRegion getRegion() {
+        return region;
+    }
+
+    public long getHits() {
+        return store.getHits();
+    }
+
+    public long getMisses() {
+        return store.getMisses();
+    }
+
+    public long getEvictions() {
+        return store.getEvictions();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    public Map<String, Object> getStats() {
+        long hits = store.getHits();
+        long misses = store.getMisses();
+        long loadCount = loads.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("region", getName());
+        stats.put("enabled", enabled);
+        stats.put("size", store.size());
+        stats.put("maxEntries", store.getMaxEntries());
+        stats.put("ttlSeconds", store.getTtl().toSeconds());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses > 0 ? Math.round(hits * 1000.0 / (hits + misses)) / 1000.0 : 0.0);
+        stats.put("evictions", store.getEvictions());
+        stats.put("invalidations", invalidations.get());
+        stats.put("loads", loadCount);
+        stats.put("averageLoadMs", loadCount > 0 ? loadNanos.get() / loadCount / 1_000_000.0 : 0.0);
+        stats.put("discardedLoads", discardedLoads.get());
+        stats.put("dependsOn", region.getDependsOn().stream().map(Class::getSimpleName).sorted().toList());
+        return stats;
+    }
+}
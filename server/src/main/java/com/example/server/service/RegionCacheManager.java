@@ -0,0 +1,117 @@
+package com.example.server.service;
+
+import com.example.server.config.ApplicationCacheProperties;
+import com.example.server.event.DomainDataChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * ⭐ CacheManager ของแอป - หนึ่ง {@link RegionCache} ต่อ {@link CacheRegion} (ขนาด/TTL แยกตาม region)
+ * - invalidate เฉพาะ region ที่ขึ้นอยู่กับ entity ที่ถูกเขียน หลัง transaction commit
+ *   (DomainDataChangedEvent มาจาก DomainChangeEntityListener ทุกเส้นทางที่เขียนผ่าน JPA)
+ * - metrics: app.cache.hits / misses / evictions / invalidations / loads / size (tag: region)
+ */
+@Service
+public class RegionCacheManager implements CacheManager {
+
+    private static final String METRIC_PREFIX = "app.cache";
+
+    private final Map<String, RegionCache> caches = new LinkedHashMap<>();
+
+    public RegionCacheManager(ApplicationCacheProperties properties,
+                              ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+
+        for (CacheRegion region : CacheRegion.values()) {
+            ApplicationCacheProperties.RegionSettings settings = properties.settingsFor(region.getRegionName());
+            RegionCache cache = new RegionCache(region, settings.getMaxEntries(),
+                    Duration.ofSeconds(settings.getTtlSeconds()), properties.isEnabled());
+            caches.put(region.getRegionName(), cache);
+            registerMetrics(meterRegistry, cache);
+        }
+
+        System.out.println("✅ Application cache regions: " + caches.keySet()
+                + (properties.isEnabled() ? "" : " (disabled)"));
+    }
+
+    private void registerMetrics(MeterRegistry meterRegistry, RegionCache cache) {
+        String region = cache.getName();
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", cache, RegionCache::getHits)
+                .tag("region", region).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", cache, RegionCache::getMisses)
+                .tag("region", region).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".evictions", cache, RegionCache::getEvictions)
+                .tag("region", region).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".invalidations", cache, RegionCache::getInvalidations)
+                .tag("region", region).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".loads", cache, RegionCache::getLoads)
+                .tag("region", region).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".size", cache, RegionCache::size)
+                .tag("region", region).register(meterRegistry);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * ⭐ ล้างเฉพาะ region ที่ขึ้นอยู่กับ entity ที่เปลี่ยน (หลัง commit - ถ้า rollback จะไม่ถูกเรียก)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDomainDataChanged(DomainDataChangedEvent event) {
+        for (RegionCache cache : caches.values()) {
+            if (cache.getRegion().dependsOn(event.getEntityType())) {
+                cache.onDependencyChanged();
+            }
+        }
+    }
+
+    /**
+     * ล้าง region ตามชื่อ
+     *
+     * @return false ถ้าไม่มี region ชื่อนี้
+     */
+    public boolean flush(String regionName) {
+        RegionCache cache = caches.get(regionName);
+        if (cache == null) {
+            return false;
+        }
+        cache.clear();
+        System.out.println("🧹 Flushed cache region: " + regionName);
+        return true;
+    }
+
+    public void flushAll() {
+        caches.values().forEach(RegionCache::clear);
+        System.out.println("🧹 Flushed all cache regions");
+    }
+
+    public Map<String, Object> getStats(String regionName) {
+        RegionCache cache = caches.get(regionName);
+        return cache != null ? cache.getStats() : null;
+    }
+
+    public List<Map<String, Object>> getAllStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (RegionCache cache : caches.values()) {
+            stats.add(cache.getStats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.server.service;
+
+import java.time.Duration;
+
+/**
+ * ⭐ Circuit breaker แบบง่าย (CLOSED → OPEN → HALF_OPEN)
+ * - ล้มเหลวติดกันครบ failureThreshold ครั้ง → OPEN (ปฏิเสธทุก call ทันที)
+ * - ครบ openDuration → HALF_OPEN ปล่อยให้ทดลอง 1 call
+ * - call ทดลองสำเร็จ → CLOSED, ล้มเหลว → OPEN อีกรอบ
+ */
+public class SimpleCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInProgress;
+
+    public SimpleCircuitBreaker(int failureThreshold, Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold ต้องมากกว่า 0");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * ตรวจสอบว่าอนุญาตให้เรียกได้หรือไม่ (ต้องตามด้วย recordSuccess/recordFailure เมื่อได้รับอนุญาต)
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInProgress = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInProgress) {
+                return false;
+            }
+            trialInProgress = true;
+        }
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInProgress = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInProgress = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * call ที่ได้รับอนุญาตแต่ไม่ได้ผลลัพธ์ (เช่นถูก cancel) - คืนสิทธิ์ทดลองโดยไม่นับเป็นความล้มเหลว
+     */
+    public synchronized void release() {
+        trialInProgress = false;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+}
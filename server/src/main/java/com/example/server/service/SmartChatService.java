@@ -2,18 +2,25 @@ package com.example.server.service;
 
 import com.example.server.dto.ChatRequest;
 import com.example.server.dto.ChatResponse;
+import com.example.server.dto.ContextSectionTiming;
+import com.example.server.service.ChatContextSnapshotService.ContextSection;
 import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 /**
  * ⭐ SmartChatService V3 - รองรับ Top Selling Products & Yearly Summary
@@ -27,6 +34,14 @@ public class SmartChatService {
 
     private final GeminiService geminiService;
     private final SystemDataService systemDataService;
+    private final ChatContextSnapshotService contextSnapshotService;
+    private final ChatAnswerCacheService answerCacheService;
+    private final ExecutorService chatContextExecutor;
+    private final ChatContextEncoder contextEncoder;
+    private final IntentMatcher intentMatcher;
+
+    @Value("${chat.context.section-timeout-ms:5000}")
+    private long sectionTimeoutMs;
     private final Gson gson = new Gson();
 
     /**
@@ -38,9 +53,21 @@ public class SmartChatService {
 
             // 1. วิเคราะห์คำถาม
             QueryAnalysis analysis = analyzeQuery(userMessage);
+            List<SectionRequest> plan = planSections(analysis);
+
+            // ⭐ คำถามเดิม + ข้อมูลยังไม่เปลี่ยน → ตอบจาก cache ทันที
+            String cacheKey = answerCacheKey(analysis, plan);
+            String cachedAnswer = answerCacheService.get(cacheKey);
+            if (cachedAnswer != null) {
+                System.out.println("⚡ Answer cache hit");
+                ChatResponse response = ChatResponse.success(cachedAnswer, UUID.randomUUID().toString());
+                response.setFromCache(true);
+                return Mono.just(response);
+            }
 
             // 2. สร้าง Context จากข้อมูลระบบ (ดึงข้อมูลจริง!)
-            String context = buildContext(analysis);
+            List<ContextSectionTiming> timings = new ArrayList<>();
+            String context = buildContext(plan, timings);
 
             System.out.println("📊 Context built with " + context.length() + " characters");
 
@@ -50,7 +77,14 @@ public class SmartChatService {
             request.setContext(context);
 
             // 4. เรียก Gemini API
-            return geminiService.chat(request);
+            return geminiService.chat(request)
+                    .map(response -> {
+                        response.setContextTimings(timings);
+                        if (response.isSuccess()) {
+                            answerCacheService.put(cacheKey, response.getResponse());
+                        }
+                        return response;
+                    });
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -58,505 +92,602 @@ public class SmartChatService {
         }
     }
 
+    /**
+     * ⭐ Smart Chat แบบ streaming (SSE)
+     * - event "context": เวลาที่ใช้ดึงข้อมูลแต่ละหัวข้อ
+     * - event "prompt": ขนาดของ prompt ที่ส่งให้ Gemini
+     * - event "token": ข้อความคำตอบทีละส่วน
+     * - event "done": จบการตอบ ({"conversationId": ..., "fromCache": true/false})
+     * - event "error": เกิดข้อผิดพลาด
+     */
+    public Flux<ServerSentEvent<String>> streamSmartChat(String userMessage) {
+        String conversationId = UUID.randomUUID().toString();
+
+        // ดึง context บน boundedElastic เพื่อไม่ block thread ของ request
+        return Mono.fromCallable(() -> {
+                    System.out.println("🔍 Analyzing query (stream): " + userMessage);
+                    QueryAnalysis analysis = analyzeQuery(userMessage);
+                    return new PreparedStream(analysis, planSections(analysis));
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(prepared -> {
+                    String cacheKey = answerCacheKey(prepared.analysis, prepared.plan);
+                    String cachedAnswer = answerCacheService.get(cacheKey);
+                    if (cachedAnswer != null) {
+                        System.out.println("⚡ Answer cache hit (stream)");
+                        return Flux.just(
+                                ServerSentEvent.builder("[]").event("context").id(conversationId).build(),
+                                ServerSentEvent.builder(cachedAnswer).event("token").build(),
+                                doneEvent(conversationId, true));
+                    }
+
+                    return Mono.fromCallable(() -> {
+                                List<ContextSectionTiming> timings = new ArrayList<>();
+                                ChatRequest request = new ChatRequest();
+                                request.setMessage(userMessage);
+                                request.setContext(buildContext(prepared.plan, timings));
+                                return Map.entry(request, timings);
+                            })
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .flatMapMany(built -> {
+                                StringBuilder answer = new StringBuilder();
+                                String prompt = geminiService.buildEnhancedPrompt(built.getKey());
+                                Map<String, Object> promptSize = new LinkedHashMap<>();
+                                promptSize.put("promptChars", prompt.length());
+                                promptSize.put("promptTokensEstimated", TokenEstimator.estimate(prompt));
+                                return Flux.concat(
+                                        Flux.just(ServerSentEvent.builder(gson.toJson(built.getValue()))
+                                                        .event("context").id(conversationId).build(),
+                                                ServerSentEvent.builder(gson.toJson(promptSize))
+                                                        .event("prompt").build()),
+                                        geminiService.streamChat(built.getKey())
+                                                .doOnNext(answer::append)
+                                                .map(text -> ServerSentEvent.builder(text).event("token").build()),
+                                        Flux.defer(() -> {
+                                            // เก็บคำตอบเมื่อ stream จบครบเท่านั้น (ถ้า client ยกเลิกกลางทางจะไม่ถึงตรงนี้)
+                                            answerCacheService.put(cacheKey, answer.toString());
+                                            return Flux.just(doneEvent(conversationId, false));
+                                        })
+                                );
+                            });
+                })
+                .onErrorResume(error -> {
+                    System.err.println("❌ Stream chat error: " + error.getMessage());
+                    return Flux.just(ServerSentEvent.builder(
+                            "เกิดข้อผิดพลาดในการตอบคำถาม: " + error.getMessage()).event("error").build());
+                })
+                .doOnCancel(() -> System.out.println("🛑 Client disconnected, stream cancelled: " + conversationId));
+    }
+
+    private ServerSentEvent<String> doneEvent(String conversationId, boolean fromCache) {
+        Map<String, Object> done = new LinkedHashMap<>();
+        done.put("conversationId", conversationId);
+        done.put("fromCache", fromCache);
+        return ServerSentEvent.builder(gson.toJson(done)).event("done").build();
+    }
+
     /**
      * ⭐ วิเคราะห์คำถาม - เพิ่มการตรวจจับ Top Selling & Yearly Summary
+     * คะแนนของแต่ละ intent = จำนวนคำสำคัญที่พบ (ใช้จัดลำดับความสำคัญของหัวข้อใน context)
      */
     private QueryAnalysis analyzeQuery(String query) {
         QueryAnalysis analysis = new QueryAnalysis();
         analysis.originalQuery = query;
-        String lowerQuery = query.toLowerCase();
-
-        // ตรวจจับคำสำคัญ
-        analysis.needsProductData = containsAny(lowerQuery,
-                "สินค้า", "product", "ผลิตภัณฑ์", "ของ", "มี", "กี่", "ชนิด");
-
-        // ⭐ ตรวจจับคำถามเกี่ยวกับสินค้าขายดี
-        analysis.needsTopSellingProducts = containsAny(lowerQuery,
-                "ขายดี", "แรงกิ้ง", "อันดับ", "top", "ขายได้", "นิยม", "ยอดนิยม",
-                "จัดอันดับ", "ranking", "best seller", "bestseller", "ขายเยอะ");
-
-        analysis.needsStockData = containsAny(lowerQuery,
-                "สต็อก", "stock", "คงเหลือ", "inventory", "วัตถุดิบ", "ใกล้หมด");
-
-        analysis.needsStockForecast = containsAny(lowerQuery,
-                "ใกล้หมด", "เร่งด่วน", "ควรสั่ง", "ต้องซื้อ", "forecast", "พยากรณ์", "คาดการณ์");
 
-        analysis.needsOrderData = containsAny(lowerQuery,
-                "คำสั่งซื้อ", "order", "ยอดขาย", "sales", "รายได้", "revenue");
-
-        analysis.needsFinancialData = containsAny(lowerQuery,
-                "รายรับ", "รายจ่าย", "กำไร", "income", "expense", "profit", "การเงิน",
-                "financial", "สรุป", "transaction");
-
-        analysis.needsEmployeeData = containsAny(lowerQuery,
-                "พนักงาน", "employee", "คน", "ทำงาน", "staff");
-
-        analysis.needsSalaryData = containsAny(lowerQuery,
-                "เงินเดือน", "salary", "ค่าแรง", "จ่ายเงิน");
+        // ⭐ ตรวจจับทุก intent + เดือน/ปี ในการอ่านข้อความรอบเดียว
+        IntentMatcher.IntentMatch match = intentMatcher.match(query);
+
+        analysis.productScore = match.score(QueryIntent.PRODUCT);
+        analysis.topSellingScore = match.score(QueryIntent.TOP_SELLING);
+        analysis.stockScore = match.score(QueryIntent.STOCK);
+        analysis.needsStockForecast = match.has(QueryIntent.STOCK_FORECAST);
+        analysis.orderScore = match.score(QueryIntent.ORDER);
+        analysis.financialScore = match.score(QueryIntent.FINANCIAL);
+        analysis.employeeScore = match.score(QueryIntent.EMPLOYEE);
+        analysis.salaryScore = match.score(QueryIntent.SALARY);
+
+        analysis.needsProductData = analysis.productScore > 0;
+        analysis.needsTopSellingProducts = analysis.topSellingScore > 0;
+        analysis.needsStockData = analysis.stockScore > 0;
+        analysis.needsOrderData = analysis.orderScore > 0;
+        analysis.needsFinancialData = analysis.financialScore > 0;
+        analysis.needsEmployeeData = analysis.employeeScore > 0;
+        analysis.needsSalaryData = analysis.salaryScore > 0;
 
         // ⭐ ตรวจจับว่าต้องการข้อมูลทั้งปีหรือไม่
-        analysis.needsYearlyData = containsAny(lowerQuery,
-                "ทั้งปี", "ตั้งแต่", "ถึง", "รวมปี", "ย้อนหลัง", "ตลอดปี",
-                "รายปี", "yearly", "annual", "ประจำปี", "สรุปปี", "เดือน 1", "เดือน 12");
+        analysis.needsYearlyData = match.has(QueryIntent.YEARLY);
 
-        // ตรวจจับเดือน/ปี
-        analysis.yearMonth = extractYearMonth(query);
-        analysis.yearMonthRange = extractYearMonthRange(query);
-
-        // ⭐ ตรวจจับปีที่ต้องการ
-        analysis.targetYear = extractTargetYear(query);
+        // ตรวจจับเดือน/ปี (ถ้าไม่ระบุปี ให้ใช้ปีปัจจุบัน)
+        analysis.yearMonth = match.getYearMonth();
+        analysis.yearMonthRange = match.getYearMonthRange();
+        analysis.targetYear = match.getTargetYear() != null ? match.getTargetYear() : LocalDate.now().getYear();
 
         return analysis;
     }
 
     /**
-     * ⭐ สร้าง Context - เพิ่ม Top Selling Products & Yearly Summary
+     * ⭐ เลือกหัวข้อข้อมูลที่ต้องใช้ตอบคำถาม (ตามลำดับที่จะแสดงใน context)
      */
-    private String buildContext(QueryAnalysis analysis) {
-        StringBuilder context = new StringBuilder();
-        context.append("📊 **ข้อมูลระบบ Chubby Charlie**\n");
-        context.append("═══════════════════════════════════════\n\n");
+    private List<SectionRequest> planSections(QueryAnalysis analysis) {
+        List<SectionRequest> plan = new ArrayList<>();
+
+        int year = analysis.targetYear != null ? analysis.targetYear : LocalDate.now().getYear();
 
         // 1. Product Data
         if (analysis.needsProductData) {
-            try {
-                SystemDataService.ProductData productData = systemDataService.getProductData();
-                context.append("### 📦 ข้อมูลสินค้า\n");
-                context.append(String.format("- สินค้าทั้งหมด: %d รายการ\n", productData.getTotalProducts()));
-                context.append(String.format("- สินค้าที่ใช้งานอยู่: %d รายการ\n", productData.getActiveProducts()));
-                context.append(String.format("- สินค้าที่ยกเลิก: %d รายการ\n", productData.getDiscontinuedProducts()));
-
-                if (productData.getMostExpensiveProduct() != null) {
-                    context.append(String.format("- สินค้าราคาสูงสุด: %s (%.2f บาท)\n",
-                            productData.getMostExpensiveProduct(), productData.getMostExpensivePrice()));
-                }
-
-                if (!productData.getCategoryCounts().isEmpty()) {
-                    context.append("- จำนวนตาม Category:\n");
-                    productData.getCategoryCounts().forEach((category, count) ->
-                            context.append(String.format("  • %s: %d รายการ\n",
-                                    category != null && !category.isEmpty() ? category : "ไม่มีหมวดหมู่", count))
-                    );
-                }
-                context.append("\n");
-            } catch (Exception e) {
-                System.err.println("Error getting product data: " + e.getMessage());
-            }
+            plan.add(new SectionRequest(ContextSection.PRODUCT, null, analysis.productScore,
+                    this::renderProductSection));
         }
 
         // ⭐ 2. Top Selling Products
         if (analysis.needsTopSellingProducts) {
-            try {
-                int year = analysis.targetYear != null ? analysis.targetYear : LocalDate.now().getYear();
-                SystemDataService.TopSellingProductsData topData =
-                        systemDataService.getTopSellingProducts(year, 10);
-
-                context.append(String.format("### 🏆 สินค้าขายดี Top 10 ประจำปี %d (พ.ศ. %d)\n",
-                        year, year + 543));
-                context.append(String.format("- จำนวนสินค้าที่มียอดขาย: %d รายการ\n\n",
-                        topData.getTotalProductsSold()));
-
-                if (!topData.getTopProducts().isEmpty()) {
-                    context.append("**อันดับสินค้าขายดี:**\n");
-                    int rank = 1;
-                    for (SystemDataService.ProductSalesInfo product : topData.getTopProducts()) {
-                        context.append(String.format("%d. %s (SKU: %s)\n",
-                                rank, product.getProductName(), product.getProductSku()));
-                        context.append(String.format("   - ขายได้: %d ชิ้น\n",
-                                product.getTotalQuantitySold()));
-                        context.append(String.format("   - รายได้: %.2f บาท\n",
-                                product.getTotalRevenue()));
-                        rank++;
-                    }
-                } else {
-                    context.append("*ยังไม่มีข้อมูลยอดขายในปีนี้*\n");
-                }
-                context.append("\n");
-            } catch (Exception e) {
-                System.err.println("Error getting top selling products: " + e.getMessage());
-                e.printStackTrace();
-            }
+            plan.add(new SectionRequest(ContextSection.TOP_SELLING, String.valueOf(year), analysis.topSellingScore,
+                    () -> renderTopSellingSection(year)));
         }
 
         // 3. Stock Data
         if (analysis.needsStockData) {
-            try {
-                SystemDataService.StockData stockData = systemDataService.getStockData();
-                context.append("### 📦 ข้อมูลสต็อก\n");
-                context.append(String.format("- Stock Items ทั้งหมด: %d รายการ\n", stockData.getTotalStockItems()));
-                context.append(String.format("- China Stock: %d รายการ (มูลค่า %.2f บาท)\n",
-                        stockData.getTotalChinaStocks(), stockData.getTotalChinaStockValue()));
-                context.append(String.format("- Thai Stock: %d รายการ (มูลค่า %.2f บาท)\n",
-                        stockData.getTotalThaiStocks(), stockData.getTotalThaiStockValue()));
-                context.append(String.format("- มูลค่ารวมทั้งหมด: %.2f บาท\n", stockData.getTotalStockValue()));
-                context.append(String.format("- Stock Lots: %d รายการ\n", stockData.getTotalStockLots()));
-                context.append("\n");
-            } catch (Exception e) {
-                System.err.println("Error getting stock data: " + e.getMessage());
-            }
+            plan.add(new SectionRequest(ContextSection.STOCK, null, analysis.stockScore,
+                    this::renderStockSection));
         }
-//
-//        // 4. Stock Forecast
-//        if (analysis.needsStockForecast) {
-//            try {
-//                SystemDataService.StockForecastData forecastData = systemDataService.getStockForecastData();
-//                context.append("### ⚠️ การพยากรณ์สต็อก\n");
-//                context.append(String.format("- Stock ที่ต้องสั่งซื้อเร่งด่วน: %d รายการ\n",
-//                        forecastData.getUrgentStockCount()));
-//                context.append(String.format("- Stock ที่จะหมดใน 7 วัน: %d รายการ\n",
-//                        forecastData.getStockRunningOutSoon()));
-//                context.append(String.format("- ต้นทุนที่ต้องสั่งซื้อเร่งด่วน: %.2f บาท\n",
-//                        forecastData.getEstimatedUrgentOrderCost()));
-//
-//                if (!forecastData.getTop5NearEmptyItems().isEmpty()) {
-//                    context.append("- Top 5 Stock ที่ใกล้หมด:\n");
-//                    forecastData.getTop5NearEmptyItems().forEach(item ->
-//                            context.append(String.format("  • %s\n", item))
-//                    );
-//                }
-//                context.append("\n");
-//            } catch (Exception e) {
-//                System.err.println("Error getting forecast data: " + e.getMessage());
-//            }
-//        }
 
         // 5. Order Data
         if (analysis.needsOrderData && !analysis.needsYearlyData) {
-            try {
-                SystemDataService.OrderData orderData = systemDataService.getOrderData();
-                context.append("### 📋 ข้อมูลคำสั่งซื้อ\n");
-                context.append(String.format("- คำสั่งซื้อทั้งหมด: %d รายการ\n", orderData.getTotalOrders()));
-                context.append(String.format("- ยอดขายรวม: %.2f บาท\n", orderData.getTotalSalesAmount()));
-
-                if (!orderData.getOrderStatusCounts().isEmpty()) {
-                    context.append("- จำนวนตาม Status:\n");
-                    orderData.getOrderStatusCounts().forEach((status, count) ->
-                            context.append(String.format("  • %s: %d รายการ\n", status.name(), count))
-                    );
-                }
-
-                if (!orderData.getOrderSourceCounts().isEmpty()) {
-                    context.append("- จำนวนตาม Source:\n");
-                    orderData.getOrderSourceCounts().forEach((source, count) ->
-                            context.append(String.format("  • %s: %d รายการ\n", source.name(), count))
-                    );
-                }
-                context.append("\n");
-            } catch (Exception e) {
-                System.err.println("Error getting order data: " + e.getMessage());
-            }
+            plan.add(new SectionRequest(ContextSection.ORDER, null, analysis.orderScore,
+                    this::renderOrderSection));
         }
 
         // ⭐ 6. Yearly Sales Data (ถ้าถามเรื่องยอดขายรายปี)
         if (analysis.needsOrderData && analysis.needsYearlyData) {
-            try {
-                int year = analysis.targetYear != null ? analysis.targetYear : LocalDate.now().getYear();
-                SystemDataService.YearlySalesData yearlySales =
-                        systemDataService.getYearlySalesData(year);
-
-                context.append(String.format("### 📈 ยอดขายประจำปี %d (พ.ศ. %d)\n\n",
-                        year, year + 543));
-
-                context.append("**สรุปรวมทั้งปี:**\n");
-                context.append(String.format("- 📦 คำสั่งซื้อทั้งหมด: %d รายการ\n",
-                        yearlySales.getTotalOrders()));
-                context.append(String.format("- 💰 รายได้รวม: %.2f บาท\n\n",
-                        yearlySales.getTotalRevenue()));
-
-                if (yearlySales.getBestMonth() != null) {
-                    context.append(String.format("- 🏆 เดือนที่ขายดีที่สุด: เดือน %d (%.2f บาท)\n\n",
-                            yearlySales.getBestMonth(), yearlySales.getBestMonthRevenue()));
-                }
-
-                context.append("**รายละเอียดแต่ละเดือน:**\n");
-                yearlySales.getMonthlyBreakdown().forEach((month, breakdown) -> {
-                    context.append(String.format("• เดือน %d: %d คำสั่งซื้อ, รายได้ %.2f บาท\n",
-                            month, breakdown.getTotalOrders(), breakdown.getTotalRevenue()));
-                });
-                context.append("\n");
-
-            } catch (Exception e) {
-                System.err.println("Error getting yearly sales data: " + e.getMessage());
-                e.printStackTrace();
-            }
+            plan.add(new SectionRequest(ContextSection.YEARLY_SALES, String.valueOf(year), analysis.orderScore,
+                    () -> renderYearlySalesSection(year)));
         }
 
         // ⭐ 7. Financial Data
         if (analysis.needsFinancialData) {
-            try {
-                // ⭐ ถ้าถามทั้งปี
-                if (analysis.needsYearlyData) {
-                    int year = analysis.targetYear != null ? analysis.targetYear : LocalDate.now().getYear();
-                    SystemDataService.YearlyFinancialData yearlyFinancial =
-                            systemDataService.getYearlyFinancialData(year);
-
-                    context.append(String.format("### 💰 การเงินประจำปี %d (พ.ศ. %d)\n\n",
-                            year, year + 543));
-
-                    context.append("**สรุปรวมทั้งปี:**\n");
-                    context.append(String.format("- 💰 รายรับทั้งหมด: %.2f บาท\n",
-                            yearlyFinancial.getTotalIncome()));
-                    context.append(String.format("- 💸 รายจ่ายทั้งหมด: %.2f บาท\n",
-                            yearlyFinancial.getTotalExpense()));
-                    context.append(String.format("- 📈 กำไรสุทธิ: %.2f บาท\n",
-                            yearlyFinancial.getNetProfit()));
-                    context.append(String.format("- 📊 Transaction ทั้งหมด: %d รายการ\n\n",
-                            yearlyFinancial.getTotalTransactions()));
-
-                    if (yearlyFinancial.getBestProfitMonth() != null) {
-                        context.append(String.format("- 🏆 เดือนที่กำไรสูงสุด: เดือน %d (%.2f บาท)\n\n",
-                                yearlyFinancial.getBestProfitMonth(), yearlyFinancial.getBestProfitAmount()));
-                    }
-
-                    context.append("**รายละเอียดแต่ละเดือน:**\n");
-                    yearlyFinancial.getMonthlyBreakdown().forEach((month, breakdown) -> {
-                        context.append(String.format("• เดือน %d: รายรับ %.2f | รายจ่าย %.2f | กำไร %.2f บาท\n",
-                                month, breakdown.getIncome(), breakdown.getExpense(), breakdown.getProfit()));
-                    });
-                    context.append("\n");
-
-                } else if (analysis.yearMonthRange != null) {
-                    // ช่วงเดือน
-                    int startMonth = analysis.yearMonthRange[0];
-                    int endMonth = analysis.yearMonthRange[1];
-                    int year = 2025;
-
-                    context.append(String.format("### 💰 ข้อมูลการเงิน (เดือน %d-%d/2568)\n",
-                            startMonth, endMonth));
-
-                    BigDecimal totalIncome = BigDecimal.ZERO;
-                    BigDecimal totalExpense = BigDecimal.ZERO;
-                    BigDecimal totalProfit = BigDecimal.ZERO;
-                    int totalTransactions = 0;
-
-                    Map<String, BigDecimal> monthlyIncome = new LinkedHashMap<>();
-                    Map<String, BigDecimal> monthlyExpense = new LinkedHashMap<>();
-
-                    for (int month = startMonth; month <= endMonth; month++) {
-                        try {
-                            SystemDataService.MonthlyFinancialData monthData =
-                                    systemDataService.getMonthlyFinancialData(year, month);
-
-                            totalIncome = totalIncome.add(monthData.getTotalIncome());
-                            totalExpense = totalExpense.add(monthData.getTotalExpense());
-                            totalProfit = totalProfit.add(monthData.getNetProfit());
-                            totalTransactions += monthData.getTransactionCount();
-
-                            monthlyIncome.put(String.format("%d/%d", month, year + 543),
-                                    monthData.getTotalIncome());
-                            monthlyExpense.put(String.format("%d/%d", month, year + 543),
-                                    monthData.getTotalExpense());
-
-                        } catch (Exception e) {
-                            System.err.println("Error getting data for month " + month + ": " + e.getMessage());
-                        }
-                    }
-
-                    context.append(String.format("**สรุปรวม (เดือน %d-%d/2568):**\n", startMonth, endMonth));
-                    context.append(String.format("- 💰 รายรับทั้งหมด: %.2f บาท\n", totalIncome));
-                    context.append(String.format("- 💸 รายจ่ายทั้งหมด: %.2f บาท\n", totalExpense));
-                    context.append(String.format("- 📈 กำไรสุทธิ: %.2f บาท\n", totalProfit));
-                    context.append(String.format("- 📊 จำนวน Transaction: %d รายการ\n\n", totalTransactions));
-
-                    context.append("**รายละเอียดแต่ละเดือน:**\n");
-                    for (Map.Entry<String, BigDecimal> entry : monthlyIncome.entrySet()) {
-                        String monthKey = entry.getKey();
-                        BigDecimal income = entry.getValue();
-                        BigDecimal expense = monthlyExpense.getOrDefault(monthKey, BigDecimal.ZERO);
-                        BigDecimal profit = income.subtract(expense);
-
-                        context.append(String.format("• %s: รายรับ %.2f บาท | รายจ่าย %.2f บาท | กำไร %.2f บาท\n",
-                                monthKey, income, expense, profit));
-                    }
-                    context.append("\n");
-
-                } else if (analysis.yearMonth != null) {
-                    // รายเดือนเดียว
-                    SystemDataService.MonthlyFinancialData financialData =
-                            systemDataService.getMonthlyFinancialData(
-                                    analysis.yearMonth.getYear(), analysis.yearMonth.getMonthValue());
-
-                    context.append(String.format("### 💰 ข้อมูลการเงินเดือน %d/%d\n",
-                            financialData.getMonth(), financialData.getYear() + 543));
-                    context.append(String.format("- รายรับ: %.2f บาท\n", financialData.getTotalIncome()));
-                    context.append(String.format("- รายจ่าย: %.2f บาท\n", financialData.getTotalExpense()));
-                    context.append(String.format("- กำไรสุทธิ: %.2f บาท\n", financialData.getNetProfit()));
-                    context.append(String.format("- จำนวน Transaction: %d รายการ\n",
-                            financialData.getTransactionCount()));
-
-                    if (!financialData.getCategoryCounts().isEmpty()) {
-                        context.append("- จำนวนตาม Category:\n");
-                        financialData.getCategoryCounts().forEach((category, count) ->
-                                context.append(String.format("  • %s: %d รายการ\n", category.name(), count))
-                        );
-                    }
-                    context.append("\n");
-                }
-            } catch (Exception e) {
-                System.err.println("Error getting financial data: " + e.getMessage());
-                e.printStackTrace();
+            if (analysis.needsYearlyData) {
+                plan.add(new SectionRequest(ContextSection.FINANCIAL, "year:" + year, analysis.financialScore,
+                        () -> renderYearlyFinancialSection(year)));
+            } else if (analysis.yearMonthRange != null) {
+                int startMonth = analysis.yearMonthRange[0];
+                int endMonth = analysis.yearMonthRange[1];
+                plan.add(new SectionRequest(ContextSection.FINANCIAL, "range:" + startMonth + "-" + endMonth,
+                        analysis.financialScore,
+                        () -> renderFinancialRangeSection(startMonth, endMonth)));
+            } else if (analysis.yearMonth != null) {
+                YearMonth yearMonth = analysis.yearMonth;
+                plan.add(new SectionRequest(ContextSection.FINANCIAL, "month:" + yearMonth, analysis.financialScore,
+                        () -> renderMonthlyFinancialSection(yearMonth)));
             }
         }
 
         // 8. Monthly Sales (รายเดือนเดียว)
         if (analysis.needsOrderData && analysis.yearMonth != null && !analysis.needsYearlyData) {
-            try {
-                SystemDataService.MonthlySalesData salesData = systemDataService.getMonthlySalesData(
-                        analysis.yearMonth.getYear(), analysis.yearMonth.getMonthValue());
-
-                context.append(String.format("### 📈 ยอดขายเดือน %d/%d\n",
-                        salesData.getMonth(), salesData.getYear() + 543));
-                context.append(String.format("- คำสั่งซื้อ: %d รายการ\n", salesData.getTotalOrders()));
-                context.append(String.format("- รายได้รวม: %.2f บาท\n", salesData.getTotalRevenue()));
-
-                if (!salesData.getOrderSourceCounts().isEmpty()) {
-                    context.append("- แหล่งที่มา:\n");
-                    salesData.getOrderSourceCounts().forEach((source, count) ->
-                            context.append(String.format("  • %s: %d รายการ\n", source.name(), count))
-                    );
-                }
-                context.append("\n");
-            } catch (Exception e) {
-                System.err.println("Error getting sales data: " + e.getMessage());
-            }
+            YearMonth yearMonth = analysis.yearMonth;
+            plan.add(new SectionRequest(ContextSection.MONTHLY_SALES, yearMonth.toString(), analysis.orderScore,
+                    () -> renderMonthlySalesSection(yearMonth)));
         }
 
         // 9. Employee Data
         if (analysis.needsEmployeeData) {
-            try {
-                SystemDataService.EmployeeData employeeData = systemDataService.getEmployeeData();
-                context.append("### 👥 ข้อมูลพนักงาน\n");
-                context.append(String.format("- พนักงานทั้งหมด: %d คน\n", employeeData.getTotalEmployees()));
-                context.append(String.format("- ทำงานอยู่: %d คน\n", employeeData.getActiveEmployees()));
-                context.append(String.format("- ลาออก/ไม่ทำงาน: %d คน\n", employeeData.getInactiveEmployees()));
-                context.append(String.format("- รายเดือน: %d คน\n", employeeData.getMonthlyEmployees()));
-                context.append(String.format("- รายวัน: %d คน\n", employeeData.getDailyEmployees()));
-
-                if (!employeeData.getRoleCounts().isEmpty()) {
-                    context.append("- จำนวนตาม Role:\n");
-                    employeeData.getRoleCounts().forEach((role, count) ->
-                            context.append(String.format("  • %s: %d คน\n", role, count))
-                    );
-                }
-                context.append("\n");
-            } catch (Exception e) {
-                System.err.println("Error getting employee data: " + e.getMessage());
-            }
+            plan.add(new SectionRequest(ContextSection.EMPLOYEE, null, analysis.employeeScore,
+                    this::renderEmployeeSection));
         }
 
         // 10. Salary Data
         if (analysis.needsSalaryData && analysis.yearMonth != null) {
-            try {
-                SystemDataService.MonthlySalaryData salaryData = systemDataService.getMonthlySalaryData(
-                        analysis.yearMonth.getYear(), analysis.yearMonth.getMonthValue());
-
-                context.append(String.format("### 💵 ข้อมูลเงินเดือนเดือน %d/%d\n",
-                        salaryData.getMonth(), salaryData.getYear() + 543));
-                context.append(String.format("- จ่ายแล้ว: %.2f บาท\n", salaryData.getTotalPaid()));
-                context.append(String.format("- ค้างจ่าย: %.2f บาท\n", salaryData.getPendingAmount()));
-                context.append(String.format("- จำนวนการจ่าย: %d รายการ\n", salaryData.getTotalPayments()));
-                context.append(String.format("  • รายเดือน: %d รายการ\n", salaryData.getMonthlyPayments()));
-                context.append(String.format("  • รายวัน: %d รายการ\n", salaryData.getDailyPayments()));
-                context.append("\n");
-            } catch (Exception e) {
-                System.err.println("Error getting salary data: " + e.getMessage());
-            }
+            YearMonth yearMonth = analysis.yearMonth;
+            plan.add(new SectionRequest(ContextSection.SALARY, yearMonth.toString(), analysis.salaryScore,
+                    () -> renderSalarySection(yearMonth)));
         }
 
-        context.append("═══════════════════════════════════════\n");
-        context.append(String.format("📅 ข้อมูล ณ วันที่: %s\n",
-                LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))));
+        return plan;
+    }
 
-        return context.toString();
+    /**
+     * ⭐ สร้าง Context - ดึงแต่ละหัวข้อแบบขนาน (ผ่าน snapshot cache)
+     * แล้วเรียงตามความเกี่ยวข้องและตัดให้อยู่ใน token budget ด้วย ChatContextEncoder
+     * หัวข้อที่ช้าเกิน timeout หรือ error จะแสดงเป็น "ข้อมูลไม่พร้อมใช้งาน" แทนการ fail ทั้ง chat
+     */
+    private String buildContext(List<SectionRequest> plan, List<ContextSectionTiming> timings) {
+        List<PendingSection> pendingSections = new ArrayList<>();
+        for (SectionRequest request : plan) {
+            pendingSections.add(submitSection(request));
+        }
+
+        List<ChatContextEncoder.Section> sections = new ArrayList<>();
+        for (int i = 0; i < pendingSections.size(); i++) {
+            String content = awaitSection(pendingSections.get(i), timings);
+            sections.add(new ChatContextEncoder.Section(plan.get(i).section.name(), plan.get(i).relevance, content));
+        }
+
+        String header = String.format("ข้อมูลระบบ Chubby Charlie ณ %s (จำนวนเงินหน่วยบาท)\n\n",
+                LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+        ChatContextEncoder.EncodedContext encoded = contextEncoder.encode(header, sections);
+
+        for (int i = 0; i < sections.size(); i++) {
+            ContextSectionTiming timing = timings.get(timings.size() - sections.size() + i);
+            timing.setEstimatedTokens(sections.get(i).getEstimatedTokens());
+            timing.setBudget(sections.get(i).getBudgetAction());
+        }
+
+        System.out.println("📊 Context ~" + encoded.getEstimatedTokens() + " tokens (budget "
+                + contextEncoder.getTokenBudget() + ")");
+        return encoded.getText();
     }
 
     /**
-     * ตรวจสอบว่า text มีคำใดคำหนึ่งใน keywords หรือไม่
+     * ส่งงานดึง snapshot ของหัวข้อไปรันบน chatContextExecutor
      */
-    private boolean containsAny(String text, String... keywords) {
-        for (String keyword : keywords) {
-            if (text.contains(keyword.toLowerCase())) {
-                return true;
-            }
+    private PendingSection submitSection(SectionRequest request) {
+        long startedAt = System.nanoTime();
+        LocalDateTime submittedAt = LocalDateTime.now();
+        CompletableFuture<ChatContextSnapshotService.ContextSnapshot> future;
+        try {
+            future = CompletableFuture.supplyAsync(
+                    () -> contextSnapshotService.getOrCompute(request.section, request.params, request.renderer),
+                    chatContextExecutor);
+        } catch (RejectedExecutionException e) {
+            future = CompletableFuture.failedFuture(e);
         }
-        return false;
+        return new PendingSection(request.section, future, startedAt, submittedAt);
     }
 
     /**
-     * แยกเดือน/ปีจากคำถาม
+     * ⭐ key ของ answer cache = คำถามที่ normalize + ปี/เดือน + วันที่ปัจจุบัน + version ของทุกหัวข้อที่ใช้
+     * (อ่าน version ก่อนสร้าง context - ถ้าข้อมูลเปลี่ยนระหว่างตอบ คำถามถัดไปจะได้ key ใหม่)
      */
-    private YearMonth extractYearMonth(String query) {
+    private String answerCacheKey(QueryAnalysis analysis, List<SectionRequest> plan) {
+        StringBuilder key = new StringBuilder(ChatAnswerCacheService.normalizeQuestion(analysis.originalQuery));
+        key.append("|ym=").append(analysis.yearMonth);
+        key.append("|range=").append(analysis.yearMonthRange != null
+                ? analysis.yearMonthRange[0] + "-" + analysis.yearMonthRange[1] : "");
+        key.append("|year=").append(analysis.targetYear);
+        key.append("|date=").append(LocalDate.now());
+        for (SectionRequest request : plan) {
+            key.append('|').append(request.section.name())
+                    .append(':').append(request.params != null ? request.params : "")
+                    .append('@').append(contextSnapshotService.versionOf(request.section));
+        }
+        return key.toString();
+    }
+
+    /**
+     * รอผลของหัวข้อจนถึง deadline ของหัวข้อนั้น (นับจากตอนที่ส่งงาน) และบันทึกเวลาที่ใช้
+     */
+    private String awaitSection(PendingSection pending, List<ContextSectionTiming> timings) {
+        long deadline = pending.startedAt + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        String status;
+        String content;
+
         try {
-            // Pattern 1: MM/YYYY
-            Pattern pattern1 = Pattern.compile("(\\d{1,2})/(\\d{4})");
-            Matcher matcher1 = pattern1.matcher(query);
-            if (matcher1.find()) {
-                int month = Integer.parseInt(matcher1.group(1));
-                int year = Integer.parseInt(matcher1.group(2));
-                if (year > 2500) {
-                    year -= 543;
-                }
-                return YearMonth.of(year, month);
+            ChatContextSnapshotService.ContextSnapshot snapshot =
+                    pending.future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            content = snapshot.getContent();
+            status = snapshot.getComputedAt().isBefore(pending.submittedAt) ? "CACHED" : "OK";
+        } catch (TimeoutException e) {
+            // ไม่ cancel งาน - ถ้าคำนวณเสร็จทีหลังจะถูกเก็บใน snapshot cache ให้ครั้งถัดไป
+            System.err.println("⏱️ Timeout getting " + pending.section + " data after " + sectionTimeoutMs + " ms");
+            content = unavailableSection(pending.section);
+            status = "TIMEOUT";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            content = unavailableSection(pending.section);
+            status = "ERROR";
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Error getting " + pending.section + " data: " + cause.getMessage());
+            cause.printStackTrace();
+            content = unavailableSection(pending.section);
+            status = "ERROR";
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pending.startedAt);
+        timings.add(new ContextSectionTiming(pending.section.name(), status, elapsedMs));
+        System.out.println("   ↳ " + pending.section + ": " + status + " (" + elapsedMs + " ms)");
+        return content;
+    }
+
+    private String unavailableSection(ContextSection section) {
+        return String.format("## %s\nไม่พร้อมใช้งาน (data unavailable)\n\n", section.name());
+    }
+
+    // ============================================
+    // ⭐ Renderers - แสดงข้อมูลแบบตารางกระชับ (ประหยัด token)
+    // ============================================
+
+    private String renderProductSection() {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.ProductData productData = systemDataService.getProductData();
+        context.append("## สินค้า\n");
+        context.append(String.format("ทั้งหมด %d | ใช้งาน %d | ยกเลิก %d\n",
+                productData.getTotalProducts(), productData.getActiveProducts(),
+                productData.getDiscontinuedProducts()));
+
+        if (productData.getMostExpensiveProduct() != null) {
+            context.append(String.format("ราคาสูงสุด: %s (%.2f)\n",
+                    productData.getMostExpensiveProduct(), productData.getMostExpensivePrice()));
+        }
+
+        if (!productData.getCategoryCounts().isEmpty()) {
+            context.append("หมวด|จำนวน\n");
+            productData.getCategoryCounts().forEach((category, count) ->
+                    context.append(String.format("%s|%d\n",
+                            category != null && !category.isEmpty() ? category : "ไม่มีหมวดหมู่", count))
+            );
+        }
+        context.append("\n");
+        return context.toString();
+    }
+
+    private String renderTopSellingSection(int year) {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.TopSellingProductsData topData =
+                systemDataService.getTopSellingProducts(year, 10);
+
+        context.append(String.format("## สินค้าขายดี Top 10 ปี %d (พ.ศ. %d) - สินค้าที่มียอดขาย %d รายการ\n",
+                year, year + 543, topData.getTotalProductsSold()));
+
+        if (!topData.getTopProducts().isEmpty()) {
+            context.append("อันดับ|สินค้า|SKU|ชิ้น|รายได้\n");
+            int rank = 1;
+            for (SystemDataService.ProductSalesInfo product : topData.getTopProducts()) {
+                context.append(String.format("%d|%s|%s|%d|%.2f\n",
+                        rank, product.getProductName(), product.getProductSku(),
+                        product.getTotalQuantitySold(), product.getTotalRevenue()));
+                rank++;
             }
+        } else {
+            context.append("ยังไม่มีข้อมูลยอดขายในปีนี้\n");
+        }
+        context.append("\n");
+        return context.toString();
+    }
+
+    private String renderStockSection() {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.StockData stockData = systemDataService.getStockData();
+        context.append("## สต็อก\n");
+        context.append(String.format("Stock Items %d | Stock Lots %d | มูลค่ารวม %.2f\n",
+                stockData.getTotalStockItems(), stockData.getTotalStockLots(), stockData.getTotalStockValue()));
+        context.append("ประเภท|รายการ|มูลค่า\n");
+        context.append(String.format("China|%d|%.2f\n",
+                stockData.getTotalChinaStocks(), stockData.getTotalChinaStockValue()));
+        context.append(String.format("Thai|%d|%.2f\n",
+                stockData.getTotalThaiStocks(), stockData.getTotalThaiStockValue()));
+        context.append("\n");
+        return context.toString();
+    }
+
+    private String renderOrderSection() {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.OrderData orderData = systemDataService.getOrderData();
+        context.append("## คำสั่งซื้อ\n");
+        context.append(String.format("ทั้งหมด %d | ยอดขายรวม %.2f\n",
+                orderData.getTotalOrders(), orderData.getTotalSalesAmount()));
+
+        if (!orderData.getOrderStatusCounts().isEmpty()) {
+            context.append("สถานะ|จำนวน\n");
+            orderData.getOrderStatusCounts().forEach((status, count) ->
+                    context.append(String.format("%s|%d\n", status.name(), count))
+            );
+        }
+
+        if (!orderData.getOrderSourceCounts().isEmpty()) {
+            context.append("ช่องทาง|จำนวน\n");
+            orderData.getOrderSourceCounts().forEach((source, count) ->
+                    context.append(String.format("%s|%d\n", source.name(), count))
+            );
+        }
+        context.append("\n");
+        return context.toString();
+    }
+
+    private String renderYearlySalesSection(int year) {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.YearlySalesData yearlySales =
+                systemDataService.getYearlySalesData(year);
+
+        context.append(String.format("## ยอดขายปี %d (พ.ศ. %d)\n", year, year + 543));
+        context.append(String.format("คำสั่งซื้อ %d | รายได้รวม %.2f",
+                yearlySales.getTotalOrders(), yearlySales.getTotalRevenue()));
+        if (yearlySales.getBestMonth() != null) {
+            context.append(String.format(" | เดือนขายดีสุด %d (%.2f)",
+                    yearlySales.getBestMonth(), yearlySales.getBestMonthRevenue()));
+        }
+        context.append("\n");
+
+        context.append("เดือน|คำสั่งซื้อ|รายได้\n");
+        yearlySales.getMonthlyBreakdown().forEach((month, breakdown) ->
+                context.append(String.format("%d|%d|%.2f\n",
+                        month, breakdown.getTotalOrders(), breakdown.getTotalRevenue()))
+        );
+        context.append("\n");
+        return context.toString();
+    }
+
+    private String renderYearlyFinancialSection(int year) {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.YearlyFinancialData yearlyFinancial =
+                systemDataService.getYearlyFinancialData(year);
+
+        context.append(String.format("## การเงินปี %d (พ.ศ. %d)\n", year, year + 543));
+        context.append(String.format("รายรับ %.2f | รายจ่าย %.2f | กำไรสุทธิ %.2f | Transactions %d",
+                yearlyFinancial.getTotalIncome(), yearlyFinancial.getTotalExpense(),
+                yearlyFinancial.getNetProfit(), yearlyFinancial.getTotalTransactions()));
+        if (yearlyFinancial.getBestProfitMonth() != null) {
+            context.append(String.format(" | เดือนกำไรสูงสุด %d (%.2f)",
+                    yearlyFinancial.getBestProfitMonth(), yearlyFinancial.getBestProfitAmount()));
+        }
+        context.append("\n");
+
+        context.append("เดือน|รายรับ|รายจ่าย|กำไร\n");
+        yearlyFinancial.getMonthlyBreakdown().forEach((month, breakdown) ->
+                context.append(String.format("%d|%.2f|%.2f|%.2f\n",
+                        month, breakdown.getIncome(), breakdown.getExpense(), breakdown.getProfit()))
+        );
+        context.append("\n");
+        return context.toString();
+    }
+
+    private String renderFinancialRangeSection(int startMonth, int endMonth) {
+        StringBuilder context = new StringBuilder();
+        int year = 2025;
 
-            // Pattern 2: เดือน XX ปี YYYY
-            Pattern pattern2 = Pattern.compile("เดือน\\s*(\\d{1,2})\\s*(?:ปี)?\\s*(\\d{4})");
-            Matcher matcher2 = pattern2.matcher(query);
-            if (matcher2.find()) {
-                int month = Integer.parseInt(matcher2.group(1));
-                int year = Integer.parseInt(matcher2.group(2));
-                if (year > 2500) {
-                    year -= 543;
-                }
-                return YearMonth.of(year, month);
+        BigDecimal totalIncome = BigDecimal.ZERO;
+        BigDecimal totalExpense = BigDecimal.ZERO;
+        BigDecimal totalProfit = BigDecimal.ZERO;
+        int totalTransactions = 0;
+        StringBuilder rows = new StringBuilder();
+
+        for (int month = startMonth; month <= endMonth; month++) {
+            try {
+                SystemDataService.MonthlyFinancialData monthData =
+                        systemDataService.getMonthlyFinancialData(year, month);
+
+                totalIncome = totalIncome.add(monthData.getTotalIncome());
+                totalExpense = totalExpense.add(monthData.getTotalExpense());
+                totalProfit = totalProfit.add(monthData.getNetProfit());
+                totalTransactions += monthData.getTransactionCount();
+
+                rows.append(String.format("%d/%d|%.2f|%.2f|%.2f\n", month, year + 543,
+                        monthData.getTotalIncome(), monthData.getTotalExpense(),
+                        monthData.getTotalIncome().subtract(monthData.getTotalExpense())));
+
+            } catch (Exception e) {
+                System.err.println("Error getting data for month " + month + ": " + e.getMessage());
             }
+        }
 
-        } catch (Exception e) {
-            // ignore
+        context.append(String.format("## การเงินเดือน %d-%d/%d\n", startMonth, endMonth, year + 543));
+        context.append(String.format("รายรับ %.2f | รายจ่าย %.2f | กำไรสุทธิ %.2f | Transactions %d\n",
+                totalIncome, totalExpense, totalProfit, totalTransactions));
+        context.append("เดือน|รายรับ|รายจ่าย|กำไร\n");
+        context.append(rows);
+        context.append("\n");
+        return context.toString();
+    }
+
+    private String renderMonthlyFinancialSection(YearMonth yearMonth) {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.MonthlyFinancialData financialData =
+                systemDataService.getMonthlyFinancialData(yearMonth.getYear(), yearMonth.getMonthValue());
+
+        context.append(String.format("## การเงินเดือน %d/%d\n",
+                financialData.getMonth(), financialData.getYear() + 543));
+        context.append(String.format("รายรับ %.2f | รายจ่าย %.2f | กำไรสุทธิ %.2f | Transactions %d\n",
+                financialData.getTotalIncome(), financialData.getTotalExpense(),
+                financialData.getNetProfit(), financialData.getTransactionCount()));
+
+        if (!financialData.getCategoryCounts().isEmpty()) {
+            context.append("หมวด|จำนวน\n");
+            financialData.getCategoryCounts().forEach((category, count) ->
+                    context.append(String.format("%s|%d\n", category.name(), count))
+            );
         }
+        context.append("\n");
+        return context.toString();
+    }
 
-        return null;
+    private String renderMonthlySalesSection(YearMonth yearMonth) {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.MonthlySalesData salesData = systemDataService.getMonthlySalesData(
+                yearMonth.getYear(), yearMonth.getMonthValue());
+
+        context.append(String.format("## ยอดขายเดือน %d/%d\n",
+                salesData.getMonth(), salesData.getYear() + 543));
+        context.append(String.format("คำสั่งซื้อ %d | รายได้รวม %.2f\n",
+                salesData.getTotalOrders(), salesData.getTotalRevenue()));
+
+        if (!salesData.getOrderSourceCounts().isEmpty()) {
+            context.append("ช่องทาง|จำนวน\n");
+            salesData.getOrderSourceCounts().forEach((source, count) ->
+                    context.append(String.format("%s|%d\n", source.name(), count))
+            );
+        }
+        context.append("\n");
+        return context.toString();
+    }
+
+    private String renderEmployeeSection() {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.EmployeeData employeeData = systemDataService.getEmployeeData();
+        context.append("## พนักงาน\n");
+        context.append(String.format("ทั้งหมด %d | ทำงานอยู่ %d | ลาออก/ไม่ทำงาน %d | รายเดือน %d | รายวัน %d\n",
+                employeeData.getTotalEmployees(), employeeData.getActiveEmployees(),
+                employeeData.getInactiveEmployees(), employeeData.getMonthlyEmployees(),
+                employeeData.getDailyEmployees()));
+
+        if (!employeeData.getRoleCounts().isEmpty()) {
+            context.append("ตำแหน่ง|จำนวน\n");
+            employeeData.getRoleCounts().forEach((role, count) ->
+                    context.append(String.format("%s|%d\n", role, count))
+            );
+        }
+        context.append("\n");
+        return context.toString();
+    }
+
+    private String renderSalarySection(YearMonth yearMonth) {
+        StringBuilder context = new StringBuilder();
+        SystemDataService.MonthlySalaryData salaryData = systemDataService.getMonthlySalaryData(
+                yearMonth.getYear(), yearMonth.getMonthValue());
+
+        context.append(String.format("## เงินเดือนเดือน %d/%d\n",
+                salaryData.getMonth(), salaryData.getYear() + 543));
+        context.append(String.format("จ่ายแล้ว %.2f | ค้างจ่าย %.2f | การจ่าย %d (รายเดือน %d, รายวัน %d)\n",
+                salaryData.getTotalPaid(), salaryData.getPendingAmount(), salaryData.getTotalPayments(),
+                salaryData.getMonthlyPayments(), salaryData.getDailyPayments()));
+        context.append("\n");
+        return context.toString();
     }
 
     /**
-     * แยกช่วงเดือนจากคำถาม
+     * ผลวิเคราะห์คำถามของ stream + หัวข้อที่ต้องใช้
      */
-    private int[] extractYearMonthRange(String query) {
-        try {
-            Pattern pattern = Pattern.compile("เดือน\\s*(\\d{1,2})\\s*(?:ถึง|ถึงเดือน|ตั้งแต่เดือน)?\\s*(\\d{1,2})");
-            Matcher matcher = pattern.matcher(query);
-            if (matcher.find()) {
-                int startMonth = Integer.parseInt(matcher.group(1));
-                int endMonth = Integer.parseInt(matcher.group(2));
-                return new int[]{startMonth, endMonth};
-            }
-        } catch (Exception e) {
-            // ignore
+    private static class PreparedStream {
+        final QueryAnalysis analysis;
+        final List<SectionRequest> plan;
+
+        PreparedStream(QueryAnalysis analysis, List<SectionRequest> plan) {
+            this.analysis = analysis;
+            this.plan = plan;
         }
-        return null;
     }
 
     /**
-     * ⭐ แยกปีจากคำถาม (สำหรับ Top Selling & Yearly Summary)
+     * หัวข้อที่ต้องดึงข้อมูล + พารามิเตอร์ + วิธีสร้างข้อความ
      */
-    private Integer extractTargetYear(String query) {
-        try {
-            // Pattern: ปี YYYY หรือ พ.ศ. YYYY
-            Pattern pattern = Pattern.compile("(?:ปี|พ\\.ศ\\.|พ\\.ศ|year)\\s*(\\d{4})");
-            Matcher matcher = pattern.matcher(query);
-            if (matcher.find()) {
-                int year = Integer.parseInt(matcher.group(1));
-                if (year > 2500) {
-                    year -= 543;
-                }
-                return year;
-            }
-
-            // ถ้าไม่เจอ ให้ใช้ปีปัจจุบัน
-            return LocalDate.now().getYear();
+    private static class SectionRequest {
+        final ContextSection section;
+        final String params;
+        final int relevance;
+        final Supplier<String> renderer;
+
+        SectionRequest(ContextSection section, String params, int relevance, Supplier<String> renderer) {
+            this.section = section;
+            this.params = params;
+            this.relevance = relevance;
+            this.renderer = renderer;
+        }
+    }
 
-        } catch (Exception e) {
-            return LocalDate.now().getYear();
+    /**
+     * งานดึงข้อมูลหัวข้อที่ส่งไปแล้ว รอประกอบเป็น context
+     */
+    private static class PendingSection {
+        final ContextSection section;
+        final CompletableFuture<ChatContextSnapshotService.ContextSnapshot> future;
+        final long startedAt;
+        final LocalDateTime submittedAt;
+
+        PendingSection(ContextSection section,
+                       CompletableFuture<ChatContextSnapshotService.ContextSnapshot> future,
+                       long startedAt, LocalDateTime submittedAt) {
+            this.section = section;
+            this.future = future;
+            this.startedAt = startedAt;
+            this.submittedAt = submittedAt;
         }
     }
 
@@ -577,5 +708,14 @@ public class SmartChatService {
         YearMonth yearMonth = null;
         int[] yearMonthRange = null;
         Integer targetYear = null;  // ⭐ NEW
+
+        // ⭐ คะแนนความเกี่ยวข้องของแต่ละ intent (จำนวนคำสำคัญที่พบ)
+        int productScore;
+        int topSellingScore;
+        int stockScore;
+        int orderScore;
+        int financialScore;
+        int employeeScore;
+        int salaryScore;
     }
 }
\ No newline at end of file
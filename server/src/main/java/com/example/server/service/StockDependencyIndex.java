@@ -0,0 +1,183 @@
+package com.example.server.service;
+
+import com.example.server.dto.StockDependencyRow;
+import com.example.server.entity.Product;
+import com.example.server.entity.ProductIngredient;
+import com.example.server.entity.ProductIngredientStockAllocation;
+import com.example.server.event.DomainDataChangedEvent;
+import com.example.server.respository.ProductIngredientRepository;
+import com.example.server.respository.ProductIngredientStockAllocationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ⭐ Reverse-dependency index: stock item → ingredient → product (ครอบคลุมทั้ง SINGLE และ MULTI_LOT)
+ * - เก็บในหน่วยความจำเป็น snapshot ที่แก้ไขไม่ได้ โหลดด้วย 2 projection query
+ * - เมื่อ Product / ProductIngredient / Allocation ถูกเขียน (หลัง commit) จะทิ้ง snapshot แล้วสร้างใหม่ตอนใช้ครั้งถัดไป
+ * - ถ้ามีการเปลี่ยนแปลงระหว่างกำลังสร้าง ผลที่สร้างได้จะใช้แค่ครั้งนั้น ไม่เก็บไว้ (ป้องกัน index เก่าค้าง)
+ */
+@Service
+public class StockDependencyIndex {
+
+    @Autowired private ProductIngredientRepository productIngredientRepository;
+    @Autowired private ProductIngredientStockAllocationRepository allocationRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    private TransactionTemplate readOnlyTemplate;
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    /**
+     * ✅ สินค้าที่ใช้ stock item ใด ๆ ในรายการ (ผ่าน ingredient หรือ allocation)
+     */
+    public Set<Long> findProductIds(Collection<Long> stockItemIds) {
+        Snapshot current = current();
+        Set<Long> productIds = new HashSet<>();
+        for (Long stockItemId : stockItemIds) {
+            for (Long ingredientId : current.ingredientIdsByStockItem.getOrDefault(stockItemId, Set.of())) {
+                Long productId = current.productIdByIngredient.get(ingredientId);
+                if (productId != null) {
+                    productIds.add(productId);
+                }
+            }
+        }
+        return productIds;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        rebuildLock.lock();
+        try {
+            current = snapshot;
+            return current != null ? current : load();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // ============================================
+    // MAINTENANCE
+    // ============================================
+
+    /**
+     * ทิ้ง index เมื่อความสัมพันธ์ stock → ingredient → product อาจเปลี่ยน (หลัง commit)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDomainDataChanged(DomainDataChangedEvent event) {
+        Class<?> entityType = event.getEntityType();
+        if (entityType == ProductIngredient.class
+                || entityType == ProductIngredientStockAllocation.class
+                || (entityType == Product.class && event.getChangeType() == DomainDataChangedEvent.ChangeType.DELETED)) {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * ✅ สร้าง index ใหม่ทั้งหมด
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            load();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // เรียกขณะถือ rebuildLock
+    private Snapshot load() {
+        long start = System.currentTimeMillis();
+        long startGeneration = generation.get();
+
+        List<StockDependencyRow> rows = readOnlyTemplate.execute(status -> {
+            List<StockDependencyRow> all = new ArrayList<>(productIngredientRepository.findStockDependencyRows());
+            all.addAll(allocationRepository.findStockDependencyRows());
+            return all;
+        });
+
+        Map<Long, Set<Long>> ingredientIdsByStockItem = new HashMap<>();
+        Map<Long, Long> productIdByIngredient = new HashMap<>();
+        for (StockDependencyRow row : rows) {
+            ingredientIdsByStockItem.computeIfAbsent(row.getStockItemId(), id -> new HashSet<>())
+                    .add(row.getIngredientId());
+            productIdByIngredient.put(row.getIngredientId(), row.getProductId());
+        }
+
+        Snapshot built = new Snapshot(ingredientIdsByStockItem, productIdByIngredient, LocalDateTime.now());
+        if (generation.get() == startGeneration) {
+            snapshot = built;
+        }
+        rebuilds.incrementAndGet();
+
+        System.out.println("✅ Stock dependency index built: " + ingredientIdsByStockItem.size()
+                + " stock items → " + productIdByIngredient.size() + " ingredients in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return built;
+    }
+
+    public Map<String, Object> getStatus() {
+        Snapshot current = snapshot;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("loaded", current != null);
+        status.put("stockItems", current != null ? current.ingredientIdsByStockItem.size() : 0);
+        status.put("ingredients", current != null ? current.productIdByIngredient.size() : 0);
+        status.put("builtAt", current != null ? current.builtAt : null);
+        status.put("rebuilds", rebuilds.get());
+        return status;
+    }
+
+    // ============================================
+    // INTERNAL STATE
+    // ============================================
+
+    /**
+     * index ทั้งชุด ณ เวลาหนึ่ง (แก้ไขไม่ได้ - สร้างใหม่ทั้งก้อนเมื่อมีการเปลี่ยนแปลง)
+     */
+    private static final class Snapshot {
+        private final Map<Long, Set<Long>> ingredientIdsByStockItem;
+        private final Map<Long, Long> productIdByIngredient;
+        private final LocalDateTime builtAt;
+
+        Snapshot(Map<Long, Set<Long>> ingredientIdsByStockItem, Map<Long, Long> productIdByIngredient,
+                 LocalDateTime builtAt) {
+            Map<Long, Set<Long>> frozen = new HashMap<>();
+            ingredientIdsByStockItem.forEach((stockItemId, ids) -> frozen.put(stockItemId, Set.copyOf(ids)));
+            this.ingredientIdsByStockItem = Collections.unmodifiableMap(frozen);
+            this.productIdByIngredient = Collections.unmodifiableMap(productIdByIngredient);
+            this.builtAt = builtAt;
+        }
+    }
+}
@@ -11,7 +11,6 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * ✅ Enhanced Stock Forecast Service - FIXED VERSION
@@ -36,9 +35,14 @@ public class StockForecastService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private ForecastBacktester forecastBacktester;
+
     private static final int DEFAULT_SAFETY_STOCK_DAYS = 7;
     private static final int DEFAULT_LEAD_TIME_DAYS = 14;
     private static final int ANALYSIS_MONTHS = 6;
+    // ⭐ ประวัติที่ใช้ backtest เลือก model (Holt-Winters ต้องการ 2 รอบฤดูกาล)
+    private static final int HISTORY_MONTHS = 36;
 
     // ============================================
     // ⭐ FIXED: เพิ่ม method ที่ Controller ต้องการ
@@ -114,7 +118,7 @@ public class StockForecastService {
 
     private MonthlyUsageAnalysis analyzeMonthlyUsage(Long stockItemId) {
         YearMonth currentMonth = YearMonth.now();
-        YearMonth startMonth = currentMonth.minusMonths(ANALYSIS_MONTHS - 1);
+        YearMonth startMonth = currentMonth.minusMonths(HISTORY_MONTHS - 1);
 
         List<Product> productsUsingStock = productIngredientRepository.findProductsUsingStockItem(stockItemId);
 
@@ -123,7 +127,7 @@ public class StockForecastService {
         }
 
         Map<YearMonth, MonthlyUsageData> monthlyUsageMap = new TreeMap<>();
-        for (int i = 0; i < ANALYSIS_MONTHS; i++) {
+        for (int i = 0; i < HISTORY_MONTHS; i++) {
             YearMonth month = startMonth.plusMonths(i);
             monthlyUsageMap.put(month, new MonthlyUsageData(month));
         }
@@ -153,84 +157,42 @@ public class StockForecastService {
         return new MonthlyUsageAnalysis(monthlyUsageMap);
     }
 
+    /**
+     * ⭐ คาดการณ์เดือนถัดไปด้วย model ที่ backtest แล้วแม่นที่สุดสำหรับ Stock Item นี้
+     */
     private MonthlyForecast predictNextMonthUsage(MonthlyUsageAnalysis analysis) {
         YearMonth nextMonth = YearMonth.now().plusMonths(1);
-        List<Integer> monthlyUsages = analysis.getMonthlyUsages();
-
-        if (monthlyUsages.isEmpty() || monthlyUsages.stream().allMatch(u -> u == 0)) {
-            return new MonthlyForecast(nextMonth, 0, "NO_DATA", 0.0);
-        }
-
-        double simpleAverage = monthlyUsages.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-        double weightedAverage = calculateWeightedAverage(monthlyUsages);
-        double linearTrend = calculateLinearTrend(monthlyUsages);
-
-        String forecastMethod;
-        int predictedUsage;
-        double confidence;
-
-        if (Math.abs(linearTrend - simpleAverage) > simpleAverage * 0.2) {
-            forecastMethod = "LINEAR_REGRESSION";
-            predictedUsage = (int) Math.round(linearTrend);
-            confidence = 75.0;
-        } else {
-            forecastMethod = "WEIGHTED_AVERAGE";
-            predictedUsage = (int) Math.round(weightedAverage);
-            confidence = 85.0;
-        }
-
-        if (predictedUsage < 0) {
-            predictedUsage = (int) Math.round(simpleAverage);
-            forecastMethod = "SIMPLE_AVERAGE";
-            confidence = 60.0;
-        }
-
-        return new MonthlyForecast(nextMonth, predictedUsage, forecastMethod, confidence);
-    }
-
-    private double calculateWeightedAverage(List<Integer> usages) {
-        if (usages.isEmpty()) return 0.0;
-
-        double sum = 0.0;
-        double totalWeight = 0.0;
-        int size = usages.size();
+        double[] monthlyUsages = analysis.getMonthlyUsages();
 
-        for (int i = 0; i < size; i++) {
-            int weight = i + 1;
-            sum += usages.get(i) * weight;
-            totalWeight += weight;
+        boolean hasUsage = false;
+        for (double usage : monthlyUsages) {
+            if (usage != 0) {
+                hasUsage = true;
+                break;
+            }
         }
 
-        return sum / totalWeight;
-    }
-
-    private double calculateLinearTrend(List<Integer> usages) {
-        int n = usages.size();
-        if (n < 2) return usages.isEmpty() ? 0.0 : usages.get(0);
-
-        double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0;
-
-        for (int i = 0; i < n; i++) {
-            sumX += i;
-            sumY += usages.get(i);
-            sumXY += i * usages.get(i);
-            sumX2 += i * i;
+        if (!hasUsage) {
+            return new MonthlyForecast(nextMonth, 0, "NO_DATA", 0.0);
         }
 
-        double slope = (n * sumXY - sumX * sumY) / (n * sumX2 - sumX * sumX);
-        double intercept = (sumY - slope * sumX) / n;
+        ForecastBacktester.BacktestResult result = forecastBacktester.selectBestModel(monthlyUsages);
 
-        return slope * n + intercept;
+        return new MonthlyForecast(nextMonth, (int) Math.round(result.getPredictedNextPeriod()),
+                result.getModelName(), result.getAccuracy());
     }
 
-    private TrendAnalysis analyzeTrend(List<Integer> usages) {
-        if (usages.size() < 2) {
+    private TrendAnalysis analyzeTrend(double[] usages) {
+        // วิเคราะห์แนวโน้มจาก ANALYSIS_MONTHS เดือนล่าสุด
+        int from = Math.max(0, usages.length - ANALYSIS_MONTHS);
+        int size = usages.length - from;
+        if (size < 2) {
             return new TrendAnalysis("STABLE", 0.0, 0);
         }
 
-        int mid = usages.size() / 2;
-        double firstHalfAvg = usages.subList(0, mid).stream().mapToInt(Integer::intValue).average().orElse(0.0);
-        double secondHalfAvg = usages.subList(mid, usages.size()).stream().mapToInt(Integer::intValue).average().orElse(0.0);
+        int mid = from + size / 2;
+        double firstHalfAvg = average(usages, from, mid);
+        double secondHalfAvg = average(usages, mid, usages.length);
 
         double changePercent = ((secondHalfAvg - firstHalfAvg) / (firstHalfAvg == 0 ? 1 : firstHalfAvg)) * 100;
 
@@ -251,6 +213,15 @@ public class StockForecastService {
         return new TrendAnalysis(trend, changePercent, direction);
     }
 
+    private static double average(double[] values, int from, int to) {
+        if (to <= from) return 0.0;
+        double sum = 0.0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+
     private StockForecast createEnhancedForecast(StockBase stockItem, MonthlyUsageAnalysis monthlyAnalysis,
                                                  MonthlyForecast nextMonthForecast, int analysisBaseDays) {
         Optional<StockForecast> existingForecast = stockForecastRepository
@@ -305,6 +276,9 @@ public class StockForecastService {
         }
 
         forecast.setAnalysisBasedOnDays(analysisBaseDays);
+        forecast.setPredictedNextMonthUsage(predictedNextMonth);
+        forecast.setForecastModel(nextMonthForecast.getForecastMethod());
+        forecast.setForecastAccuracy(nextMonthForecast.getConfidence());
         forecast.calculateUrgencyLevel();
         forecast.generateRecommendations();
 
@@ -313,7 +287,7 @@ public class StockForecastService {
                 "\n\n📈 การวิเคราะห์รายเดือน (6 เดือนย้อนหลัง):\n" +
                         "   • แนวโน้ม: %s (%.1f%%)\n" +
                         "   • คาดการณ์เดือน %s: %d ชิ้น\n" +
-                        "   • วิธีคาดการณ์: %s (ความมั่นใจ %.1f%%)\n" +
+                        "   • วิธีคาดการณ์: %s (ความแม่นยำย้อนหลัง %.1f%%)\n" +
                         "   • แนะนำสั่งซื้อ: %d ชิ้น (%.2f บาท)",
                 trend.getTrend(), trend.getChangePercent(),
                 nextMonthForecast.getNextMonth(), nextMonthForecast.getPredictedUsage(),
@@ -419,27 +393,28 @@ public class StockForecastService {
 
     private static class MonthlyUsageAnalysis {
         private final Map<YearMonth, MonthlyUsageData> monthlyData;
-        private final List<Integer> monthlyUsages;
+        private final double[] monthlyUsages;
         private final double averageMonthlyUsage;
 
         public MonthlyUsageAnalysis() {
             this.monthlyData = new TreeMap<>();
-            this.monthlyUsages = new ArrayList<>();
+            this.monthlyUsages = new double[0];
             this.averageMonthlyUsage = 0.0;
         }
 
         public MonthlyUsageAnalysis(Map<YearMonth, MonthlyUsageData> monthlyData) {
             this.monthlyData = monthlyData;
-            this.monthlyUsages = monthlyData.values().stream()
-                    .map(MonthlyUsageData::getTotalUsage)
-                    .collect(Collectors.toList());
-            this.averageMonthlyUsage = monthlyUsages.stream()
-                    .mapToInt(Integer::intValue)
-                    .average()
-                    .orElse(0.0);
+            this.monthlyUsages = new double[monthlyData.size()];
+            int i = 0;
+            for (MonthlyUsageData data : monthlyData.values()) {
+                monthlyUsages[i++] = data.getTotalUsage();
+            }
+            // ค่าเฉลี่ยยังคงคิดจาก ANALYSIS_MONTHS เดือนล่าสุดเหมือนเดิม
+            this.averageMonthlyUsage = average(monthlyUsages,
+                    Math.max(0, monthlyUsages.length - ANALYSIS_MONTHS), monthlyUsages.length);
         }
 
-        public List<Integer> getMonthlyUsages() {
+        public double[] getMonthlyUsages() {
             return monthlyUsages;
         }
 
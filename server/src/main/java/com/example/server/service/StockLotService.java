@@ -1,20 +1,28 @@
 package com.example.server.service;
 
+import com.example.server.dto.StockCostSummaryRow;
+import com.example.server.dto.StockLotDTO;
+import com.example.server.dto.StockLotListRow;
 import com.example.server.dto.StockLotSummaryDTO;
 import com.example.server.dto.SystemSummaryDTO;
 import com.example.server.entity.ChinaStock;
 import com.example.server.entity.StockBase;
 import com.example.server.entity.StockLot;
 import com.example.server.entity.ThaiStock;
+import com.example.server.mapper.StockMapper;
+import com.example.server.respository.ChinaStockRepository;
+import com.example.server.respository.StockBaseRepository;
 import com.example.server.respository.StockLotRepository;
+import com.example.server.respository.ThaiStockRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -26,19 +34,29 @@ public class StockLotService {
     @Autowired
     private TransactionService transactionService;
 
-    @Transactional(readOnly = true)
-    public List<StockLot> getAllStockLots() {
-        try {
-            List<StockLot> lots = stockLotRepository.findAll();
+    @Autowired
+    private StockBaseRepository stockBaseRepository;
 
-            // Force initialization ของ lazy collections
-            lots.forEach(lot -> {
-                if (lot.getItems() != null) {
-                    lot.getItems().size(); // Force loading
-                }
-            });
+    @Autowired
+    private ChinaStockRepository chinaStockRepository;
+
+    @Autowired
+    private ThaiStockRepository thaiStockRepository;
+
+    @Autowired
+    private StockMapper stockMapper;
 
-            return lots;
+    // จำนวน lot id สูงสุดต่อ IN (...) หนึ่งครั้ง
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /**
+     * ⭐ รายการ Lot แบบเบา: ข้อมูล Lot จาก projection + ยอดรวมจาก aggregate query
+     * จำนวน query คงที่และไม่โหลด stock item (ยกเว้น includeItems = true → โหลด items ทุก Lot ใน query เดียว)
+     */
+    @Transactional(readOnly = true)
+    public List<StockLotDTO> getStockLotList(boolean includeItems) {
+        try {
+            return toStockLotListDTOs(stockLotRepository.findListRows(), includeItems);
         } catch (Exception e) {
             throw new RuntimeException("Error loading stock lots: " + e.getMessage(), e);
         }
@@ -81,18 +99,9 @@ public class StockLotService {
     }
 
     @Transactional(readOnly = true)
-    public List<StockLot> getStockLotsByStatus(StockLot.StockStatus status) {
+    public List<StockLotDTO> getStockLotListByStatus(StockLot.StockStatus status, boolean includeItems) {
         try {
-            List<StockLot> lots = stockLotRepository.findByStatus(status);
-
-            // Force initialization
-            lots.forEach(lot -> {
-                if (lot.getItems() != null) {
-                    lot.getItems().size();
-                }
-            });
-
-            return lots;
+            return toStockLotListDTOs(stockLotRepository.findListRowsByStatus(status), includeItems);
         } catch (Exception e) {
             throw new RuntimeException("Error loading stock lots by status: " + status, e);
         }
@@ -160,6 +169,7 @@ public class StockLotService {
             // เปลี่ยนสถานะเป็น COMPLETED
             stockLot.setStatus(StockLot.StockStatus.COMPLETED);
             StockLot savedLot = stockLotRepository.save(stockLot);
+            initializeItems(savedLot);
 
             // ✅ สร้าง Transaction
             try {
@@ -208,7 +218,7 @@ public class StockLotService {
                 stockLot.setStatus(stockLotDetails.getStatus());
             }
 
-            return stockLotRepository.save(stockLot);
+            return initializeItems(stockLotRepository.save(stockLot));
         } catch (Exception e) {
             throw new RuntimeException("Error updating stock lot: " + e.getMessage(), e);
         }
@@ -220,7 +230,7 @@ public class StockLotService {
                     .orElseThrow(() -> new RuntimeException("Stock lot not found with id: " + id));
 
             stockLot.setStatus(status);
-            return stockLotRepository.save(stockLot);
+            return initializeItems(stockLotRepository.save(stockLot));
         } catch (Exception e) {
             throw new RuntimeException("Error updating stock lot status: " + e.getMessage(), e);
         }
@@ -243,26 +253,49 @@ public class StockLotService {
     }
 
     @Transactional(readOnly = true)
-    public List<StockLot> getStockLotsByDateRange(LocalDateTime startDate, LocalDateTime endDate, String dateType) {
+    public List<StockLotDTO> getStockLotListByDateRange(LocalDateTime startDate, LocalDateTime endDate,
+                                                        String dateType, boolean includeItems) {
         try {
-            List<StockLot> lots;
+            List<StockLotListRow> rows;
             if ("arrival".equalsIgnoreCase(dateType)) {
-                lots = stockLotRepository.findByArrivalDateBetween(startDate, endDate);
+                rows = stockLotRepository.findListRowsByArrivalDateBetween(startDate, endDate);
             } else {
-                lots = stockLotRepository.findByImportDateBetween(startDate, endDate);
+                rows = stockLotRepository.findListRowsByImportDateBetween(startDate, endDate);
             }
+            return toStockLotListDTOs(rows, includeItems);
+        } catch (Exception e) {
+            throw new RuntimeException("Error loading stock lots by date range: " + e.getMessage(), e);
+        }
+    }
 
-            // Force initialization
-            lots.forEach(lot -> {
-                if (lot.getItems() != null) {
-                    lot.getItems().size();
+    private List<StockLotDTO> toStockLotListDTOs(List<StockLotListRow> rows, boolean includeItems) {
+        Map<Long, StockCostSummaryRow> chinaCosts = new HashMap<>();
+        Map<Long, StockCostSummaryRow> thaiCosts = new HashMap<>();
+        Map<Long, List<StockBase>> itemsByLot = new HashMap<>();
+
+        List<Long> lotIds = rows.stream().map(StockLotListRow::getStockLotId).collect(Collectors.toList());
+        for (int from = 0; from < lotIds.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = lotIds.subList(from, Math.min(from + IN_CLAUSE_CHUNK, lotIds.size()));
+
+            chinaStockRepository.summarizeCostsByLotIds(chunk)
+                    .forEach(row -> chinaCosts.put(row.getStockLotId(), row));
+            thaiStockRepository.summarizeCostsByLotIds(chunk)
+                    .forEach(row -> thaiCosts.put(row.getStockLotId(), row));
+
+            if (includeItems) {
+                for (StockBase item : stockBaseRepository.findByStockLotIdInOrderByStockItemId(chunk)) {
+                    itemsByLot.computeIfAbsent(item.getStockLotId(), id -> new ArrayList<>()).add(item);
                 }
-            });
+            }
+        }
 
-            return lots;
-        } catch (Exception e) {
-            throw new RuntimeException("Error loading stock lots by date range: " + e.getMessage(), e);
+        List<StockLotDTO> dtos = new ArrayList<>(rows.size());
+        for (StockLotListRow row : rows) {
+            Long lotId = row.getStockLotId();
+            List<StockBase> items = includeItems ? itemsByLot.getOrDefault(lotId, List.of()) : null;
+            dtos.add(stockMapper.toStockLotListDTO(row, chinaCosts.get(lotId), thaiCosts.get(lotId), items));
         }
+        return dtos;
     }
 
     // ============================================
@@ -325,9 +358,45 @@ public class StockLotService {
 
         return total.setScale(3, RoundingMode.HALF_UP);
     }
+    /**
+     * ⭐ ยอดรวมของ Lot แบบเดียวกับ calculateTotalCost(StockLot) ด้วย aggregate query - ไม่โหลด items
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal calculateTotalCost(Long stockLotId) {
+        List<Long> lotIds = List.of(stockLotId);
+        StockCostSummaryRow china = chinaStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null);
+        StockCostSummaryRow thai = thaiStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null);
+        return amount(china, StockCostSummaryRow::getTotalCost)
+                .add(amount(thai, StockCostSummaryRow::getTotalCost))
+                .setScale(3, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * ✅ ต้นทุนสำหรับ Transaction ซื้อ Lot (China: totalBath, Thai: calculateTotalCost()) ด้วย aggregate query
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal calculatePurchaseCost(Long stockLotId) {
+        List<Long> lotIds = List.of(stockLotId);
+        StockCostSummaryRow china = chinaStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null);
+        StockCostSummaryRow thai = thaiStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null);
+        return amount(china, StockCostSummaryRow::getTotalCostBeforeVat)
+                .add(amount(thai, StockCostSummaryRow::getTotalCost));
+    }
+
+    /**
+     * ✅ จำนวน item ใน Lot (China + Thai) ด้วย count query
+     */
+    @Transactional(readOnly = true)
+    public int countItems(Long stockLotId) {
+        List<Long> lotIds = List.of(stockLotId);
+        return (int) (itemCount(chinaStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null))
+                + itemCount(thaiStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null)));
+    }
+
     /**
      * ⭐ แก้ไข: getStockLotSummary คำนวณแยก beforeVat / vatAmount / withVat
      *    เหมือนกับ logic ในหน้า stock-lot-detail (Frontend)
+     *    - คำนวณด้วย aggregate query (VAT ปัดราย item ก่อนรวม) ไม่โหลด items
      */
     @Transactional(readOnly = true)
     public StockLotSummaryDTO getStockLotSummary(Long stockLotId) {
@@ -338,60 +407,20 @@ public class StockLotService {
         summary.setStockLotId(stockLot.getStockLotId());
         summary.setLotName(stockLot.getLotName());
 
-        List<StockBase> items = stockLot.getItems();
-        if (items == null || items.isEmpty()) {
-            summary.setTotalItemCount(0);
-            summary.setChinaItemCount(0);
-            summary.setThaiItemCount(0);
-            summary.setTotalCostBeforeVat(BigDecimal.ZERO);
-            summary.setTotalVatAmount(BigDecimal.ZERO);
-            summary.setTotalCostWithVat(BigDecimal.ZERO);
-            return summary;
-        }
+        List<Long> lotIds = List.of(stockLotId);
+        StockCostSummaryRow china = chinaStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null);
+        StockCostSummaryRow thai = thaiStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null);
 
-        // นับจำนวน items
-        long chinaCount = items.stream().filter(i -> i instanceof ChinaStock).count();
-        long thaiCount  = items.stream().filter(i -> i instanceof ThaiStock).count();
-        summary.setTotalItemCount(items.size());
-        summary.setChinaItemCount((int) chinaCount);
-        summary.setThaiItemCount((int) thaiCount);
+        int chinaCount = (int) itemCount(china);
+        int thaiCount = (int) itemCount(thai);
+        summary.setTotalItemCount(chinaCount + thaiCount);
+        summary.setChinaItemCount(chinaCount);
+        summary.setThaiItemCount(thaiCount);
 
-        // ⭐ คำนวณแยก beforeVat และ vatAmount สำหรับแต่ละ item
-        BigDecimal totalBeforeVat = BigDecimal.ZERO;
-        BigDecimal totalVat       = BigDecimal.ZERO;
-
-        for (StockBase item : items) {
-            BigDecimal baseAmount = BigDecimal.ZERO;
-            BigDecimal vatPct     = BigDecimal.ZERO;
-            boolean    includeVat = false;
-
-            if (item instanceof ChinaStock) {
-                ChinaStock china = (ChinaStock) item;
-                // totalBath = ยอดก่อน VAT (รวม shipping จีน-ไทยแล้ว)
-                baseAmount = china.getTotalBath() != null ? china.getTotalBath() : BigDecimal.ZERO;
-                vatPct     = china.getVatPercentage() != null ? china.getVatPercentage() : BigDecimal.ZERO;
-                includeVat = Boolean.TRUE.equals(china.getIncludeVat());
-
-            } else if (item instanceof ThaiStock) {
-                ThaiStock thai = (ThaiStock) item;
-                // priceTotal + shippingCost = ยอดก่อน VAT
-                BigDecimal price    = thai.getPriceTotal()  != null ? thai.getPriceTotal()  : BigDecimal.ZERO;
-                BigDecimal shipping = thai.getShippingCost() != null ? thai.getShippingCost() : BigDecimal.ZERO;
-                baseAmount = price.add(shipping);
-                vatPct     = thai.getVatPercentage() != null ? thai.getVatPercentage() : BigDecimal.ZERO;
-                includeVat = Boolean.TRUE.equals(thai.getIncludeVat());
-            }
-
-            // คำนวณ VAT ของ item นี้
-            BigDecimal vatAmount = BigDecimal.ZERO;
-            if (includeVat && vatPct.compareTo(BigDecimal.ZERO) > 0) {
-                vatAmount = baseAmount.multiply(vatPct)
-                        .divide(BigDecimal.valueOf(100), 3, RoundingMode.HALF_UP);
-            }
-
-            totalBeforeVat = totalBeforeVat.add(baseAmount);
-            totalVat       = totalVat.add(vatAmount);
-        }
+        BigDecimal totalBeforeVat = amount(china, StockCostSummaryRow::getTotalCostBeforeVat)
+                .add(amount(thai, StockCostSummaryRow::getTotalCostBeforeVat));
+        BigDecimal totalVat = amount(china, StockCostSummaryRow::getTotalVatAmount)
+                .add(amount(thai, StockCostSummaryRow::getTotalVatAmount));
 
         summary.setTotalCostBeforeVat(totalBeforeVat);
         summary.setTotalVatAmount(totalVat);
@@ -402,6 +431,7 @@ public class StockLotService {
 
     /**
      * ⭐ แก้ไข: System Summary ให้ใช้ Grand Total
+     *    - นับเฉพาะ items ที่อยู่ใน Lot ด้วย count / aggregate query (ไม่วนลูป Lot และ items)
      */
     @Transactional(readOnly = true)
     public SystemSummaryDTO getSystemSummary() {
@@ -411,54 +441,42 @@ public class StockLotService {
         long totalLots = stockLotRepository.count();
         summary.setTotalLots((int) totalLots);
 
-        // ดึง Stock Lots ทั้งหมด
-        List<StockLot> allLots = stockLotRepository.findAll();
-
-        int totalItems = 0;
-        int totalChinaItems = 0;
-        int totalThaiItems = 0;
-        int activeItems = 0;
-        BigDecimal totalInventoryValue = BigDecimal.ZERO;
-
-        for (StockLot lot : allLots) {
-            List<StockBase> items = lot.getItems();
-            if (items != null && !items.isEmpty()) {
-                totalItems += items.size();
-
-                for (StockBase item : items) {
-                    // นับประเภท
-                    if (item instanceof ChinaStock) {
-                        totalChinaItems++;
-                        ChinaStock chinaStock = (ChinaStock) item;
-
-                        // ⭐ ใช้ calculateTotalCost() ที่รวม Buffer
-                        totalInventoryValue = totalInventoryValue.add(chinaStock.calculateTotalCost());
-
-                        if (StockBase.StockStatus.ACTIVE.equals(chinaStock.getStatus())) {
-                            activeItems++;
-                        }
-                    } else if (item instanceof ThaiStock) {
-                        totalThaiItems++;
-                        ThaiStock thaiStock = (ThaiStock) item;
-
-                        // ⭐ ใช้ calculateTotalCost() ที่รวม Buffer
-                        totalInventoryValue = totalInventoryValue.add(thaiStock.calculateTotalCost());
-
-                        if (StockBase.StockStatus.ACTIVE.equals(thaiStock.getStatus())) {
-                            activeItems++;
-                        }
-                    }
-                }
-            }
-        }
+        StockCostSummaryRow china = chinaStockRepository.summarizeCostsInLots();
+        StockCostSummaryRow thai = thaiStockRepository.summarizeCostsInLots();
 
-        summary.setTotalItems(totalItems);
+        int totalChinaItems = (int) itemCount(china);
+        int totalThaiItems = (int) itemCount(thai);
+        long activeItems = stockBaseRepository.countByStatusAndStockLotIdIsNotNull(StockBase.StockStatus.ACTIVE);
+
+        // ⭐ ผลรวม calculateTotalCost() ที่รวม Buffer
+        BigDecimal totalInventoryValue = amount(china, StockCostSummaryRow::getTotalCost)
+                .add(amount(thai, StockCostSummaryRow::getTotalCost));
+
+        summary.setTotalItems(totalChinaItems + totalThaiItems);
         summary.setTotalChinaItems(totalChinaItems);
         summary.setTotalThaiItems(totalThaiItems);
-        summary.setActiveItems(activeItems);
+        summary.setActiveItems((int) activeItems);
         summary.setTotalInventoryValue(totalInventoryValue);
 
         return summary;
     }
 
+    // items เป็น LAZY - โหลดภายใน transaction ก่อนส่งให้ StockMapper.toStockLotDTO() นอก transaction
+    private StockLot initializeItems(StockLot stockLot) {
+        if (stockLot.getItems() != null) {
+            stockLot.getItems().size();
+        }
+        return stockLot;
+    }
+
+    private long itemCount(StockCostSummaryRow row) {
+        return row != null && row.getItemCount() != null ? row.getItemCount() : 0L;
+    }
+
+    // SUM ของแถวว่างเป็น null → ศูนย์
+    private BigDecimal amount(StockCostSummaryRow row, Function<StockCostSummaryRow, BigDecimal> getter) {
+        BigDecimal value = row != null ? getter.apply(row) : null;
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
 }
\ No newline at end of file
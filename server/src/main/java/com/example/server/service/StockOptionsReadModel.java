@@ -0,0 +1,396 @@
+package com.example.server.service;
+
+import com.example.server.dto.StockOptionDTO;
+import com.example.server.dto.StockOptionRow;
+import com.example.server.entity.ChinaStock;
+import com.example.server.entity.StockBase;
+import com.example.server.entity.StockLot;
+import com.example.server.entity.ThaiStock;
+import com.example.server.event.DomainDataChangedEvent;
+import com.example.server.respository.ChinaStockRepository;
+import com.example.server.respository.ThaiStockRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ⭐ Read model ของตัวเลือก stock (ACTIVE) สำหรับหน้าแก้ไขสินค้า - เก็บในหน่วยความจำ เรียงตามชื่อไว้แล้ว
+ * - โหลดครั้งแรกด้วย query เดียวต่อประเภท (join ชื่อ Lot) แทน findById ของ Lot ทีละรายการ
+ * - เมื่อ ChinaStock/ThaiStock/StockLot ถูกเขียน จะโหลดใหม่เฉพาะรายการที่เกี่ยวข้องหลัง commit
+ *   (รวมทุก id ใน transaction เดียวกันแล้วโหลดครั้งเดียว)
+ * - การอ่านใช้ snapshot ที่แก้ไขไม่ได้ จึงไม่ต้อง lock และไม่แตะ DB
+ */
+@Service
+public class StockOptionsReadModel {
+
+    public static final String TYPE_CHINA = "CHINA";
+    public static final String TYPE_THAI = "THAI";
+
+    private static final Object PENDING_CHANGES_KEY = new Object();
+    private static final int ID_CHUNK_SIZE = 500;
+
+    private static final Comparator<Entry> BY_NAME = Comparator
+            .comparing((Entry e) -> e.name, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(e -> e.stockItemId);
+
+    private static final Comparator<Entry> BY_LOT_THEN_NAME = Comparator
+            .comparing((Entry e) -> e.lotName, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(BY_NAME);
+
+    @Autowired private ChinaStockRepository chinaStockRepository;
+    @Autowired private ThaiStockRepository thaiStockRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    // โหลด/แก้ snapshot ทีละงาน - งานที่ได้ lock ทีหลังอ่านข้อมูลที่ใหม่กว่าเสมอ
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicLong incrementalRefreshes = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+
+    private TransactionTemplate readOnlyTemplate;
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("❌ Stock options warm-up failed: " + e.getMessage());
+        }
+    }
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    /**
+     * ✅ ตัวเลือกทั้งหมด เรียงตามชื่อ
+     */
+    public List<StockOptionDTO> getAll() {
+        return toDTOs(current().byName, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * ✅ ค้นหาแบบ typeahead + แบ่งหน้า (ค้นใน ชื่อ / ชื่อ Lot / shop URL ไม่สนตัวพิมพ์เล็กใหญ่)
+     *
+     * @param query         คำค้น (null/ว่าง = ทั้งหมด)
+     * @param type          CHINA / THAI (null = ทุกประเภท)
+     * @param availableOnly true = เฉพาะรายการที่ยังมีของ (quantity > 0)
+     * @param page          หน้าที่ (เริ่มที่ 0)
+     * @param size          จำนวนต่อหน้า
+     */
+    public Map<String, Object> search(String query, String type, boolean availableOnly, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("page ต้องไม่ติดลบ และ size ต้องมากกว่า 0");
+        }
+
+        Snapshot current = current();
+        List<Entry> matches = filter(current.byName, query, true, type, availableOnly);
+
+        long offset = (long) page * size;
+        int from = (int) Math.min(offset, matches.size());
+        int to = (int) Math.min(offset + size, matches.size());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("content", toDTOs(matches, from, to));
+        result.put("page", page);
+        result.put("size", size);
+        result.put("totalElements", matches.size());
+        result.put("totalPages", (matches.size() + size - 1) / size);
+        result.put("loadedAt", current.loadedAt);
+        return result;
+    }
+
+    /**
+     * ✅ รายการที่ยังมีของตามคำค้น เรียงตามชื่อ Lot แล้วชื่อ (ใช้แสดงตัวเลือกแบบแบ่งกลุ่มตาม Lot)
+     * ค้นเฉพาะ ชื่อ / shop URL เหมือน searchByKeyword เดิม - ไม่ค้นชื่อ Lot
+     */
+    public List<StockOptionDTO> searchGroupedByLot(String query) {
+        List<Entry> matches = new ArrayList<>(filter(current().byName, query, false, null, true));
+        matches.sort(BY_LOT_THEN_NAME);
+        return toDTOs(matches, 0, matches.size());
+    }
+
+    private List<Entry> filter(List<Entry> entries, String query, boolean matchLotName,
+                               String type, boolean availableOnly) {
+        String needle = query != null ? query.trim().toLowerCase(Locale.ROOT) : "";
+        if (needle.isEmpty() && type == null && !availableOnly) {
+            return entries;
+        }
+
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (type != null && !type.equalsIgnoreCase(entry.type)) continue;
+            if (availableOnly && (entry.availableQuantity == null || entry.availableQuantity <= 0)) continue;
+            if (!needle.isEmpty() && !(matchLotName ? entry.searchText : entry.keywordText).contains(needle)) continue;
+            matches.add(entry);
+        }
+        return matches;
+    }
+
+    private List<StockOptionDTO> toDTOs(List<Entry> entries, int from, int to) {
+        int end = Math.min(to, entries.size());
+        List<StockOptionDTO> options = new ArrayList<>(Math.max(0, end - from));
+        for (int i = from; i < end; i++) {
+            options.add(entries.get(i).toDTO());
+        }
+        return options;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        refreshLock.lock();
+        try {
+            if (snapshot == null) {
+                rebuild();
+            }
+            return snapshot;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // ============================================
+    // MAINTENANCE
+    // ============================================
+
+    /**
+     * ✅ รับการเปลี่ยนแปลงของ stock/lot - ถ้าอยู่ใน transaction จะสะสมไว้แล้วโหลดใหม่ครั้งเดียวหลัง commit
+     */
+    @EventListener
+    public void onDomainDataChanged(DomainDataChangedEvent event) {
+        Class<?> entityType = event.getEntityType();
+        boolean stockChange = entityType == ChinaStock.class || entityType == ThaiStock.class;
+        boolean lotChange = entityType == StockLot.class;
+        if ((!stockChange && !lotChange) || !(event.getEntityId() instanceof Long id)) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(stockChange ? Set.of(id) : Set.of(), lotChange ? Set.of(id) : Set.of());
+            return;
+        }
+
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(PENDING_CHANGES_KEY);
+        if (pending == null) {
+            PendingChanges newPending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(PENDING_CHANGES_KEY, newPending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(newPending.stockItemIds, newPending.stockLotIds);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_CHANGES_KEY);
+                }
+            });
+            pending = newPending;
+        }
+
+        if (stockChange) {
+            pending.stockItemIds.add(id);
+        } else {
+            pending.stockLotIds.add(id);
+        }
+    }
+
+    /**
+     * โหลดใหม่เฉพาะ stock ที่ระบุ และทุก stock ในล็อตที่ระบุ (รายการที่ไม่ ACTIVE หรือถูกลบจะถูกเอาออก)
+     * ถ้าล้มเหลวจะทิ้ง snapshot ไว้ให้โหลดใหม่ทั้งหมดในการอ่านครั้งถัดไป - ข้อมูลหลัก commit ไปแล้ว
+     */
+    public void refresh(Collection<Long> stockItemIds, Collection<Long> stockLotIds) {
+        if (stockItemIds.isEmpty() && stockLotIds.isEmpty()) {
+            return;
+        }
+
+        refreshLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return; // ยังไม่เคยโหลด - การอ่านครั้งแรกจะโหลดทั้งหมดอยู่แล้ว
+            }
+
+            Set<Long> affectedIds = new HashSet<>(stockItemIds);
+            for (Entry entry : current.byName) {
+                if (entry.stockLotId != null && stockLotIds.contains(entry.stockLotId)) {
+                    affectedIds.add(entry.stockItemId);
+                }
+            }
+
+            List<Entry> reloaded = readOnlyTemplate.execute(status -> {
+                List<Entry> rows = new ArrayList<>();
+                for (List<Long> chunk : chunks(stockItemIds)) {
+                    addRows(rows, chinaStockRepository.findStockOptionRowsByIds(chunk), TYPE_CHINA);
+                    addRows(rows, thaiStockRepository.findStockOptionRowsByIds(chunk), TYPE_THAI);
+                }
+                for (List<Long> chunk : chunks(stockLotIds)) {
+                    addRows(rows, chinaStockRepository.findStockOptionRowsByLotIds(chunk), TYPE_CHINA);
+                    addRows(rows, thaiStockRepository.findStockOptionRowsByLotIds(chunk), TYPE_THAI);
+                }
+                return rows;
+            });
+
+            Map<Long, Entry> byId = new HashMap<>(current.byId);
+            byId.keySet().removeAll(affectedIds);
+            for (Entry entry : reloaded) {
+                if (entry.status == StockBase.StockStatus.ACTIVE) {
+                    byId.put(entry.stockItemId, entry);
+                }
+            }
+
+            snapshot = new Snapshot(byId, current.loadedAt);
+            incrementalRefreshes.incrementAndGet();
+
+        } catch (Exception e) {
+            failedRefreshes.incrementAndGet();
+            snapshot = null;
+            System.err.println("❌ Stock options refresh failed (will reload on next read): " + e.getMessage());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * ✅ โหลดตัวเลือกทั้งหมดใหม่ (ใช้ครั้งแรก หรือหลังแก้ข้อมูลด้วย SQL ตรง)
+     */
+    public void rebuild() {
+        refreshLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            List<Entry> rows = readOnlyTemplate.execute(status -> {
+                List<Entry> all = new ArrayList<>();
+                addRows(all, chinaStockRepository.findStockOptionRowsByStatus(StockBase.StockStatus.ACTIVE), TYPE_CHINA);
+                addRows(all, thaiStockRepository.findStockOptionRowsByStatus(StockBase.StockStatus.ACTIVE), TYPE_THAI);
+                return all;
+            });
+
+            Map<Long, Entry> byId = new HashMap<>();
+            for (Entry entry : rows) {
+                byId.put(entry.stockItemId, entry);
+            }
+            snapshot = new Snapshot(byId, LocalDateTime.now());
+
+            System.out.println("✅ Stock options loaded: " + byId.size() + " items in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Snapshot current = snapshot;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("loaded", current != null);
+        status.put("items", current != null ? current.byName.size() : 0);
+        status.put("loadedAt", current != null ? current.loadedAt : null);
+        status.put("incrementalRefreshes", incrementalRefreshes.get());
+        status.put("failedRefreshes", failedRefreshes.get());
+        return status;
+    }
+
+    private static void addRows(List<Entry> target, List<StockOptionRow> rows, String type) {
+        for (StockOptionRow row : rows) {
+            target.add(new Entry(row, type));
+        }
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += ID_CHUNK_SIZE) {
+            chunks.add(all.subList(i, Math.min(i + ID_CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+
+    // ============================================
+    // INTERNAL STATE
+    // ============================================
+
+    private static class PendingChanges {
+        private final Set<Long> stockItemIds = new HashSet<>();
+        private final Set<Long> stockLotIds = new HashSet<>();
+    }
+
+    /**
+     * ข้อมูลทั้งชุด ณ เวลาหนึ่ง (แก้ไขไม่ได้ - แทนที่ทั้งก้อนเมื่อมีการเปลี่ยนแปลง)
+     */
+    private static final class Snapshot {
+        private final Map<Long, Entry> byId;
+        private final List<Entry> byName;
+        private final LocalDateTime loadedAt;
+
+        Snapshot(Map<Long, Entry> byId, LocalDateTime loadedAt) {
+            this.byId = Collections.unmodifiableMap(byId);
+            List<Entry> sorted = new ArrayList<>(byId.values());
+            sorted.sort(BY_NAME);
+            this.byName = Collections.unmodifiableList(sorted);
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static final class Entry {
+        private final Long stockItemId;
+        private final String name;
+        private final String type;
+        private final BigDecimal unitCost;
+        private final Integer availableQuantity;
+        private final StockBase.StockStatus status;
+        private final Long stockLotId;
+        private final String lotName;
+        private final String searchText;
+        private final String keywordText;
+
+        Entry(StockOptionRow row, String type) {
+            this.stockItemId = row.getStockItemId();
+            this.name = row.getName();
+            this.type = type;
+            this.unitCost = row.getUnitCost();
+            this.availableQuantity = row.getAvailableQuantity();
+            this.status = row.getStatus();
+            this.stockLotId = row.getStockLotId();
+            this.lotName = row.getLotName();
+            this.keywordText = ((name != null ? name : "") + "\n"
+                    + (row.getShopURL() != null ? row.getShopURL() : "")).toLowerCase(Locale.ROOT);
+            this.searchText = (lotName != null ? lotName.toLowerCase(Locale.ROOT) : "") + "\n" + keywordText;
+        }
+
+        StockOptionDTO toDTO() {
+            StockOptionDTO option = new StockOptionDTO();
+            option.setStockItemId(stockItemId);
+            option.setName(name);
+            option.setType(type);
+            option.setUnitCost(unitCost);
+            option.setAvailableQuantity(availableQuantity);
+            option.setStatus(status != null ? status.name() : null);
+            option.setStockLotId(stockLotId);
+            option.setLotName(lotName);
+            return option;
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package com.example.server.service;
 
-import com.example.server.entity.ChinaStock;
-import com.example.server.entity.ThaiStock;
-import com.example.server.entity.StockLot;
+import com.example.server.dto.StockCostSummaryRow;
 import com.example.server.entity.StockBase;
 import com.example.server.respository.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,55 +24,27 @@ public class StockSummaryService {
 
     /**
      * ⭐ แก้ไข: Get summary statistics for a stock lot (รวม Buffer)
+     * - คำนวณด้วย aggregate query ต่อ Lot (ไม่โหลด items)
      */
     public Map<String, Object> getStockLotSummary(Long stockLotId) {
         Map<String, Object> summary = new HashMap<>();
 
-        StockLot stockLot = stockLotRepository.findById(stockLotId)
-                .orElseThrow(() -> new RuntimeException("Stock Lot not found"));
-
-        List<StockBase> items = stockLot.getItems();
-
-        if (items == null || items.isEmpty()) {
-            summary.put("stockLotId", stockLotId);
-            summary.put("chinaTotalValue", BigDecimal.ZERO);
-            summary.put("chinaItemCount", 0L);
-            summary.put("chinaTotalQuantity", 0);
-            summary.put("thaiTotalValue", BigDecimal.ZERO);
-            summary.put("thaiItemCount", 0L);
-            summary.put("thaiTotalQuantity", 0);
-            summary.put("grandTotalValue", BigDecimal.ZERO);
-            summary.put("totalItemCount", 0L);
-            summary.put("totalQuantity", 0);
-            return summary;
+        if (!stockLotRepository.existsById(stockLotId)) {
+            throw new RuntimeException("Stock Lot not found");
         }
 
-        BigDecimal chinaTotalValue = BigDecimal.ZERO;
-        long chinaItemCount = 0;
-        int chinaTotalQuantity = 0;
+        List<Long> lotIds = List.of(stockLotId);
+        StockCostSummaryRow china = chinaStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null);
+        StockCostSummaryRow thai = thaiStockRepository.summarizeCostsByLotIds(lotIds).stream().findFirst().orElse(null);
 
-        BigDecimal thaiTotalValue = BigDecimal.ZERO;
-        long thaiItemCount = 0;
-        int thaiTotalQuantity = 0;
+        // ⭐ totalCost = ผลรวม calculateTotalCost() ที่รวม Buffer แล้ว
+        BigDecimal chinaTotalValue = totalCost(china);
+        long chinaItemCount = itemCount(china);
+        int chinaTotalQuantity = totalQuantity(china);
 
-        for (StockBase item : items) {
-            if (item instanceof ChinaStock) {
-                ChinaStock chinaStock = (ChinaStock) item;
-
-                // ⭐ ใช้ calculateTotalCost() ที่รวม Buffer แล้ว
-                chinaTotalValue = chinaTotalValue.add(chinaStock.calculateTotalCost());
-                chinaItemCount++;
-                chinaTotalQuantity += (chinaStock.getQuantity() != null ? chinaStock.getQuantity() : 0);
-
-            } else if (item instanceof ThaiStock) {
-                ThaiStock thaiStock = (ThaiStock) item;
-
-                // ⭐ ใช้ calculateTotalCost() ที่รวม Buffer แล้ว
-                thaiTotalValue = thaiTotalValue.add(thaiStock.calculateTotalCost());
-                thaiItemCount++;
-                thaiTotalQuantity += (thaiStock.getQuantity() != null ? thaiStock.getQuantity() : 0);
-            }
-        }
+        BigDecimal thaiTotalValue = totalCost(thai);
+        long thaiItemCount = itemCount(thai);
+        int thaiTotalQuantity = totalQuantity(thai);
 
         summary.put("stockLotId", stockLotId);
         summary.put("chinaTotalValue", chinaTotalValue);
@@ -94,6 +64,7 @@ public class StockSummaryService {
 
     /**
      * ⭐ แก้ไข: Get overall system summary (รวม Buffer)
+     * - count / aggregate query แทนการโหลด stock ทั้งหมด
      */
     public Map<String, Object> getSystemSummary() {
         Map<String, Object> summary = new HashMap<>();
@@ -104,24 +75,12 @@ public class StockSummaryService {
         Long totalThaiItems = thaiStockRepository.count();
 
         // Active counts
-        Long activeChinaItems = chinaStockRepository.findByStatus(ChinaStock.StockStatus.ACTIVE).stream().count();
-        Long activeThaiItems = thaiStockRepository.findByStatus(ThaiStock.StockStatus.ACTIVE).stream().count();
+        Long activeChinaItems = chinaStockRepository.countByStatus(StockBase.StockStatus.ACTIVE);
+        Long activeThaiItems = thaiStockRepository.countByStatus(StockBase.StockStatus.ACTIVE);
 
         // ⭐ คำนวณ Total Inventory Value (รวม Buffer)
-        List<ChinaStock> allChinaStocks = chinaStockRepository.findAll();
-        List<ThaiStock> allThaiStocks = thaiStockRepository.findAll();
-
-        BigDecimal totalInventoryValue = BigDecimal.ZERO;
-
-        // คำนวณจาก China Stocks
-        for (ChinaStock chinaStock : allChinaStocks) {
-            totalInventoryValue = totalInventoryValue.add(chinaStock.calculateTotalCost());
-        }
-
-        // คำนวณจาก Thai Stocks
-        for (ThaiStock thaiStock : allThaiStocks) {
-            totalInventoryValue = totalInventoryValue.add(thaiStock.calculateTotalCost());
-        }
+        BigDecimal totalInventoryValue = totalCost(chinaStockRepository.summarizeCosts())
+                .add(totalCost(thaiStockRepository.summarizeCosts()));
 
         summary.put("totalLots", totalLots);
         summary.put("totalChinaItems", totalChinaItems);
@@ -136,4 +95,17 @@ public class StockSummaryService {
 
         return summary;
     }
-}
\ No newline at end of file
+
+    private long itemCount(StockCostSummaryRow row) {
+        return row != null && row.getItemCount() != null ? row.getItemCount() : 0L;
+    }
+
+    private int totalQuantity(StockCostSummaryRow row) {
+        return row != null && row.getTotalQuantity() != null ? row.getTotalQuantity().intValue() : 0;
+    }
+
+    // SUM ของแถวว่างเป็น null → ศูนย์
+    private BigDecimal totalCost(StockCostSummaryRow row) {
+        return row != null && row.getTotalCost() != null ? row.getTotalCost() : BigDecimal.ZERO;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.server.service;
 
+import com.example.server.dto.StockCostSummaryRow;
 import com.example.server.entity.*;
 import com.example.server.respository.*;
 import lombok.Data;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.*;
@@ -36,6 +38,8 @@ public class SystemDataService {
     @Autowired private EmployeeRepository employeeRepository;
     @Autowired private EmployeeSalaryPaymentRepository salaryPaymentRepository;
     @Autowired private CustomerRepository customerRepository;
+    @Autowired private ProductSalesRankingService productSalesRankingService;
+    @Autowired private DailyRollupService dailyRollupService;
 
     // ============================================
     // PRODUCT DATA
@@ -79,10 +83,11 @@ public class SystemDataService {
                 });
 
         // คำนวณมูลค่ารวมของสินค้า
-        BigDecimal totalValue = allProducts.stream()
-                .map(p -> p.getSellingPrice() != null ? p.getSellingPrice() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        data.setTotalProductValue(totalValue);
+        FixedPointMoney.ExactSum totalValue = new FixedPointMoney.ExactSum();
+        for (Product product : allProducts) {
+            totalValue.add(FixedPointMoney.of(product.getSellingPrice()));
+        }
+        data.setTotalProductValue(money(totalValue));
 
         return data;
     }
@@ -98,43 +103,23 @@ public class SystemDataService {
         LocalDateTime startDate = LocalDateTime.of(year, 1, 1, 0, 0);
         LocalDateTime endDate = LocalDateTime.of(year, 12, 31, 23, 59, 59);
 
-        List<Order> yearOrders = orderRepository.findByOrderDateBetween(startDate, endDate);
-
-        // รวม OrderItems จากทุก Order
-        Map<Long, ProductSalesInfo> productSalesMap = new HashMap<>();
-
-        for (Order order : yearOrders) {
-            // ข้าม cancelled/returned
-            if (order.getStatus() == Order.OrderStatus.CANCELLED ||
-                    order.getStatus() == Order.OrderStatus.RETURNED) {
-                continue;
-            }
-
-            List<OrderItem> items = orderItemRepository.findByOrder(order);
-            for (OrderItem item : items) {
-                Long productId = item.getProduct().getProductId();
-
-                ProductSalesInfo info = productSalesMap.getOrDefault(productId,
-                        new ProductSalesInfo());
-                info.setProductId(productId);
-                info.setProductName(item.getProduct().getProductName());
-                info.setProductSku(item.getProduct().getSku());
-                info.setTotalQuantitySold(info.getTotalQuantitySold() + item.getQuantity());
-                info.setTotalRevenue(info.getTotalRevenue().add(
-                        item.getTotalPrice().multiply(BigDecimal.valueOf(item.getQuantity()))));
-
-                productSalesMap.put(productId, info);
-            }
-        }
-
-        // เรียงลำดับตามยอดขาย (quantity)
-        List<ProductSalesInfo> topProducts = productSalesMap.values().stream()
-                .sorted(Comparator.comparing(ProductSalesInfo::getTotalQuantitySold).reversed())
-                .limit(limit)
+        // ⭐ รวมยอดใน DB (GROUP BY) - ไม่ต้องโหลด OrderItem ทีละ Order
+        List<ProductSalesInfo> topProducts = productSalesRankingService
+                .rankProducts(startDate, endDate, null, null, limit, ProductSalesRankingService.RankBy.QUANTITY)
+                .stream()
+                .map(row -> {
+                    ProductSalesInfo info = new ProductSalesInfo();
+                    info.setProductId(row.getProductId());
+                    info.setProductName(row.getProductName());
+                    info.setProductSku(row.getProductSku());
+                    info.setTotalQuantitySold(row.getTotalQuantity() != null ? row.getTotalQuantity().intValue() : 0);
+                    info.setTotalRevenue(row.getTotalRevenue() != null ? row.getTotalRevenue() : BigDecimal.ZERO);
+                    return info;
+                })
                 .collect(Collectors.toList());
 
         data.setTopProducts(topProducts);
-        data.setTotalProductsSold(productSalesMap.size());
+        data.setTotalProductsSold((int) productSalesRankingService.countSoldProducts(startDate, endDate, null, null));
 
         return data;
     }
@@ -149,45 +134,45 @@ public class SystemDataService {
     public StockData getStockData() {
         StockData data = new StockData();
 
-        List<StockBase> allStocks = stockBaseRepository.findAll();
-        List<ChinaStock> chinaStocks = chinaStockRepository.findAll();
-        List<ThaiStock> thaiStocks = thaiStockRepository.findAll();
-        List<StockLot> stockLots = stockLotRepository.findAll();
+        // ⭐ count / aggregate query แทนการโหลด stock และ Lot ทั้งหมด
+        long totalChinaStocks = chinaStockRepository.count();
+        long totalThaiStocks = thaiStockRepository.count();
 
-        data.setTotalStockItems(allStocks.size());
-        data.setTotalChinaStocks(chinaStocks.size());
-        data.setTotalThaiStocks(thaiStocks.size());
-        data.setTotalStockLots(stockLots.size());
+        data.setTotalStockItems((int) stockBaseRepository.count());
+        data.setTotalChinaStocks((int) totalChinaStocks);
+        data.setTotalThaiStocks((int) totalThaiStocks);
+        data.setTotalStockLots((int) stockLotRepository.count());
 
         // นับ Stock ตาม status
-        data.setActiveStocks((int) allStocks.stream()
-                .filter(s -> s.getStatus() == StockBase.StockStatus.ACTIVE)
-                .count());
-        data.setInactiveStocks((int) allStocks.stream()
-                .filter(s -> s.getStatus() == StockBase.StockStatus.INACTIVE)
-                .count());
-
-        // คำนวณมูลค่า Stock รวม
-        BigDecimal totalChinaValue = chinaStocks.stream()
-                .map(ChinaStock::calculateTotalCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        data.setActiveStocks((int) stockBaseRepository.countByStatus(StockBase.StockStatus.ACTIVE));
+        data.setInactiveStocks((int) stockBaseRepository.countByStatus(StockBase.StockStatus.INACTIVE));
 
-        BigDecimal totalThaiValue = thaiStocks.stream()
-                .map(ThaiStock::calculateTotalCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // คำนวณมูลค่า Stock รวม (ผลรวม calculateTotalCost() ราย item)
+        BigDecimal totalChinaValue = summaryTotalCost(chinaStockRepository.summarizeCosts());
+        BigDecimal totalThaiValue = summaryTotalCost(thaiStockRepository.summarizeCosts());
 
         data.setTotalChinaStockValue(totalChinaValue);
         data.setTotalThaiStockValue(totalThaiValue);
         data.setTotalStockValue(totalChinaValue.add(totalThaiValue));
 
         // Stock Lots ตาม status
-        Map<StockLot.StockStatus, Long> lotStatusCount = stockLots.stream()
-                .collect(Collectors.groupingBy(StockLot::getStatus, Collectors.counting()));
+        Map<StockLot.StockStatus, Long> lotStatusCount = new EnumMap<>(StockLot.StockStatus.class);
+        for (StockLot.StockStatus status : StockLot.StockStatus.values()) {
+            long count = stockLotRepository.countByStatus(status);
+            if (count > 0) {
+                lotStatusCount.put(status, count);
+            }
+        }
         data.setLotStatusCounts(lotStatusCount);
 
         return data;
     }
 
+    // SUM ของแถวว่างเป็น null → ศูนย์
+    private BigDecimal summaryTotalCost(StockCostSummaryRow row) {
+        return row != null && row.getTotalCost() != null ? row.getTotalCost() : BigDecimal.ZERO;
+    }
+
     /**
      * ดึงข้อมูล Stock Forecast
 //     */
@@ -251,12 +236,13 @@ public class SystemDataService {
         data.setOrderSourceCounts(sourceCounts);
 
         // คำนวณยอดขายรวม (ไม่รวม cancelled/returned)
-        BigDecimal totalSales = allOrders.stream()
-                .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED &&
-                        o.getStatus() != Order.OrderStatus.RETURNED)
-                .map(o -> o.getNetAmount() != null ? o.getNetAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        data.setTotalSalesAmount(totalSales);
+        FixedPointMoney.ExactSum totalSales = new FixedPointMoney.ExactSum();
+        for (Order order : allOrders) {
+            if (isRevenueStatus(order.getStatus())) {
+                totalSales.add(FixedPointMoney.of(order.getNetAmount()));
+            }
+        }
+        data.setTotalSalesAmount(money(totalSales));
 
         // Order ที่มียอดสูงสุด
         allOrders.stream()
@@ -270,69 +256,45 @@ public class SystemDataService {
     }
 
     /**
-     * ดึงข้อมูลยอดขายรายเดือน
+     * ดึงข้อมูลยอดขายรายเดือน (อ่านจาก Daily Sales Rollup)
      */
     public MonthlySalesData getMonthlySalesData(int year, int month) {
-        MonthlySalesData data = new MonthlySalesData();
-        data.setYear(year);
-        data.setMonth(month);
-
         YearMonth yearMonth = YearMonth.of(year, month);
-        LocalDateTime startDate = yearMonth.atDay(1).atStartOfDay();
-        LocalDateTime endDate = yearMonth.atEndOfMonth().atTime(23, 59, 59);
-
-        List<Order> monthlyOrders = orderRepository.findByOrderDateBetween(startDate, endDate);
-
-        data.setTotalOrders(monthlyOrders.size());
-
-        // คำนวณยอดขาย (ไม่รวม cancelled/returned)
-        BigDecimal monthlyRevenue = monthlyOrders.stream()
-                .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED &&
-                        o.getStatus() != Order.OrderStatus.RETURNED)
-                .map(o -> o.getNetAmount() != null ? o.getNetAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        data.setTotalRevenue(monthlyRevenue);
-
-        // นับตาม source
-        Map<Order.OrderSource, Long> sourceCounts = monthlyOrders.stream()
-                .collect(Collectors.groupingBy(Order::getSource, Collectors.counting()));
-        data.setOrderSourceCounts(sourceCounts);
-
-        return data;
+        return toMonthlySalesData(yearMonth,
+                dailyRollupService.getSalesRollups(yearMonth.atDay(1), yearMonth.atEndOfMonth()));
     }
 
     /**
-     * ⭐ ดึงข้อมูลยอดขายรายปี (สรุปทั้งปี + แยกรายเดือน)
+     * ⭐ ดึงข้อมูลยอดขายรายปี (สรุปทั้งปี + แยกรายเดือน) - อ่าน rollup ของทั้งปีครั้งเดียว
      */
     public YearlySalesData getYearlySalesData(int year) {
         YearlySalesData data = new YearlySalesData();
         data.setYear(year);
 
-        LocalDateTime startDate = LocalDateTime.of(year, 1, 1, 0, 0);
-        LocalDateTime endDate = LocalDateTime.of(year, 12, 31, 23, 59, 59);
-
-        List<Order> yearOrders = orderRepository.findByOrderDateBetween(startDate, endDate);
+        List<DailySalesRollup> yearRollups = dailyRollupService.getSalesRollups(
+                LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        Map<Integer, List<DailySalesRollup>> rollupsByMonth = yearRollups.stream()
+                .collect(Collectors.groupingBy(r -> r.getRollupDate().getMonthValue()));
 
-        // สรุปรวมทั้งปี
+        // สรุปรวมทั้งปี (ไม่รวม cancelled/returned)
         int totalOrders = 0;
-        BigDecimal totalRevenue = BigDecimal.ZERO;
-
-        for (Order order : yearOrders) {
-            if (order.getStatus() != Order.OrderStatus.CANCELLED &&
-                    order.getStatus() != Order.OrderStatus.RETURNED) {
-                totalOrders++;
-                totalRevenue = totalRevenue.add(
-                        order.getNetAmount() != null ? order.getNetAmount() : BigDecimal.ZERO);
+        FixedPointMoney.ExactSum totalRevenue = new FixedPointMoney.ExactSum();
+
+        for (DailySalesRollup rollup : yearRollups) {
+            if (isRevenueStatus(rollup.getStatus())) {
+                totalOrders += (int) rollup.getOrderCount();
+                totalRevenue.add(FixedPointMoney.of(rollup.getNetAmount()));
             }
         }
 
         data.setTotalOrders(totalOrders);
-        data.setTotalRevenue(totalRevenue);
+        data.setTotalRevenue(money(totalRevenue));
 
         // แยกรายเดือน
         Map<Integer, MonthlyBreakdown> monthlyBreakdown = new LinkedHashMap<>();
         for (int month = 1; month <= 12; month++) {
-            MonthlySalesData monthData = getMonthlySalesData(year, month);
+            MonthlySalesData monthData = toMonthlySalesData(YearMonth.of(year, month),
+                    rollupsByMonth.getOrDefault(month, List.of()));
 
             MonthlyBreakdown breakdown = new MonthlyBreakdown();
             breakdown.setMonth(month);
@@ -355,66 +317,77 @@ public class SystemDataService {
         return data;
     }
 
-    // ============================================
-    // TRANSACTION & FINANCIAL DATA
-    // ============================================
-
-    /**
-     * ดึงข้อมูลการเงินรายเดือน
-     */
-    public MonthlyFinancialData getMonthlyFinancialData(int year, int month) {
-        MonthlyFinancialData data = new MonthlyFinancialData();
-        data.setYear(year);
-        data.setMonth(month);
-
-        YearMonth yearMonth = YearMonth.of(year, month);
-        LocalDateTime startDate = yearMonth.atDay(1).atStartOfDay();
-        LocalDateTime endDate = yearMonth.atEndOfMonth().atTime(23, 59, 59);
+    private MonthlySalesData toMonthlySalesData(YearMonth yearMonth, List<DailySalesRollup> rollups) {
+        MonthlySalesData data = new MonthlySalesData();
+        data.setYear(yearMonth.getYear());
+        data.setMonth(yearMonth.getMonthValue());
 
-        List<Transaction> transactions = transactionRepository.findByDateRange(startDate, endDate);
+        int totalOrders = 0;
+        FixedPointMoney.ExactSum monthlyRevenue = new FixedPointMoney.ExactSum();
+        Map<Order.OrderSource, Long> sourceCounts = new HashMap<>();
 
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpense = BigDecimal.ZERO;
+        for (DailySalesRollup rollup : rollups) {
+            totalOrders += (int) rollup.getOrderCount();
+            sourceCounts.merge(rollup.getSource(), rollup.getOrderCount(), Long::sum);
 
-        for (Transaction t : transactions) {
-            if (t.getType() == Transaction.TransactionType.INCOME) {
-                totalIncome = totalIncome.add(t.getAmount());
-            } else {
-                totalExpense = totalExpense.add(t.getAmount());
+            // คำนวณยอดขาย (ไม่รวม cancelled/returned)
+            if (isRevenueStatus(rollup.getStatus())) {
+                monthlyRevenue.add(FixedPointMoney.of(rollup.getNetAmount()));
             }
         }
 
-        data.setTotalIncome(totalIncome);
-        data.setTotalExpense(totalExpense);
-        data.setNetProfit(totalIncome.subtract(totalExpense));
-        data.setTransactionCount(transactions.size());
+        data.setTotalOrders(totalOrders);
+        data.setTotalRevenue(money(monthlyRevenue));
+        data.setOrderSourceCounts(sourceCounts);
+        return data;
+    }
 
-        // นับตาม category
-        Map<Transaction.TransactionCategory, Long> categoryCounts = transactions.stream()
-                .collect(Collectors.groupingBy(Transaction::getCategory, Collectors.counting()));
-        data.setCategoryCounts(categoryCounts);
+    private boolean isRevenueStatus(Order.OrderStatus status) {
+        return status != Order.OrderStatus.CANCELLED && status != Order.OrderStatus.RETURNED;
+    }
 
-        return data;
+    // ยอดรวมที่สะสมด้วย FixedPointMoney.ExactSum → BigDecimal 2 ตำแหน่ง ตามคอลัมน์เงินของ order/rollup
+    // (ExactSum สลับไปใช้ BigDecimal เองเมื่อเกินช่วงของ long - ยอดรวมไม่วนกลับเป็นค่าติดลบ)
+    private static BigDecimal money(FixedPointMoney.ExactSum sum) {
+        return sum.toBigDecimal(2);
     }
 
+    // ============================================
+    // TRANSACTION & FINANCIAL DATA
+    // ============================================
+
     /**
-     * ⭐ ดึงข้อมูลการเงินรายปี (รายรับ-รายจ่าย-กำไรทั้งปี + แยกรายเดือน)
+     * ดึงข้อมูลการเงินรายเดือน (อ่านจาก Daily Finance Rollup)
+     */
+    public MonthlyFinancialData getMonthlyFinancialData(int year, int month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return toMonthlyFinancialData(yearMonth,
+                dailyRollupService.getFinanceRollups(yearMonth.atDay(1), yearMonth.atEndOfMonth()));
+    }
+
+    /**
+     * ⭐ ดึงข้อมูลการเงินรายปี (รายรับ-รายจ่าย-กำไรทั้งปี + แยกรายเดือน) - อ่าน rollup ของทั้งปีครั้งเดียว
      */
     public YearlyFinancialData getYearlyFinancialData(int year) {
         YearlyFinancialData data = new YearlyFinancialData();
         data.setYear(year);
 
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpense = BigDecimal.ZERO;
+        Map<Integer, List<DailyFinanceRollup>> rollupsByMonth = dailyRollupService
+                .getFinanceRollups(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31)).stream()
+                .collect(Collectors.groupingBy(r -> r.getRollupDate().getMonthValue()));
+
+        FixedPointMoney.ExactSum totalIncome = new FixedPointMoney.ExactSum();
+        FixedPointMoney.ExactSum totalExpense = new FixedPointMoney.ExactSum();
         int totalTransactions = 0;
 
         Map<Integer, MonthlyFinancialBreakdown> monthlyBreakdown = new LinkedHashMap<>();
 
         for (int month = 1; month <= 12; month++) {
-            MonthlyFinancialData monthData = getMonthlyFinancialData(year, month);
+            MonthlyFinancialData monthData = toMonthlyFinancialData(YearMonth.of(year, month),
+                    rollupsByMonth.getOrDefault(month, List.of()));
 
-            totalIncome = totalIncome.add(monthData.getTotalIncome());
-            totalExpense = totalExpense.add(monthData.getTotalExpense());
+            totalIncome.add(FixedPointMoney.of(monthData.getTotalIncome()));
+            totalExpense.add(FixedPointMoney.of(monthData.getTotalExpense()));
             totalTransactions += monthData.getTransactionCount();
 
             MonthlyFinancialBreakdown breakdown = new MonthlyFinancialBreakdown();
@@ -427,9 +400,9 @@ public class SystemDataService {
             monthlyBreakdown.put(month, breakdown);
         }
 
-        data.setTotalIncome(totalIncome);
-        data.setTotalExpense(totalExpense);
-        data.setNetProfit(totalIncome.subtract(totalExpense));
+        data.setTotalIncome(money(totalIncome));
+        data.setTotalExpense(money(totalExpense));
+        data.setNetProfit(money(totalIncome).subtract(money(totalExpense)));
         data.setTotalTransactions(totalTransactions);
         data.setMonthlyBreakdown(monthlyBreakdown);
 
@@ -444,6 +417,34 @@ public class SystemDataService {
         return data;
     }
 
+    private MonthlyFinancialData toMonthlyFinancialData(YearMonth yearMonth, List<DailyFinanceRollup> rollups) {
+        MonthlyFinancialData data = new MonthlyFinancialData();
+        data.setYear(yearMonth.getYear());
+        data.setMonth(yearMonth.getMonthValue());
+
+        FixedPointMoney.ExactSum totalIncome = new FixedPointMoney.ExactSum();
+        FixedPointMoney.ExactSum totalExpense = new FixedPointMoney.ExactSum();
+        int transactionCount = 0;
+        Map<Transaction.TransactionCategory, Long> categoryCounts = new HashMap<>();
+
+        for (DailyFinanceRollup rollup : rollups) {
+            if (rollup.getType() == Transaction.TransactionType.INCOME) {
+                totalIncome.add(FixedPointMoney.of(rollup.getAmount()));
+            } else {
+                totalExpense.add(FixedPointMoney.of(rollup.getAmount()));
+            }
+            transactionCount += (int) rollup.getTransactionCount();
+            categoryCounts.merge(rollup.getCategory(), rollup.getTransactionCount(), Long::sum);
+        }
+
+        data.setTotalIncome(money(totalIncome));
+        data.setTotalExpense(money(totalExpense));
+        data.setNetProfit(money(totalIncome).subtract(money(totalExpense)));
+        data.setTransactionCount(transactionCount);
+        data.setCategoryCounts(categoryCounts);
+        return data;
+    }
+
     // ============================================
     // EMPLOYEE & SALARY DATA
     // ============================================
@@ -494,11 +495,16 @@ public class SystemDataService {
 
         data.setTotalPayments(payments.size());
 
-        BigDecimal totalPaid = payments.stream()
-                .filter(p -> p.getStatus() == EmployeeSalaryPayment.PaymentStatus.PAID)
-                .map(EmployeeSalaryPayment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        data.setTotalPaid(totalPaid);
+        FixedPointMoney.ExactSum totalPaid = new FixedPointMoney.ExactSum();
+        FixedPointMoney.ExactSum pending = new FixedPointMoney.ExactSum();
+        for (EmployeeSalaryPayment payment : payments) {
+            if (payment.getStatus() == EmployeeSalaryPayment.PaymentStatus.PAID) {
+                totalPaid.add(FixedPointMoney.of(payment.getAmount()));
+            } else if (payment.getStatus() == EmployeeSalaryPayment.PaymentStatus.PENDING) {
+                pending.add(FixedPointMoney.of(payment.getAmount()));
+            }
+        }
+        data.setTotalPaid(money(totalPaid));
 
         data.setMonthlyPayments((int) payments.stream()
                 .filter(p -> p.getType() == EmployeeSalaryPayment.PaymentType.MONTHLY)
@@ -507,11 +513,7 @@ public class SystemDataService {
                 .filter(p -> p.getType() == EmployeeSalaryPayment.PaymentType.DAILY)
                 .count());
 
-        BigDecimal pending = payments.stream()
-                .filter(p -> p.getStatus() == EmployeeSalaryPayment.PaymentStatus.PENDING)
-                .map(EmployeeSalaryPayment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        data.setPendingAmount(pending);
+        data.setPendingAmount(money(pending));
 
         return data;
     }
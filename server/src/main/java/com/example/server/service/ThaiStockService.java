@@ -22,6 +22,12 @@ public class ThaiStockService {
     @Autowired
     private StockForecastRepository stockForecastRepository;
 
+    @Autowired
+    private ForecastDashboardService forecastDashboardService;
+
+    @Autowired
+    private ProductCostPropagationService costPropagationService;
+
     public List<ThaiStock> getAllThaiStocks() {
         return thaiStockRepository.findAll();
     }
@@ -51,7 +57,9 @@ public class ThaiStockService {
                 .orElseThrow(() -> new RuntimeException("Thai stock not found with id: " + id));
         updateThaiStockFields(thaiStock, thaiStockDetails);
         validateThaiStock(thaiStock);
-        return thaiStockRepository.save(thaiStock);
+        ThaiStock saved = thaiStockRepository.save(thaiStock);
+        costPropagationService.stockPricesChanged(List.of(saved.getStockItemId()));
+        return saved;
     }
 
     public ThaiStock updateThaiStockStatus(Long id, ThaiStock.StockStatus status) {
@@ -119,6 +127,7 @@ public class ThaiStockService {
             int deletedForecasts = stockForecastRepository.deleteByStockItemStockItemId(id);
             if (deletedForecasts > 0) {
                 System.out.println("🗑️ Deleted " + deletedForecasts + " forecast(s) for Thai Stock ID: " + id);
+                forecastDashboardService.invalidateSnapshot();
             }
             stockForecastRepository.flush();
             thaiStockRepository.delete(stock);
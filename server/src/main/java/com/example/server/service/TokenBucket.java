@@ -0,0 +1,65 @@
+package com.example.server.service;
+
+/**
+ * ⭐ Token bucket แบบง่าย - เติม token ต่อเนื่องตามอัตราที่กำหนด สะสมได้ไม่เกิน capacity
+ * ไม่ thread-safe (ผู้ใช้ต้องถือ lock เอง) เพื่อให้ตรวจหลาย bucket พร้อมกันได้ใน lock เดียว
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param capacity          จำนวน token สูงสุดที่สะสมได้ (burst)
+     * @param tokensPerMinute   อัตราการเติม token ต่อนาที
+     */
+    public TokenBucket(double capacity, double tokensPerMinute) {
+        if (capacity < 1 || tokensPerMinute <= 0) {
+            throw new IllegalArgumentException("capacity ต้องไม่น้อยกว่า 1 และ tokensPerMinute ต้องมากกว่า 0");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerMinute / 60_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public boolean hasToken(long now) {
+        refill(now);
+        return tokens >= 1.0;
+    }
+
+    public void consume(long now) {
+        refill(now);
+        tokens -= 1.0;
+    }
+
+    /**
+     * เวลา (nanos) ที่ต้องรอจนกว่าจะมี token อย่างน้อย 1 ตัว
+     */
+    public long nanosUntilToken(long now) {
+        refill(now);
+        if (tokens >= 1.0) {
+            return 0;
+        }
+        return (long) Math.ceil((1.0 - tokens) / tokensPerNano);
+    }
+
+    public double getAvailableTokens(long now) {
+        refill(now);
+        return tokens;
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.server.service;
+
+/**
+ * ⭐ ประมาณจำนวน token ของข้อความ (ไม่ต้องเรียก countTokens API ของ Gemini)
+ * - อักษรละติน/ตัวเลข/เครื่องหมาย: ~4 ตัวอักษรต่อ token
+ * - อักษรไทย: ~2 ตัวอักษรต่อ token (ภาษาไทยไม่มีช่องว่างระหว่างคำ จึงใช้ token มากกว่า)
+ * - อักษรอื่นๆ (emoji, CJK): ~1 ตัวอักษรต่อ token
+ * ตั้งใจประมาณค่าสูงกว่าจริงเล็กน้อย เพื่อไม่ให้ prompt เกิน budget
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        int latin = 0;
+        int thai = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = Character.codePointAt(text, i);
+            if (codePoint < 0x0080) {
+                latin++;
+            } else if (codePoint >= 0x0E00 && codePoint <= 0x0E7F) {
+                thai++;
+            } else {
+                other++;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return (latin + 3) / 4 + (thai + 1) / 2 + other;
+    }
+}
@@ -0,0 +1,443 @@
+package com.example.server.service;
+
+import com.example.server.dto.TransactionTypeTotalRow;
+import com.example.server.entity.Transaction;
+import com.example.server.entity.TransactionBalance;
+import com.example.server.entity.TransactionPeriodAdjustment;
+import com.example.server.entity.TransactionPeriodClose;
+import com.example.server.respository.TransactionBalanceRepository;
+import com.example.server.respository.TransactionPeriodAdjustmentRepository;
+import com.example.server.respository.TransactionPeriodCloseRepository;
+import com.example.server.respository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * ⭐ Ledger ของ Transaction - ยอดสะสม + ปิดงวดรายเดือน
+ * - transaction_balances: ยอดรวม/จำนวนรายการต่อประเภท ปรับใน transaction เดียวกับการเขียน (summary อ่าน 2 แถว)
+ * - transaction_period_closes: snapshot ปิดงวดรายเดือน (แก้ไขไม่ได้) พร้อมยอดสะสม
+ * - transaction_period_adjustments: รายการย้อนหลังที่เขียนเข้าเดือนที่ปิดแล้ว
+ * ยอด ณ วันใดๆ = snapshot ที่ใกล้ที่สุด + adjustment + รายการหลังปิดงวด (ไม่เกิน ~1 เดือน)
+ *
+ * ลำดับ lock: transaction_balances ก่อน transaction_period_closes เสมอ (ทั้งตอนเขียนและตอนปิดงวด)
+ * และแถว transaction_balances เรียงตามชื่อประเภท (EXPENSE ก่อน INCOME) ทุก transaction
+ */
+@Service
+public class TransactionLedgerService {
+
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private TransactionBalanceRepository balanceRepository;
+    @Autowired private TransactionPeriodCloseRepository periodCloseRepository;
+    @Autowired private TransactionPeriodAdjustmentRepository adjustmentRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    // ลำดับ lock แถว transaction_balances - ต้องตรงกับ TransactionBalanceRepository.lockAll()
+    static final Comparator<Transaction.TransactionType> BALANCE_LOCK_ORDER = Comparator.comparing(Enum::name);
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ============================================
+    // RECORD (เรียกจาก TransactionService ภายใน transaction เดียวกับการเขียน)
+    // ============================================
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Transaction transaction) {
+        apply(List.of(Delta.of(transaction, 1)), transaction.getTransactionId(), TransactionPeriodAdjustment.Reason.CREATED);
+    }
+
+    /**
+     * ✅ บันทึกการแก้ไข = ถอนยอดเดิม + ลงยอดใหม่ (รองรับการเปลี่ยนประเภท/ยอดเงิน/วันที่)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Transaction.TransactionType oldType, BigDecimal oldAmount,
+                              LocalDateTime oldDate, Transaction updated) {
+        Delta before = new Delta(oldType, oldAmount.negate(), -1, oldDate);
+        Delta after = Delta.of(updated, 1);
+        if (before.type == after.type && before.amount.negate().compareTo(after.amount) == 0
+                && YearMonth.from(before.date).equals(YearMonth.from(after.date))) {
+            return;
+        }
+        apply(List.of(before, after), updated.getTransactionId(), TransactionPeriodAdjustment.Reason.UPDATED);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Transaction transaction) {
+        apply(List.of(Delta.of(transaction, -1)), transaction.getTransactionId(), TransactionPeriodAdjustment.Reason.DELETED);
+    }
+
+    private void apply(List<Delta> deltas, Long transactionId, TransactionPeriodAdjustment.Reason reason) {
+        // รวม delta ต่อประเภทแล้วปรับยอดตามชื่อประเภท - ลำดับเดียวกับ lockAll() (ORDER BY type เก็บเป็น STRING)
+        // ถ้าลำดับไม่ตรงกัน การเขียนที่แตะทั้ง 2 ประเภทจะ deadlock กับการปิดงวด/ตรวจยอด
+        // ปรับยอดแม้ delta สุทธิเป็น 0 (เช่น ย้ายวันที่ข้ามเดือน) - ต้องถือ lock แถวยอดสะสมไว้ก่อนตรวจงวดที่ปิด
+        // ไม่อย่างนั้นการปิดงวดที่ทำพร้อมกันจะไม่รอ และรายการย้อนหลังจะไม่ถูกบันทึกเป็น adjustment
+        Map<Transaction.TransactionType, Delta> byType = new TreeMap<>(BALANCE_LOCK_ORDER);
+        for (Delta delta : deltas) {
+            byType.merge(delta.type, delta, Delta::plus);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Transaction.TransactionType> initialized = EnumSet.noneOf(Transaction.TransactionType.class);
+        for (Delta delta : byType.values()) {
+            if (initialized.contains(delta.type)) {
+                continue;
+            }
+            int updated = balanceRepository.applyDelta(delta.type, delta.amount, delta.count, now);
+            if (updated == 0) {
+                // ยังไม่เคยสร้างยอดสะสม - คำนวณจากตาราง (รวมรายการของ transaction นี้แล้ว)
+                initialized.addAll(initializeBalances());
+            }
+        }
+
+        // เขียนย้อนหลังเข้าเดือนที่ปิดงวดแล้ว -> บันทึก adjustment (snapshot แก้ไขไม่ได้)
+        Optional<TransactionPeriodClose> lastClosed = periodCloseRepository.findTopByOrderByPeriodStartDesc();
+        if (lastClosed.isEmpty()) {
+            return;
+        }
+        LocalDate closedThrough = lastClosed.get().getPeriodStart();
+        for (Delta delta : deltas) {
+            LocalDate periodStart = YearMonth.from(delta.date).atDay(1);
+            if (periodStart.isAfter(closedThrough)) {
+                continue;
+            }
+            TransactionPeriodAdjustment adjustment = new TransactionPeriodAdjustment();
+            adjustment.setPeriodStart(periodStart);
+            adjustment.setType(delta.type);
+            adjustment.setAmountDelta(delta.amount);
+            adjustment.setCountDelta(delta.count);
+            adjustment.setTransactionId(transactionId);
+            adjustment.setReason(reason);
+            adjustment.setCreatedAt(now);
+            adjustmentRepository.save(adjustment);
+        }
+    }
+
+    // ============================================
+    // BALANCES
+    // ============================================
+
+    /**
+     * ✅ ยอดสะสมทั้งหมด (อ่าน 2 แถวจาก transaction_balances)
+     */
+    @Transactional(readOnly = true)
+    public LedgerTotals getBalances() {
+        LedgerTotals totals = new LedgerTotals();
+        for (TransactionBalance balance : balanceRepository.findAll()) {
+            totals.add(balance.getType(), balance.getTotalAmount(), balance.getTransactionCount());
+        }
+        return totals;
+    }
+
+    /**
+     * สร้างแถวยอดสะสมที่ยังไม่มีจากตาราง transactions (ครั้งแรกที่ใช้งาน)
+     *
+     * @return ประเภทที่เพิ่งสร้างแถว
+     */
+    private Set<Transaction.TransactionType> initializeBalances() {
+        Map<Transaction.TransactionType, TransactionBalance> balances = new EnumMap<>(Transaction.TransactionType.class);
+        for (TransactionBalance balance : balanceRepository.findAll()) {
+            balances.put(balance.getType(), balance);
+        }
+
+        Set<Transaction.TransactionType> created = EnumSet.noneOf(Transaction.TransactionType.class);
+        if (balances.size() == Transaction.TransactionType.values().length) {
+            return created;
+        }
+
+        LedgerTotals actual = new LedgerTotals().addRows(transactionRepository.summarizeByType());
+        LocalDateTime now = LocalDateTime.now();
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            if (balances.containsKey(type)) {
+                continue;
+            }
+            TransactionBalance balance = new TransactionBalance();
+            balance.setType(type);
+            balance.setTotalAmount(actual.amountOf(type));
+            balance.setTransactionCount(actual.countOf(type));
+            balance.setUpdatedAt(now);
+            balanceRepository.save(balance);
+            created.add(type);
+        }
+        return created;
+    }
+
+    /**
+     * ✅ ตรวจยอดสะสมกับตาราง transactions และแก้ให้ตรง (ใช้หลังแก้ข้อมูลด้วย SQL ตรง)
+     */
+    public Map<String, Object> reconcile() {
+        transactionTemplate.executeWithoutResult(status -> initializeBalances());
+        return transactionTemplate.execute(status -> {
+            // lock ก่อนอ่านอย่างอื่น - snapshot (REPEATABLE READ) จะเริ่มหลังได้ lock จึงเห็นรายการที่ commit ระหว่างรอ
+            List<TransactionBalance> balances = balanceRepository.lockAll();
+            LedgerTotals actual = new LedgerTotals().addRows(transactionRepository.summarizeByType());
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            boolean corrected = false;
+            for (TransactionBalance balance : balances) {
+                BigDecimal amount = actual.amountOf(balance.getType());
+                long count = actual.countOf(balance.getType());
+
+                Map<String, Object> detail = new LinkedHashMap<>();
+                detail.put("storedAmount", balance.getTotalAmount());
+                detail.put("actualAmount", amount);
+                detail.put("storedCount", balance.getTransactionCount());
+                detail.put("actualCount", count);
+                result.put(balance.getType().name(), detail);
+
+                if (balance.getTotalAmount().compareTo(amount) != 0 || balance.getTransactionCount() != count) {
+                    balance.setTotalAmount(amount);
+                    balance.setTransactionCount(count);
+                    balance.setUpdatedAt(LocalDateTime.now());
+                    corrected = true;
+                }
+            }
+            result.put("corrected", corrected);
+            if (corrected) {
+                System.out.println("⚠️ Transaction balances corrected by reconcile: " + result);
+            }
+            return result;
+        });
+    }
+
+    // ============================================
+    // PERIOD CLOSE
+    // ============================================
+
+    /**
+     * ⭐ ปิดงวดเดือนก่อนหน้าอัตโนมัติ (ทุกวันที่ 1) และปิดเดือนที่ค้างตอนเริ่มระบบ
+     */
+    @Scheduled(cron = "${transaction.ledger.close-cron:0 10 0 1 * *}")
+    public void closeCompletedMonths() {
+        try {
+            List<TransactionPeriodClose> closed = closeThrough(YearMonth.now().minusMonths(1));
+            if (!closed.isEmpty()) {
+                System.out.println("✅ Closed " + closed.size() + " transaction period(s) through "
+                        + closed.get(closed.size() - 1).getPeriodStart());
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Transaction period close failed: " + e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        transactionTemplate.executeWithoutResult(status -> initializeBalances());
+        closeCompletedMonths();
+    }
+
+    /**
+     * ✅ ปิดงวดทุกเดือนที่ยังไม่ปิด จนถึงเดือนที่ระบุ (ต้องเป็นเดือนที่จบแล้ว)
+     */
+    public List<TransactionPeriodClose> closeThrough(YearMonth through) {
+        if (!through.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("ปิดงวดได้เฉพาะเดือนที่จบแล้ว: " + through);
+        }
+
+        // สร้างแถวยอดสะสมใน transaction แยก - ใน transaction ปิดงวด lockAll ต้องเป็นคำสั่งแรก
+        // (ถ้าอ่านแบบไม่ lock ก่อน snapshot ของ REPEATABLE READ จะถูกตรึงไว้ และไม่เห็นรายการย้อนหลังที่ commit ระหว่างรอ lock)
+        transactionTemplate.executeWithoutResult(status -> initializeBalances());
+
+        return transactionTemplate.execute(status -> {
+            // lock ยอดสะสม - การเขียน transaction ที่เกิดระหว่างนี้จะรอจนปิดงวดเสร็จ แล้วเห็นงวดที่ปิดใหม่
+            // ส่วนการเขียนที่ได้ lock ก่อน จะ commit เสร็จก่อนที่ snapshot ของการปิดงวดจะเริ่ม
+            balanceRepository.lockAll();
+
+            Optional<TransactionPeriodClose> last = periodCloseRepository.findFirstByOrderByPeriodStartDesc();
+            YearMonth month;
+            if (last.isPresent()) {
+                month = YearMonth.from(last.get().getPeriodStart()).plusMonths(1);
+            } else {
+                LocalDateTime earliest = transactionRepository.findEarliestTransactionDate();
+                if (earliest == null) {
+                    return List.of();
+                }
+                month = YearMonth.from(earliest);
+            }
+
+            List<TransactionPeriodClose> closed = new ArrayList<>();
+            TransactionPeriodClose previous = last.orElse(null);
+            LocalDateTime now = LocalDateTime.now();
+            for (; !month.isAfter(through); month = month.plusMonths(1)) {
+                LedgerTotals monthTotals = new LedgerTotals().addRows(transactionRepository.summarizeByTypeBetween(
+                        month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay()));
+
+                TransactionPeriodClose close = new TransactionPeriodClose();
+                close.setPeriodStart(month.atDay(1));
+                close.setPeriodEnd(month.atEndOfMonth());
+                close.setMonthIncome(monthTotals.getIncome());
+                close.setMonthExpense(monthTotals.getExpense());
+                close.setMonthIncomeCount(monthTotals.getIncomeCount());
+                close.setMonthExpenseCount(monthTotals.getExpenseCount());
+                close.setCumulativeIncome(monthTotals.getIncome()
+                        .add(previous != null ? previous.getCumulativeIncome() : BigDecimal.ZERO));
+                close.setCumulativeExpense(monthTotals.getExpense()
+                        .add(previous != null ? previous.getCumulativeExpense() : BigDecimal.ZERO));
+                close.setCumulativeIncomeCount(monthTotals.getIncomeCount()
+                        + (previous != null ? previous.getCumulativeIncomeCount() : 0));
+                close.setCumulativeExpenseCount(monthTotals.getExpenseCount()
+                        + (previous != null ? previous.getCumulativeExpenseCount() : 0));
+                close.setClosedAt(now);
+
+                previous = periodCloseRepository.save(close);
+                closed.add(previous);
+            }
+            return closed;
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionPeriodClose> getPeriodCloses() {
+        return periodCloseRepository.findAllByOrderByPeriodStartDesc();
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionPeriodAdjustment> getAdjustments(YearMonth month) {
+        return adjustmentRepository.findByPeriodStartOrderByCreatedAtAsc(month.atDay(1));
+    }
+
+    // ============================================
+    // PERIOD REPORTS
+    // ============================================
+
+    /**
+     * ✅ ยอดรวมในช่วงวันที่ (รวมวันแรกและวันสุดท้าย) = ยอดสะสมถึง to - ยอดสะสมถึงก่อน from
+     */
+    @Transactional(readOnly = true)
+    public LedgerTotals getPeriodTotals(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("วันที่เริ่มต้องไม่เกินวันที่สิ้นสุด");
+        }
+        return getCumulativeThrough(to).minus(getCumulativeThrough(from.minusDays(1)));
+    }
+
+    /**
+     * ✅ ยอดสะสมตั้งแต่รายการแรกจนถึงสิ้นวันที่ระบุ
+     * = snapshot ปิดงวดล่าสุดที่จบก่อนวันนั้น + adjustment ถึงงวดนั้น + รายการหลังงวดนั้นถึงวันที่ระบุ
+     */
+    @Transactional(readOnly = true)
+    public LedgerTotals getCumulativeThrough(LocalDate date) {
+        YearMonth month = YearMonth.from(date);
+        YearMonth lastFullMonth = date.equals(month.atEndOfMonth()) ? month : month.minusMonths(1);
+        LocalDateTime end = date.plusDays(1).atStartOfDay();
+
+        Optional<TransactionPeriodClose> snapshot =
+                periodCloseRepository.findFirstByPeriodStartLessThanEqualOrderByPeriodStartDesc(lastFullMonth.atDay(1));
+
+        LedgerTotals totals = new LedgerTotals();
+        if (snapshot.isEmpty()) {
+            return totals.addRows(transactionRepository.summarizeByTypeBefore(end));
+        }
+
+        TransactionPeriodClose close = snapshot.get();
+        totals.add(Transaction.TransactionType.INCOME, close.getCumulativeIncome(), close.getCumulativeIncomeCount());
+        totals.add(Transaction.TransactionType.EXPENSE, close.getCumulativeExpense(), close.getCumulativeExpenseCount());
+        totals.addRows(adjustmentRepository.sumByTypeThrough(close.getPeriodStart()));
+        totals.addRows(transactionRepository.summarizeByTypeBetween(
+                close.getPeriodEnd().plusDays(1).atStartOfDay(), end));
+        return totals;
+    }
+
+    // ============================================
+    // DATA CLASSES
+    // ============================================
+
+    /**
+     * ยอดที่เปลี่ยนของ transaction หนึ่งรายการ (count = +1 เพิ่ม / -1 ถอน)
+     */
+    private static final class Delta {
+        private final Transaction.TransactionType type;
+        private final BigDecimal amount;
+        private final long count;
+        private final LocalDateTime date;
+
+        Delta(Transaction.TransactionType type, BigDecimal amount, long count, LocalDateTime date) {
+            this.type = type;
+            this.amount = amount != null ? amount : BigDecimal.ZERO;
+            this.count = count;
+            this.date = date != null ? date : LocalDateTime.now();
+        }
+
+        static Delta of(Transaction transaction, int sign) {
+            BigDecimal amount = transaction.getAmount() != null ? transaction.getAmount() : BigDecimal.ZERO;
+            return new Delta(transaction.getType(), sign < 0 ? amount.negate() : amount, sign,
+                    transaction.getTransactionDate());
+        }
+
+        static Delta plus(Delta a, Delta b) {
+            return new Delta(a.type, a.amount.add(b.amount), a.count + b.count, a.date);
+        }
+    }
+
+    /**
+     * ✅ ยอดรวมรายรับ/รายจ่าย + จำนวนรายการ
+     */
+    @Data
+    public static class LedgerTotals {
+        private BigDecimal income = BigDecimal.ZERO;
+        private BigDecimal expense = BigDecimal.ZERO;
+        private long incomeCount;
+        private long expenseCount;
+
+        public BigDecimal getNetProfit() {
+            return income.subtract(expense);
+        }
+
+        public long getTransactionCount() {
+            return incomeCount + expenseCount;
+        }
+
+        void add(Transaction.TransactionType type, BigDecimal amount, long count) {
+            BigDecimal value = amount != null ? amount : BigDecimal.ZERO;
+            if (type == Transaction.TransactionType.INCOME) {
+                income = income.add(value);
+                incomeCount += count;
+            } else {
+                expense = expense.add(value);
+                expenseCount += count;
+            }
+        }
+
+        LedgerTotals addRows(List<TransactionTypeTotalRow> rows) {
+            for (TransactionTypeTotalRow row : rows) {
+                add(row.getType(), row.getAmount(), row.getTransactionCount() != null ? row.getTransactionCount() : 0L);
+            }
+            return this;
+        }
+
+        LedgerTotals minus(LedgerTotals other) {
+            LedgerTotals result = new LedgerTotals();
+            result.setIncome(income.subtract(other.income));
+            result.setExpense(expense.subtract(other.expense));
+            result.setIncomeCount(incomeCount - other.incomeCount);
+            result.setExpenseCount(expenseCount - other.expenseCount);
+            return result;
+        }
+
+        BigDecimal amountOf(Transaction.TransactionType type) {
+            return type == Transaction.TransactionType.INCOME ? income : expense;
+        }
+
+        long countOf(Transaction.TransactionType type) {
+            return type == Transaction.TransactionType.INCOME ? incomeCount : expenseCount;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
@@ -33,6 +34,12 @@ public class TransactionService {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private DailyRollupService dailyRollupService;
+
+    @Autowired
+    private TransactionLedgerService transactionLedgerService;
+
     // เดือนภาษาไทย
     private static final String[] THAI_MONTHS = {
             "มกราคม", "กุมภาพันธ์", "มีนาคม", "เมษายน", "พฤษภาคม", "มิถุนายน",
@@ -91,7 +98,9 @@ public class TransactionService {
             transaction.setTransactionNumber(generateTransactionNumber(transaction.getType()));
         }
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        transactionLedgerService.recordCreated(saved);
+        return saved;
     }
 
     /**
@@ -106,6 +115,11 @@ public class TransactionService {
             throw new IllegalStateException("Cannot edit auto-generated transactions");
         }
 
+        // ⭐ เก็บค่าเดิมไว้ปรับยอดสะสมใน ledger
+        Transaction.TransactionType oldType = transaction.getType();
+        BigDecimal oldAmount = transaction.getAmount();
+        LocalDateTime oldDate = transaction.getTransactionDate();
+
         // Update fields
         if (details.getType() != null) transaction.setType(details.getType());
         if (details.getCategory() != null) transaction.setCategory(details.getCategory());
@@ -115,7 +129,9 @@ public class TransactionService {
         if (details.getNotes() != null) transaction.setNotes(details.getNotes());
 
         validateTransaction(transaction);
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        transactionLedgerService.recordUpdated(oldType, oldAmount, oldDate, saved);
+        return saved;
     }
 
     /**
@@ -129,7 +145,8 @@ public class TransactionService {
             throw new IllegalStateException("Cannot delete auto-generated transactions");
         }
 
-        transactionRepository.deleteById(id);
+        transactionRepository.delete(transaction);
+        transactionLedgerService.recordDeleted(transaction);
     }
 
     // ============================================
@@ -179,7 +196,9 @@ public class TransactionService {
         transaction.setMode(Transaction.TransactionMode.AUTO);
         transaction.setCreatedBy("SYSTEM");
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        transactionLedgerService.recordCreated(saved);
+        return saved;
     }
 
     /**
@@ -210,7 +229,9 @@ public class TransactionService {
         transaction.setMode(Transaction.TransactionMode.AUTO);
         transaction.setCreatedBy("SYSTEM");
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        transactionLedgerService.recordCreated(saved);
+        return saved;
     }
 
     /**
@@ -244,110 +265,139 @@ public class TransactionService {
         transaction.setMode(Transaction.TransactionMode.AUTO);
         transaction.setCreatedBy("SYSTEM");
 
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        transactionLedgerService.recordCreated(saved);
+        return saved;
     }
 
     // ============================================
     // Summary & Reports
     // ============================================
 
+    /**
+     * ✅ สรุปยอดทั้งหมด - อ่านยอดสะสมจาก ledger (2 แถว) แทนการ SUM ทั้งตาราง
+     */
     @Transactional(readOnly = true)
     public Map<String, Object> getTransactionSummary() {
         Map<String, Object> summary = new HashMap<>();
 
-        BigDecimal totalIncome = transactionRepository.getTotalIncome();
-        BigDecimal totalExpense = transactionRepository.getTotalExpense();
-        BigDecimal netProfit = transactionRepository.getNetProfit();
+        TransactionLedgerService.LedgerTotals balances = transactionLedgerService.getBalances();
+
+        summary.put("totalIncome", balances.getIncome());
+        summary.put("totalExpense", balances.getExpense());
+        summary.put("netProfit", balances.getNetProfit());
+        summary.put("totalTransactions", balances.getTransactionCount());
+        summary.put("incomeCount", balances.getIncomeCount());
+        summary.put("expenseCount", balances.getExpenseCount());
+
+        return summary;
+    }
 
-        summary.put("totalIncome", totalIncome);
-        summary.put("totalExpense", totalExpense);
-        summary.put("netProfit", netProfit);
-        summary.put("totalTransactions", transactionRepository.count());
-        summary.put("incomeCount", transactionRepository.findByType(Transaction.TransactionType.INCOME).size());
-        summary.put("expenseCount", transactionRepository.findByType(Transaction.TransactionType.EXPENSE).size());
+    /**
+     * ⭐ สรุปยอดในช่วงวันที่ (snapshot ปิดงวด + รายการหลังปิดงวด)
+     * GET /api/transactions/summary/period?from=2025-01-01&to=2025-03-31
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPeriodSummary(LocalDate from, LocalDate to) {
+        TransactionLedgerService.LedgerTotals totals = transactionLedgerService.getPeriodTotals(from, to);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("from", from);
+        summary.put("to", to);
+        summary.put("totalIncome", totals.getIncome());
+        summary.put("totalExpense", totals.getExpense());
+        summary.put("netProfit", totals.getNetProfit());
+        summary.put("totalTransactions", totals.getTransactionCount());
+        summary.put("incomeCount", totals.getIncomeCount());
+        summary.put("expenseCount", totals.getExpenseCount());
 
         return summary;
     }
 
     /**
-     * ⭐ ดึงรายงานรายเดือน (Monthly Report)
+     * ⭐ ดึงรายงานรายเดือน (Monthly Report) - อ่านจาก Daily Finance Rollup
      * GET /api/transactions/reports/monthly?year=2025&month=11
      */
     @Transactional(readOnly = true)
     public MonthlyReportResponse getMonthlyReport(int year, int month) {
         YearMonth yearMonth = YearMonth.of(year, month);
-        LocalDateTime startDate = yearMonth.atDay(1).atStartOfDay();
-        LocalDateTime endDate = yearMonth.atEndOfMonth().atTime(23, 59, 59);
+        return createMonthlyReport(yearMonth,
+                dailyRollupService.getFinanceRollups(yearMonth.atDay(1), yearMonth.atEndOfMonth()));
+    }
 
-        // ดึงข้อมูล transactions ในช่วงเดือนนี้
-        List<Transaction> transactions = transactionRepository.findByDateRange(startDate, endDate);
+    /**
+     * ⭐ ดึงรายงานทั้งปี (Yearly Report) - อ่าน rollup ของทั้งปีครั้งเดียวแล้วแยกรายเดือน
+     * GET /api/transactions/reports/yearly/2025
+     */
+    @Transactional(readOnly = true)
+    public List<MonthlyReportResponse> getYearlyReport(int year) {
+        Map<Integer, List<DailyFinanceRollup>> rollupsByMonth = dailyRollupService
+                .getFinanceRollups(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31)).stream()
+                .collect(Collectors.groupingBy(r -> r.getRollupDate().getMonthValue()));
+
+        List<MonthlyReportResponse> yearlyReports = new ArrayList<>();
 
+        // วนลูปทุกเดือนในปี
+        for (int month = 1; month <= 12; month++) {
+            yearlyReports.add(createMonthlyReport(YearMonth.of(year, month),
+                    rollupsByMonth.getOrDefault(month, List.of())));
+        }
+
+        return yearlyReports;
+    }
+
+    private MonthlyReportResponse createMonthlyReport(YearMonth yearMonth, List<DailyFinanceRollup> rollups) {
         // สร้าง response
-        String monthName = THAI_MONTHS[month - 1];
-        MonthlyReportResponse report = new MonthlyReportResponse(monthName, year);
+        String monthName = THAI_MONTHS[yearMonth.getMonthValue() - 1];
+        MonthlyReportResponse report = new MonthlyReportResponse(monthName, yearMonth.getYear());
 
         // คำนวณยอดรวม
         BigDecimal totalIncome = BigDecimal.ZERO;
         BigDecimal totalExpense = BigDecimal.ZERO;
+        int transactionCount = 0;
 
-        for (Transaction t : transactions) {
-            if (t.getType() == Transaction.TransactionType.INCOME) {
-                totalIncome = totalIncome.add(t.getAmount());
+        for (DailyFinanceRollup rollup : rollups) {
+            if (rollup.getType() == Transaction.TransactionType.INCOME) {
+                totalIncome = totalIncome.add(rollup.getAmount());
             } else {
-                totalExpense = totalExpense.add(t.getAmount());
+                totalExpense = totalExpense.add(rollup.getAmount());
             }
+            transactionCount += (int) rollup.getTransactionCount();
         }
 
         report.setTotalIncome(totalIncome);
         report.setTotalExpense(totalExpense);
         report.setNetAmount(totalIncome.subtract(totalExpense));
-        report.setTransactionCount(transactions.size());
+        report.setTransactionCount(transactionCount);
 
         // สร้าง category breakdown
-        List<CategoryBreakdownResponse> breakdown = createCategoryBreakdown(transactions, totalIncome, totalExpense);
+        List<CategoryBreakdownResponse> breakdown = createCategoryBreakdown(rollups, totalIncome, totalExpense);
         report.setCategoryBreakdown(breakdown);
 
         return report;
     }
 
     /**
-     * ⭐ ดึงรายงานทั้งปี (Yearly Report)
-     * GET /api/transactions/reports/yearly/2025
-     */
-    @Transactional(readOnly = true)
-    public List<MonthlyReportResponse> getYearlyReport(int year) {
-        List<MonthlyReportResponse> yearlyReports = new ArrayList<>();
-
-        // วนลูปทุกเดือนในปี
-        for (int month = 1; month <= 12; month++) {
-            MonthlyReportResponse monthlyReport = getMonthlyReport(year, month);
-            yearlyReports.add(monthlyReport);
-        }
-
-        return yearlyReports;
-    }
-
-    /**
-     * สร้าง Category Breakdown
+     * สร้าง Category Breakdown จาก rollup รายวัน
      */
     private List<CategoryBreakdownResponse> createCategoryBreakdown(
-            List<Transaction> transactions,
+            List<DailyFinanceRollup> rollups,
             BigDecimal totalIncome,
             BigDecimal totalExpense) {
 
-        // Group by category และนับจำนวน + ยอดรวม
+        // Group by category และรวมจำนวน + ยอดรวม
         Map<Transaction.TransactionCategory, CategoryBreakdownResponse> categoryMap = new HashMap<>();
 
-        for (Transaction t : transactions) {
-            Transaction.TransactionCategory category = t.getCategory();
+        for (DailyFinanceRollup rollup : rollups) {
+            Transaction.TransactionCategory category = rollup.getCategory();
 
             CategoryBreakdownResponse breakdown = categoryMap.getOrDefault(
                     category,
                     new CategoryBreakdownResponse(category.name(), BigDecimal.ZERO, 0)
             );
 
-            breakdown.setAmount(breakdown.getAmount().add(t.getAmount()));
-            breakdown.setCount(breakdown.getCount() + 1);
+            breakdown.setAmount(breakdown.getAmount().add(rollup.getAmount()));
+            breakdown.setCount(breakdown.getCount() + (int) rollup.getTransactionCount());
 
             categoryMap.put(category, breakdown);
         }
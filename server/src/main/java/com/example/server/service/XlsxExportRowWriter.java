@@ -0,0 +1,122 @@
+package com.example.server.service;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * ✅ XLSX แบบ streaming ด้วย POI SXSSFWorkbook
+ * - เก็บแถวในหน่วยความจำแค่ rowWindow แถว ที่เหลือ flush ลงไฟล์ชั่วคราว (บีบอัด) แล้วลบทิ้งตอนปิด
+ * - เกิน 1,048,576 แถวต่อ sheet จะขึ้น sheet ใหม่พร้อม header ซ้ำ
+ */
+public class XlsxExportRowWriter implements ExportRowWriter {
+
+    private static final int MAX_ROWS_PER_SHEET = 1_048_576;
+
+    private final OutputStream out;
+    private final SXSSFWorkbook workbook;
+    private final String sheetName;
+    private final CellStyle headerStyle;
+    private final CellStyle dateTimeStyle;
+    private final CellStyle dateStyle;
+
+    private SXSSFSheet sheet;
+    private List<String> headers;
+    private int sheetCount;
+    private int rowIndex;
+
+    public XlsxExportRowWriter(OutputStream out, String sheetName, int rowWindow) {
+        this.out = out;
+        this.sheetName = sheetName;
+        this.workbook = new SXSSFWorkbook(rowWindow);
+        this.workbook.setCompressTempFiles(true);
+
+        CreationHelper helper = workbook.getCreationHelper();
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        headerStyle = workbook.createCellStyle();
+        headerStyle.setFont(bold);
+        dateTimeStyle = workbook.createCellStyle();
+        dateTimeStyle.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+        dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd"));
+
+        newSheet();
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) {
+        this.headers = List.copyOf(headers);
+        writeHeaderRow();
+    }
+
+    private void writeHeaderRow() {
+        Row row = sheet.createRow(rowIndex++);
+        for (int i = 0; i < headers.size(); i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(headers.get(i));
+            cell.setCellStyle(headerStyle);
+        }
+    }
+
+    @Override
+    public void writeRow(Object[] values) {
+        if (rowIndex >= MAX_ROWS_PER_SHEET) {
+            newSheet();
+            if (headers != null) {
+                writeHeaderRow();
+            }
+        }
+
+        Row row = sheet.createRow(rowIndex++);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            if (value instanceof BigDecimal number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof LocalDateTime dateTime) {
+                cell.setCellValue(dateTime);
+                cell.setCellStyle(dateTimeStyle);
+            } else if (value instanceof LocalDate date) {
+                cell.setCellValue(date);
+                cell.setCellStyle(dateStyle);
+            } else if (value instanceof Boolean bool) {
+                cell.setCellValue(bool);
+            } else if (value instanceof Enum<?> e) {
+                cell.setCellValue(e.name());
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+
+    private void newSheet() {
+        sheetCount++;
+        sheet = workbook.createSheet(sheetCount == 1 ? sheetName : sheetName + " (" + sheetCount + ")");
+        rowIndex = 0;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        workbook.write(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // ลบไฟล์ชั่วคราวของ SXSSF
+        workbook.dispose();
+        workbook.close();
+    }
+}
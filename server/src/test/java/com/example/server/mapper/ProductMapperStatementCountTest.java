@@ -0,0 +1,139 @@
+package com.example.server.mapper;
+
+import com.example.server.dto.ProductDTO;
+import com.example.server.dto.ProductIngredientDTO;
+import com.example.server.entity.*;
+import com.example.server.respository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ แปลงรายการสินค้าเป็น DTO ต้องใช้จำนวน statement คงที่ ไม่ว่าจะมีสินค้ากี่รายการ
+ * (products + ingredients + allocations + ชื่อ Lot)
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@Import(ProductMapper.class)
+class ProductMapperStatementCountTest {
+
+    private static final int PRODUCT_COUNT = 500;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @BeforeEach
+    void setUp() {
+        StockLot lot = new StockLot();
+        lot.setLotName("LOT-A");
+        entityManager.persist(lot);
+
+        ChinaStock chinaStock = new ChinaStock();
+        chinaStock.setName("ผ้าฝ้าย");
+        chinaStock.setStatus(StockBase.StockStatus.ACTIVE);
+        chinaStock.setQuantity(100);
+        chinaStock.setUnitPriceYuan(new BigDecimal("10"));
+        chinaStock.setShippingWithinChinaYuan(BigDecimal.ZERO);
+        chinaStock.setExchangeRate(new BigDecimal("5"));
+        chinaStock.setStockLotId(lot.getStockLotId());
+        entityManager.persist(chinaStock);
+
+        ThaiStock thaiStock = new ThaiStock();
+        thaiStock.setName("กระดุม");
+        thaiStock.setStatus(StockBase.StockStatus.ACTIVE);
+        thaiStock.setQuantity(100);
+        thaiStock.setPriceTotal(new BigDecimal("1000"));
+        thaiStock.setShippingCost(BigDecimal.ZERO);
+        entityManager.persist(thaiStock);
+
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = new Product();
+            product.setProductName("สินค้า " + i);
+            product.setSku("SKU-" + i);
+            entityManager.persist(product);
+
+            ProductIngredient single = new ProductIngredient();
+            single.setProduct(product);
+            single.setIngredientName("กระดุม");
+            single.setRequiredQuantity(new BigDecimal("4"));
+            single.setStockItem(thaiStock);
+            entityManager.persist(single);
+
+            ProductIngredient multiLot = new ProductIngredient();
+            multiLot.setProduct(product);
+            multiLot.setIngredientName("ผ้า");
+            multiLot.setRequiredQuantity(new BigDecimal("2"));
+            multiLot.setAllocationMode(ProductIngredient.AllocationMode.MULTI_LOT);
+            entityManager.persist(multiLot);
+
+            entityManager.persist(allocation(multiLot, chinaStock, 1));
+            entityManager.persist(allocation(multiLot, thaiStock, 2));
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private ProductIngredientStockAllocation allocation(ProductIngredient ingredient, StockBase stockItem, int priority) {
+        ProductIngredientStockAllocation allocation = new ProductIngredientStockAllocation();
+        allocation.setProductIngredient(ingredient);
+        allocation.setStockItem(stockItem);
+        allocation.setAllocatedQuantity(BigDecimal.ONE);
+        allocation.setAllocationPriority(priority);
+        return allocation;
+    }
+
+    @Test
+    void productListUsesFixedNumberOfStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ProductDTO> dtos = productMapper.toProductDTOList(productRepository.findAll());
+
+        assertEquals(PRODUCT_COUNT, dtos.size());
+        assertEquals(4, statistics.getPrepareStatementCount(),
+                "products + ingredients + allocations + lot names");
+    }
+
+    @Test
+    void batchMappingKeepsIngredientAndAllocationDetails() {
+        List<ProductDTO> dtos = productMapper.toProductDTOList(productRepository.findAll());
+
+        for (ProductDTO dto : dtos) {
+            assertEquals(2, dto.getIngredients().size());
+
+            ProductIngredientDTO single = dto.getIngredients().get(0);
+            assertEquals("SINGLE", single.getAllocationMode());
+            assertEquals("THAI", single.getStockType());
+            assertEquals("กระดุม", single.getStockItemName());
+
+            ProductIngredientDTO multiLot = dto.getIngredients().get(1);
+            assertEquals("MULTI_LOT", multiLot.getAllocationMode());
+            assertEquals(2, multiLot.getStockAllocations().size());
+            assertEquals("LOT-A", multiLot.getStockAllocations().get(0).getLotName());
+            assertNull(multiLot.getStockAllocations().get(1).getLotName());
+        }
+    }
+}
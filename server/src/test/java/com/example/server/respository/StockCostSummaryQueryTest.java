@@ -0,0 +1,171 @@
+package com.example.server.respository;
+
+import com.example.server.dto.StockCostSummaryRow;
+import com.example.server.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ ยอดรวมจาก aggregate query ต้องตรงกับการคำนวณราย item ใน Java
+ * (calculateTotalCost() และ VAT ปัดราย item แบบ StockMapper)
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.auto_quote_keyword=true")
+class StockCostSummaryQueryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChinaStockRepository chinaStockRepository;
+
+    @Autowired
+    private ThaiStockRepository thaiStockRepository;
+
+    private Long lotA;
+    private Long lotB;
+
+    @BeforeEach
+    void setUp() {
+        lotA = persistLot("LOT-A");
+        lotB = persistLot("LOT-B");
+
+        // totalCostAtImport = 0 → ใช้ totalBath + VAT
+        entityManager.persist(chinaStock("ผ้าฝ้าย", lotA, "10.333", true, "7", BigDecimal.ZERO));
+        entityManager.persist(chinaStock("ผ้าลินิน", lotA, "3.127", false, "7", null));
+        entityManager.persist(chinaStock("ซิป", lotB, "1.005", true, "7", null));
+        entityManager.persist(chinaStock("นอก Lot", null, "2", true, "7", null));
+
+        entityManager.persist(thaiStock("กระดุม", lotA, "1000.555", "35.5", true, "7", BigDecimal.ZERO));
+        entityManager.persist(thaiStock("ด้าย", lotB, "99.99", "0", false, "0", null));
+        entityManager.persist(thaiStock("ป้าย", lotB, "12.345", "1.111", true, "7", null));
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Long persistLot(String name) {
+        StockLot lot = new StockLot();
+        lot.setLotName(name);
+        entityManager.persist(lot);
+        return lot.getStockLotId();
+    }
+
+    private ChinaStock chinaStock(String name, Long lotId, String unitPriceYuan, boolean includeVat,
+                                  String vatPercentage, BigDecimal totalCostAtImport) {
+        ChinaStock stock = new ChinaStock();
+        stock.setName(name);
+        stock.setStatus(StockBase.StockStatus.ACTIVE);
+        stock.setQuantity(37);
+        stock.setUnitPriceYuan(new BigDecimal(unitPriceYuan));
+        stock.setShippingWithinChinaYuan(new BigDecimal("3.3"));
+        stock.setExchangeRate(new BigDecimal("4.987"));
+        stock.setIncludeVat(includeVat);
+        stock.setVatPercentage(new BigDecimal(vatPercentage));
+        stock.setTotalCostAtImport(totalCostAtImport);
+        stock.setStockLotId(lotId);
+        return stock;
+    }
+
+    private ThaiStock thaiStock(String name, Long lotId, String priceTotal, String shippingCost, boolean includeVat,
+                                String vatPercentage, BigDecimal totalCostAtImport) {
+        ThaiStock stock = new ThaiStock();
+        stock.setName(name);
+        stock.setStatus(StockBase.StockStatus.ACTIVE);
+        stock.setQuantity(13);
+        stock.setPriceTotal(new BigDecimal(priceTotal));
+        stock.setShippingCost(new BigDecimal(shippingCost));
+        stock.setIncludeVat(includeVat);
+        stock.setVatPercentage(new BigDecimal(vatPercentage));
+        stock.setTotalCostAtImport(totalCostAtImport);
+        stock.setStockLotId(lotId);
+        return stock;
+    }
+
+    private static BigDecimal vat(BigDecimal base, Boolean includeVat, BigDecimal vatPercentage) {
+        if (Boolean.TRUE.equals(includeVat) && vatPercentage != null && vatPercentage.signum() > 0) {
+            return base.multiply(vatPercentage).divide(BigDecimal.valueOf(100), 3, RoundingMode.HALF_UP);
+        }
+        return BigDecimal.ZERO;
+    }
+
+    private static void assertAmount(BigDecimal expected, BigDecimal actual) {
+        assertNotNull(actual);
+        assertEquals(0, expected.compareTo(actual), "expected " + expected + " but was " + actual);
+    }
+
+    @Test
+    void chinaLotSummariesMatchEntityCalculations() {
+        Map<Long, StockCostSummaryRow> rows = chinaStockRepository.summarizeCostsByLotIds(List.of(lotA, lotB)).stream()
+                .collect(Collectors.toMap(StockCostSummaryRow::getStockLotId, Function.identity()));
+        assertEquals(2, rows.size());
+
+        for (Long lotId : List.of(lotA, lotB)) {
+            List<ChinaStock> items = chinaStockRepository.findByStockLotId(lotId);
+            StockCostSummaryRow row = rows.get(lotId);
+
+            assertEquals(items.size(), row.getItemCount().intValue());
+            assertEquals(items.stream().mapToLong(ChinaStock::getQuantity).sum(), row.getTotalQuantity().longValue());
+            assertAmount(items.stream().map(ChinaStock::getTotalBath).reduce(BigDecimal.ZERO, BigDecimal::add),
+                    row.getTotalCostBeforeVat());
+            assertAmount(items.stream().map(c -> vat(c.getTotalBath(), c.getIncludeVat(), c.getVatPercentage()))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add), row.getTotalVatAmount());
+            assertAmount(items.stream().map(ChinaStock::calculateTotalCost).reduce(BigDecimal.ZERO, BigDecimal::add),
+                    row.getTotalCost());
+        }
+    }
+
+    @Test
+    void thaiLotSummariesMatchEntityCalculations() {
+        Map<Long, StockCostSummaryRow> rows = thaiStockRepository.summarizeCostsByLotIds(List.of(lotA, lotB)).stream()
+                .collect(Collectors.toMap(StockCostSummaryRow::getStockLotId, Function.identity()));
+        assertEquals(2, rows.size());
+
+        for (Long lotId : List.of(lotA, lotB)) {
+            List<ThaiStock> items = thaiStockRepository.findByStockLotId(lotId);
+            StockCostSummaryRow row = rows.get(lotId);
+
+            assertEquals(items.size(), row.getItemCount().intValue());
+            assertAmount(items.stream().map(t -> t.getPriceTotal().add(t.getShippingCost()))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add), row.getTotalCostBeforeVat());
+            assertAmount(items.stream()
+                    .map(t -> vat(t.getPriceTotal().add(t.getShippingCost()), t.getIncludeVat(), t.getVatPercentage()))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add), row.getTotalVatAmount());
+            assertAmount(items.stream().map(ThaiStock::calculateTotalCost).reduce(BigDecimal.ZERO, BigDecimal::add),
+                    row.getTotalCost());
+        }
+    }
+
+    @Test
+    void systemTotalsSeparateItemsOutsideLots() {
+        BigDecimal allChina = chinaStockRepository.findAll().stream()
+                .map(ChinaStock::calculateTotalCost).reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal inLotsChina = chinaStockRepository.findAll().stream()
+                .filter(c -> c.getStockLotId() != null)
+                .map(ChinaStock::calculateTotalCost).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertEquals(4L, chinaStockRepository.summarizeCosts().getItemCount().longValue());
+        assertAmount(allChina, chinaStockRepository.summarizeCosts().getTotalCost());
+        assertEquals(3L, chinaStockRepository.summarizeCostsInLots().getItemCount().longValue());
+        assertAmount(inLotsChina, chinaStockRepository.summarizeCostsInLots().getTotalCost());
+        assertNull(chinaStockRepository.summarizeCostsInLots().getStockLotId());
+    }
+
+    @Test
+    void emptyLotHasNoSummaryRow() {
+        Long emptyLot = persistLot("LOT-EMPTY");
+        assertTrue(chinaStockRepository.summarizeCostsByLotIds(List.of(emptyLot)).isEmpty());
+        assertTrue(thaiStockRepository.summarizeCostsByLotIds(List.of(emptyLot)).isEmpty());
+    }
+}
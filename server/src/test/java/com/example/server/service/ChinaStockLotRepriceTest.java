@@ -0,0 +1,219 @@
+package com.example.server.service;
+
+import com.example.server.dto.LotPriceUpdateResultDTO;
+import com.example.server.entity.ChinaStock;
+import com.example.server.entity.StockBase;
+import com.example.server.entity.StockLot;
+import com.example.server.respository.ChinaStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ ปรับราคาทั้ง Lot แบบ projection + JDBC batch (repriceLot) ต้องได้คอลัมน์ใน china_stock
+ * ตรงกับวิธีเดิม (แก้ entity ที่ถูก manage → calculateFields() → saveAll) ทุกคอลัมน์
+ * รวมแถวที่ original_quantity เป็น NULL และแถวที่ถูกตัดสต็อกไปแล้ว
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.auto_quote_keyword=true")
+class ChinaStockLotRepriceTest {
+
+    private static final String PRICING_COLUMNS_SQL = "SELECT exchange_rate, shipping_china_to_thai_bath, " +
+            "total_value_yuan, total_yuan, total_bath, price_per_unit_bath, final_price_per_pair, " +
+            "original_quantity, unit_cost_at_import, total_cost_at_import FROM china_stock WHERE stock_item_id = ?";
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChinaStockRepository chinaStockRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ChinaStockService chinaStockService;
+    private ProductCostPropagationService costPropagationService;
+
+    private Long legacyLot;
+    private Long repricedLot;
+
+    @BeforeEach
+    void setUp() {
+        costPropagationService = Mockito.mock(ProductCostPropagationService.class);
+
+        // ประกอบ service เอง - repriceLot ใช้เฉพาะ dependency เหล่านี้
+        chinaStockService = new ChinaStockService();
+        ReflectionTestUtils.setField(chinaStockService, "chinaStockRepository", chinaStockRepository);
+        ReflectionTestUtils.setField(chinaStockService, "costCalculationService", new ProductCostCalculationService());
+        ReflectionTestUtils.setField(chinaStockService, "stockDependencyIndex", Mockito.mock(StockDependencyIndex.class));
+        ReflectionTestUtils.setField(chinaStockService, "costPropagationService", costPropagationService);
+        ReflectionTestUtils.setField(chinaStockService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(chinaStockService, "eventPublisher", (ApplicationEventPublisher) event -> { });
+
+        legacyLot = persistLotWithItems("LOT-LEGACY");
+        repricedLot = persistLotWithItems("LOT-REPRICED");
+        entityManager.clear();
+    }
+
+    private Long persistLotWithItems(String name) {
+        StockLot lot = new StockLot();
+        lot.setLotName(name);
+        entityManager.persist(lot);
+        Long lotId = lot.getStockLotId();
+
+        entityManager.persist(chinaStock("ผ้าฝ้าย", lotId, 100, null, "10.333", "3.3", true, "7"));
+        // ถูกตัดสต็อกไปแล้ว: ราคาต่อหน่วยต้องคิดจาก originalQuantity
+        entityManager.persist(chinaStock("ซิป", lotId, 60, 100, "1.005", "0", false, "0"));
+        ChinaStock legacyRow = chinaStock("ป้าย", lotId, 40, null, "2.5", "1.25", true, "7");
+        entityManager.persist(legacyRow);
+        ChinaStock empty = chinaStock("กระดุม", lotId, 0, null, "0.75", "0", false, "0");
+        entityManager.persist(empty);
+        entityManager.flush();
+
+        // ข้อมูลเก่าก่อนมีคอลัมน์ original_quantity + ราคาตอนนำเข้าที่ lock ไว้ด้วยค่าเก่า
+        jdbcTemplate.update("UPDATE china_stock SET original_quantity = NULL, unit_cost_at_import = ? " +
+                "WHERE stock_item_id = ?", new BigDecimal("99.999"), legacyRow.getStockItemId());
+        jdbcTemplate.update("UPDATE china_stock SET original_quantity = NULL WHERE stock_item_id = ?",
+                empty.getStockItemId());
+        return lotId;
+    }
+
+    private ChinaStock chinaStock(String name, Long lotId, int quantity, Integer originalQuantity,
+                                  String unitPriceYuan, String shippingWithinChinaYuan,
+                                  boolean includeVat, String vatPercentage) {
+        ChinaStock stock = new ChinaStock();
+        stock.setName(name);
+        stock.setStatus(StockBase.StockStatus.ACTIVE);
+        stock.setStockLotId(lotId);
+        stock.setQuantity(quantity);
+        stock.setOriginalQuantity(originalQuantity);
+        stock.setUnitPriceYuan(new BigDecimal(unitPriceYuan));
+        stock.setShippingWithinChinaYuan(new BigDecimal(shippingWithinChinaYuan));
+        stock.setExchangeRate(new BigDecimal("4.987"));
+        stock.setShippingChinaToThaiBath(new BigDecimal("12.5"));
+        stock.setIncludeVat(includeVat);
+        stock.setVatPercentage(new BigDecimal(vatPercentage));
+        return stock;
+    }
+
+    // วิธีเดิม: แก้ entity ที่ถูก manage แล้ว saveAll (@PreUpdate เรียก calculateFields() ซ้ำ)
+    private void legacyReprice(Long lotId, Consumer<List<ChinaStock>> change) {
+        List<ChinaStock> stocks = chinaStockRepository.findByStockLotId(lotId);
+        change.accept(stocks);
+        chinaStockRepository.saveAll(stocks);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // คอลัมน์ราคาของแต่ละแถวใน Lot แยกตามชื่อ (อ่านตรงจากตาราง - เห็น NULL จริง)
+    private Map<String, Map<String, Object>> pricingColumns(Long lotId) {
+        Map<String, Map<String, Object>> rows = new TreeMap<>();
+        for (ChinaStock stock : chinaStockRepository.findByStockLotId(lotId)) {
+            rows.put(stock.getName(), jdbcTemplate.queryForMap(PRICING_COLUMNS_SQL, stock.getStockItemId()));
+        }
+        return rows;
+    }
+
+    private void assertSameColumns(Map<String, Map<String, Object>> expected, Map<String, Map<String, Object>> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String name : expected.keySet()) {
+            for (Map.Entry<String, Object> column : expected.get(name).entrySet()) {
+                Object want = column.getValue();
+                Object got = actual.get(name).get(column.getKey());
+                String message = name + "." + column.getKey() + ": expected " + want + " but was " + got;
+                if (want instanceof BigDecimal w && got instanceof BigDecimal g) {
+                    assertEquals(0, w.compareTo(g), message);
+                } else {
+                    assertEquals(want, got, message);
+                }
+            }
+        }
+    }
+
+    @Test
+    void exchangeRateRepriceMatchesLegacySaveAll() {
+        BigDecimal rate = new BigDecimal("5.125");
+
+        legacyReprice(legacyLot, stocks -> stocks.forEach(stock -> {
+            stock.setExchangeRate(rate);
+            stock.calculateFields();
+        }));
+        LotPriceUpdateResultDTO result = chinaStockService.updateExchangeRateForLot(repricedLot, rate);
+        entityManager.clear();
+
+        assertEquals(4, result.getItemCount());
+        assertEquals(4, result.getUpdatedItems());
+        assertSameColumns(pricingColumns(legacyLot), pricingColumns(repricedLot));
+    }
+
+    @Test
+    void shippingDistributionMatchesLegacySaveAll() {
+        BigDecimal totalShipping = new BigDecimal("1000");
+
+        // สูตรเดิมของ distributeShippingCosts (ก่อนเปลี่ยนเป็น repriceLot)
+        legacyReprice(legacyLot, stocks -> {
+            int totalQuantity = stocks.stream()
+                    .mapToInt(s -> s.getOriginalQuantity() != null && s.getOriginalQuantity() > 0
+                            ? s.getOriginalQuantity()
+                            : (s.getQuantity() != null ? s.getQuantity() : 0))
+                    .sum();
+            for (ChinaStock stock : stocks) {
+                int qty = (stock.getOriginalQuantity() != null && stock.getOriginalQuantity() > 0)
+                        ? stock.getOriginalQuantity()
+                        : (stock.getQuantity() != null ? stock.getQuantity() : 0);
+                if (qty > 0) {
+                    stock.setShippingChinaToThaiBath(totalShipping
+                            .multiply(BigDecimal.valueOf(qty))
+                            .divide(BigDecimal.valueOf(totalQuantity), 3, RoundingMode.HALF_UP));
+                    stock.setUnitCostAtImport(null);
+                    stock.setTotalCostAtImport(null);
+                    stock.calculateFields();
+                }
+            }
+        });
+        LotPriceUpdateResultDTO result = chinaStockService.distributeShippingCosts(repricedLot, totalShipping);
+        entityManager.clear();
+
+        // แถวที่ไม่มีจำนวน (กระดุม) ไม่ถูกเขียน - original_quantity ยังเป็น NULL เหมือนวิธีเดิม
+        assertEquals(3, result.getUpdatedItems());
+        assertSameColumns(pricingColumns(legacyLot), pricingColumns(repricedLot));
+    }
+
+    @Test
+    void exchangeRateChangeKeepsLockedImportCost() {
+        Map<String, Map<String, Object>> before = pricingColumns(repricedLot);
+
+        LotPriceUpdateResultDTO result = chinaStockService.updateExchangeRateForLot(repricedLot, new BigDecimal("5.5"));
+        entityManager.clear();
+
+        Map<String, Map<String, Object>> after = pricingColumns(repricedLot);
+        for (String name : before.keySet()) {
+            Map<String, Object> was = before.get(name);
+            Map<String, Object> now = after.get(name);
+            // ราคาตอนนำเข้าที่ lock ไว้ (รวมค่าเก่า 99.999) ไม่ถูกเขียนทับ
+            assertEquals(was.get("unit_cost_at_import"), now.get("unit_cost_at_import"), name);
+            assertEquals(was.get("total_cost_at_import"), now.get("total_cost_at_import"), name);
+            assertEquals(0, new BigDecimal("5.5").compareTo((BigDecimal) now.get("exchange_rate")), name);
+        }
+        BigDecimal cottonBathBefore = (BigDecimal) before.get("ผ้าฝ้าย").get("total_bath");
+        BigDecimal cottonBathAfter = (BigDecimal) after.get("ผ้าฝ้าย").get("total_bath");
+        assertTrue(cottonBathAfter.compareTo(cottonBathBefore) > 0, cottonBathBefore + " -> " + cottonBathAfter);
+
+        // ราคาต่อหน่วยไม่เปลี่ยน - ไม่มี stock ถูกส่งไปคำนวณต้นทุนสินค้าใหม่
+        assertEquals(0, result.getCostChangedItems());
+        assertTrue(result.getItems().stream().allMatch(item -> item.getUnitCostDifference().signum() == 0));
+        Mockito.verify(costPropagationService).stockPricesChanged(List.of());
+    }
+}
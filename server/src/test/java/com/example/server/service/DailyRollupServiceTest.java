@@ -0,0 +1,213 @@
+package com.example.server.service;
+
+import com.example.server.dto.DailyFinanceAggregateRow;
+import com.example.server.dto.DailySalesAggregateRow;
+import com.example.server.entity.DailyFinanceRollup;
+import com.example.server.entity.DailySalesRollup;
+import com.example.server.entity.Order;
+import com.example.server.entity.Transaction;
+import com.example.server.respository.DailyFinanceRollupRepository;
+import com.example.server.respository.DailySalesRollupRepository;
+import com.example.server.respository.OrderRepository;
+import com.example.server.respository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ rollup ที่ดูแลแบบ incremental (DailyRollupEntityListener → afterCommit) ต้องตรงกับ
+ * aggregateDaily* ที่คำนวณจากข้อมูลดิบ หลัง insert / update / delete / ย้ายวันที่
+ * - ไม่ครอบ test ด้วย transaction เพื่อให้ save แต่ละครั้ง commit จริงและ afterCommit ทำงาน
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.auto_quote_keyword=true")
+@Import(DailyRollupService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DailyRollupServiceTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2025, 3, 30);
+    private static final LocalDate DAY_2 = LocalDate.of(2025, 3, 31);
+    private static final LocalDate DAY_3 = LocalDate.of(2025, 4, 1);
+
+    @Autowired
+    private DailyRollupService dailyRollupService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DailySalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private DailyFinanceRollupRepository financeRollupRepository;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAllInBatch();
+        transactionRepository.deleteAllInBatch();
+        salesRollupRepository.deleteAllInBatch();
+        financeRollupRepository.deleteAllInBatch();
+    }
+
+    private Order order(String number, LocalDate day, int hour, Order.OrderSource source,
+                        Order.OrderStatus status, String netAmount) {
+        Order order = new Order();
+        order.setOrderNumber(number);
+        order.setSource(source);
+        order.setStatus(status);
+        order.setOrderDate(day.atTime(hour, 15));
+        order.setNetAmount(new BigDecimal(netAmount));
+        return order;
+    }
+
+    private Transaction transaction(LocalDate day, int hour, Transaction.TransactionType type,
+                                    Transaction.TransactionCategory category, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setType(type);
+        transaction.setCategory(category);
+        transaction.setMode(Transaction.TransactionMode.MANUAL);
+        transaction.setTransactionDate(day.atTime(hour, 45));
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+
+    private Map<String, String> salesRollups() {
+        Map<String, String> rows = new TreeMap<>();
+        for (DailySalesRollup r : dailyRollupService.getSalesRollups(DAY_1, DAY_3)) {
+            rows.put(r.getRollupDate() + "|" + r.getSource() + "|" + r.getStatus(),
+                    r.getOrderCount() + "|" + r.getNetAmount().stripTrailingZeros().toPlainString());
+        }
+        return rows;
+    }
+
+    private Map<String, String> rawSales() {
+        Map<String, String> rows = new TreeMap<>();
+        for (DailySalesAggregateRow r : orderRepository.aggregateDailySales(
+                DAY_1.atStartOfDay(), DAY_3.plusDays(1).atStartOfDay())) {
+            rows.put(r.getRollupDate() + "|" + r.getSource() + "|" + r.getStatus(),
+                    r.getOrderCount() + "|" + r.getNetAmount().stripTrailingZeros().toPlainString());
+        }
+        return rows;
+    }
+
+    private Map<String, String> financeRollups() {
+        Map<String, String> rows = new TreeMap<>();
+        for (DailyFinanceRollup r : dailyRollupService.getFinanceRollups(DAY_1, DAY_3)) {
+            rows.put(r.getRollupDate() + "|" + r.getType() + "|" + r.getCategory(),
+                    r.getTransactionCount() + "|" + r.getAmount().stripTrailingZeros().toPlainString());
+        }
+        return rows;
+    }
+
+    private Map<String, String> rawFinance() {
+        Map<String, String> rows = new TreeMap<>();
+        for (DailyFinanceAggregateRow r : transactionRepository.aggregateDailyFinance(
+                DAY_1.atStartOfDay(), DAY_3.plusDays(1).atStartOfDay())) {
+            rows.put(r.getRollupDate() + "|" + r.getType() + "|" + r.getCategory(),
+                    r.getTransactionCount() + "|" + r.getAmount().stripTrailingZeros().toPlainString());
+        }
+        return rows;
+    }
+
+    private void assertSalesMatchRaw() {
+        assertEquals(rawSales(), salesRollups());
+    }
+
+    private void assertFinanceMatchRaw() {
+        assertEquals(rawFinance(), financeRollups());
+    }
+
+    @Test
+    void salesRollupFollowsInsertUpdateDeleteAndDateMove() {
+        Order a = orderRepository.save(order("R-1", DAY_1, 9, Order.OrderSource.SHOPEE, Order.OrderStatus.PENDING, "120.50"));
+        Order b = orderRepository.save(order("R-2", DAY_1, 23, Order.OrderSource.SHOPEE, Order.OrderStatus.PENDING, "79.50"));
+        Order c = orderRepository.save(order("R-3", DAY_2, 0, Order.OrderSource.TIKTOK, Order.OrderStatus.DELIVERED, "300"));
+        assertSalesMatchRaw();
+        assertEquals("2|200", salesRollups().get(DAY_1 + "|SHOPEE|PENDING"));
+
+        // update ยอด + สถานะ (วันเดิม)
+        Order loaded = orderRepository.findById(a.getOrderId()).orElseThrow();
+        loaded.setNetAmount(new BigDecimal("99.99"));
+        loaded.setStatus(Order.OrderStatus.DELIVERED);
+        orderRepository.save(loaded);
+        assertSalesMatchRaw();
+        assertEquals("1|79.5", salesRollups().get(DAY_1 + "|SHOPEE|PENDING"));
+
+        // ย้ายวันที่ข้ามเดือน - ทั้งวันเดิมและวันใหม่ต้องถูกคำนวณใหม่
+        Order moved = orderRepository.findById(b.getOrderId()).orElseThrow();
+        moved.setOrderDate(DAY_3.atTime(1, 0));
+        orderRepository.save(moved);
+        assertSalesMatchRaw();
+        assertFalse(salesRollups().containsKey(DAY_1 + "|SHOPEE|PENDING"));
+        assertEquals("1|79.5", salesRollups().get(DAY_3 + "|SHOPEE|PENDING"));
+
+        // delete - กลุ่มที่ไม่มี order เหลือต้องหายไปจาก rollup
+        orderRepository.deleteById(c.getOrderId());
+        assertSalesMatchRaw();
+        assertFalse(salesRollups().containsKey(DAY_2 + "|TIKTOK|DELIVERED"));
+    }
+
+    @Test
+    void financeRollupFollowsInsertUpdateDeleteAndDateMove() {
+        Transaction income = transactionRepository.save(transaction(DAY_1, 10, Transaction.TransactionType.INCOME,
+                Transaction.TransactionCategory.ORDER_PAYMENT, "1000.25"));
+        Transaction rent = transactionRepository.save(transaction(DAY_2, 23, Transaction.TransactionType.EXPENSE,
+                Transaction.TransactionCategory.RENT, "5000"));
+        Transaction supplies = transactionRepository.save(transaction(DAY_2, 8, Transaction.TransactionType.EXPENSE,
+                Transaction.TransactionCategory.OFFICE_SUPPLIES, "45.10"));
+        assertFinanceMatchRaw();
+
+        Transaction loaded = transactionRepository.findById(income.getTransactionId()).orElseThrow();
+        loaded.setAmount(new BigDecimal("1200"));
+        loaded.setCategory(Transaction.TransactionCategory.SERVICE_INCOME);
+        transactionRepository.save(loaded);
+        assertFinanceMatchRaw();
+        assertFalse(financeRollups().containsKey(DAY_1 + "|INCOME|ORDER_PAYMENT"));
+        assertEquals("1|1200", financeRollups().get(DAY_1 + "|INCOME|SERVICE_INCOME"));
+
+        Transaction moved = transactionRepository.findById(rent.getTransactionId()).orElseThrow();
+        moved.setTransactionDate(DAY_3.atStartOfDay());
+        transactionRepository.save(moved);
+        assertFinanceMatchRaw();
+        assertFalse(financeRollups().containsKey(DAY_2 + "|EXPENSE|RENT"));
+        assertEquals("1|5000", financeRollups().get(DAY_3 + "|EXPENSE|RENT"));
+
+        transactionRepository.deleteById(supplies.getTransactionId());
+        assertFinanceMatchRaw();
+        assertTrue(financeRollups().keySet().stream().noneMatch(key -> key.startsWith(DAY_2.toString())));
+    }
+
+    @Test
+    void rebuildProducesSameRowsAsIncrementalMaintenance() {
+        orderRepository.save(order("R-10", DAY_1, 12, Order.OrderSource.MANUAL, Order.OrderStatus.PENDING, "10"));
+        orderRepository.save(order("R-11", DAY_3, 12, Order.OrderSource.MANUAL, Order.OrderStatus.PENDING, "20"));
+        transactionRepository.save(transaction(DAY_2, 12, Transaction.TransactionType.EXPENSE,
+                Transaction.TransactionCategory.MARKETING, "33.33"));
+
+        Map<String, String> incrementalSales = salesRollups();
+        Map<String, String> incrementalFinance = financeRollups();
+
+        salesRollupRepository.deleteAllInBatch();
+        financeRollupRepository.deleteAllInBatch();
+        DailyRollupService.RebuildResult result = dailyRollupService.rebuild(DAY_1, DAY_3, 2);
+
+        assertEquals(2, result.getChunks());
+        assertEquals(incrementalSales, salesRollups());
+        assertEquals(incrementalFinance, financeRollups());
+        assertSalesMatchRaw();
+        assertFinanceMatchRaw();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.server.service;
+
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * ⭐ เปิด FakeGeminiServer อัตโนมัติให้ทุก Spring context ของ test (ลงทะเบียนใน META-INF/spring.factories)
+ * แล้วชี้ gemini.api.url / gemini.api.stream-url ไปที่ server ปลอม - test จึงไม่เรียก Gemini จริง
+ * ปรับได้ด้วย property: gemini.fake.enabled, latency-median-ms, latency-p95-ms, error-rate, throttle-rate,
+ * requests-per-minute และ inject FakeGeminiServer (bean "fakeGeminiServer") เพื่อดูสถิติใน test
+ */
+public class FakeGeminiContextInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        ConfigurableEnvironment env = context.getEnvironment();
+        if (!env.getProperty("gemini.fake.enabled", Boolean.class, true)) {
+            return;
+        }
+
+        FakeGeminiServer server = FakeGeminiServer.builder()
+                .latency(FakeGeminiServer.LatencyModel.logNormal(
+                        env.getProperty("gemini.fake.latency-median-ms", Long.class, 0L),
+                        env.getProperty("gemini.fake.latency-p95-ms", Long.class, 0L)))
+                .errorRate(env.getProperty("gemini.fake.error-rate", Double.class, 0.0))
+                .throttleRate(env.getProperty("gemini.fake.throttle-rate", Double.class, 0.0))
+                .requestsPerMinute(env.getProperty("gemini.fake.requests-per-minute", Double.class, 0.0))
+                .start();
+
+        TestPropertyValues.of(
+                "gemini.api.url=" + server.getGenerateContentUrl(),
+                "gemini.api.stream-url=" + server.getStreamGenerateContentUrl(),
+                "gemini.api.key=fake-gemini-key"
+        ).applyTo(context);
+
+        context.getBeanFactory().registerSingleton("fakeGeminiServer", server);
+        context.addApplicationListener(event -> {
+            if (event instanceof ContextClosedEvent) {
+                server.close();
+            }
+        });
+        System.out.println("✅ Fake Gemini server started: " + server.getBaseUrl());
+    }
+}
@@ -0,0 +1,485 @@
+package com.example.server.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * ⭐ Gemini API ปลอมสำหรับ test/benchmark (ไม่ต้องต่อ network)
+ * - รองรับ POST .../models/{model}:generateContent และ :streamGenerateContent?alt=sse ในรูปแบบ JSON เดียวกับของจริง
+ * - จำลอง latency (fixed / uniform / log-normal), error 5xx, 429 แบบสุ่ม และ 429 เมื่อเกิน RPM ที่กำหนด
+ * - คำตอบแบบ canned หรือ template ({{prompt}}, {{promptChars}}, {{requestNumber}}) เลือกตามเนื้อหาของ prompt ได้
+ * - ทำงานบน Reactor Netty - latency ไม่ยึด thread จึงจำลอง request พร้อมกันจำนวนมากได้
+ */
+public class FakeGeminiServer implements AutoCloseable {
+
+    public static final String MODEL_PATH = "/v1beta/models/gemini-fake";
+
+    /**
+     * คำตอบเริ่มต้นของ request ที่มีรูปภาพ (PDF ของ 24Shop) - JSON ตามที่ GeminiPDFParserService คาดไว้
+     */
+    public static final String DEFAULT_PDF_RESPONSE = """
+            {"items":[
+              {"productSku":"100001","productName":"สินค้าทดสอบ A","quantity":12,"unitPrice":"45.00","totalPrice":"540.00"},
+              {"productSku":"100002","productName":"สินค้าทดสอบ B","quantity":6,"unitPrice":"120.00","totalPrice":"720.00"}
+            ]}""";
+
+    public static final String DEFAULT_TEXT_RESPONSE =
+            "สวัสดีครับ นี่คือคำตอบจาก Fake Gemini สำหรับคำถามความยาว {{promptChars}} ตัวอักษร (request #{{requestNumber}})";
+
+    private final Builder config;
+    private final Random random;
+    private final TokenBucket rpmBucket;
+    private final Gson gson = new Gson();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+
+    private DisposableServer server;
+
+    private FakeGeminiServer(Builder config) {
+        this.config = config;
+        this.random = new Random(config.seed);
+        this.rpmBucket = config.requestsPerMinute > 0
+                ? new TokenBucket(Math.max(1, config.requestsPerMinute / 60.0 * 5), config.requestsPerMinute)
+                : null;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public FakeGeminiServer start() {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(config.port)
+                .handle(this::handle)
+                .bindNow();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    /**
+     * ใช้เป็นค่า gemini.api.url
+     */
+    public String getGenerateContentUrl() {
+        return getBaseUrl() + MODEL_PATH + ":generateContent";
+    }
+
+    /**
+     * ใช้เป็นค่า gemini.api.stream-url
+     */
+    public String getStreamGenerateContentUrl() {
+        return getBaseUrl() + MODEL_PATH + ":streamGenerateContent";
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("succeeded", succeeded.get());
+        stats.put("throttled", throttled.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public void resetStats() {
+        requests.set(0);
+        succeeded.set(0);
+        throttled.set(0);
+        failed.set(0);
+    }
+
+    // ============================================
+    // Request handling
+    // ============================================
+
+    private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+        String path = request.fullPath();
+        boolean stream = path.endsWith(":streamGenerateContent");
+        if (!HttpMethod.POST.equals(request.method()) || !(stream || path.endsWith(":generateContent"))) {
+            return response.status(HttpResponseStatus.NOT_FOUND).send();
+        }
+
+        return request.receive().aggregate().asString(StandardCharsets.UTF_8)
+                .defaultIfEmpty("")
+                .flatMap(body -> {
+                    long number = requests.incrementAndGet();
+                    Duration latency;
+                    Outcome outcome;
+                    synchronized (random) {
+                        outcome = decideOutcome();
+                        latency = config.latency.sample(random);
+                    }
+
+                    if (outcome == Outcome.THROTTLED) {
+                        throttled.incrementAndGet();
+                        return Mono.delay(config.errorLatency)
+                                .then(sendError(response, 429, "RESOURCE_EXHAUSTED",
+                                        "Resource has been exhausted (e.g. check quota)."));
+                    }
+                    if (outcome == Outcome.FAILED) {
+                        failed.incrementAndGet();
+                        return Mono.delay(config.errorLatency)
+                                .then(sendError(response, 503, "UNAVAILABLE", "The model is overloaded. Please try again later."));
+                    }
+
+                    FakeRequest fakeRequest = parseRequest(body, number);
+                    String text = render(fakeRequest);
+                    succeeded.incrementAndGet();
+
+                    return stream
+                            ? Mono.delay(latency).then(sendStream(response, fakeRequest, text))
+                            : Mono.delay(latency).then(sendJson(response, fakeRequest, text));
+                });
+    }
+
+    private Outcome decideOutcome() {
+        if (rpmBucket != null) {
+            synchronized (rpmBucket) {
+                long now = System.nanoTime();
+                if (!rpmBucket.hasToken(now)) {
+                    return Outcome.THROTTLED;
+                }
+                rpmBucket.consume(now);
+            }
+        }
+        double roll = random.nextDouble();
+        if (roll < config.throttleRate) {
+            return Outcome.THROTTLED;
+        }
+        if (roll < config.throttleRate + config.errorRate) {
+            return Outcome.FAILED;
+        }
+        return Outcome.OK;
+    }
+
+    private Mono<Void> sendJson(HttpServerResponse response, FakeRequest request, String text) {
+        JsonObject json = responseJson(text, usage(request, text));
+        return response.status(HttpResponseStatus.OK)
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=UTF-8")
+                .sendString(Mono.just(gson.toJson(json)), StandardCharsets.UTF_8)
+                .then();
+    }
+
+    /**
+     * ส่งคำตอบทีละ chunk แบบ SSE - usageMetadata อยู่ใน chunk สุดท้ายเหมือนของจริง
+     */
+    private Mono<Void> sendStream(HttpServerResponse response, FakeRequest request, String text) {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += config.streamChunkChars) {
+            chunks.add(text.substring(i, Math.min(text.length(), i + config.streamChunkChars)));
+        }
+        if (chunks.isEmpty()) {
+            chunks.add("");
+        }
+        JsonObject usage = usage(request, text);
+        int last = chunks.size() - 1;
+
+        Flux<String> events = Flux.range(0, chunks.size())
+                .delayElements(config.streamChunkInterval)
+                .map(i -> "data: " + gson.toJson(responseJson(chunks.get(i), i == last ? usage : null)) + "\n\n");
+
+        return response.status(HttpResponseStatus.OK)
+                .header(HttpHeaderNames.CONTENT_TYPE, "text/event-stream; charset=UTF-8")
+                .sendString(events, StandardCharsets.UTF_8)
+                .then();
+    }
+
+    private Mono<Void> sendError(HttpServerResponse response, int code, String status, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        error.addProperty("status", status);
+        JsonObject body = new JsonObject();
+        body.add("error", error);
+
+        return response.status(code)
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=UTF-8")
+                .sendString(Mono.just(gson.toJson(body)), StandardCharsets.UTF_8)
+                .then();
+    }
+
+    private JsonObject responseJson(String text, JsonObject usage) {
+        JsonObject part = new JsonObject();
+        part.addProperty("text", text);
+        JsonArray parts = new JsonArray();
+        parts.add(part);
+
+        JsonObject content = new JsonObject();
+        content.add("parts", parts);
+        content.addProperty("role", "model");
+
+        JsonObject candidate = new JsonObject();
+        candidate.add("content", content);
+        candidate.addProperty("finishReason", "STOP");
+        candidate.addProperty("index", 0);
+        JsonArray candidates = new JsonArray();
+        candidates.add(candidate);
+
+        JsonObject json = new JsonObject();
+        json.add("candidates", candidates);
+        if (usage != null) {
+            json.add("usageMetadata", usage);
+        }
+        json.addProperty("modelVersion", "gemini-fake");
+        return json;
+    }
+
+    private JsonObject usage(FakeRequest request, String text) {
+        // รูปภาพ 1 รูปนับประมาณ 258 token ตามเอกสารของ Gemini
+        int promptTokens = TokenEstimator.estimate(request.getPrompt()) + request.getInlineDataParts() * 258;
+        int candidateTokens = TokenEstimator.estimate(text);
+        JsonObject usage = new JsonObject();
+        usage.addProperty("promptTokenCount", promptTokens);
+        usage.addProperty("candidatesTokenCount", candidateTokens);
+        usage.addProperty("totalTokenCount", promptTokens + candidateTokens);
+        return usage;
+    }
+
+    private FakeRequest parseRequest(String body, long number) {
+        StringBuilder prompt = new StringBuilder();
+        int inlineDataParts = 0;
+        try {
+            JsonObject json = gson.fromJson(body, JsonObject.class);
+            JsonArray contents = json != null && json.has("contents") ? json.getAsJsonArray("contents") : new JsonArray();
+            for (JsonElement content : contents) {
+                JsonArray parts = content.getAsJsonObject().getAsJsonArray("parts");
+                if (parts == null) {
+                    continue;
+                }
+                for (JsonElement partElement : parts) {
+                    JsonObject part = partElement.getAsJsonObject();
+                    if (part.has("text")) {
+                        prompt.append(part.get("text").getAsString());
+                    }
+                    if (part.has("inline_data") || part.has("inlineData")) {
+                        inlineDataParts++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Fake Gemini: invalid request body: " + e.getMessage());
+        }
+        return new FakeRequest(prompt.toString(), inlineDataParts, number);
+    }
+
+    private String render(FakeRequest request) {
+        String template = null;
+        for (Responder responder : config.responders) {
+            if (responder.matcher.test(request)) {
+                template = responder.template.apply(request);
+                break;
+            }
+        }
+        if (template == null) {
+            template = request.getInlineDataParts() > 0 ? DEFAULT_PDF_RESPONSE : config.defaultTemplate;
+        }
+        return template
+                .replace("{{prompt}}", request.getPrompt())
+                .replace("{{promptChars}}", String.valueOf(request.getPrompt().length()))
+                .replace("{{requestNumber}}", String.valueOf(request.getRequestNumber()));
+    }
+
+    private enum Outcome {
+        OK, THROTTLED, FAILED
+    }
+
+    /**
+     * ข้อมูลของ request ที่ใช้เลือก/สร้างคำตอบ
+     */
+    public static class FakeRequest {
+        private final String prompt;
+        private final int inlineDataParts;
+        private final long requestNumber;
+
+        FakeRequest(String prompt, int inlineDataParts, long requestNumber) {
+            this.prompt = prompt;
+            this.inlineDataParts = inlineDataParts;
+            this.requestNumber = requestNumber;
+        }
+
+        public String getPrompt() {
+            return prompt;
+        }
+
+        public int getInlineDataParts() {
+            return inlineDataParts;
+        }
+
+        public long getRequestNumber() {
+            return requestNumber;
+        }
+    }
+
+    private static class Responder {
+        final Predicate<FakeRequest> matcher;
+        final Function<FakeRequest, String> template;
+
+        Responder(Predicate<FakeRequest> matcher, Function<FakeRequest, String> template) {
+            this.matcher = matcher;
+            this.template = template;
+        }
+    }
+
+    /**
+     * ✅ การกระจายของ latency
+     */
+    @FunctionalInterface
+    public interface LatencyModel {
+
+        Duration sample(Random random);
+
+        static LatencyModel none() {
+            return random -> Duration.ZERO;
+        }
+
+        static LatencyModel fixed(long millis) {
+            return random -> Duration.ofMillis(millis);
+        }
+
+        static LatencyModel uniform(long minMillis, long maxMillis) {
+            return random -> Duration.ofMillis(minMillis + (long) (random.nextDouble() * (maxMillis - minMillis)));
+        }
+
+        /**
+         * log-normal ตาม median และ p95 (ใกล้เคียง latency จริงของ LLM ที่มีหางยาว)
+         */
+        static LatencyModel logNormal(long medianMillis, long p95Millis) {
+            if (medianMillis <= 0) {
+                return none();
+            }
+            double mu = Math.log(medianMillis);
+            double sigma = Math.log(Math.max(p95Millis, medianMillis) / (double) medianMillis) / 1.645;
+            return random -> Duration.ofMillis(Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+        }
+    }
+
+    public static class Builder {
+        private int port = 0;
+        private long seed = 42;
+        private LatencyModel latency = LatencyModel.none();
+        private Duration errorLatency = Duration.ofMillis(20);
+        private double errorRate;
+        private double throttleRate;
+        private double requestsPerMinute;
+        private int streamChunkChars = 24;
+        private Duration streamChunkInterval = Duration.ofMillis(15);
+        private String defaultTemplate = DEFAULT_TEXT_RESPONSE;
+        private final List<Responder> responders = new ArrayList<>();
+
+        /**
+         * port ที่ใช้ (0 = สุ่ม port ที่ว่าง)
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder latency(LatencyModel latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        public Builder errorLatency(Duration errorLatency) {
+            this.errorLatency = errorLatency;
+            return this;
+        }
+
+        /**
+         * สัดส่วน request ที่ตอบ 503 (0.0 - 1.0)
+         */
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * สัดส่วน request ที่ตอบ 429 แบบสุ่ม (0.0 - 1.0)
+         */
+        public Builder throttleRate(double throttleRate) {
+            this.throttleRate = throttleRate;
+            return this;
+        }
+
+        /**
+         * ตอบ 429 เมื่อเกินจำนวน request ต่อนาที (0 = ไม่จำกัด) เหมือนโควต้า RPM ของ API key
+         */
+        public Builder requestsPerMinute(double requestsPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+            return this;
+        }
+
+        public Builder streamChunks(int chars, Duration interval) {
+            this.streamChunkChars = Math.max(1, chars);
+            this.streamChunkInterval = interval;
+            return this;
+        }
+
+        /**
+         * คำตอบ (template) สำหรับ request ที่ไม่มี responder ตัวไหนตรง
+         */
+        public Builder defaultResponse(String template) {
+            this.defaultTemplate = template;
+            return this;
+        }
+
+        /**
+         * คำตอบเมื่อ prompt มีข้อความนี้ (ตรวจตามลำดับที่เพิ่ม)
+         */
+        public Builder respondWhenPromptContains(String text, String template) {
+            return respond(request -> request.getPrompt().contains(text), request -> template);
+        }
+
+        public Builder respond(Predicate<FakeRequest> matcher, Function<FakeRequest, String> template) {
+            responders.add(new Responder(matcher, template));
+            return this;
+        }
+
+        public FakeGeminiServer build() {
+            return new FakeGeminiServer(this);
+        }
+
+        public FakeGeminiServer start() {
+            return build().start();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.server.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⭐ Benchmark: ต้นทุนทั้งแคตตาล็อก และยอดรวมรายงาน - BigDecimal เดิม เทียบกับ FixedPointMoney
+ * (ข้อมูลอยู่ในหน่วยความจำแล้ว ไม่รวมเวลา query DB)
+ * รัน: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.example.server.service.FixedPointMoneyBenchmark
+ * ดู allocation ด้วย: เพิ่ม .addProfiler("gc") ใน main
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointMoneyBenchmark {
+
+    private static final int INGREDIENTS_PER_PRODUCT = 6;
+    private static final int STOCK_ITEMS = 2_000;
+    private static final int ROLLUP_ROWS = 365 * 40;
+
+    @Param({"10000", "50000"})
+    private int catalogSize;
+
+    // ingredient i ของสินค้า p อยู่ที่ index p * INGREDIENTS_PER_PRODUCT + i
+    private int[] stockIndex;
+    private BigDecimal[] requiredQuantities;
+    private BigDecimal[] unitCosts;
+    private long[] unitCostMicros;
+    private BigDecimal[] rollupAmounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+
+        unitCosts = new BigDecimal[STOCK_ITEMS];
+        unitCostMicros = new long[STOCK_ITEMS];
+        for (int s = 0; s < STOCK_ITEMS; s++) {
+            unitCosts[s] = new BigDecimal(BigInteger.valueOf(1_000 + random.nextInt(500_000)), 3);
+            unitCostMicros[s] = FixedPointMoney.of(unitCosts[s]);
+        }
+
+        int ingredients = catalogSize * INGREDIENTS_PER_PRODUCT;
+        stockIndex = new int[ingredients];
+        requiredQuantities = new BigDecimal[ingredients];
+        for (int i = 0; i < ingredients; i++) {
+            stockIndex[i] = random.nextInt(STOCK_ITEMS);
+            requiredQuantities[i] = new BigDecimal(BigInteger.valueOf(1 + random.nextInt(200_000)), 4);
+        }
+
+        rollupAmounts = new BigDecimal[ROLLUP_ROWS];
+        for (int r = 0; r < ROLLUP_ROWS; r++) {
+            rollupAmounts[r] = new BigDecimal(BigInteger.valueOf(random.nextInt(50_000_000)), 2);
+        }
+    }
+
+    /**
+     * สูตรเดิม: ต้นทุน ingredient = unit x qty (ปัด 2 ตำแหน่ง), ต้นทุนสินค้า = ผลรวมที่ยังไม่ปัดแล้วปัดครั้งเดียว
+     */
+    @Benchmark
+    public void catalogCostBigDecimal(Blackhole blackhole) {
+        for (int p = 0; p < catalogSize; p++) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = p * INGREDIENTS_PER_PRODUCT; i < (p + 1) * INGREDIENTS_PER_PRODUCT; i++) {
+                BigDecimal ingredientCost = unitCosts[stockIndex[i]].multiply(requiredQuantities[i]);
+                blackhole.consume(ingredientCost.setScale(2, RoundingMode.HALF_UP));
+                total = total.add(ingredientCost);
+            }
+            blackhole.consume(total.setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    @Benchmark
+    public void catalogCostFixedPoint(Blackhole blackhole) {
+        for (int p = 0; p < catalogSize; p++) {
+            FixedPointMoney.ExactSum total = new FixedPointMoney.ExactSum();
+            for (int i = p * INGREDIENTS_PER_PRODUCT; i < (p + 1) * INGREDIENTS_PER_PRODUCT; i++) {
+                long unitCost = unitCostMicros[stockIndex[i]];
+                long quantity = FixedPointMoney.of(requiredQuantities[i]);
+                blackhole.consume(FixedPointMoney.multiply(unitCost, quantity, 2));
+                total.addProduct(unitCost, quantity);
+            }
+            blackhole.consume(total.round(2));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal reportSumBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : rollupAmounts) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal reportSumFixedPoint() {
+        long total = 0L;
+        for (BigDecimal amount : rollupAmounts) {
+            total += FixedPointMoney.of(amount);
+        }
+        return FixedPointMoney.toBigDecimal(total, 2);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FixedPointMoneyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.server.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Property test: ทุก operation ของ FixedPointMoney ต้องได้ผลเท่ากับ BigDecimal + HALF_UP เดิมทุกประการ
+ * สุ่มค่าแบบกำหนด seed (ทำซ้ำได้) ครอบคลุมค่าติดลบ, ค่าที่อยู่กึ่งกลางพอดี และกรณี long ล้น
+ */
+class FixedPointMoneyPropertyTest {
+
+    private static final int TRIALS = 100_000;
+
+    private final Random random = new Random(20240601L);
+
+    @Test
+    void conversionRoundTripsAtEveryScale() {
+        for (int i = 0; i < TRIALS; i++) {
+            BigDecimal value = randomDecimal(4, 1_000_000_000L);
+            int scale = random.nextInt(FixedPointMoney.SCALE + 1);
+
+            BigDecimal expected = value.setScale(scale, RoundingMode.HALF_UP);
+            BigDecimal actual = FixedPointMoney.toBigDecimal(FixedPointMoney.of(value), scale);
+
+            assertEquals(expected, actual, () -> value + " @" + scale);
+            assertEquals(FixedPointMoney.of(expected), FixedPointMoney.round(FixedPointMoney.of(value), scale),
+                    () -> "round " + value + " @" + scale);
+        }
+    }
+
+    @Test
+    void multiplyMatchesBigDecimalSetScale() {
+        for (int i = 0; i < TRIALS; i++) {
+            BigDecimal price = randomDecimal(3, 10_000_000L);
+            BigDecimal quantity = randomDecimal(4, 100_000L);
+            int scale = random.nextInt(5);
+
+            long expected = FixedPointMoney.of(price.multiply(quantity).setScale(scale, RoundingMode.HALF_UP));
+            long actual = FixedPointMoney.multiply(FixedPointMoney.of(price), FixedPointMoney.of(quantity), scale);
+
+            assertEquals(expected, actual, () -> price + " x " + quantity + " @" + scale);
+        }
+    }
+
+    @Test
+    void percentOfMatchesVatFormula() {
+        for (int i = 0; i < TRIALS; i++) {
+            BigDecimal amount = randomDecimal(2, 100_000_000L);
+            BigDecimal rate = randomDecimal(2, 10_000L);
+
+            long expected = FixedPointMoney.of(amount.multiply(rate).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP));
+            long actual = FixedPointMoney.percentOf(FixedPointMoney.of(amount), FixedPointMoney.of(rate), 2);
+
+            assertEquals(expected, actual, () -> amount + " x " + rate + "%");
+        }
+    }
+
+    @Test
+    void divideMatchesBigDecimalDivide() {
+        for (int i = 0; i < TRIALS; i++) {
+            BigDecimal total = randomDecimal(2, 1_000_000_000L);
+            BigDecimal quantity = randomDecimal(4, 10_000_000L);
+            if (quantity.signum() == 0) {
+                continue;
+            }
+            int scale = random.nextInt(5);
+
+            long expected = FixedPointMoney.of(total.divide(quantity, scale, RoundingMode.HALF_UP));
+            long actual = FixedPointMoney.divide(FixedPointMoney.of(total), FixedPointMoney.of(quantity), scale);
+
+            assertEquals(expected, actual, () -> total + " / " + quantity + " @" + scale);
+        }
+    }
+
+    @Test
+    void exactSumRoundsOnceLikeBigDecimalAccumulation() {
+        for (int i = 0; i < TRIALS / 10; i++) {
+            BigDecimal expected = BigDecimal.ZERO;
+            FixedPointMoney.ExactSum sum = new FixedPointMoney.ExactSum();
+
+            int terms = 1 + random.nextInt(12);
+            for (int t = 0; t < terms; t++) {
+                if (random.nextBoolean()) {
+                    BigDecimal unitCost = randomDecimal(3, 1_000_000L);
+                    BigDecimal quantity = randomDecimal(4, 100_000L);
+                    expected = expected.add(unitCost.multiply(quantity));
+                    sum.addProduct(FixedPointMoney.of(unitCost), FixedPointMoney.of(quantity));
+                } else {
+                    BigDecimal amount = randomDecimal(2, 10_000_000L);
+                    expected = expected.add(amount);
+                    sum.add(FixedPointMoney.of(amount));
+                }
+            }
+
+            assertEquals(FixedPointMoney.of(expected.setScale(2, RoundingMode.HALF_UP)), sum.round(2),
+                    "sum " + expected);
+        }
+    }
+
+    @Test
+    void halfwayValuesRoundAwayFromZero() {
+        assertEquals(new BigDecimal("0.13"), FixedPointMoney.toBigDecimal(FixedPointMoney.of(new BigDecimal("0.125")), 2));
+        assertEquals(new BigDecimal("-0.13"), FixedPointMoney.toBigDecimal(FixedPointMoney.of(new BigDecimal("-0.125")), 2));
+        assertEquals(new BigDecimal("0.12"), FixedPointMoney.toBigDecimal(FixedPointMoney.of(new BigDecimal("0.124999")), 2));
+
+        // 0.5 x 0.25 = 0.125 → 0.13
+        assertEquals(FixedPointMoney.of(new BigDecimal("0.13")),
+                FixedPointMoney.multiply(FixedPointMoney.of(new BigDecimal("0.5")), FixedPointMoney.of(new BigDecimal("0.25")), 2));
+        // 1 / 8 = 0.125 → 0.13, -1 / 8 → -0.13
+        assertEquals(FixedPointMoney.of(new BigDecimal("0.13")),
+                FixedPointMoney.divide(FixedPointMoney.ONE, FixedPointMoney.ofUnits(8), 2));
+        assertEquals(FixedPointMoney.of(new BigDecimal("-0.13")),
+                FixedPointMoney.divide(-FixedPointMoney.ONE, FixedPointMoney.ofUnits(8), 2));
+    }
+
+    @Test
+    void overflowFallsBackToBigDecimalWithSameResult() {
+        // ผลคูณ micro-units ล้น long แต่ผลลัพธ์ (~1.2 หมื่นล้าน) ยังอยู่ในช่วงของเงิน
+        BigDecimal price = new BigDecimal("98765.123");
+        BigDecimal quantity = new BigDecimal("123456.7891");
+
+        long expected = FixedPointMoney.of(price.multiply(quantity).setScale(2, RoundingMode.HALF_UP));
+        assertEquals(expected, FixedPointMoney.multiply(FixedPointMoney.of(price), FixedPointMoney.of(quantity), 2));
+
+        FixedPointMoney.ExactSum sum = new FixedPointMoney.ExactSum()
+                .addProduct(FixedPointMoney.of(price), FixedPointMoney.of(quantity))
+                .add(FixedPointMoney.of(new BigDecimal("0.005")));
+        assertEquals(FixedPointMoney.of(price.multiply(quantity).add(new BigDecimal("0.005"))
+                .setScale(2, RoundingMode.HALF_UP)), sum.round(2));
+
+        assertThrows(ArithmeticException.class, () -> FixedPointMoney.divide(FixedPointMoney.ONE, 0L, 2));
+    }
+
+    @Test
+    void sumBeyondLongRangeDoesNotWrap() {
+        // ยอดรวมเกินช่วง micro-units ของ long - toBigDecimal ต้องได้ค่าถูกต้อง ไม่วนกลับเป็นค่าติดลบ
+        long term = Long.MAX_VALUE / 2;
+        FixedPointMoney.ExactSum sum = new FixedPointMoney.ExactSum();
+        BigDecimal expected = BigDecimal.ZERO;
+        for (int i = 0; i < 3; i++) {
+            sum.add(term);
+            expected = expected.add(BigDecimal.valueOf(term, FixedPointMoney.SCALE));
+        }
+
+        assertEquals(expected.setScale(2, RoundingMode.HALF_UP), sum.toBigDecimal(2));
+        assertTrue(sum.toBigDecimal(2).signum() > 0);
+        assertThrows(ArithmeticException.class, () -> sum.round(2));
+    }
+
+    // ค่าสุ่มมีทศนิยม 0..maxScale ตำแหน่ง, |unscaled| < bound และมีโอกาสลงท้ายด้วย 5 (กึ่งกลาง) บ่อยกว่าปกติ
+    private BigDecimal randomDecimal(int maxScale, long bound) {
+        int scale = random.nextInt(maxScale + 1);
+        long unscaled = random.nextLong(bound);
+        if (random.nextInt(4) == 0) {
+            unscaled = unscaled / 10 * 10 + 5;
+        }
+        if (random.nextBoolean()) {
+            unscaled = -unscaled;
+        }
+        return new BigDecimal(BigInteger.valueOf(unscaled), scale);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.server.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⭐ Benchmark: backtest + เลือก model สำหรับทั้ง catalog (ไม่รวมเวลา query DB)
+ * รัน: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.example.server.service.ForecastBacktesterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForecastBacktesterBenchmark {
+
+    private static final int HISTORY_MONTHS = 36;
+
+    @Param({"1000", "5000"})
+    private int catalogSize;
+
+    private double[][] catalog;
+    private ForecastBacktester backtester;
+
+    @Setup
+    public void setUp() {
+        backtester = new ForecastBacktester();
+        catalog = new double[catalogSize][HISTORY_MONTHS];
+
+        Random random = new Random(42);
+        for (int sku = 0; sku < catalogSize; sku++) {
+            int pattern = sku % 4;
+            double base = 20 + random.nextInt(500);
+            for (int m = 0; m < HISTORY_MONTHS; m++) {
+                double value = switch (pattern) {
+                    case 0 -> base + random.nextGaussian() * base * 0.1;                       // คงที่
+                    case 1 -> base + m * base * 0.05 + random.nextGaussian() * base * 0.1;     // มีแนวโน้ม
+                    case 2 -> base * (1 + 0.4 * Math.sin(2 * Math.PI * m / 12))
+                            + random.nextGaussian() * base * 0.05;                            // ฤดูกาล
+                    default -> random.nextInt(4) == 0 ? base : 0;                              // ใช้เป็นช่วงๆ
+                };
+                catalog[sku][m] = Math.max(0, Math.round(value));
+            }
+        }
+    }
+
+    @Benchmark
+    public void fullCatalogModelSelection(Blackhole blackhole) {
+        for (double[] series : catalog) {
+            blackhole.consume(backtester.selectBestModel(series));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ForecastBacktesterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.server.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ ค่าคาดการณ์ของแต่ละ model และ MAE / accuracy ของ ForecastBacktester บน series เล็กที่คำนวณมือได้
+ */
+class ForecastModelTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void movingAverageUsesOnlyTheLastWindowBeforeLength() {
+        ForecastModel model = new MovingAverageForecastModel(3);
+        double[] series = {1, 2, 3, 4, 5, 100};
+
+        assertEquals(4.0, model.forecast(series, 5), EPSILON);
+        assertEquals(1.5, model.forecast(series, 2), EPSILON);
+        assertEquals(0.0, model.forecast(series, 0), EPSILON);
+        assertEquals("MOVING_AVERAGE_3", model.getName());
+        assertThrows(IllegalArgumentException.class, () -> new MovingAverageForecastModel(0));
+    }
+
+    @Test
+    void holtLinearFollowsTrend() {
+        ForecastModel model = new HoltLinearForecastModel(0.5, 0.5);
+
+        // series เส้นตรง → คาดการณ์จุดถัดไปบนเส้นเดิมพอดี
+        assertEquals(10.0, model.forecast(new double[]{2, 4, 6, 8}, 4), EPSILON);
+
+        // level: 10 → 12 → 12.5, trend: 2 → 2 → 1.25
+        assertEquals(13.75, model.forecast(new double[]{10, 12, 11}, 3), EPSILON);
+    }
+
+    @Test
+    void holtWintersRepeatsStableSeason() {
+        ForecastModel model = new HoltWintersForecastModel(0.3, 0.1, 0.3, 2);
+        double[] series = {10, 20, 10, 20, 10, 20};
+
+        assertEquals(4, model.getMinHistory());
+        assertEquals(10.0, model.forecast(series, 6), EPSILON);
+        assertEquals(20.0, model.forecast(series, 5), EPSILON);
+        assertThrows(IllegalArgumentException.class, () -> new HoltWintersForecastModel(0.3, 0.1, 0.3, 1));
+    }
+
+    @Test
+    void crostonDividesDemandSizeByInterval() {
+        ForecastModel model = new CrostonForecastModel(0.1);
+
+        assertEquals(2.0, model.forecast(new double[]{0, 4, 0, 4}, 4), EPSILON);
+        // demand: 3 → 3.3, interval: 1 → 1.2
+        assertEquals(2.75, model.forecast(new double[]{3, 0, 0, 6}, 4), EPSILON);
+        assertEquals(0.0, model.forecast(new double[]{0, 0, 0}, 3), EPSILON);
+    }
+
+    @Test
+    void backtesterReportsMaeAndAccuracy() {
+        ForecastBacktester backtester = new ForecastBacktester(List.of(new MovingAverageForecastModel(1)));
+
+        // วัดเดือน 3..5: คาดการณ์ 1, 1, 3 เทียบจริง 1, 3, 3 → error รวม 2, ยอดจริงรวม 7
+        ForecastBacktester.BacktestResult result = backtester.selectBestModel(new double[]{1, 1, 1, 1, 3, 3});
+
+        assertEquals("MOVING_AVERAGE_1", result.getModelName());
+        assertEquals(3, result.getEvaluatedPeriods());
+        assertEquals(2.0 / 3, result.getMeanAbsoluteError(), EPSILON);
+        assertEquals(100.0 * (1 - 2.0 / 7), result.getAccuracy(), EPSILON);
+        assertEquals(3.0, result.getPredictedNextPeriod(), EPSILON);
+    }
+
+    @Test
+    void backtesterPicksLowestMaeAndPrefersEarlierModelOnTie() {
+        ForecastBacktester backtester = new ForecastBacktester(List.of(
+                new MovingAverageForecastModel(3), new MovingAverageForecastModel(1)));
+
+        // MA3 MAE = (0 + 2 + 4/3) / 3, MA1 MAE = 2/3
+        assertEquals("MOVING_AVERAGE_1", backtester.selectBestModel(new double[]{1, 1, 1, 1, 3, 3}).getModelName());
+
+        ForecastBacktester.BacktestResult tie = backtester.selectBestModel(new double[]{5, 5, 5, 5, 5});
+        assertEquals("MOVING_AVERAGE_3", tie.getModelName());
+        assertEquals(0.0, tie.getMeanAbsoluteError(), EPSILON);
+        assertEquals(100.0, tie.getAccuracy(), EPSILON);
+        assertEquals(2, tie.getEvaluatedPeriods());
+    }
+
+    @Test
+    void backtesterFallsBackWithoutEnoughHistoryAndClampsNegativeForecast() {
+        ForecastBacktester.BacktestResult shortSeries = new ForecastBacktester().selectBestModel(new double[]{3, 6, 9});
+        assertEquals("MOVING_AVERAGE_3", shortSeries.getModelName());
+        assertEquals(6.0, shortSeries.getPredictedNextPeriod(), EPSILON);
+        assertEquals(0, shortSeries.getEvaluatedPeriods());
+
+        // Holt: level 4, trend -6 → -2 ถูกปัดเป็น 0
+        ForecastBacktester holt = new ForecastBacktester(List.of(new HoltLinearForecastModel(0.5, 0.5)));
+        assertEquals(0.0, holt.selectBestModel(new double[]{10, 4}).getPredictedNextPeriod(), EPSILON);
+    }
+}
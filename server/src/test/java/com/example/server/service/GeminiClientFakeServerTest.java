@@ -0,0 +1,106 @@
+package com.example.server.service;
+
+import com.example.server.config.GeminiRateLimitProperties;
+import com.example.server.dto.ChatRequest;
+import com.example.server.dto.ChatResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ ทดสอบเส้นทาง AI ทั้งเส้นกับ FakeGeminiServer (ไม่ใช้ network)
+ */
+class GeminiClientFakeServerTest {
+
+    private FakeGeminiServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void chatReturnsTemplatedAnswerWithTokenUsage() {
+        server = FakeGeminiServer.builder()
+                .respondWhenPromptContains("ยอดขาย", "ยอดขายรวม 12,345 บาท")
+                .start();
+        GeminiService geminiService = new GeminiService(GeminiTestClients.client(server, GeminiTestClients.unlimited(), 4, 10));
+
+        ChatResponse response = geminiService.chat(new ChatRequest("ยอดขายเดือนนี้เท่าไหร่", null)).block();
+
+        assertNotNull(response);
+        assertEquals("ยอดขายรวม 12,345 บาท", response.getResponse());
+        assertNotNull(response.getPromptTokens());
+        assertTrue(response.getPromptTokens() > 0);
+    }
+
+    @Test
+    void streamingSplitsAnswerIntoChunks() {
+        server = FakeGeminiServer.builder()
+                .defaultResponse("ตอบแบบ streaming ทีละส่วนจนครบทั้งข้อความ")
+                .streamChunks(5, Duration.ofMillis(1))
+                .start();
+        GeminiService geminiService = new GeminiService(GeminiTestClients.client(server, GeminiTestClients.unlimited(), 4, 10));
+
+        List<String> chunks = geminiService.streamChat(new ChatRequest("ทดสอบ", null)).collectList().block();
+
+        assertNotNull(chunks);
+        assertTrue(chunks.size() > 1);
+        assertEquals("ตอบแบบ streaming ทีละส่วนจนครบทั้งข้อความ", String.join("", chunks));
+    }
+
+    @Test
+    void throttledRequestsAreRetriedThenSurfaced() {
+        server = FakeGeminiServer.builder().throttleRate(1.0).start();
+        GeminiClient client = GeminiTestClients.client(server, GeminiTestClients.unlimited(), 4, 10);
+
+        WebClientResponseException error = assertThrows(WebClientResponseException.class,
+                () -> client.generateContent("test", "{\"contents\":[]}").block());
+
+        assertEquals(429, error.getStatusCode().value());
+        assertEquals(3, server.getRequestCount()); // 1 ครั้ง + retry 2 ครั้ง
+    }
+
+    @Test
+    void limiterRejectsWhenFeatureDoesNotQueue() {
+        server = FakeGeminiServer.builder().latency(FakeGeminiServer.LatencyModel.fixed(200)).start();
+        GeminiRateLimitProperties properties = new GeminiRateLimitProperties();
+        properties.getFeatures().put("pdf-parse", new GeminiRateLimitProperties.FeatureLimit(60, 1, 4, 0, 0));
+        GeminiClient client = GeminiTestClients.client(server, GeminiTestClients.limiter(properties), 4, 10);
+
+        Mono<String> first = client.generateContent("pdf-parse", "{\"contents\":[]}");
+        Mono<String> second = client.generateContent("pdf-parse", "{\"contents\":[]}");
+
+        assertThrows(GeminiRateLimiter.GeminiQuotaExceededException.class,
+                () -> Mono.zip(first, second).block());
+    }
+
+    @Test
+    void grantedPermitIsReleasedWhenSubscriberCancelsBeforeDelivery() {
+        GeminiRateLimitProperties properties = new GeminiRateLimitProperties();
+        properties.setMaxConcurrent(1);
+        GeminiRateLimiter limiter = GeminiTestClients.limiter(properties);
+
+        // subscriber ยังไม่ request → ได้สิทธิ์แล้วแต่ Permit ยังไม่ถูกส่ง จากนั้นยกเลิก
+        BaseSubscriber<GeminiRateLimiter.Permit> idle = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+            }
+        };
+        limiter.acquire("chat").subscribe(idle);
+        idle.dispose();
+
+        assertEquals(0, limiter.getUsage().get("inFlight"));
+        assertNotNull(limiter.acquire("chat").block(Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.server.service;
+
+import com.example.server.dto.ChatRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ⭐ Benchmark: throughput ของ chat และ upload PDF ทั้งเส้นทาง (GeminiService / GeminiPDFParserService → GeminiClient → HTTP)
+ * กับ FakeGeminiServer ที่จำลอง latency แบบ log-normal - ไม่ต้องต่อ network
+ * 1 op = ยิง concurrency request พร้อมกันแล้วรอครบทุกตัว (request/s = ops/s × concurrency)
+ * รัน: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.example.server.service.GeminiEndToEndBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class GeminiEndToEndBenchmark {
+
+    @Param({"300", "1500"})
+    private long medianLatencyMs;
+
+    @Param({"8", "32"})
+    private int concurrency;
+
+    private FakeGeminiServer server;
+    private Scheduler aiTaskScheduler;
+    private GeminiService geminiService;
+    private GeminiPDFParserService pdfParserService;
+    private MockMultipartFile pdfFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = FakeGeminiServer.builder()
+                .latency(FakeGeminiServer.LatencyModel.logNormal(medianLatencyMs, medianLatencyMs * 3))
+                .start();
+
+        aiTaskScheduler = Schedulers.newBoundedElastic(8, 100, "bench-ai-task");
+        GeminiClient client = GeminiTestClients.client(server, GeminiTestClients.unlimited(), 20, 500);
+        geminiService = new GeminiService(client);
+
+        pdfParserService = new GeminiPDFParserService();
+        ReflectionTestUtils.setField(pdfParserService, "geminiAIService", new GeminiAIService(client, aiTaskScheduler));
+        pdfFile = new MockMultipartFile("file", "order.pdf", "application/pdf", GeminiTestClients.samplePdf());
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+        aiTaskScheduler.dispose();
+    }
+
+    @Benchmark
+    public long chat() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> geminiService.chat(new ChatRequest("ยอดขายเดือนนี้เท่าไหร่ #" + i, null)), concurrency)
+                .count()
+                .block();
+    }
+
+    @Benchmark
+    public long chatStream() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> geminiService.streamChat(new ChatRequest("สรุปสต็อกใกล้หมด #" + i, null)).count(), concurrency)
+                .count()
+                .block();
+    }
+
+    @Benchmark
+    public long pdfUpload() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> pdfParserService.parseOrderItemsFromPDFAsync(pdfFile), concurrency)
+                .count()
+                .block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeminiEndToEndBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.server.service;
+
+import com.example.server.config.GeminiRateLimitProperties;
+import com.example.server.respository.GeminiUsageDailyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * สร้าง GeminiClient / GeminiRateLimiter ที่ชี้ไปยัง FakeGeminiServer โดยไม่ต้องเปิด Spring context
+ */
+final class GeminiTestClients {
+
+    private GeminiTestClients() {
+    }
+
+    static GeminiRateLimiter limiter(GeminiRateLimitProperties properties) {
+        return new GeminiRateLimiter(properties, Mockito.mock(GeminiUsageDailyRepository.class));
+    }
+
+    static GeminiRateLimiter unlimited() {
+        GeminiRateLimitProperties properties = new GeminiRateLimitProperties();
+        properties.setEnabled(false);
+        return limiter(properties);
+    }
+
+    static GeminiClient client(FakeGeminiServer server, GeminiRateLimiter limiter, int maxConnections, long retryBackoffMs) {
+        GeminiClient client = new GeminiClient(
+                WebClient.builder(),
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class),
+                limiter,
+                maxConnections, 1000, 30, 5000, 50, 170, 2, retryBackoffMs, 5, 30, 16);
+        ReflectionTestUtils.setField(client, "apiKey", "fake-gemini-key");
+        ReflectionTestUtils.setField(client, "apiUrl", server.getGenerateContentUrl());
+        ReflectionTestUtils.setField(client, "streamApiUrl", server.getStreamGenerateContentUrl());
+        return client;
+    }
+
+    // PDF หน้าเดียวที่มีบรรทัดสินค้าแบบ 24Shop (ให้ fallback parser อ่านได้ด้วย)
+    static byte[] samplePdf() throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(50, 700);
+                content.showText("1 100001 10000001 SAMPLE ITEM EXC 7.00 12 12.00 0 45.00 0.00 540.00");
+                content.endText();
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.server.service;
+
+import com.example.server.entity.Customer;
+import com.example.server.respository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Load test: ระหว่างที่มีการ upload PDF 24Shop 20 รายการค้างรอ Gemini (FakeGeminiServer ตอบช้า ~3 วินาที)
+ * endpoint อื่น (GET /api/products) ต้องยังตอบได้เร็ว - upload ต้องไม่ยึด thread ของ Tomcat ระหว่างรอ
+ * - จำกัด Tomcat ไว้ 8 threads (น้อยกว่าจำนวน upload) ถ้า upload ยึด thread ไว้ GET จะต้องรอจน Gemini ตอบ
+ * - ปิด GeminiRateLimiter เพื่อให้ upload ทั้ง 20 รายการไปถึง Gemini จริง (ไม่ fallback ทันที)
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+        "server.tomcat.threads.max=8",
+        "server.tomcat.threads.min-spare=2",
+        "gemini.fake.latency-median-ms=3000",
+        "gemini.fake.latency-p95-ms=4000",
+        "gemini.limiter.enabled=false"
+})
+@AutoConfigureTestDatabase
+class GeminiUploadResponsivenessTest {
+
+    private static final int CONCURRENT_UPLOADS = 20;
+    private static final int PROBES = 10;
+    private static final Duration MAX_PROBE_LATENCY = Duration.ofMillis(1000);
+    private static final Duration MIN_GEMINI_LATENCY = Duration.ofMillis(1500);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FakeGeminiServer fakeGeminiServer;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    void unrelatedEndpointStaysResponsiveDuringConcurrentUploads() throws Exception {
+        Customer customer = new Customer();
+        customer.setCustomerName("ลูกค้าทดสอบ load");
+        customer.setCustomerPhone("0800000000");
+        customer.setCustomerAddress("กรุงเทพฯ");
+        Long customerId = customerRepository.save(customer).getCustomerId();
+
+        WebClient webClient = WebClient.builder().baseUrl("http://localhost:" + port).build();
+        byte[] pdf = GeminiTestClients.samplePdf();
+
+        // warm-up (โหลด class / cache ครั้งแรก) ก่อนเริ่มวัด
+        getProducts(webClient).block(Duration.ofSeconds(30));
+        fakeGeminiServer.resetStats();
+
+        long uploadStart = System.nanoTime();
+        CompletableFuture<List<Map<String, Object>>> uploads = Flux.range(0, CONCURRENT_UPLOADS)
+                .flatMap(i -> upload(webClient, pdf, "LOAD-" + i, customerId), CONCURRENT_UPLOADS)
+                .collectList()
+                .toFuture();
+
+        // รอจน upload ส่วนใหญ่ไปค้างรอ Gemini แล้วค่อยวัด
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (fakeGeminiServer.getRequestCount() < CONCURRENT_UPLOADS / 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(fakeGeminiServer.getRequestCount() >= CONCURRENT_UPLOADS / 2,
+                "uploads did not reach Gemini: " + fakeGeminiServer.getStats());
+
+        List<Long> probeMillis = new ArrayList<>();
+        for (int i = 0; i < PROBES; i++) {
+            long start = System.nanoTime();
+            getProducts(webClient).block(Duration.ofSeconds(30));
+            probeMillis.add(Duration.ofNanos(System.nanoTime() - start).toMillis());
+        }
+        boolean uploadsPendingDuringProbes = !uploads.isDone();
+
+        List<Map<String, Object>> results = uploads.get(60, TimeUnit.SECONDS);
+        Duration uploadElapsed = Duration.ofNanos(System.nanoTime() - uploadStart);
+        System.out.println("📊 GET /api/products during " + CONCURRENT_UPLOADS + " uploads: " + probeMillis
+                + " ms, uploads finished in " + uploadElapsed.toMillis() + " ms, gemini " + fakeGeminiServer.getStats());
+
+        assertTrue(uploadsPendingDuringProbes, "uploads finished before the probes - latency was not measured under load");
+        long worst = probeMillis.stream().mapToLong(Long::longValue).max().orElseThrow();
+        assertTrue(worst < MAX_PROBE_LATENCY.toMillis(),
+                "GET /api/products took " + worst + " ms while uploads were waiting on Gemini: " + probeMillis);
+
+        assertEquals(CONCURRENT_UPLOADS, results.size());
+        assertTrue(uploadElapsed.compareTo(MIN_GEMINI_LATENCY) > 0);
+        for (Map<String, Object> result : results) {
+            assertEquals(Boolean.TRUE, result.get("success"), String.valueOf(result));
+            assertEquals("Gemini AI", result.get("parsedWith"), String.valueOf(result));
+        }
+    }
+
+    private Mono<String> getProducts(WebClient webClient) {
+        return webClient.get()
+                .uri("/api/products")
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+
+    private Mono<Map<String, Object>> upload(WebClient webClient, byte[] pdf, String orderNumber, Long customerId) {
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.part("file", pdf, MediaType.APPLICATION_PDF).filename("order.pdf");
+        body.part("orderNumber", orderNumber);
+        body.part("customerId", customerId.toString());
+
+        return webClient.post()
+                .uri("/api/orders/upload/24shop-pdf")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(body.build()))
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() { });
+    }
+}
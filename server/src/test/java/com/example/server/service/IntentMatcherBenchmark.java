@@ -0,0 +1,83 @@
+package com.example.server.service;
+
+import com.example.server.config.IntentDictionaryProperties;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ⭐ Benchmark: วิเคราะห์คำถาม Smart Chat แบบเดิม (contains ทีละคำ + regex ทุกครั้ง) เทียบกับ IntentMatcher
+ * รัน: mvn test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=com.example.server.service.IntentMatcherBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntentMatcherBenchmark {
+
+    private static final String[] QUERIES = {
+            "สินค้าขายดี 10 อันดับของปี 2568 มีอะไรบ้าง",
+            "ยอดขายเดือน 10/2568 เทียบกับเดือนก่อน",
+            "สรุปรายรับรายจ่ายและกำไรตั้งแต่เดือน 1 ถึงเดือน 6 ปี 2567",
+            "สต็อกวัตถุดิบตัวไหนใกล้หมด ควรสั่งเพิ่มเท่าไหร่",
+            "เดือนนี้จ่ายเงินเดือนพนักงานไปแล้วเท่าไหร่ ค้างจ่ายกี่คน",
+            "show me the best seller products and revenue for year 2024"
+    };
+
+    private IntentMatcher matcher;
+    private List<List<String>> legacyKeywords;
+
+    @Setup
+    public void setUp() {
+        matcher = new IntentMatcher(new IntentDictionaryProperties());
+        legacyKeywords = List.copyOf(matcher.getDictionary().values());
+    }
+
+    @Benchmark
+    public void legacyContainsAndRegex(Blackhole blackhole) {
+        for (String query : QUERIES) {
+            String lowerQuery = query.toLowerCase();
+            for (List<String> keywords : legacyKeywords) {
+                int matches = 0;
+                for (String keyword : keywords) {
+                    if (lowerQuery.contains(keyword.toLowerCase())) {
+                        matches++;
+                    }
+                }
+                blackhole.consume(matches);
+            }
+            blackhole.consume(legacyFind(query, "(\\d{1,2})/(\\d{4})"));
+            blackhole.consume(legacyFind(query, "เดือน\\s*(\\d{1,2})\\s*(?:ปี)?\\s*(\\d{4})"));
+            blackhole.consume(legacyFind(query, "เดือน\\s*(\\d{1,2})\\s*(?:ถึง|ถึงเดือน|ตั้งแต่เดือน)?\\s*(\\d{1,2})"));
+            blackhole.consume(legacyFind(query, "(?:ปี|พ\\.ศ\\.|พ\\.ศ|year)\\s*(\\d{4})"));
+        }
+    }
+
+    @Benchmark
+    public void singlePassIntentMatcher(Blackhole blackhole) {
+        for (String query : QUERIES) {
+            blackhole.consume(matcher.match(query));
+        }
+    }
+
+    private static String legacyFind(String query, String regex) {
+        Matcher m = Pattern.compile(regex).matcher(query);
+        return m.find() ? m.group(1) : null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IntentMatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.server.service;
+
+import com.example.server.entity.Transaction;
+import com.example.server.entity.TransactionBalance;
+import com.example.server.respository.TransactionBalanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ การเขียน transaction ที่แตะยอดสะสมทั้ง 2 ประเภท ต้อง lock แถว transaction_balances
+ * ตามลำดับเดียวกับ lockAll() (ปิดงวด/ตรวจยอด) - ไม่อย่างนั้น 2 transaction จะ deadlock กัน
+ * - ไม่ครอบ test ด้วย transaction - แต่ละ thread มี transaction ของตัวเอง
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.auto_quote_keyword=true")
+@Import(TransactionLedgerService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionLedgerLockOrderTest {
+
+    @Autowired
+    private TransactionLedgerService ledgerService;
+
+    @Autowired
+    private TransactionBalanceRepository balanceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        balanceRepository.deleteAllInBatch();
+        ledgerService.reconcile();
+    }
+
+    @Test
+    void lockAllOrderMatchesBalanceLockOrder() {
+        List<Transaction.TransactionType> lockOrder = transactionTemplate.execute(status ->
+                balanceRepository.lockAll().stream().map(TransactionBalance::getType).toList());
+
+        assertEquals(List.of(Transaction.TransactionType.values()).stream()
+                .sorted(TransactionLedgerService.BALANCE_LOCK_ORDER).toList(), lockOrder);
+    }
+
+    @Test
+    void typeChangeDoesNotDeadlockWithConcurrentClose() throws Exception {
+        List<Transaction.TransactionType> lockOrder = transactionTemplate.execute(status ->
+                balanceRepository.lockAll().stream().map(TransactionBalance::getType).toList());
+        Transaction.TransactionType first = lockOrder.get(0);
+        Transaction.TransactionType second = lockOrder.get(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch firstLocked = new CountDownLatch(1);
+        try {
+            // ปิดงวด: lock แถวแรกตามลำดับ lockAll() แล้วรอให้การเขียนเริ่มก่อนจึง lock แถวที่สอง
+            Future<?> close = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                balanceRepository.applyDelta(first, BigDecimal.ZERO, 0, LocalDateTime.now());
+                firstLocked.countDown();
+                sleep(300);
+                balanceRepository.applyDelta(second, BigDecimal.ZERO, 0, LocalDateTime.now());
+            }));
+
+            // การเขียน: เปลี่ยนประเภท second -> first (ถอนยอดจากประเภทหนึ่ง ลงอีกประเภทหนึ่ง)
+            assertTrue(firstLocked.await(5, TimeUnit.SECONDS));
+            Future<?> write = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                Transaction updated = new Transaction();
+                updated.setTransactionId(1L);
+                updated.setType(first);
+                updated.setAmount(new BigDecimal("250.00"));
+                updated.setTransactionDate(LocalDateTime.now());
+                ledgerService.recordUpdated(second, new BigDecimal("250.00"), updated.getTransactionDate(), updated);
+            }));
+
+            close.get(10, TimeUnit.SECONDS);
+            write.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        TransactionLedgerService.LedgerTotals totals = ledgerService.getBalances();
+        assertEquals(0, totals.amountOf(first).compareTo(new BigDecimal("250.00")));
+        assertEquals(0, totals.amountOf(second).compareTo(new BigDecimal("-250.00")));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}